@@ -3,9 +3,11 @@ package com.kAIS.KAIMyEntity;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Set;
@@ -23,6 +25,9 @@ public class PhysicsManager {
     private static final Logger logger = LogManager.getLogger();
     private static PhysicsManager instance;
 
+    // 모든 world/collider가 공유하는 ODE 작업 스레드 풀 (코어 수 - 1, 데몬 스레드)
+    private static Object sharedExecutor;
+
     private boolean initialized = false;
     private ClassLoader odeClassLoader;
 
@@ -53,12 +58,54 @@ public class PhysicsManager {
     // ✅ 메서드 캐시 추가
     private Method collideMethod;
     private Method setQuickStepNumIterationsMethod;
+    private Method lastIterationCountMethod;
+    private Method lastMaxAdjustmentMethod;
+    private Method createSnapshotMethod;
+    private Method restoreSnapshotMethod;
+    private Method randSetSeedMethod;
+
+    // 병렬 충돌: space가 페어 리스트를 만들고 narrowphase는 스레드별 버퍼로 실행
+    private Object parallelCollider;
+    // threads>0로 만든 전용 풀 (공유 풀이면 null), 교체/해제 시 shutdown
+    private Object collisionExecutor;
+    private Object pairFilter;
+    private Object contactHandler;
+    private Method parallelCollideMethod;
+
+    // 배치 레이 캐스트 (높이 스캔/라이다): 레이 N개를 한 번에 space에 질의
+    private Object rayCaster;
+    private Method rayCastMethod;
+    private Method rayCastStaticOnlyMethod;
+    private boolean rayCastStaticOnly = false;
+
+    // 아일랜드 슬리핑: 조용한 로봇(아일랜드) 전체를 재우고 스텝에서 건너뜀
+    private boolean islandSleeping = false;
+
+    // 솔버 스레딩 (island 병렬 / LCP 병렬), 1 = 단일 스레드
+    private int solverIslandThreads = 1;
+    private int solverLcpThreads = 1;
 
     // 물리 설정
     private double gravity = 9.81;
     private double stepSize = 1.0 / 60.0;
     private int maxContacts = 32;
 
+    // 스텝 시간 누적 (RL 메트릭이 차분으로 읽음)
+    private volatile long totalStepNanos = 0;
+    private volatile long totalStepCount = 0;
+
+    // 솔버 반복 통계 (마지막 스텝 값 + 누적 반복 수)
+    private volatile int lastSolverIterations = 0;
+    private volatile double lastSolverResidual = Double.NaN;
+    private volatile long totalSolverIterations = 0;
+
+    // ✅ 적응형 반복: 기본 반복 안에서 tolerance 아래로 수렴하면 조기 종료,
+    //    기본 반복 후에도 크면 maxIterations까지 추가 반복
+    private int solverBaseIterations = 30;
+    private int solverMaxIterations = 80;
+    private double solverTolerance = 1e-3;
+    private boolean solverAdaptive = true;
+
     // OdeConstants 값들
     private int dContactBounce;
     private int dContactApprox1;
@@ -159,6 +206,10 @@ public class PhysicsManager {
         try {
             Method createHashSpace = odeHelperClass.getMethod("createHashSpace");
             space = createHashSpace.invoke(null);
+            // 블록 geom이 대부분 정적이므로 해시 테이블을 스텝 간 유지
+            try {
+                space.getClass().getMethod("setPersistent", boolean.class).invoke(space, true);
+            } catch (NoSuchMethodException ignored) { }
         } catch (NoSuchMethodException e) {
             Method createSimpleSpace = odeHelperClass.getMethod("createSimpleSpace");
             space = createSimpleSpace.invoke(null);
@@ -178,6 +229,20 @@ public class PhysicsManager {
         // ✅ 중력 설정: Y-down으로 수정
         setGravity(0, -gravity, 0);
 
+        // ✅ quickStep iteration 캐시 (setupWorldParameters보다 먼저: 50회 설정이 적용되도록)
+        try {
+            setQuickStepNumIterationsMethod = dWorldClass.getMethod("setQuickStepNumIterations", int.class);
+        } catch (Exception ignored) {
+            setQuickStepNumIterationsMethod = null;
+        }
+        try {
+            lastIterationCountMethod = dWorldClass.getMethod("getQuickStepLastIterationCount");
+            lastMaxAdjustmentMethod = dWorldClass.getMethod("getQuickStepLastMaxAdjustment");
+        } catch (Exception ignored) {
+            lastIterationCountMethod = null;
+            lastMaxAdjustmentMethod = null;
+        }
+
         // World 파라미터 설정
         setupWorldParameters();
 
@@ -187,13 +252,6 @@ public class PhysicsManager {
                 dGeomClass, dGeomClass, int.class, dContactGeomBufferClass
         );
 
-        // ✅ quickStep iteration 캐시
-        try {
-            setQuickStepNumIterationsMethod = dWorldClass.getMethod("setQuickStepNumIterations", int.class);
-        } catch (Exception ignored) {
-            setQuickStepNumIterationsMethod = null;
-        }
-
         initialized = true;
         logger.info("ODE4J Physics initialized successfully (gravityY = {})", this.gravity);
     }
@@ -225,19 +283,7 @@ public class PhysicsManager {
      */
     private void handleNearCallback(Object g1, Object g2) {
         try {
-            boolean g1Dynamic = dynamicGeoms.contains(g1);
-            boolean g2Dynamic = dynamicGeoms.contains(g2);
-
-            // self-collision 방지
-            if (g1Dynamic && g2Dynamic) {
-                return;
-            }
-
-            Method getBody = dGeomClass.getMethod("getBody");
-            Object b1 = getBody.invoke(g1);
-            Object b2 = getBody.invoke(g2);
-
-            if (b1 == null && b2 == null) {
+            if (!acceptPair(g1, g2)) {
                 return;
             }
 
@@ -251,50 +297,303 @@ public class PhysicsManager {
             // ✅ 캐시된 collideMethod 사용
             int numc = (Integer) collideMethod.invoke(null, g1, g2, maxContacts, contactGeomBuffer);
 
-            if (debugContacts && numc > 0) {
-                logger.info("contacts: {}", numc);
+            addContactJoints(g1, g2, contacts, 0, numc);
+
+        } catch (Exception e) {
+            logger.debug("Near callback error: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 페어 필터: 동적-동적(self-collision) 및 body 없는 geom끼리는 제외
+     */
+    private boolean acceptPair(Object g1, Object g2) throws Exception {
+        // self-collision 방지
+        if (dynamicGeoms.contains(g1) && dynamicGeoms.contains(g2)) {
+            return false;
+        }
+
+        Method getBody = dGeomClass.getMethod("getBody");
+        Object b1 = getBody.invoke(g1);
+        Object b2 = getBody.invoke(g2);
+        if (b1 == null && b2 == null) {
+            return false;
+        }
+
+        // 두 body가 모두 자고 있을 때만 narrowphase 생략
+        // 정적 geom과의 접촉은 항상 만듦: 깨어 있는 body에 부딪혀 이번 스텝에 깨어나는 body는
+        // island 빌더가 충돌 이후에 깨우므로, 여기서 빼면 지지 없이 한 스텝을 낙하함
+        if (islandSleeping && b1 != null && b2 != null) {
+            Method isEnabled = dBodyClass.getMethod("isEnabled");
+            return (Boolean) isEnabled.invoke(b1) || (Boolean) isEnabled.invoke(b2);
+        }
+        return true;
+    }
+
+    /**
+     * contacts[offset, offset + numc) 에 대해 접촉 조인트 생성
+     */
+    private void addContactJoints(Object g1, Object g2, Object contacts, int offset, int numc) throws Exception {
+        if (debugContacts && numc > 0) {
+            logger.info("contacts: {}", numc);
+        }
+        if (numc <= 0) return;
+
+        Method getBody = dGeomClass.getMethod("getBody");
+        Object b1 = getBody.invoke(g1);
+        Object b2 = getBody.invoke(g2);
+
+        Method getContact = dContactBufferClass.getMethod("get", int.class);
+
+        for (int i = offset; i < offset + numc; i++) {
+            Object contact = getContact.invoke(contacts, i);
+
+            Object surface = dContactClass.getField("surface").get(contact);
+            Class<?> surfaceClass = surface.getClass();
+
+            // ✅ 단단한 접촉 모드
+            int mode = dContactApprox1;
+            if (useSoftContacts) {
+                mode |= (dContactSoftERP | dContactSoftCFM);
             }
 
-            Method getContact = dContactBufferClass.getMethod("get", int.class);
+            surfaceClass.getField("mode").setInt(surface, mode);
+            surfaceClass.getField("mu").setDouble(surface, contactMu);
+            surfaceClass.getField("bounce").setDouble(surface, 0.0);
+            surfaceClass.getField("bounce_vel").setDouble(surface, 0.0);
 
-            for (int i = 0; i < numc; i++) {
-                Object contact = getContact.invoke(contacts, i);
+            if (useSoftContacts) {
+                // ✅ 단단하게: ERP=0.8, CFM=1e-5
+                surfaceClass.getField("soft_erp").setDouble(surface, contactSoftERP);
+                surfaceClass.getField("soft_cfm").setDouble(surface, contactSoftCFM);
+            }
 
-                Object surface = dContactClass.getField("surface").get(contact);
-                Class<?> surfaceClass = surface.getClass();
+            Method createContactJoint = odeHelperClass.getMethod(
+                    "createContactJoint",
+                    dWorldClass, dJointGroupClass, dContactClass
+            );
+            Object joint = createContactJoint.invoke(null, world, contactGroup, contact);
 
-                // ✅ 단단한 접촉 모드
-                int mode = dContactApprox1;
-                if (useSoftContacts) {
-                    mode |= (dContactSoftERP | dContactSoftCFM);
-                }
+            Method attach = dJointClass.getMethod("attach", dBodyClass, dBodyClass);
+            attach.invoke(joint, b1, b2);
+        }
+    }
 
-                surfaceClass.getField("mode").setInt(surface, mode);
-                surfaceClass.getField("mu").setDouble(surface, contactMu);
-                surfaceClass.getField("bounce").setDouble(surface, 0.0);
-                surfaceClass.getField("bounce_vel").setDouble(surface, 0.0);
+    // ========================================================================
+    // 병렬 충돌
+    // ========================================================================
 
-                if (useSoftContacts) {
-                    // ✅ 단단하게: ERP=0.8, CFM=1e-5
-                    surfaceClass.getField("soft_erp").setDouble(surface, contactSoftERP);
-                    surfaceClass.getField("soft_cfm").setDouble(surface, contactSoftCFM);
-                }
+    /**
+     * 병렬 충돌 모드 on/off.
+     * broadphase 페어 리스트를 만든 뒤 narrowphase를 청크 단위로 여러 스레드에서 실행하고,
+     * 접촉 조인트는 페어 순서대로 메인 스레드에서 생성 (스레드 수와 무관하게 결정론적).
+     *
+     * @param threads narrowphase 스레드 수 (0 이하면 코어 수 - 1)
+     */
+    public void setParallelCollision(boolean enabled, int threads) {
+        if (!initialized) return;
+
+        if (!enabled) {
+            parallelCollider = null;
+            pairFilter = null;
+            contactHandler = null;
+            parallelCollideMethod = null;
+            shutdownCollisionExecutor();
+            logger.info("Parallel collision disabled");
+            return;
+        }
 
-                Method createContactJoint = odeHelperClass.getMethod(
-                        "createContactJoint",
-                        dWorldClass, dJointGroupClass, dContactClass
-                );
-                Object joint = createContactJoint.invoke(null, world, contactGroup, contact);
+        try {
+            final String base = "com.kAIS.ode4j.ode.";
+            Class<?> colliderClass = odeClassLoader.loadClass(base + "DParallelCollider");
+            Class<?> filterInterface = odeClassLoader.loadClass(base + "DParallelCollider$DPairFilter");
+            Class<?> handlerInterface = odeClassLoader.loadClass(base + "DParallelCollider$DContactHandler");
+            Class<?> executorInterface = odeClassLoader.loadClass(base + "threading.task.TaskExecutor");
+            Class<?> executorClass = odeClassLoader.loadClass(base + "threading.task.MultiThreadTaskExecutor");
+
+            // 이전 전용 풀은 새 collider를 만들기 전에 정리 (토글할 때마다 풀이 새는 것 방지)
+            parallelCollider = null;
+            shutdownCollisionExecutor();
+            Object executor;
+            if (threads > 0) {
+                executor = executorClass.getConstructor(int.class).newInstance(threads);
+                collisionExecutor = executor;
+            } else {
+                executor = getSharedExecutor();
+            }
+            int n = (Integer) executorInterface.getMethod("getThreadCount").invoke(executor);
+
+            Object collider = odeHelperClass.getMethod("createParallelCollider", executorInterface)
+                    .invoke(null, executor);
+            colliderClass.getMethod("setMaxContacts", int.class).invoke(collider, maxContacts);
+
+            pairFilter = Proxy.newProxyInstance(odeClassLoader, new Class<?>[]{filterInterface},
+                    (proxy, method, args) -> {
+                        if ("accept".equals(method.getName()) && args != null && args.length == 2) {
+                            try {
+                                return acceptPair(args[0], args[1]);
+                            } catch (Exception e) {
+                                logger.debug("Pair filter error: {}", e.getMessage());
+                                return false;
+                            }
+                        }
+                        return null;
+                    });
+            contactHandler = Proxy.newProxyInstance(odeClassLoader, new Class<?>[]{handlerInterface},
+                    (proxy, method, args) -> {
+                        if ("contacts".equals(method.getName()) && args != null && args.length == 5) {
+                            try {
+                                addContactJoints(args[0], args[1], args[2], (Integer) args[3], (Integer) args[4]);
+                            } catch (Exception e) {
+                                logger.debug("Contact handler error: {}", e.getMessage());
+                            }
+                        }
+                        return null;
+                    });
+            parallelCollideMethod = colliderClass.getMethod("collide", dSpaceClass, filterInterface, handlerInterface);
+            parallelCollider = collider;
+            logger.info("Parallel collision enabled ({} threads)", n);
+        } catch (Exception e) {
+            parallelCollider = null;
+            shutdownCollisionExecutor();
+            logger.warn("Parallel collision not available: {}", e.getMessage());
+        }
+    }
 
-                Method attach = dJointClass.getMethod("attach", dBodyClass, dBodyClass);
-                attach.invoke(joint, b1, b2);
+    /**
+     * setParallelCollision이 만든 전용 풀 종료 (공유 풀은 건드리지 않음)
+     */
+    private void shutdownCollisionExecutor() {
+        if (collisionExecutor == null) return;
+        try {
+            collisionExecutor.getClass().getMethod("shutdown").invoke(collisionExecutor);
+        } catch (Exception e) {
+            logger.debug("Collision executor shutdown failed: {}", e.getMessage());
+        }
+        collisionExecutor = null;
+    }
+
+    public boolean isParallelCollision() {
+        return parallelCollider != null;
+    }
+
+    // ========================================================================
+    // 배치 레이 캐스트
+    // ========================================================================
+
+    /**
+     * 레이 N개의 최근접 히트를 한 번에 구함 (DRayCaster).
+     * DRay geom을 레이마다 만들고 collide2 + near callback을 도는 대신,
+     * space를 한 번 정리한 뒤 레이별로 가속 구조만 타고 결과를 primitive 배열로 받음.
+     *
+     * @param origins    레이 시작점 (레이당 3개)
+     * @param dirs       레이 방향 (레이당 3개, 정규화 불필요)
+     * @param lengths    레이 길이
+     * @param outDistances 히트 거리, 미스면 -1
+     * @param outNormals 히트 노멀 (레이당 3개), null 가능
+     * @param staticOnly true면 바디에 붙은 geom(로봇 자신 포함)은 무시하고 지형만 맞춤
+     * @return 히트한 레이 수 (실패 시 -1)
+     */
+    public int castRays(int count, double[] origins, double[] dirs, double[] lengths,
+                        double[] outDistances, double[] outNormals, boolean staticOnly) {
+        if (!initialized || space == null) return -1;
+
+        try {
+            if (rayCaster == null) {
+                final String base = "com.kAIS.ode4j.ode.";
+                Class<?> casterClass = odeClassLoader.loadClass(base + "DRayCaster");
+                Class<?> executorInterface = odeClassLoader.loadClass(base + "threading.task.TaskExecutor");
+                // 로봇당 빔 수십 개 수준이면 호출 스레드에서 도는 편이 빠름
+                rayCaster = odeHelperClass.getMethod("createRayCaster", executorInterface)
+                        .invoke(null, (Object) null);
+                rayCastMethod = casterClass.getMethod("cast", dSpaceClass, int.class,
+                        double[].class, double[].class, double[].class,
+                        double[].class, double[].class, Array.newInstance(dGeomClass, 0).getClass());
+                rayCastStaticOnlyMethod = casterClass.getMethod("setStaticOnly", boolean.class);
+                rayCastStaticOnly = false;
+                logger.info("Batched ray caster created");
+            }
+            if (staticOnly != rayCastStaticOnly) {
+                rayCastStaticOnlyMethod.invoke(rayCaster, staticOnly);
+                rayCastStaticOnly = staticOnly;
             }
+            return (Integer) rayCastMethod.invoke(rayCaster, space, count, origins, dirs, lengths,
+                    outDistances, outNormals, null);
+        } catch (Exception e) {
+            logger.debug("Ray cast failed: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    // ========================================================================
+    // 솔버 스레딩
+    // ========================================================================
+
+    /**
+     * 공유 MultiThreadTaskExecutor (처음 호출 시 생성)
+     */
+    private synchronized Object getSharedExecutor() throws Exception {
+        if (sharedExecutor == null) {
+            int n = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            sharedExecutor = odeClassLoader.loadClass("com.kAIS.ode4j.ode.threading.task.MultiThreadTaskExecutor")
+                    .getConstructor(int.class).newInstance(n);
+            logger.info("ODE task executor created ({} threads)", n);
+        }
+        return sharedExecutor;
+    }
 
+    /**
+     * 멀티스레드 스테핑 설정.
+     * - islandThreads: 동시에 스텝할 island 수 상한 (로봇 여러 대 = island 여러 개)
+     * - lcpThreads: island 하나 안에서 QuickStep LCP 반복에 쓸 스레드 수 (1이면 stepper 내부는 단일 스레드)
+     * 둘 다 1 이하이면 SameThreadTaskExecutor로 되돌림.
+     */
+    public void setSolverThreading(int islandThreads, int lcpThreads) {
+        if (!initialized || world == null) return;
+
+        try {
+            final String base = "com.kAIS.ode4j.ode.";
+            Class<?> executorInterface = odeClassLoader.loadClass(base + "threading.task.TaskExecutor");
+            Method setTaskExecutor = dWorldClass.getMethod("setTaskExecutor", executorInterface);
+            Method setStepperMultithreading = dWorldClass.getMethod("setStepperMultithreading", boolean.class);
+
+            islandThreads = Math.max(1, islandThreads);
+            lcpThreads = Math.max(1, lcpThreads);
+
+            if (islandThreads <= 1 && lcpThreads <= 1) {
+                Object same = odeClassLoader.loadClass(base + "threading.task.SameThreadTaskExecutor")
+                        .getConstructor().newInstance();
+                setTaskExecutor.invoke(world, same);
+                setStepperMultithreading.invoke(world, false);
+            } else {
+                Class<?> paramsClass = odeClassLoader.loadClass(base + "DWorld$dWorldSteppingThreadingParameters");
+                Object params = paramsClass.getConstructor().newInstance();
+                paramsClass.getField("param_set").setInt(params, 0x001 | 0x002 | 0x004);
+                paramsClass.getField("world_islands_iteration_max_threads").setInt(params, islandThreads);
+                paramsClass.getField("island_stepping_max_threads").setInt(params, lcpThreads);
+                paramsClass.getField("lcp_solving_max_threads").setInt(params, lcpThreads);
+                dWorldClass.getMethod("setSteppingThreadingParameters", paramsClass).invoke(world, params);
+
+                setTaskExecutor.invoke(world, getSharedExecutor());
+                setStepperMultithreading.invoke(world, lcpThreads > 1);
+            }
+
+            solverIslandThreads = islandThreads;
+            solverLcpThreads = lcpThreads;
+            logger.info("Solver threading: islands={}, lcp={}", islandThreads, lcpThreads);
         } catch (Exception e) {
-            logger.debug("Near callback error: {}", e.getMessage());
+            logger.warn("Failed to set solver threading: {}", e.getMessage());
         }
     }
 
+    public int getSolverIslandThreads() {
+        return solverIslandThreads;
+    }
+
+    public int getSolverLcpThreads() {
+        return solverLcpThreads;
+    }
+
     /**
      * ✅ 단단한 물리 파라미터 설정
      */
@@ -307,10 +606,8 @@ public class PhysicsManager {
             Method setCFM = dWorldClass.getMethod("setCFM", double.class);
             setCFM.invoke(world, worldCFM);
 
-            // ✅ QuickStep iterations: 로봇 안정성을 위해 50으로 증가
-            if (setQuickStepNumIterationsMethod != null) {
-                setQuickStepNumIterationsMethod.invoke(world, 50);
-            }
+            // ✅ QuickStep iterations: 고정 50회 대신 적응형 (쉬운 스텝은 일찍 끝나고 어려운 접촉만 더 반복)
+            applyAdaptiveIterations(solverAdaptive);
 
             // ✅ Auto-disable는 로봇에게 문제를 일으킬 수 있어 끔
             try {
@@ -385,16 +682,195 @@ public class PhysicsManager {
             setERP.invoke(world, erp);
             Method setCFM = dWorldClass.getMethod("setCFM", double.class);
             setCFM.invoke(world, cfm);
-            if (setQuickStepNumIterationsMethod != null) {
-                setQuickStepNumIterationsMethod.invoke(world, quickStepIterations);
-            }
+            setBaseIterations(quickStepIterations);
         } catch (Exception ignored) {}
     }
 
+    /**
+     * 적응형 QuickStep 반복 설정
+     * - baseIterations 안에서 스텝당 최대 힘 변화량이 tolerance 아래로 내려가면 조기 종료
+     * - baseIterations 후에도 tolerance 이상이면 maxIterations까지 추가 반복
+     * - enabled=false면 baseIterations 고정 반복 (잔차 통계도 꺼짐)
+     */
+    public void setAdaptiveIterations(boolean enabled, int baseIterations, int maxIterations, double tolerance) {
+        this.solverBaseIterations = Math.max(1, baseIterations);
+        this.solverMaxIterations = Math.max(this.solverBaseIterations, maxIterations);
+        this.solverTolerance = Math.max(0.0, tolerance);
+        this.solverAdaptive = enabled;
+        if (world == null) return;
+        try {
+            applyAdaptiveIterations(enabled);
+            logger.info("QuickStep adaptive iterations {} (base={}, max={}, tol={})",
+                    enabled ? "ON" : "OFF", solverBaseIterations, solverMaxIterations, solverTolerance);
+        } catch (Exception e) {
+            logger.warn("Could not set adaptive iterations: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 기본 반복 수만 바꿈: 추가 반복 배율이 기본 반복 기준이라 월드에 직접 쓰지 않고
+     * solverBaseIterations를 갱신한 뒤 다시 적용 (maxIterations 상한은 유지)
+     */
+    private void setBaseIterations(int iterations) throws Exception {
+        solverBaseIterations = Math.max(1, iterations);
+        solverMaxIterations = Math.max(solverBaseIterations, solverMaxIterations);
+        applyAdaptiveIterations(solverAdaptive);
+    }
+
+    private void applyAdaptiveIterations(boolean enabled) throws Exception {
+        if (setQuickStepNumIterationsMethod != null) {
+            setQuickStepNumIterationsMethod.invoke(world, solverBaseIterations);
+        }
+        // 0을 넘기면 조기 종료/추가 반복 모두 꺼짐
+        double exitDelta = enabled ? solverTolerance : 0.0;
+        double extraFactor = enabled ? (solverMaxIterations - solverBaseIterations) / (double) solverBaseIterations : 0.0;
+        Method setDynamic = dWorldClass.getMethod("setQuickStepDynamicIterationParameters",
+                double[].class, double[].class, double[].class);
+        setDynamic.invoke(world, new double[]{exitDelta}, new double[]{extraFactor}, new double[]{solverTolerance});
+    }
+
+    /** 마지막 스텝에서 island 중 가장 많이 돈 SOR 반복 수 */
+    public int getLastSolverIterations() {
+        return lastSolverIterations;
+    }
+
+    /** 마지막 스텝 마지막 반복의 최대 힘 변화량 (적응형이 꺼져 있으면 NaN) */
+    public double getLastSolverResidual() {
+        return lastSolverResidual;
+    }
+
+    public long getTotalSolverIterations() {
+        return totalSolverIterations;
+    }
+
+    /**
+     * QuickStep warm starting 토글
+     * - 켜면 이전 스텝의 접촉/조인트 impulse로 LCP를 시작하므로 반복 횟수를 줄여도 됨
+     * - 끄면 기존 cold start (반복 횟수도 함께 되돌릴 것)
+     * - factor: 캐시된 impulse에 곱하는 값 (1.0이면 쌓인 박스가 떨림, 0.5~0.7 권장)
+     */
+    public void setWarmStarting(boolean enabled, double factor, int quickStepIterations) {
+        if (world == null) return;
+        try {
+            Method setWarm = dWorldClass.getMethod("setQuickStepWarmStarting", boolean.class);
+            setWarm.invoke(world, enabled);
+            if (enabled) {
+                Method setFactor = dWorldClass.getMethod("setQuickStepWarmStartingFactor", double.class);
+                setFactor.invoke(world, factor);
+            }
+            setBaseIterations(quickStepIterations);
+            logger.info("QuickStep warm starting {} (factor={}, iterations={})",
+                    enabled ? "ON" : "OFF", factor, quickStepIterations);
+        } catch (Exception e) {
+            logger.warn("Could not set warm starting: {}", e.getMessage());
+        }
+    }
+
+    public boolean isWarmStarting() {
+        if (world == null) return false;
+        try {
+            Method isWarm = dWorldClass.getMethod("isQuickStepWarmStarting");
+            return (Boolean) isWarm.invoke(world);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * QuickStep SOR 반복의 제약 행을 float로 저장 (단정밀도 모드)
+     * - J, rhs/cfm/lo/hi, iMJ 행만 float이고 lambda/접촉 힘 누적은 double 유지
+     * - 스윕이 읽는 메모리가 절반이 되지만, 쌓인 박스처럼 중복 접촉이 많은 장면은
+     *   수백 스텝 동안 double 결과와 cm 단위까지 달라질 수 있음 (재현성 비교 시 끌 것)
+     * - LCP를 여러 스레드로 푸는 아일랜드에는 적용되지 않음
+     */
+    public void setSinglePrecisionSolver(boolean enabled) {
+        if (world == null) return;
+        try {
+            Method setSingle = dWorldClass.getMethod("setQuickStepSinglePrecision", boolean.class);
+            setSingle.invoke(world, enabled);
+            logger.info("QuickStep single precision rows {}", enabled ? "ON" : "OFF");
+        } catch (Exception e) {
+            logger.warn("Could not set single precision solver: {}", e.getMessage());
+        }
+    }
+
+    public boolean isSinglePrecisionSolver() {
+        if (world == null) return false;
+        try {
+            Method isSingle = dWorldClass.getMethod("isQuickStepSinglePrecision");
+            return (Boolean) isSingle.invoke(world);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
     public void setDebugContacts(boolean enabled) {
         this.debugContacts = enabled;
     }
 
+    // ========================================================================
+    // 아일랜드 슬리핑
+    // ========================================================================
+
+    /**
+     * 아일랜드 단위 슬리핑 토글
+     * - body 하나씩 끄는 기존 auto-disable 대신, 조인트/접촉으로 연결된 아일랜드의
+     *   모든 body가 idle일 때만 아일랜드 전체를 재움 (로봇 일부만 얼어붙지 않음)
+     * - 자는 아일랜드는 스텝에서 빠지고 자는 body끼리의 충돌도 생략하므로 비용이 깨어 있는 로봇 수에 비례
+     * - 깨어 있는 body와 접촉, 힘/토크/속도 입력, 서보 목표 변경 시 자동으로 깨어남
+     * - motorThreshold: 이보다 큰 모터 목표 속도(또는 서보 오차)가 있으면 idle로 보지 않음
+     * - 어떤 body가 잘 수 있는지는 setBodySleepEnabled / setRobotSleepEnabled로 opt-in
+     */
+    public void setIslandSleeping(boolean enabled, double motorThreshold) {
+        if (world == null) return;
+        try {
+            Method setSleeping = dWorldClass.getMethod("setIslandSleeping", boolean.class);
+            setSleeping.invoke(world, enabled);
+            Method setThreshold = dWorldClass.getMethod("setAutoDisableMotorThreshold", double.class);
+            setThreshold.invoke(world, motorThreshold);
+            this.islandSleeping = enabled;
+            logger.info("Island sleeping {} (motorThreshold={})", enabled ? "ON" : "OFF", motorThreshold);
+        } catch (Exception e) {
+            logger.warn("Could not set island sleeping: {}", e.getMessage());
+        }
+    }
+
+    public boolean isIslandSleeping() {
+        return islandSleeping;
+    }
+
+    /**
+     * body 단위 opt-in: 켠 body만 아일랜드 슬리핑 대상 (아일랜드의 모든 body가 켜져 있어야 잠듦)
+     */
+    public void setBodySleepEnabled(Object body, boolean enabled) {
+        if (body == null) return;
+        try {
+            Method setAutoDisable = dBodyClass.getMethod("setAutoDisableFlag", boolean.class);
+            setAutoDisable.invoke(body, enabled);
+        } catch (Exception e) {
+            logger.warn("Could not set body sleep flag: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 로봇 단위 opt-in: 로봇의 모든 링크 body에 적용
+     */
+    public void setRobotSleepEnabled(Collection<Object> bodyList, boolean enabled) {
+        for (Object body : bodyList) {
+            setBodySleepEnabled(body, enabled);
+        }
+    }
+
+    public int getSleepingBodyCount() {
+        if (world == null) return 0;
+        try {
+            Method getCount = dWorldClass.getMethod("getSleepingBodyCount");
+            return (Integer) getCount.invoke(world);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
     // ========================================================================
     // Body 관련 (기존 메서드 유지)
     // ========================================================================
@@ -536,6 +1012,85 @@ public class PhysicsManager {
         }
     }
 
+    // ========================================================================
+    // 월드 스냅샷 (RL 리셋용)
+    // ========================================================================
+
+    /**
+     * 주어진 바디들의 현재 상태(위치/회전/속도/누적힘/조인트 lambda/RNG 시드)를 캡처.
+     * 이후 {@link #restoreSnapshot(Object)} 한 번으로 되돌릴 수 있음.
+     * @return DWorldSnapshot 객체, 실패 시 null
+     */
+    public Object createSnapshot(Collection<Object> bodyList) {
+        if (!initialized || world == null || bodyList == null || bodyList.isEmpty()) return null;
+
+        try {
+            if (createSnapshotMethod == null) {
+                Class<?> bodyArrayClass = Array.newInstance(dBodyClass, 0).getClass();
+                createSnapshotMethod = dWorldClass.getMethod("createSnapshot", bodyArrayClass);
+                restoreSnapshotMethod = createSnapshotMethod.getReturnType().getMethod("restore");
+            }
+            Object arr = Array.newInstance(dBodyClass, bodyList.size());
+            int i = 0;
+            for (Object body : bodyList) {
+                Array.set(arr, i++, body);
+            }
+            return createSnapshotMethod.invoke(world, arr);
+        } catch (Exception e) {
+            logger.debug("World snapshot unavailable: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * 스냅샷 복원. 바디가 파괴되었거나 ODE가 스냅샷을 지원하지 않으면 false.
+     */
+    public boolean restoreSnapshot(Object snapshot) {
+        if (!initialized || snapshot == null || restoreSnapshotMethod == null) return false;
+
+        try {
+            restoreSnapshotMethod.invoke(snapshot);
+            return true;
+        } catch (Exception e) {
+            logger.debug("World snapshot restore failed: {}", e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * ODE 전역 RNG 시드 설정 (QuickStep 제약 순서 섞기 등에 사용됨).
+     * 결정론 모드에서 에피소드마다 호출.
+     */
+    public void setRandomSeed(long seed) {
+        if (!initialized) return;
+
+        try {
+            if (randSetSeedMethod == null) {
+                Class<?> dMiscClass = odeClassLoader.loadClass(dWorldClass.getPackageName() + ".DMisc");
+                randSetSeedMethod = dMiscClass.getMethod("dRandSetSeed", long.class);
+            }
+            randSetSeedMethod.invoke(null, seed);
+        } catch (Exception e) {
+            logger.debug("Failed to set ODE random seed: {}", e.toString());
+        }
+    }
+
+    /**
+     * 지속(persistent) 해시 공간의 테이블을 비워 다음 collide()에서 geom 목록 순서로 재구성.
+     * 충돌 쌍 순서가 이전 스텝의 이동 이력에 의존하지 않게 되므로 결정론 에피소드 시작 시 호출.
+     */
+    public void resetCollisionPairOrder() {
+        if (!initialized || space == null) return;
+
+        try {
+            space.getClass().getMethod("resetPersistent").invoke(space);
+        } catch (NoSuchMethodException ignored) {
+            // simple space: 쌍 순서는 geom 목록 순서뿐
+        } catch (Exception e) {
+            logger.debug("Failed to reset collision pair order: {}", e.toString());
+        }
+    }
+
     // ========================================================================
     // Geometry 관련
     // ========================================================================
@@ -588,6 +1143,65 @@ public class PhysicsManager {
         }
     }
 
+    /**
+     * 볼록 다면체 geom (DxConvex). planes = (nx, ny, nz, d) * planeCount,
+     * polygons = [정점 수, 인덱스...] 반복 (바깥에서 보아 반시계), 원점이 내부에 있어야 한다.
+     */
+    public Object createConvexGeom(double[] planes, int planeCount, double[] points, int pointCount, int[] polygons) {
+        if (!initialized || space == null) return null;
+
+        try {
+            Method createConvex = odeHelperClass.getMethod(
+                    "createConvex", dSpaceClass, double[].class, int.class, double[].class, int.class, int[].class);
+            return createConvex.invoke(null, space, planes, planeCount, points, pointCount, polygons);
+        } catch (Exception e) {
+            logger.debug("Failed to create convex geom: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 높이맵 geom (DxHeightfield), Y가 높이 방향이고 geom 위치가 높이맵 중심.
+     * heights[x + samplesX * z] 는 복사하지 않고 참조로 넘김 -> 호출자가 배열을 직접 고친 뒤
+     * setHeightfieldBounds()로 높이 범위를 갱신하면 다시 build할 필요가 없다.
+     * thickness: 최저 높이 아래로 덧붙이는 두께 (얇은 바닥을 뚫고 빠지는 것 방지)
+     */
+    public Object createHeightfieldGeom(double[] heights, int samplesX, int samplesZ,
+                                       double width, double depth, double thickness) {
+        if (!initialized || space == null) return null;
+
+        try {
+            Object data = odeHelperClass.getMethod("createHeightfieldData").invoke(null);
+            Method build = data.getClass().getMethod("build",
+                    double[].class, boolean.class, double.class, double.class, int.class, int.class,
+                    double.class, double.class, double.class, boolean.class);
+            build.invoke(data, heights, false, width, depth, samplesX, samplesZ, 1.0, 0.0, thickness, false);
+
+            Class<?> dataClass = odeClassLoader.loadClass(dGeomClass.getPackageName() + ".DHeightfieldData");
+            Method createHeightfield = odeHelperClass.getMethod(
+                    "createHeightfield", dSpaceClass, dataClass, boolean.class);
+            return createHeightfield.invoke(null, space, data, true);
+        } catch (Exception e) {
+            logger.debug("Failed to create heightfield geom: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 높이 배열을 직접 고친 후 호출: AABB에 쓰이는 최소/최대 높이 갱신
+     */
+    public void setHeightfieldBounds(Object heightfield, double minHeight, double maxHeight) {
+        if (heightfield == null) return;
+
+        try {
+            Object data = heightfield.getClass().getMethod("getHeightfieldData").invoke(heightfield);
+            Method setBounds = data.getClass().getMethod("setBounds", double.class, double.class);
+            setBounds.invoke(data, minHeight, maxHeight);
+        } catch (Exception e) {
+            logger.debug("Failed to set heightfield bounds: {}", e.getMessage());
+        }
+    }
+
     public void setGeomPosition(Object geom, double x, double y, double z) {
         if (geom == null) return;
 
@@ -661,9 +1275,12 @@ public class PhysicsManager {
     public void step(float dt) {
         if (!initialized || world == null) return;
 
+        long stepStart = System.nanoTime();
         try {
             // 1. 충돌 검사
-            if (space != null && nearCallback != null) {
+            if (space != null && parallelCollider != null) {
+                parallelCollideMethod.invoke(parallelCollider, space, pairFilter, contactHandler);
+            } else if (space != null && nearCallback != null) {
                 Method spaceCollide = dSpaceClass.getMethod(
                         "collide", Object.class, nearCallbackInterface);
                 spaceCollide.invoke(space, null, nearCallback);
@@ -672,6 +1289,12 @@ public class PhysicsManager {
             // 2. World step
             Method quickStep = dWorldClass.getMethod("quickStep", double.class);
             quickStep.invoke(world, (double) dt);
+            if (lastIterationCountMethod != null) {
+                int iterations = (Integer) lastIterationCountMethod.invoke(world);
+                lastSolverIterations = iterations;
+                lastSolverResidual = (Double) lastMaxAdjustmentMethod.invoke(world);
+                totalSolverIterations += iterations;
+            }
 
             // 3. Contact group 비우기
             if (contactGroup != null) {
@@ -686,6 +1309,8 @@ public class PhysicsManager {
         } catch (Exception e) {
             logger.error("Physics step failed: {}", e.getMessage());
         }
+        totalStepNanos += System.nanoTime() - stepStart;
+        totalStepCount++;
     }
 
     // ========================================================================
@@ -734,6 +1359,14 @@ public class PhysicsManager {
         return gravity;
     }
 
+    public long getTotalStepNanos() {
+        return totalStepNanos;
+    }
+
+    public long getTotalStepCount() {
+        return totalStepCount;
+    }
+
     // ========================================================================
     // 정리
     // ========================================================================
@@ -778,6 +1411,15 @@ public class PhysicsManager {
 
         initialized = false;
         nearCallback = null;
+        parallelCollider = null;
+        shutdownCollisionExecutor();
+        pairFilter = null;
+        contactHandler = null;
+        parallelCollideMethod = null;
+        rayCaster = null;
+        rayCastMethod = null;
+        rayCastStaticOnlyMethod = null;
+        islandSleeping = false;
         staticGeoms.clear();
         dynamicGeoms.clear();
 
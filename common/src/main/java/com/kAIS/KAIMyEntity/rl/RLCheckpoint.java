@@ -0,0 +1,236 @@
+package com.kAIS.KAIMyEntity.rl;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * 정책/학습 상태 체크포인트 (버전 있는 바이너리 포맷)
+ *
+ * 포맷 (little-endian):
+ *   int magic 'KAIC' | int version | int payloadBytes
+ *   payload:
+ *     int obsDim | int actionDim | float learningRate
+ *     int episodeCount | long totalSteps | float bestReward
+ *     int jointCount | (short len + utf8 bytes) * jointCount
+ *     int statCount | float[statCount] rewards | int[statCount] lengths
+ *     float[obsDim * actionDim] weights (row-major, obs x action)
+ *   int crc32(payload)
+ *
+ * - 저장: tick 스레드에서 {@link Snapshot}만 복사 → 직렬화/IO는 전용 데몬 스레드
+ * - tmp 파일에 쓰고 force 후 원자적 rename (중간에 크래시 나도 기존 파일 유지)
+ * - 로드: 힙 ByteBuffer로 한 번에 읽고 바로 닫음 (매핑은 Windows에서 GC 전까지 파일을 잠가 rename/삭제 실패)
+ */
+public final class RLCheckpoint {
+    private static final Logger logger = LogManager.getLogger();
+
+    public static final int MAGIC = 0x4B414943; // 'KAIC'
+    public static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "KAIMyEntity-Checkpoint");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    private RLCheckpoint() {}
+
+    /** tick 스레드에서 뜬 불변 복사본 */
+    public static final class Snapshot {
+        public int obsDim;
+        public int actionDim;
+        public float learningRate;
+        public int episodeCount;
+        public long totalSteps;
+        public float bestReward;
+        public String[] jointNames = new String[0];
+        public float[] recentRewards = new float[0];
+        public int[] recentLengths = new int[0];
+        public float[] weights = new float[0];
+    }
+
+    // ========== 저장 ==========
+
+    public static CompletableFuture<Path> writeAsync(Snapshot snap, Path target) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                write(snap, target);
+                return target;
+            } catch (IOException e) {
+                throw new RuntimeException("Checkpoint write failed: " + target, e);
+            }
+        }, WRITER);
+    }
+
+    public static void write(Snapshot snap, Path target) throws IOException {
+        ByteBuffer payload = encodePayload(snap);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(payload.remaining()).flip();
+
+        ByteBuffer footer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        footer.putInt((int) crc.getValue()).flip();
+
+        Path dir = target.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel ch = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer[] parts = {header, payload, footer};
+            while (footer.hasRemaining()) ch.write(parts);
+            ch.force(true);
+        }
+
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static ByteBuffer encodePayload(Snapshot s) {
+        byte[][] names = new byte[s.jointNames.length][];
+        int namesBytes = 0;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = s.jointNames[i].getBytes(StandardCharsets.UTF_8);
+            namesBytes += 2 + names[i].length;
+        }
+        int statCount = Math.min(s.recentRewards.length, s.recentLengths.length);
+
+        int size = 4 + 4 + 4
+                + 4 + 8 + 4
+                + 4 + namesBytes
+                + 4 + statCount * 8
+                + s.weights.length * 4;
+
+        ByteBuffer buf = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(s.obsDim).putInt(s.actionDim).putFloat(s.learningRate);
+        buf.putInt(s.episodeCount).putLong(s.totalSteps).putFloat(s.bestReward);
+
+        buf.putInt(names.length);
+        for (byte[] n : names) {
+            buf.putShort((short) n.length);
+            buf.put(n);
+        }
+
+        buf.putInt(statCount);
+        buf.asFloatBuffer().put(s.recentRewards, 0, statCount);
+        buf.position(buf.position() + statCount * 4);
+        buf.asIntBuffer().put(s.recentLengths, 0, statCount);
+        buf.position(buf.position() + statCount * 4);
+
+        buf.asFloatBuffer().put(s.weights);
+        buf.position(buf.position() + s.weights.length * 4);
+
+        buf.flip();
+        return buf;
+    }
+
+    // ========== 로드 ==========
+
+    public static Snapshot read(Path source) throws IOException {
+        ByteBuffer file;
+        try (FileChannel ch = FileChannel.open(source, StandardOpenOption.READ)) {
+            long fileSize = ch.size();
+            if (fileSize < HEADER_BYTES + 4) throw new IOException("Checkpoint too small: " + source);
+            if (fileSize > Integer.MAX_VALUE) throw new IOException("Checkpoint too large: " + source);
+
+            file = ByteBuffer.allocate((int) fileSize);
+            while (file.hasRemaining()) {
+                if (ch.read(file) < 0) throw new IOException("Truncated checkpoint: " + source);
+            }
+        }
+        file.flip();
+        file.order(ByteOrder.LITTLE_ENDIAN);
+        int fileSize = file.limit();
+
+        int magic = file.getInt();
+        int version = file.getInt();
+        int payloadBytes = file.getInt();
+        if (magic != MAGIC) throw new IOException("Not a checkpoint file: " + source);
+        if (version != VERSION) throw new IOException("Unsupported checkpoint version " + version + ": " + source);
+        if (payloadBytes < 0 || HEADER_BYTES + (long) payloadBytes + 4 > fileSize) {
+            throw new IOException("Truncated checkpoint: " + source);
+        }
+
+        ByteBuffer payload = file.slice(HEADER_BYTES, payloadBytes).order(ByteOrder.LITTLE_ENDIAN);
+        int storedCrc = file.getInt(HEADER_BYTES + payloadBytes);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != storedCrc) throw new IOException("Checkpoint CRC mismatch: " + source);
+
+        return decodePayload(payload);
+    }
+
+    private static Snapshot decodePayload(ByteBuffer buf) throws IOException {
+        Snapshot s = new Snapshot();
+        s.obsDim = buf.getInt();
+        s.actionDim = buf.getInt();
+        s.learningRate = buf.getFloat();
+        s.episodeCount = buf.getInt();
+        s.totalSteps = buf.getLong();
+        s.bestReward = buf.getFloat();
+
+        int jointCount = buf.getInt();
+        if (jointCount < 0 || jointCount > 4096) throw new IOException("Bad joint count " + jointCount);
+        s.jointNames = new String[jointCount];
+        for (int i = 0; i < jointCount; i++) {
+            int len = buf.getShort() & 0xFFFF;
+            byte[] b = new byte[len];
+            buf.get(b);
+            s.jointNames[i] = new String(b, StandardCharsets.UTF_8);
+        }
+
+        int statCount = buf.getInt();
+        if (statCount < 0 || statCount * 8L > buf.remaining()) throw new IOException("Bad stat count " + statCount);
+        s.recentRewards = new float[statCount];
+        s.recentLengths = new int[statCount];
+        buf.asFloatBuffer().get(s.recentRewards);
+        buf.position(buf.position() + statCount * 4);
+        buf.asIntBuffer().get(s.recentLengths);
+        buf.position(buf.position() + statCount * 4);
+
+        long weightCount = (long) s.obsDim * s.actionDim;
+        if (s.obsDim < 0 || s.actionDim < 0 || weightCount * 4 != buf.remaining()) {
+            throw new IOException("Weight block size mismatch (obs=" + s.obsDim + ", act=" + s.actionDim + ")");
+        }
+        s.weights = new float[(int) weightCount];
+        buf.asFloatBuffer().get(s.weights);
+        return s;
+    }
+
+    /** 현재 조인트 구성과 체크포인트가 호환되는지 (이름/순서까지 동일해야 함) */
+    public static boolean isCompatible(Snapshot s, List<String> jointNames, int obsDim) {
+        if (s.obsDim != obsDim || s.actionDim != jointNames.size()) return false;
+        if (s.jointNames.length != jointNames.size()) return false;
+        for (int i = 0; i < s.jointNames.length; i++) {
+            if (!s.jointNames[i].equals(jointNames.get(i))) {
+                logger.debug("Checkpoint joint mismatch at {}: {} vs {}", i, s.jointNames[i], jointNames.get(i));
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,5 +1,14 @@
 package com.kAIS.KAIMyEntity.rl;
 
+import com.kAIS.KAIMyEntity.PhysicsManager;
+import com.kAIS.KAIMyEntity.rl.metrics.MetricsExporter;
+import com.kAIS.KAIMyEntity.rl.metrics.MetricsSnapshot;
+import com.kAIS.KAIMyEntity.rl.metrics.TrainingMetrics;
+import com.kAIS.KAIMyEntity.rl.reward.RewardLayout;
+import com.kAIS.KAIMyEntity.rl.reward.RewardPipeline;
+import com.kAIS.KAIMyEntity.rl.reward.RewardState;
+import com.kAIS.KAIMyEntity.rl.reward.RewardTerm;
+import com.kAIS.KAIMyEntity.rl.reward.RewardTerms;
 import com.kAIS.KAIMyEntity.urdf.URDFModelOpenGLWithSTL;
 import com.kAIS.KAIMyEntity.urdf.URDFModelOpenGLWithSTL.JointControlSource;
 import com.kAIS.KAIMyEntity.urdf.control.URDFMotion;
@@ -7,7 +16,11 @@ import com.kAIS.KAIMyEntity.urdf.control.URDFSimpleController;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -88,7 +101,27 @@ public class RLEnvironmentCore {
     private int debugTickCounter = 0;
 
     // 통계
-    private final Statistics stats = new Statistics();
+    private final TrainingMetrics metrics = new TrainingMetrics();
+    private final Statistics stats = new Statistics(metrics);
+    private MetricsExporter metricsExporter;
+    private long lastPhysicsNanosTotal = -1;
+    private final Map<String, Object> debugInfo = new LinkedHashMap<>();
+
+    // 보상 파이프라인 (term 등록 → initialize에서 레이아웃 컴파일)
+    private final RewardPipeline rewardPipeline = new RewardPipeline();
+    private final RewardState rewardState = new RewardState();
+
+    // 결정론 모드 / action 로그 기록·재생
+    private static final long STREAM_AGENT = 1;
+    private static final long STREAM_RESET = 2;
+    private static final long STREAM_PHYSICS = 3;
+    private RLReplayLog.Writer replayWriter;
+    private RLReplayLog.Reader replayReader;
+    private int replayEpisodeIndex = -1;
+    private int replayMismatches = 0;
+    // 재생 전 config 값 (stopReplay에서 복원)
+    private boolean savedDeterministic = false;
+    private long savedSeed = 0L;
 
     // 콜백
     private Consumer<String> logCallback;
@@ -97,12 +130,19 @@ public class RLEnvironmentCore {
     private float lastDeltaTime = 0.02f;
     private float[] obsBuffer = null;
 
+    // ===== 높이 스캔 (루트 주변 격자에서 아래로 쏘는 레이) =====
+    private double[] scanOrigins = null;
+    private double[] scanDirs = null;
+    private double[] scanLengths = null;
+    private double[] scanDistances = null;
+
     // ===== one-step delay transition =====
     private boolean transitionPrimed = false;
     private float[] lastObs = null;
     private float[] lastAction = null;
 
     private RLEnvironmentCore() {
+        for (RewardTerm term : RewardTerms.defaults(config)) rewardPipeline.register(term);
         logger.info("RLEnvironmentCore created");
     }
 
@@ -148,7 +188,11 @@ public class RLEnvironmentCore {
             jointIndexMap.put(jointName, idx++);
         }
 
-        agent = new SimpleAgent(jointMetas.size(), this::getObservationDim);
+        compileRewardPipeline();
+
+        agent = config.deterministic
+                ? new SimpleAgent(jointMetas.size(), this::getObservationDim, deriveSeed(STREAM_AGENT, 0))
+                : new SimpleAgent(jointMetas.size(), this::getObservationDim);
 
         ensureObservationBuffer();
 
@@ -198,7 +242,16 @@ public class RLEnvironmentCore {
         if (agentMode == AgentMode.MANUAL) return;
         if (renderer == null) return;
 
-        lastDeltaTime = sanitizeDeltaTime(deltaTime);
+        if (replayReader != null) {
+            if (!expectReplay(RLReplayLog.TAG_TICK)) return;
+            lastDeltaTime = sanitizeDeltaTime(replayReader.getDeltaTime());
+        } else {
+            // 결정론 모드: 벽시계 dt 대신 고정 timeStep
+            lastDeltaTime = sanitizeDeltaTime(config.deterministic ? config.timeStep : deltaTime);
+            if (replayWriter != null) {
+                try { replayWriter.tick(lastDeltaTime); } catch (IOException e) { onReplayWriteError(e); }
+            }
+        }
 
         float[] obsRef = getObservationRef();
 
@@ -210,10 +263,10 @@ public class RLEnvironmentCore {
             copyInto(lastObs, obsRef);
 
             ensureLastActionBuffer();
-            float[] selected = agent.selectAction(lastObs, agentMode);
-            copyInto(lastAction, selected);
+            copyInto(lastAction, nextAction(lastObs));
 
             applyAction(lastAction);
+            recordAppliedAction(lastAction);
 
             transitionPrimed = true;
             updatePrevRootPositionsNow();
@@ -221,11 +274,18 @@ public class RLEnvironmentCore {
             return;
         }
 
+        long rewardStart = System.nanoTime();
         float reward = calculateReward(lastAction);
+        metrics.recordRewardNanos(System.nanoTime() - rewardStart);
+        recordReward(reward);
         lastReward = reward;
         episodeReward += reward;
 
         stepCount++;
+        metrics.recordStep();
+        recordPhysicsTiming();
+        metrics.maybePublish(System.nanoTime());
+
         boolean terminated = checkTermination();
         boolean truncated = stepCount >= config.maxEpisodeSteps;
         isDone = terminated || truncated;
@@ -243,10 +303,11 @@ public class RLEnvironmentCore {
             return;
         }
 
-        float[] action = agent.selectAction(obsRef, agentMode);
+        float[] action = nextAction(obsRef);
         ensureLastActionBuffer();
         copyInto(lastAction, action);
         applyAction(lastAction);
+        recordAppliedAction(lastAction);
 
         ensureLastBuffers(obsRef.length);
         copyInto(lastObs, obsRef);
@@ -280,7 +341,29 @@ public class RLEnvironmentCore {
 
         transitionPrimed = false;
 
-        Random rand = config.randomizeInitial ? new Random() : null;
+        // 재생 중이면 로그의 에피소드 번호로 시드를 다시 유도
+        int seedIndex = (replayReader != null) ? replayEpisodeIndex : episodeCount;
+        Random rand = null;
+        if (config.randomizeInitial) {
+            rand = config.deterministic ? new Random(deriveSeed(STREAM_RESET, seedIndex)) : new Random();
+        }
+        if (config.deterministic) {
+            URDFSimpleController controller = renderer.getController();
+            if (controller != null && controller.isUsingPhysics()) {
+                PhysicsManager pm = PhysicsManager.GetInst();
+                // 병렬 island 스텝은 ODE RNG 소비 순서가 스레드 스케줄에 따라 달라짐
+                if (pm.getSolverIslandThreads() > 1 || pm.getSolverLcpThreads() > 1) {
+                    pm.setSolverThreading(1, 1);
+                    log("Deterministic mode: solver threading disabled");
+                }
+                pm.setRandomSeed(deriveSeed(STREAM_PHYSICS, seedIndex));
+                // 지속 해시 공간의 쌍 순서는 이전 에피소드 이력에 의존 → 기록/재생 모두 매 에피소드 초기화
+                pm.resetCollisionPairOrder();
+            }
+        }
+        if (replayWriter != null) {
+            try { replayWriter.episode(seedIndex); } catch (IOException e) { onReplayWriteError(e); }
+        }
 
         for (JointMeta jm : jointMetas) {
             float initPos = jm.initialPosition;
@@ -410,9 +493,55 @@ public class RLEnvironmentCore {
         if (config.speedDiffObsClip > 0f) speedDiff = clamp(speedDiff, -config.speedDiffObsClip, config.speedDiffObsClip);
         out[idx++] = speedDiff;
 
+        idx = fillHeightScan(out, idx, observedRootPosBuf);
+
         if (idx != out.length && idx < out.length) Arrays.fill(out, idx, out.length, 0f);
     }
 
+    /**
+     * 높이 스캔: 루트 아래 heightScanGrid x heightScanGrid 격자(월드 XZ 정렬)에서 수직 레이를 한 번에 캐스트.
+     * 값은 루트 높이 기준 지면까지 거리 / heightScanMaxDepth, [0,1]로 클립 (미스 = 1).
+     * 로봇 자신의 geom은 staticOnly로 제외.
+     */
+    private int fillHeightScan(float[] out, int idx, float[] root) {
+        int grid = Math.max(0, config.heightScanGrid);
+        int beams = grid * grid;
+        if (beams == 0) return idx;
+
+        URDFSimpleController controller = renderer.getController();
+        if (controller == null || !controller.isUsingPhysics()) {
+            Arrays.fill(out, idx, idx + beams, 1f);
+            return idx + beams;
+        }
+
+        if (scanDistances == null || scanDistances.length != beams) {
+            scanOrigins = new double[beams * 3];
+            scanDirs = new double[beams * 3];
+            scanLengths = new double[beams];
+            scanDistances = new double[beams];
+        }
+
+        float maxDepth = (config.heightScanMaxDepth > 1e-6f) ? config.heightScanMaxDepth : 1f;
+        float half = (grid - 1) * 0.5f;
+        for (int i = 0; i < beams; i++) {
+            scanOrigins[i * 3] = root[0] + ((i % grid) - half) * config.heightScanSpacing;
+            scanOrigins[i * 3 + 1] = root[1];
+            scanOrigins[i * 3 + 2] = root[2] + ((i / grid) - half) * config.heightScanSpacing;
+            scanDirs[i * 3] = 0;
+            scanDirs[i * 3 + 1] = -1;
+            scanDirs[i * 3 + 2] = 0;
+            scanLengths[i] = maxDepth;
+        }
+
+        int hits = PhysicsManager.GetInst().castRays(beams, scanOrigins, scanDirs, scanLengths,
+                scanDistances, null, true);
+        for (int i = 0; i < beams; i++) {
+            double d = scanDistances[i];
+            out[idx++] = (hits < 0 || d < 0) ? 1f : clamp((float) (d / maxDepth), 0f, 1f);
+        }
+        return idx;
+    }
+
     // ========== Root (Observed / Physics) ==========
     private void refreshSpawnRootPosition() {
         if (!spawnPositionInitialized || spawnPositionDirty) {
@@ -592,101 +721,77 @@ public class RLEnvironmentCore {
     }
 
     // ========== 보상 ==========
+    private void compileRewardPipeline() {
+        int n = jointMetas.size();
+        List<String> names = new ArrayList<>(n);
+        float[] lo = new float[n];
+        float[] hi = new float[n];
+        for (int i = 0; i < n; i++) {
+            JointMeta jm = jointMetas.get(i);
+            names.add(jm.name);
+            lo[i] = jm.minLimit;
+            hi[i] = jm.maxLimit;
+        }
+        rewardState.ensureJointCount(n);
+        rewardPipeline.compile(new RewardLayout(names, lo, hi));
+    }
+
     private float calculateReward(float[] action) {
-        float reward = 0f;
+        captureRewardState(action);
+        return rewardPipeline.evaluate(rewardState);
+    }
 
-        reward += config.aliveBonus;
+    /**
+     * 보상용 스냅샷 채우기: 조인트당 위치/속도 조회 1회씩만.
+     * (term들은 이 배열만 읽음)
+     */
+    private void captureRewardState(float[] action) {
+        RewardState s = rewardState;
+        int n = jointMetas.size();
+        s.ensureJointCount(n);
+
+        for (int i = 0; i < n; i++) {
+            String name = jointMetas.get(i).name;
+            s.jointPos[i] = renderer.getJointPosition(name);
+            s.jointVel[i] = renderer.getJointVelocity(name);
+        }
 
-        float[] rp;
-        float[] rv;
+        s.action = (action != null) ? action : EMPTY_ACTION;
 
         if (config.usePhysicsRootForReward) {
             getPhysicsRootPositionInto(physicsRootPosBuf);
             computeVelocityFromCurrent(physicsRootPosBuf, prevPhysicsRootPosition, physicsRootVelBuf);
-            rp = physicsRootPosBuf;
-            rv = physicsRootVelBuf;
+            System.arraycopy(physicsRootPosBuf, 0, s.rootPos, 0, 3);
+            System.arraycopy(physicsRootVelBuf, 0, s.rootVel, 0, 3);
         } else {
             getObservedRootPositionInto(observedRootPosBuf);
             computeVelocityFromCurrent(observedRootPosBuf, prevObservedRootPosition, observedRootVelBuf);
-            rp = observedRootPosBuf;
-            rv = observedRootVelBuf;
-        }
-
-        float heightDiff = Math.abs(rp[1] - config.targetHeight);
-        float heightReward = (config.targetHeight > 1e-8f) ? (1f - heightDiff / config.targetHeight) : 0f;
-        reward += heightReward * config.heightRewardWeight;
-
-        float currentSpeed = (float) Math.sqrt(rv[0] * rv[0] + rv[2] * rv[2]);
-        float speedError = Math.abs(currentSpeed - config.targetSpeed);
-        reward -= speedError * config.speedMatchWeight;
-
-        float controlCost = 0f;
-        if (action != null) for (float a : action) controlCost += a * a;
-        reward -= controlCost * config.controlCostWeight;
-
-        float velocityPenalty = 0f;
-        for (JointMeta jm : jointMetas) {
-            float vel = renderer.getJointVelocity(jm.name);
-            velocityPenalty += vel * vel;
-        }
-        reward -= velocityPenalty * config.velocityPenaltyWeight;
-
-        float limitPenalty = 0f;
-        for (JointMeta jm : jointMetas) {
-            float pos = renderer.getJointPosition(jm.name);
-            float range = jm.maxLimit - jm.minLimit;
-            if (range <= 1e-8f) continue;
-            float margin = 0.1f * range;
-            if (pos < jm.minLimit + margin || pos > jm.maxLimit - margin) limitPenalty += 0.1f;
+            System.arraycopy(observedRootPosBuf, 0, s.rootPos, 0, 3);
+            System.arraycopy(observedRootVelBuf, 0, s.rootVel, 0, 3);
         }
-        reward -= limitPenalty;
-
-        reward += calculateSymmetryReward() * config.symmetryRewardWeight;
 
+        s.clearRefPose();
         if (referenceMotion != null && config.poseMatchWeight > 0f) {
             Map<String, Float> refPose = referenceMotion.samplePose(timeInEpisode);
             if (!refPose.isEmpty()) {
-                float poseError = 0f;
-                int count = 0;
-                for (JointMeta jm : jointMetas) {
-                    Float ref = refPose.get(jm.name);
+                for (int i = 0; i < n; i++) {
+                    Float ref = refPose.get(jointMetas.get(i).name);
                     if (ref == null) continue;
-                    float cur = renderer.getJointPosition(jm.name);
-                    float diff = cur - ref;
-                    poseError += diff * diff;
-                    count++;
-                }
-                if (count > 0) {
-                    poseError /= count;
-                    reward -= poseError * config.poseMatchWeight;
+                    s.refPose[i] = ref;
+                    s.refMask[i] = true;
+                    s.hasRefPose = true;
                 }
             }
         }
 
-        return reward;
+        s.timeInEpisode = timeInEpisode;
+        s.deltaTime = lastDeltaTime;
     }
 
-    private float calculateSymmetryReward() {
-        float symmetry = 0f;
-        int pairs = 0;
-
-        for (JointMeta jm : jointMetas) {
-            String name = jm.name;
-            if (name.contains("_L_") || name.contains("Left") || name.contains("_l_")) {
-                String rightName = name.replace("_L_", "_R_").replace("Left", "Right").replace("_l_", "_r_");
-                Integer idx = jointIndexMap.get(rightName);
-                if (idx != null) {
-                    float leftPos = renderer.getJointPosition(name);
-                    float rightPos = renderer.getJointPosition(rightName);
-                    float diff = Math.abs(leftPos - rightPos);
-                    symmetry += 1f - Math.min(diff / (float) Math.PI, 1f);
-                    pairs++;
-                }
-            }
-        }
-
-        return (pairs > 0) ? symmetry / pairs : 0f;
-    }
+    /** 커스텀 보상 항 등록 (같은 이름이면 교체). 초기화 이후면 즉시 컴파일됨 */
+    public void registerRewardTerm(RewardTerm term) { rewardPipeline.register(term); }
+    public boolean removeRewardTerm(String name) { return rewardPipeline.remove(name); }
+    public RewardPipeline getRewardPipeline() { return rewardPipeline; }
 
     // ========== 종료 조건 ==========
     private boolean checkTermination() {
@@ -724,6 +829,15 @@ public class RLEnvironmentCore {
 
     // ========== 에피소드 관리 ==========
     private void endEpisode(String reason) {
+        byte endReason = "terminated".equals(reason) ? RLReplayLog.END_TERMINATED : RLReplayLog.END_TRUNCATED;
+        if (replayReader != null) {
+            finishReplay(endReason);
+            return;
+        }
+        if (replayWriter != null) {
+            try { replayWriter.end(endReason, stepCount, episodeReward); } catch (IOException e) { onReplayWriteError(e); }
+        }
+
         episodeCount++;
         stats.recordEpisode(episodeReward, stepCount);
         log(String.format("Episode %d ended (%s): reward=%.2f, steps=%d",
@@ -734,9 +848,243 @@ public class RLEnvironmentCore {
             agent.update(config.minUpdateBatch);
         }
 
+        if (config.checkpointIntervalEpisodes > 0 && agentMode == AgentMode.LEARNING
+                && episodeCount % config.checkpointIntervalEpisodes == 0) {
+            saveCheckpointAsync(Paths.get(config.checkpointPath));
+        }
+
         if (trainingActive) reset();
     }
 
+    // ========== 메트릭 ==========
+    /** 직전 tick 이후 물리 스텝에 쓴 시간 (PhysicsManager 누적값 차분) */
+    private void recordPhysicsTiming() {
+        URDFSimpleController controller = renderer.getController();
+        if (controller == null || !controller.isUsingPhysics()) return;
+
+        long total = PhysicsManager.GetInst().getTotalStepNanos();
+        if (lastPhysicsNanosTotal >= 0 && total >= lastPhysicsNanosTotal) {
+            metrics.recordPhysicsNanos(total - lastPhysicsNanosTotal);
+        }
+        lastPhysicsNanosTotal = total;
+    }
+
+    public TrainingMetrics getMetrics() { return metrics; }
+
+    /** 아무 스레드에서나 호출 가능 (최근 발행된 불변 스냅샷) */
+    public MetricsSnapshot getMetricsSnapshot() { return metrics.getLatest(); }
+
+    public synchronized MetricsExporter getMetricsExporter() {
+        if (metricsExporter == null) metricsExporter = new MetricsExporter(metrics::getLatest);
+        return metricsExporter;
+    }
+
+    // ========== 체크포인트 ==========
+    /**
+     * 현재 정책/통계를 비동기로 저장. 복사는 호출 스레드(tick)에서, IO는 체크포인트 스레드에서.
+     */
+    public CompletableFuture<Path> saveCheckpointAsync(Path target) {
+        if (!isInitialized || agent == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("environment not initialized"));
+        }
+        RLCheckpoint.Snapshot snap = createCheckpointSnapshot();
+        return RLCheckpoint.writeAsync(snap, target).whenComplete((path, err) -> {
+            if (err != null) logger.warn("Checkpoint save failed: {}", target, err);
+            else logger.debug("Checkpoint saved: {} (episode {})", path, snap.episodeCount);
+        });
+    }
+
+    private RLCheckpoint.Snapshot createCheckpointSnapshot() {
+        RLCheckpoint.Snapshot snap = new RLCheckpoint.Snapshot();
+        // 헤더 차원은 실제 가중치 행 수와 같아야 함 (관측 차원이 바뀐 직후엔 다를 수 있음)
+        snap.obsDim = agent.getWeightObsDim();
+        snap.actionDim = agent.getActionDim();
+        snap.learningRate = agent.getLearningRate();
+        snap.episodeCount = episodeCount;
+        snap.totalSteps = stats.getTotalSteps();
+        snap.bestReward = stats.getBestReward();
+        snap.jointNames = getJointNames().toArray(new String[0]);
+        snap.recentRewards = stats.getRecentRewards();
+        snap.recentLengths = stats.getRecentLengths();
+        snap.weights = agent.exportWeights();
+        return snap;
+    }
+
+    /**
+     * 체크포인트 로드. 조인트 구성이 다르면 false.
+     *
+     * @param inferenceOnly true면 가중치만 적용하고 에피소드/통계 카운터는 건드리지 않음
+     */
+    public boolean loadCheckpoint(Path source, boolean inferenceOnly) {
+        if (!isInitialized || agent == null) {
+            log("ERROR: Cannot load checkpoint - not initialized");
+            return false;
+        }
+        RLCheckpoint.Snapshot snap;
+        try {
+            snap = RLCheckpoint.read(source);
+        } catch (Exception e) {
+            log("ERROR: Checkpoint load failed: " + e.getMessage());
+            return false;
+        }
+        if (!RLCheckpoint.isCompatible(snap, getJointNames(), getObservationDim())) {
+            log("ERROR: Checkpoint does not match current joints/obs (obs=" + snap.obsDim + ", act=" + snap.actionDim + ")");
+            return false;
+        }
+
+        try {
+            agent.importWeights(snap.weights, snap.obsDim);
+        } catch (IllegalArgumentException e) {
+            log("ERROR: Checkpoint weights rejected: " + e.getMessage());
+            return false;
+        }
+        if (!inferenceOnly) {
+            agent.setLearningRate(snap.learningRate);
+            episodeCount = snap.episodeCount;
+            stats.restore(snap.recentRewards, snap.recentLengths, snap.bestReward, snap.totalSteps);
+        }
+        log("Checkpoint loaded: " + source + (inferenceOnly ? " (inference only)" : ", episode=" + episodeCount));
+        return true;
+    }
+
+    // ========== 결정론 모드 / 리플레이 ==========
+    /** 마스터 시드에서 스트림별·에피소드별 시드 유도 (SplitMix64 믹싱) */
+    private long deriveSeed(long stream, long index) {
+        long z = config.seed + stream * 0x9E3779B97F4A7C15L + index * 0xD1B54A32D192ED03L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private float[] nextAction(float[] obs) {
+        if (replayReader != null) {
+            return expectReplay(RLReplayLog.TAG_ACTION) ? replayReader.getAction() : EMPTY_ACTION;
+        }
+        long t0 = System.nanoTime();
+        float[] action = agent.selectAction(obs, agentMode);
+        metrics.recordInferenceNanos(System.nanoTime() - t0);
+        return action;
+    }
+
+    private void recordAppliedAction(float[] action) {
+        if (replayWriter == null) return;
+        try { replayWriter.action(action); } catch (IOException e) { onReplayWriteError(e); }
+    }
+
+    private void recordReward(float reward) {
+        if (replayWriter != null) {
+            try { replayWriter.reward(reward); } catch (IOException e) { onReplayWriteError(e); }
+        }
+        if (replayReader != null && expectReplay(RLReplayLog.TAG_REWARD)
+                && Float.floatToIntBits(reward) != Float.floatToIntBits(replayReader.getReward())) {
+            if (replayMismatches++ == 0) {
+                log(String.format("Replay diverged at step %d: reward=%s, logged=%s",
+                        stepCount, Float.toString(reward), Float.toString(replayReader.getReward())));
+            }
+        }
+    }
+
+    private void onReplayWriteError(IOException e) {
+        log("WARN: Replay log write failed, recording stopped: " + e.getMessage());
+        closeReplayWriter(false);
+    }
+
+    private void closeReplayWriter(boolean stopped) {
+        if (replayWriter == null) return;
+        RLReplayLog.Writer w = replayWriter;
+        replayWriter = null;
+        try {
+            if (stopped && transitionPrimed) w.end(RLReplayLog.END_STOPPED, stepCount, episodeReward);
+            w.close();
+        } catch (IOException e) {
+            logger.debug("Replay log close failed", e);
+        }
+    }
+
+    /** 다음 레코드가 기대한 태그가 아니면 재생 중단 */
+    private boolean expectReplay(byte tag) {
+        int got = replayReader.next();
+        if (got == tag) return true;
+        log("Replay stopped: expected record " + tag + " but got " + got + " at step " + stepCount);
+        replayMismatches++;
+        stopReplay();
+        return false;
+    }
+
+    private void finishReplay(byte endReason) {
+        if (!expectReplay(RLReplayLog.TAG_END)) return;
+        RLReplayLog.Reader r = replayReader;
+        boolean exact = replayMismatches == 0
+                && r.getEndReason() == endReason
+                && r.getEndSteps() == stepCount
+                && Float.floatToIntBits(r.getEndReward()) == Float.floatToIntBits(episodeReward);
+        log(String.format("Replay finished: episode=%d, steps=%d/%d, reward=%.4f/%.4f, %s",
+                replayEpisodeIndex, stepCount, r.getEndSteps(), episodeReward, r.getEndReward(),
+                exact ? "bit-exact" : "DIVERGED (" + replayMismatches + " reward mismatches)"));
+        stopReplay();
+    }
+
+    /**
+     * 기록된 에피소드를 재생. 로그의 시드로 결정론 모드를 켜고, 에이전트 대신 로그의 action/dt를 사용.
+     * 매 보상을 로그와 비트 단위로 비교하고 종료 시 결과를 로그로 남김.
+     * tick(dt)의 dt 인자는 무시되므로 헤드리스 루프에서 원하는 속도로 tick을 돌려도 됨.
+     * 재생이 끝나거나 중단되면 config.deterministic/seed를 시작 전 값으로 되돌림.
+     * <p>
+     * 결정론 모드는 에피소드마다 충돌 쌍 순서를 geom 목록 순서로 초기화하지만, 블록 geom이
+     * 기록 때와 다른 순서로 추가/제거됐다면(주변 지형 로딩 순서 등) 비트 단위 일치는 보장되지 않음.
+     *
+     * @param episodeIndex 재생할 에피소드 번호 (음수면 로그의 첫 에피소드)
+     */
+    public boolean startReplay(Path source, int episodeIndex) {
+        if (!isInitialized) {
+            log("ERROR: Cannot start replay - not initialized");
+            return false;
+        }
+        RLReplayLog.Reader reader;
+        try {
+            reader = RLReplayLog.Reader.open(source);
+        } catch (IOException e) {
+            log("ERROR: Replay load failed: " + e.getMessage());
+            return false;
+        }
+        if (!Arrays.equals(reader.getJointNames(), getJointNames().toArray(new String[0]))) {
+            log("ERROR: Replay joints do not match current model");
+            return false;
+        }
+        if (!reader.seekEpisode(episodeIndex)) {
+            log("ERROR: Episode " + episodeIndex + " not found in replay " + source);
+            return false;
+        }
+
+        if (trainingActive) stopTraining();
+        savedDeterministic = config.deterministic;
+        savedSeed = config.seed;
+        config.deterministic = true;
+        config.seed = reader.getSeed();
+        replayReader = reader;
+        replayEpisodeIndex = reader.getEpisodeIndex();
+        replayMismatches = 0;
+
+        agentMode = AgentMode.INFERENCE;
+        trainingActive = true;
+        reset();
+        log("Replay started: " + source + ", episode=" + replayEpisodeIndex + ", seed=" + config.seed);
+        return true;
+    }
+
+    public void stopReplay() {
+        if (replayReader == null) return;
+        replayReader = null;
+        trainingActive = false;
+        transitionPrimed = false;
+        config.deterministic = savedDeterministic;
+        config.seed = savedSeed;
+    }
+
+    public boolean isReplaying() { return replayReader != null; }
+    public boolean isRecordingReplay() { return replayWriter != null; }
+    public int getReplayMismatches() { return replayMismatches; }
+
     // ========== 학습 제어 ==========
     public void startTraining(AgentMode mode) {
         if (!isInitialized) {
@@ -750,12 +1098,24 @@ public class RLEnvironmentCore {
         if (renderer != null) renderer.clearManualJointLocks();
         if (hadManualLocks) log("Cleared manual joint overrides before training");
 
+        if (config.deterministic && agent != null) agent.setSeed(deriveSeed(STREAM_AGENT, episodeCount));
+        if (config.recordReplay) {
+            closeReplayWriter(true);
+            try {
+                replayWriter = new RLReplayLog.Writer(Paths.get(config.replayPath), config.seed, getJointNames());
+            } catch (IOException e) {
+                log("WARN: Cannot open replay log " + config.replayPath + ": " + e.getMessage());
+            }
+        }
+
         trainingActive = true;
         reset();
         log("Training started: mode=" + mode);
     }
 
     public void stopTraining() {
+        closeReplayWriter(true);
+        stopReplay();
         trainingActive = false;
         transitionPrimed = false;
         lastObs = null;
@@ -794,6 +1154,8 @@ public class RLEnvironmentCore {
         int dim = jointMetas.size();
         if (config.includeVelocities) dim += jointMetas.size();
         dim += 4;
+        int grid = Math.max(0, config.heightScanGrid);
+        dim += grid * grid;
         return dim;
     }
 
@@ -820,8 +1182,9 @@ public class RLEnvironmentCore {
     public float getJointPosition(String name) { return (renderer == null) ? 0f : renderer.getJointPosition(name); }
     public float getJointVelocity(String name) { return (renderer == null) ? 0f : renderer.getJointVelocity(name); }
 
+    /** 디버그 표시용. 맵은 재사용되므로 호출 측에서 보관하지 말 것 */
     public Map<String, Object> getDebugInfo() {
-        Map<String, Object> info = new LinkedHashMap<>();
+        Map<String, Object> info = debugInfo;
         info.put("initialized", isInitialized);
         info.put("training", trainingActive);
         info.put("mode", agentMode.name());
@@ -832,12 +1195,15 @@ public class RLEnvironmentCore {
         info.put("healthy", isHealthy());
         info.put("joints", jointMetas.size());
         info.put("avgReward", String.format("%.2f", stats.getAverageReward()));
+        info.put("sps", String.format("%.1f", metrics.getLatest().stepsPerSecond()));
         info.put("primed", transitionPrimed);
         info.put("physicsRootValid", lastPhysicsRootValid);
         return info;
     }
 
     // ========== 유틸 ==========
+    private static final float[] EMPTY_ACTION = new float[0];
+
     private float clamp(float v, float min, float max) { return Math.max(min, Math.min(max, v)); }
 
     private void ensureLastBuffers(int obsDim) {
@@ -887,6 +1253,11 @@ public class RLEnvironmentCore {
         public float rootVelocityObsClip = 5f;
         public float speedDiffObsClip = 5f;
 
+        // 높이 스캔 (0 = 끔, 8이면 빔 64개를 관측에 추가)
+        public int heightScanGrid = 0;
+        public float heightScanSpacing = 0.25f;
+        public float heightScanMaxDepth = 3f;
+
         public boolean overrideRootWithSuppliers = true;
 
         // ✅ reward/termination root source
@@ -931,53 +1302,56 @@ public class RLEnvironmentCore {
         public boolean updateOnEpisodeEnd = true;
         public int minUpdateBatch = 32;
 
+        // checkpoint (0 = 자동 저장 끔)
+        public int checkpointIntervalEpisodes = 0;
+        public String checkpointPath = "kaimyentity/checkpoints/policy.kaic";
+
+        // 결정론 모드: 마스터 시드 하나에서 에이전트/리셋 노이즈/ODE RNG 시드 유도, dt는 timeStep 고정
+        public boolean deterministic = false;
+        public long seed = 0L;
+        public boolean recordReplay = false;
+        public String replayPath = "kaimyentity/replays/episodes.kair";
+
         // debug
         public boolean debugRootSource = false;
         public int rootDebugPrintInterval = 60;
     }
 
+    /** 에피소드 통계: 최근 윈도우/최고 보상은 TrainingMetrics가 소유, 여기서는 누적 스텝만 관리 */
     public static class Statistics {
-        private final List<Float> episodeRewards = new ArrayList<>();
-        private final List<Integer> episodeLengths = new ArrayList<>();
-        private float bestReward = Float.NEGATIVE_INFINITY;
-        private int totalSteps = 0;
+        private final TrainingMetrics metrics;
+        private long totalSteps = 0;
+
+        public Statistics(TrainingMetrics metrics) {
+            this.metrics = metrics;
+        }
 
         public void recordEpisode(float reward, int length) {
-            episodeRewards.add(reward);
-            episodeLengths.add(length);
+            metrics.recordEpisode(reward, length);
             totalSteps += length;
+        }
 
-            if (reward > bestReward) bestReward = reward;
+        public float getAverageReward() { return metrics.getAverageReward(); }
+        public float getAverageLength() { return metrics.getAverageLength(); }
 
-            while (episodeRewards.size() > 100) {
-                episodeRewards.remove(0);
-                episodeLengths.remove(0);
-            }
-        }
+        public float getBestReward() { return metrics.getBestReward(); }
+        public long getTotalSteps() { return totalSteps; }
+        public int getEpisodeCount() { return metrics.getWindowSize(); }
 
-        public float getAverageReward() {
-            if (episodeRewards.isEmpty()) return 0f;
-            float sum = 0f;
-            for (float r : episodeRewards) sum += r;
-            return sum / episodeRewards.size();
-        }
+        public float[] getRecentRewards() { return metrics.getRecentRewards(); }
+        public int[] getRecentLengths() { return metrics.getRecentLengths(); }
 
-        public float getAverageLength() {
-            if (episodeLengths.isEmpty()) return 0f;
-            int sum = 0;
-            for (int l : episodeLengths) sum += l;
-            return (float) sum / episodeLengths.size();
+        /** 체크포인트 복원용 */
+        public void restore(float[] rewards, int[] lengths, float best, long steps) {
+            metrics.restoreEpisodes(rewards, lengths, best);
+            totalSteps = steps;
         }
-
-        public float getBestReward() { return (bestReward == Float.NEGATIVE_INFINITY) ? 0f : bestReward; }
-        public int getTotalSteps() { return totalSteps; }
-        public int getEpisodeCount() { return episodeRewards.size(); }
     }
 
     public static class SimpleAgent {
         private final int actionDim;
         private final java.util.function.IntSupplier obsDimSupplier;
-        private final Random random = new Random();
+        private final Random random;
 
         private final List<Experience> experiences = new ArrayList<>();
         private static final int BUFFER_SIZE = 2048;
@@ -988,6 +1362,15 @@ public class RLEnvironmentCore {
         private float[] imitationTargets;
 
         public SimpleAgent(int actionDim, java.util.function.IntSupplier obsDimSupplier) {
+            this(actionDim, obsDimSupplier, new Random());
+        }
+
+        public SimpleAgent(int actionDim, java.util.function.IntSupplier obsDimSupplier, long seed) {
+            this(actionDim, obsDimSupplier, new Random(seed));
+        }
+
+        private SimpleAgent(int actionDim, java.util.function.IntSupplier obsDimSupplier, Random random) {
+            this.random = random;
             this.actionDim = actionDim;
             this.obsDimSupplier = obsDimSupplier;
             initializeWeights(obsDimSupplier.getAsInt());
@@ -1097,6 +1480,33 @@ public class RLEnvironmentCore {
 
         public void setImitationTargets(float[] targets) { this.imitationTargets = targets; }
 
+        /** 탐색 노이즈/랜덤 action RNG 재시드 (가중치는 유지) */
+        public void setSeed(long seed) { random.setSeed(seed); }
+
+        public float getLearningRate() { return learningRate; }
+        public void setLearningRate(float lr) { this.learningRate = lr; }
+
+        /** exportWeights()가 쓰는 관측 차원 (가중치 행 수) */
+        public int getWeightObsDim() { return weights.length; }
+        public int getActionDim() { return actionDim; }
+
+        /** 가중치를 obs x action row-major 평탄 배열로 복사 */
+        public float[] exportWeights() {
+            int obsDim = weights.length;
+            float[] flat = new float[obsDim * actionDim];
+            for (int i = 0; i < obsDim; i++) System.arraycopy(weights[i], 0, flat, i * actionDim, actionDim);
+            return flat;
+        }
+
+        public void importWeights(float[] flat, int obsDim) {
+            if (obsDim <= 0 || flat.length != (long) obsDim * actionDim) {
+                throw new IllegalArgumentException("weight count " + flat.length + " != " + obsDim + "x" + actionDim);
+            }
+            float[][] w = new float[obsDim][actionDim];
+            for (int i = 0; i < obsDim; i++) System.arraycopy(flat, i * actionDim, w[i], 0, actionDim);
+            weights = w;
+        }
+
         public void setImitationTargets(Map<String, Float> targetMap, List<String> jointNames) {
             imitationTargets = new float[actionDim];
             for (int i = 0; i < jointNames.size() && i < actionDim; i++) {
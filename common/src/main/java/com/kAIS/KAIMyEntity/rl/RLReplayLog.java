@@ -0,0 +1,236 @@
+package com.kAIS.KAIMyEntity.rl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 결정론 모드용 action/event 로그 (바이너리 스트림)
+ *
+ * 포맷 (little-endian):
+ *   header: int magic 'KAIR' | int version | long seed | int actionDim
+ *           | int jointCount | (short len + utf8 bytes) * jointCount
+ *   records (byte tag + 고정 길이 본문, 발생 순서 그대로):
+ *     EPISODE: int episodeIndex
+ *     TICK   : float dt                             (tick 시작, 이번 tick의 dt)
+ *     ACTION : float[actionDim] action              (실제로 적용된 action)
+ *     REWARD : float reward                         (직전 action에 대한 보상)
+ *     END    : byte reason | int steps | float episodeReward
+ *
+ * - 쓰기: tick 스레드에서 재사용 버퍼에 append, 버퍼가 찰 때/에피소드 종료 시 flush
+ * - 읽기: 힙 ByteBuffer로 한 번에 읽고 바로 닫은 뒤 순차 파싱 (action 배열 재사용)
+ *   매핑은 Windows에서 GC 전까지 파일을 잠가 같은 경로에 다시 기록할 수 없음
+ * - 에피소드별 RNG 시드는 (seed, episodeIndex)로 다시 유도하므로 따로 저장하지 않음
+ */
+public final class RLReplayLog {
+    public static final int MAGIC = 0x4B414952; // 'KAIR'
+    public static final int VERSION = 1;
+
+    public static final byte TAG_EPISODE = 1;
+    public static final byte TAG_ACTION = 2;
+    public static final byte TAG_REWARD = 3;
+    public static final byte TAG_END = 4;
+    public static final byte TAG_TICK = 5;
+
+    public static final byte END_TERMINATED = 0;
+    public static final byte END_TRUNCATED = 1;
+    public static final byte END_STOPPED = 2;
+
+    private RLReplayLog() {}
+
+    // ========== 기록 ==========
+
+    public static final class Writer implements Closeable {
+        private static final int BUFFER_BYTES = 64 * 1024;
+
+        private final FileChannel channel;
+        private final ByteBuffer buf;
+        private final int actionDim;
+
+        public Writer(Path target, long seed, List<String> jointNames) throws IOException {
+            Path dir = target.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+
+            this.actionDim = jointNames.size();
+            this.buf = ByteBuffer.allocateDirect(Math.max(BUFFER_BYTES, 16 + actionDim * 4 * 4))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            this.channel = FileChannel.open(target,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+            buf.putInt(MAGIC).putInt(VERSION).putLong(seed).putInt(actionDim);
+            buf.putInt(jointNames.size());
+            for (String name : jointNames) {
+                byte[] b = name.getBytes(StandardCharsets.UTF_8);
+                ensure(2 + b.length);
+                buf.putShort((short) b.length);
+                buf.put(b);
+            }
+            flush();
+        }
+
+        public void episode(int episodeIndex) throws IOException {
+            ensure(1 + 4);
+            buf.put(TAG_EPISODE).putInt(episodeIndex);
+        }
+
+        public void tick(float dt) throws IOException {
+            ensure(1 + 4);
+            buf.put(TAG_TICK).putFloat(dt);
+        }
+
+        public void action(float[] action) throws IOException {
+            ensure(1 + actionDim * 4);
+            buf.put(TAG_ACTION);
+            int n = Math.min(actionDim, action.length);
+            for (int i = 0; i < n; i++) buf.putFloat(action[i]);
+            for (int i = n; i < actionDim; i++) buf.putFloat(0f);
+        }
+
+        public void reward(float reward) throws IOException {
+            ensure(1 + 4);
+            buf.put(TAG_REWARD).putFloat(reward);
+        }
+
+        public void end(byte reason, int steps, float episodeReward) throws IOException {
+            ensure(1 + 1 + 4 + 4);
+            buf.put(TAG_END).put(reason).putInt(steps).putFloat(episodeReward);
+            flush();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes) flush();
+        }
+
+        public void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) channel.write(buf);
+            buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // ========== 재생 ==========
+
+    public static final class Reader {
+        private final ByteBuffer buf;
+        private final long seed;
+        private final String[] jointNames;
+        private final float[] action;
+
+        private int episodeIndex = -1;
+        private float dt;
+        private float reward;
+        private byte endReason;
+        private int endSteps;
+        private float endReward;
+
+        private Reader(ByteBuffer buf, long seed, String[] jointNames) {
+            this.buf = buf;
+            this.seed = seed;
+            this.jointNames = jointNames;
+            this.action = new float[jointNames.length];
+        }
+
+        public static Reader open(Path source) throws IOException {
+            ByteBuffer buf;
+            try (FileChannel ch = FileChannel.open(source, StandardOpenOption.READ)) {
+                long size = ch.size();
+                if (size > Integer.MAX_VALUE) throw new IOException("Replay log too large: " + source);
+                buf = ByteBuffer.allocate((int) size);
+                while (buf.hasRemaining()) {
+                    if (ch.read(buf) < 0) throw new IOException("Truncated replay log: " + source);
+                }
+            }
+            buf.flip();
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buf.remaining() < 24 || buf.getInt() != MAGIC) {
+                throw new IOException("Not a replay log: " + source);
+            }
+            int version = buf.getInt();
+            if (version != VERSION) throw new IOException("Unsupported replay version " + version + ": " + source);
+
+            long seed = buf.getLong();
+            int actionDim = buf.getInt();
+            int jointCount = buf.getInt();
+            if (jointCount != actionDim || jointCount < 0 || jointCount > 4096) {
+                throw new IOException("Bad joint count " + jointCount);
+            }
+            String[] names = new String[jointCount];
+            for (int i = 0; i < jointCount; i++) {
+                int len = buf.getShort() & 0xFFFF;
+                byte[] b = new byte[len];
+                buf.get(b);
+                names[i] = new String(b, StandardCharsets.UTF_8);
+            }
+            return new Reader(buf, seed, names);
+        }
+
+        /**
+         * 다음 레코드로 이동.
+         * @return 태그, 파일 끝(또는 잘린 레코드)이면 -1
+         */
+        public int next() {
+            if (!buf.hasRemaining()) return -1;
+            byte tag = buf.get();
+            int body = switch (tag) {
+                case TAG_EPISODE, TAG_REWARD, TAG_TICK -> 4;
+                case TAG_ACTION -> action.length * 4;
+                case TAG_END -> 1 + 4 + 4;
+                default -> -1;
+            };
+            if (body < 0 || buf.remaining() < body) return -1;
+
+            switch (tag) {
+                case TAG_EPISODE -> episodeIndex = buf.getInt();
+                case TAG_TICK -> dt = buf.getFloat();
+                case TAG_ACTION -> {
+                    for (int i = 0; i < action.length; i++) action[i] = buf.getFloat();
+                }
+                case TAG_REWARD -> reward = buf.getFloat();
+                case TAG_END -> {
+                    endReason = buf.get();
+                    endSteps = buf.getInt();
+                    endReward = buf.getFloat();
+                }
+                default -> { }
+            }
+            return tag;
+        }
+
+        /** 해당 에피소드의 EPISODE 레코드 직후로 이동 (index < 0이면 첫 에피소드) */
+        public boolean seekEpisode(int index) {
+            int tag;
+            while ((tag = next()) >= 0) {
+                if (tag == TAG_EPISODE && (index < 0 || episodeIndex == index)) return true;
+            }
+            return false;
+        }
+
+        public long getSeed() { return seed; }
+        public String[] getJointNames() { return jointNames; }
+        public int getEpisodeIndex() { return episodeIndex; }
+        public float getDeltaTime() { return dt; }
+        /** 재사용 배열: 다음 {@link #next()} 호출 전까지만 유효 */
+        public float[] getAction() { return action; }
+        public float getReward() { return reward; }
+        public byte getEndReason() { return endReason; }
+        public int getEndSteps() { return endSteps; }
+        public float getEndReward() { return endReward; }
+    }
+}
@@ -0,0 +1,69 @@
+package com.kAIS.KAIMyEntity.rl.metrics;
+
+/**
+ * 고정 크기 primitive 링 버퍼 + 누적합 (평균 O(1), 할당 없음)
+ *
+ * 누적합은 double로 유지하고, 오차가 쌓이지 않도록 한 바퀴마다 재계산.
+ */
+public final class FloatRingWindow {
+    private final float[] values;
+    private int head = 0;   // 다음에 쓸 위치
+    private int size = 0;
+    private double sum = 0.0;
+    private int sinceResum = 0;
+
+    public FloatRingWindow(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        this.values = new float[capacity];
+    }
+
+    public void add(float v) {
+        if (size == values.length) {
+            sum -= values[head];
+        } else {
+            size++;
+        }
+        values[head] = v;
+        sum += v;
+        head = (head + 1 == values.length) ? 0 : head + 1;
+
+        if (++sinceResum >= values.length) resum();
+    }
+
+    private void resum() {
+        double s = 0.0;
+        for (int i = 0; i < size; i++) s += values[i];
+        sum = s;
+        sinceResum = 0;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+        sum = 0.0;
+        sinceResum = 0;
+    }
+
+    public int size() { return size; }
+    public int capacity() { return values.length; }
+    public boolean isEmpty() { return size == 0; }
+    public double sum() { return sum; }
+    public float mean() { return size == 0 ? 0f : (float) (sum / size); }
+
+    /** 가장 최근 값 (비어 있으면 0) */
+    public float last() {
+        if (size == 0) return 0f;
+        int idx = (head == 0) ? values.length - 1 : head - 1;
+        return values[idx];
+    }
+
+    /** 오래된 것부터 순서대로 복사 */
+    public float[] toArray() {
+        float[] out = new float[size];
+        int start = (head - size + values.length) % values.length;
+        for (int i = 0; i < size; i++) {
+            out[i] = values[(start + i) % values.length];
+        }
+        return out;
+    }
+}
@@ -0,0 +1,105 @@
+package com.kAIS.KAIMyEntity.rl.metrics;
+
+import java.util.Arrays;
+
+/**
+ * HDR 스타일 로그 버킷 히스토그램 (고정 메모리, record O(1))
+ *
+ * - 값에 scale을 곱해 long 크기로 양자화 → 2의 거듭제곱 구간마다 16개 서브버킷 (상대오차 ~3%)
+ * - 음수는 별도 배열 (에피소드 보상처럼 부호가 있는 값용)
+ * - 단일 스레드 기록 전제. 다른 스레드는 {@link #summarize()} 결과만 읽을 것
+ */
+public final class LogHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;        // 32
+    private static final int HALF = SUB_COUNT >> 1;             // 16
+    private static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * HALF;
+
+    private final double scale;
+    private final long[] pos = new long[BUCKETS];
+    private final long[] neg = new long[BUCKETS];
+
+    private long count = 0;
+    private double sum = 0.0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param scale 기록 단위. 예) 보상 0.001 해상도 → 1000, 나노초 → 1
+     */
+    public LogHistogram(double scale) {
+        this.scale = scale;
+    }
+
+    public void record(double value) {
+        if (!Double.isFinite(value)) return;
+        long q = Math.round(Math.abs(value) * scale);
+        if (value < 0) neg[indexOf(q)]++;
+        else pos[indexOf(q)]++;
+
+        count++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    private static int indexOf(long v) {
+        if (v < SUB_COUNT) return (int) Math.max(0, v);
+        int shift = (63 - Long.numberOfLeadingZeros(v)) - (SUB_BITS - 1);
+        int sub = (int) (v >>> shift);          // [HALF, SUB_COUNT)
+        return SUB_COUNT + (shift - 1) * HALF + (sub - HALF);
+    }
+
+    /** 버킷 중앙값 (양자화 단위) */
+    private static double midOf(int index) {
+        if (index < SUB_COUNT) return index;
+        int k = index - SUB_COUNT;
+        int shift = k / HALF + 1;
+        long sub = (k % HALF) + HALF;
+        long lo = sub << shift;
+        long width = 1L << shift;
+        return lo + (width - 1) * 0.5;
+    }
+
+    public void reset() {
+        Arrays.fill(pos, 0L);
+        Arrays.fill(neg, 0L);
+        count = 0;
+        sum = 0.0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    public long getCount() { return count; }
+    public double getMean() { return count == 0 ? 0.0 : sum / count; }
+    public double getMin() { return count == 0 ? 0.0 : min; }
+    public double getMax() { return count == 0 ? 0.0 : max; }
+
+    /** q ∈ [0,1] */
+    public double percentile(double q) {
+        if (count == 0) return 0.0;
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            seen += neg[i];
+            if (seen >= rank) return clampToRange(-midOf(i) / scale);
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += pos[i];
+            if (seen >= rank) return clampToRange(midOf(i) / scale);
+        }
+        return max;
+    }
+
+    private double clampToRange(double v) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    public Summary summarize() {
+        return new Summary(count, getMean(), percentile(0.5), percentile(0.9), percentile(0.99), getMin(), getMax());
+    }
+
+    public record Summary(long count, double mean, double p50, double p90, double p99, double min, double max) {
+        public static final Summary EMPTY = new Summary(0, 0, 0, 0, 0, 0, 0);
+    }
+}
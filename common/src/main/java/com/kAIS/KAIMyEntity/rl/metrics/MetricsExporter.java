@@ -0,0 +1,150 @@
+package com.kAIS.KAIMyEntity.rl.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 메트릭 익스포터 (전용 데몬 스레드)
+ *
+ * - 파일: 주기마다 최신 스냅샷을 CSV 또는 JSONL로 append (새 스냅샷일 때만)
+ * - HTTP: 127.0.0.1:port 의 GET /metrics → 최신 스냅샷 JSON
+ *
+ * tick 스레드와는 {@link MetricsSnapshot} volatile 참조로만 통신.
+ */
+public final class MetricsExporter {
+    private static final Logger logger = LogManager.getLogger();
+
+    public enum Format { CSV, JSONL }
+
+    private final Supplier<MetricsSnapshot> source;
+    private ScheduledExecutorService scheduler;
+    private HttpServer http;
+    private ExecutorService httpExecutor;  // HttpServer.stop()은 executor를 종료하지 않음
+
+    private Path filePath;
+    private Format format = Format.JSONL;
+    private long lastWrittenSeq = -1;
+
+    public MetricsExporter(Supplier<MetricsSnapshot> source) {
+        this.source = source;
+    }
+
+    // ========== 파일 ==========
+
+    public synchronized void startFile(Path path, Format format, long intervalMillis) {
+        stopFile();
+        this.filePath = path;
+        this.format = format;
+        this.lastWrittenSeq = -1;
+
+        try {
+            Path dir = path.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            if (format == Format.CSV && (!Files.exists(path) || Files.size(path) == 0)) {
+                Files.writeString(path, MetricsSnapshot.csvHeader() + "\n", StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            logger.warn("Metrics export file setup failed: {}", path, e);
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "KAIMyEntity-Metrics");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        long period = Math.max(100L, intervalMillis);
+        scheduler.scheduleAtFixedRate(this::exportOnce, period, period, TimeUnit.MILLISECONDS);
+        logger.info("Metrics export started: {} ({}, every {} ms)", path, format, period);
+    }
+
+    private void exportOnce() {
+        MetricsSnapshot snap = source.get();
+        if (snap == null || snap.sequence() == 0 || snap.sequence() == lastWrittenSeq) return;
+        String line = (format == Format.CSV) ? snap.toCsvRow() : snap.toJson();
+        try (BufferedWriter w = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            w.write(line);
+            w.newLine();
+            lastWrittenSeq = snap.sequence();
+        } catch (IOException e) {
+            logger.debug("Metrics export write failed: {}", e.getMessage());
+        }
+    }
+
+    public synchronized void stopFile() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    // ========== HTTP ==========
+
+    public synchronized boolean startHttp(int port) {
+        stopHttp();
+        try {
+            http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            http.createContext("/metrics", exchange -> {
+                byte[] body = source.get().toJson().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            });
+            httpExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "KAIMyEntity-MetricsHttp");
+                t.setDaemon(true);
+                return t;
+            });
+            http.setExecutor(httpExecutor);
+            http.start();
+            logger.info("Metrics HTTP endpoint: http://127.0.0.1:{}/metrics", port);
+            return true;
+        } catch (IOException | LinkageError e) {
+            // jdk.httpserver 모듈이 없는 런타임일 수도 있음
+            logger.warn("Metrics HTTP endpoint unavailable: {}", e.toString());
+            http = null;
+            if (httpExecutor != null) {
+                httpExecutor.shutdown();
+                httpExecutor = null;
+            }
+            return false;
+        }
+    }
+
+    public synchronized void stopHttp() {
+        if (http != null) {
+            http.stop(0);
+            http = null;
+        }
+        if (httpExecutor != null) {
+            httpExecutor.shutdown();
+            httpExecutor = null;
+        }
+    }
+
+    public void stop() {
+        stopFile();
+        stopHttp();
+    }
+}
@@ -0,0 +1,94 @@
+package com.kAIS.KAIMyEntity.rl.metrics;
+
+import java.util.Locale;
+
+/**
+ * tick 스레드가 주기적으로 발행하는 불변 메트릭 스냅샷.
+ * GUI/익스포터/HTTP는 이것만 읽는다 (tick 상태 직접 접근 없음).
+ */
+public record MetricsSnapshot(
+        long sequence,
+        long timestampMillis,
+        int episodes,
+        long totalSteps,
+        double stepsPerSecond,
+        float windowRewardMean,
+        float windowLengthMean,
+        float bestReward,
+        LogHistogram.Summary episodeReward,
+        LogHistogram.Summary episodeLength,
+        LogHistogram.Summary physicsMillis,
+        LogHistogram.Summary inferenceMicros,
+        LogHistogram.Summary rewardMicros
+) {
+    public static final MetricsSnapshot EMPTY = new MetricsSnapshot(0, 0, 0, 0, 0, 0, 0, 0,
+            LogHistogram.Summary.EMPTY, LogHistogram.Summary.EMPTY, LogHistogram.Summary.EMPTY,
+            LogHistogram.Summary.EMPTY, LogHistogram.Summary.EMPTY);
+
+    private static final String[] HIST_NAMES = {"reward", "length", "physicsMs", "inferenceUs", "rewardUs"};
+
+    private LogHistogram.Summary[] histograms() {
+        return new LogHistogram.Summary[]{episodeReward, episodeLength, physicsMillis, inferenceMicros, rewardMicros};
+    }
+
+    public static String csvHeader() {
+        StringBuilder sb = new StringBuilder("seq,time,episodes,totalSteps,sps,rewardMean,lengthMean,bestReward");
+        for (String h : HIST_NAMES) {
+            sb.append(',').append(h).append("_count")
+              .append(',').append(h).append("_mean")
+              .append(',').append(h).append("_p50")
+              .append(',').append(h).append("_p90")
+              .append(',').append(h).append("_p99")
+              .append(',').append(h).append("_max");
+        }
+        return sb.toString();
+    }
+
+    public String toCsvRow() {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(sequence).append(',').append(timestampMillis).append(',')
+          .append(episodes).append(',').append(totalSteps).append(',')
+          .append(fmt(stepsPerSecond)).append(',')
+          .append(fmt(windowRewardMean)).append(',').append(fmt(windowLengthMean)).append(',')
+          .append(fmt(bestReward));
+        for (LogHistogram.Summary s : histograms()) {
+            sb.append(',').append(s.count())
+              .append(',').append(fmt(s.mean()))
+              .append(',').append(fmt(s.p50()))
+              .append(',').append(fmt(s.p90()))
+              .append(',').append(fmt(s.p99()))
+              .append(',').append(fmt(s.max()));
+        }
+        return sb.toString();
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("{\"seq\":").append(sequence)
+          .append(",\"time\":").append(timestampMillis)
+          .append(",\"episodes\":").append(episodes)
+          .append(",\"totalSteps\":").append(totalSteps)
+          .append(",\"sps\":").append(fmt(stepsPerSecond))
+          .append(",\"rewardMean\":").append(fmt(windowRewardMean))
+          .append(",\"lengthMean\":").append(fmt(windowLengthMean))
+          .append(",\"bestReward\":").append(fmt(bestReward));
+        LogHistogram.Summary[] hs = histograms();
+        for (int i = 0; i < hs.length; i++) {
+            LogHistogram.Summary s = hs[i];
+            sb.append(",\"").append(HIST_NAMES[i]).append("\":{")
+              .append("\"count\":").append(s.count())
+              .append(",\"mean\":").append(fmt(s.mean()))
+              .append(",\"p50\":").append(fmt(s.p50()))
+              .append(",\"p90\":").append(fmt(s.p90()))
+              .append(",\"p99\":").append(fmt(s.p99()))
+              .append(",\"max\":").append(fmt(s.max()))
+              .append('}');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String fmt(double v) {
+        if (!Double.isFinite(v)) return "0";
+        return String.format(Locale.ROOT, "%.4f", v);
+    }
+}
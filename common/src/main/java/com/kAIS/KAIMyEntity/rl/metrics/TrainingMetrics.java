@@ -0,0 +1,135 @@
+package com.kAIS.KAIMyEntity.rl.metrics;
+
+/**
+ * 학습 메트릭 수집기 (tick 스레드 전용 기록 + volatile 스냅샷 발행)
+ *
+ * - 에피소드 보상/길이: 최근 N 링 윈도우 + 전체 히스토그램
+ * - 스텝 단위 타이밍: physics / inference / reward (ns 단위 기록)
+ * - steps-per-second: 발행 주기 사이의 스텝 수 / 경과 시간
+ */
+public final class TrainingMetrics {
+    public static final int DEFAULT_WINDOW = 100;
+
+    private final FloatRingWindow rewardWindow;
+    private final FloatRingWindow lengthWindow;
+
+    private final LogHistogram rewardHist = new LogHistogram(1000.0);   // 0.001 해상도
+    private final LogHistogram lengthHist = new LogHistogram(1.0);
+    private final LogHistogram physicsHist = new LogHistogram(1e6);     // ms, 1ns 해상도
+    private final LogHistogram inferenceHist = new LogHistogram(1e3);   // us, 1ns 해상도
+    private final LogHistogram rewardTimeHist = new LogHistogram(1e3);  // us
+
+    private int episodes = 0;
+    private long totalSteps = 0;
+    private float bestReward = Float.NEGATIVE_INFINITY;
+
+    // SPS
+    private long stepsAtLastPublish = 0;
+    private long lastPublishNanos = 0;
+    private long publishIntervalNanos = 1_000_000_000L;
+
+    private long sequence = 0;
+    private volatile MetricsSnapshot latest = MetricsSnapshot.EMPTY;
+
+    public TrainingMetrics() { this(DEFAULT_WINDOW); }
+
+    public TrainingMetrics(int window) {
+        this.rewardWindow = new FloatRingWindow(window);
+        this.lengthWindow = new FloatRingWindow(window);
+    }
+
+    // ========== 기록 (tick 스레드) ==========
+
+    public void recordEpisode(float reward, int length) {
+        episodes++;
+        rewardWindow.add(reward);
+        lengthWindow.add(length);
+        rewardHist.record(reward);
+        lengthHist.record(length);
+        if (reward > bestReward) bestReward = reward;
+    }
+
+    public void recordStep() { totalSteps++; }
+
+    public void recordPhysicsNanos(long nanos) { if (nanos > 0) physicsHist.record(nanos * 1e-6); }
+    public void recordInferenceNanos(long nanos) { if (nanos >= 0) inferenceHist.record(nanos * 1e-3); }
+    public void recordRewardNanos(long nanos) { if (nanos >= 0) rewardTimeHist.record(nanos * 1e-3); }
+
+    /** tick마다 호출해도 됨: 주기가 지났을 때만 스냅샷 생성 */
+    public void maybePublish(long nowNanos) {
+        if (lastPublishNanos == 0) {
+            lastPublishNanos = nowNanos;
+            stepsAtLastPublish = totalSteps;
+            return;
+        }
+        if (nowNanos - lastPublishNanos < publishIntervalNanos) return;
+        publish(nowNanos);
+    }
+
+    public void publish(long nowNanos) {
+        long elapsed = nowNanos - lastPublishNanos;
+        double sps = (elapsed > 0) ? (totalSteps - stepsAtLastPublish) * 1e9 / elapsed : 0.0;
+        lastPublishNanos = nowNanos;
+        stepsAtLastPublish = totalSteps;
+
+        latest = new MetricsSnapshot(
+                ++sequence,
+                System.currentTimeMillis(),
+                episodes,
+                totalSteps,
+                sps,
+                rewardWindow.mean(),
+                lengthWindow.mean(),
+                (bestReward == Float.NEGATIVE_INFINITY) ? 0f : bestReward,
+                rewardHist.summarize(),
+                lengthHist.summarize(),
+                physicsHist.summarize(),
+                inferenceHist.summarize(),
+                rewardTimeHist.summarize()
+        );
+    }
+
+    /** 스텝 타이밍 히스토그램만 초기화 (에피소드 통계 유지) */
+    public void resetTimings() {
+        physicsHist.reset();
+        inferenceHist.reset();
+        rewardTimeHist.reset();
+    }
+
+    public void setPublishIntervalMillis(long millis) {
+        this.publishIntervalNanos = Math.max(1L, millis) * 1_000_000L;
+    }
+
+    /** 체크포인트 복원용: 최근 윈도우와 최고 보상만 다시 채움 (히스토그램/카운터 유지) */
+    public void restoreEpisodes(float[] rewards, int[] lengths, float best) {
+        rewardWindow.clear();
+        lengthWindow.clear();
+        int n = Math.min(rewards.length, lengths.length);
+        for (int i = Math.max(0, n - rewardWindow.capacity()); i < n; i++) {
+            rewardWindow.add(rewards[i]);
+            lengthWindow.add(lengths[i]);
+        }
+        bestReward = (n > 0) ? best : Float.NEGATIVE_INFINITY;
+    }
+
+    // ========== 에피소드 윈도우 조회 (tick 스레드) ==========
+
+    public float getAverageReward() { return rewardWindow.mean(); }
+    public float getAverageLength() { return lengthWindow.mean(); }
+    public float getBestReward() { return (bestReward == Float.NEGATIVE_INFINITY) ? 0f : bestReward; }
+    public int getWindowSize() { return rewardWindow.size(); }
+
+    /** 오래된 것부터 */
+    public float[] getRecentRewards() { return rewardWindow.toArray(); }
+
+    public int[] getRecentLengths() {
+        float[] src = lengthWindow.toArray();
+        int[] out = new int[src.length];
+        for (int i = 0; i < out.length; i++) out[i] = (int) src[i];
+        return out;
+    }
+
+    // ========== 읽기 (아무 스레드) ==========
+
+    public MetricsSnapshot getLatest() { return latest; }
+}
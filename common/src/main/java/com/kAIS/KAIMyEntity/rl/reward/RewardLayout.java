@@ -0,0 +1,40 @@
+package com.kAIS.KAIMyEntity.rl.reward;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 보상 항 컴파일용 조인트 레이아웃 (initialize 시 1회 생성, 이후 불변)
+ *
+ * 인덱스는 RLEnvironmentCore의 jointMetas 순서 = action/observation 순서와 동일.
+ */
+public final class RewardLayout {
+    private final String[] jointNames;
+    private final float[] minLimits;
+    private final float[] maxLimits;
+    private final Map<String, Integer> indexByName;
+
+    public RewardLayout(List<String> jointNames, float[] minLimits, float[] maxLimits) {
+        int n = jointNames.size();
+        if (minLimits.length != n || maxLimits.length != n) {
+            throw new IllegalArgumentException("limit arrays must match joint count " + n);
+        }
+        this.jointNames = jointNames.toArray(new String[0]);
+        this.minLimits = minLimits.clone();
+        this.maxLimits = maxLimits.clone();
+        this.indexByName = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) indexByName.put(this.jointNames[i], i);
+    }
+
+    public int getJointCount() { return jointNames.length; }
+    public String getJointName(int index) { return jointNames[index]; }
+    public float getMinLimit(int index) { return minLimits[index]; }
+    public float getMaxLimit(int index) { return maxLimits[index]; }
+
+    /** compile 단계 전용. 없으면 -1 */
+    public int indexOf(String jointName) {
+        Integer idx = indexByName.get(jointName);
+        return (idx != null) ? idx : -1;
+    }
+}
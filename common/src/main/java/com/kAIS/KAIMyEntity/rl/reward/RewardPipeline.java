@@ -0,0 +1,145 @@
+package com.kAIS.KAIMyEntity.rl.reward;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 등록된 RewardTerm들을 순서대로 평가하는 파이프라인.
+ *
+ * - register/remove는 평가 스레드(tick)에서만 호출할 것
+ * - compile()에서 레이아웃 바인딩 → evaluate()는 배열 순회만
+ * - term별 시간(ns)/값 통계를 primitive 배열로 누적
+ */
+public final class RewardPipeline {
+    private final List<RewardTerm> terms = new ArrayList<>();
+    private RewardTerm[] compiled = new RewardTerm[0];
+    private RewardLayout layout;
+
+    // ===== term별 통계 (compiled 인덱스 기준) =====
+    private boolean timingEnabled = true;
+    private long evalCount = 0;
+    private long[] totalNanos = new long[0];
+    private float[] lastValue = new float[0];
+    private double[] sumValue = new double[0];
+    private float[] minValue = new float[0];
+    private float[] maxValue = new float[0];
+
+    public void register(RewardTerm term) {
+        if (term == null) return;
+        removeByName(term.getName());
+        terms.add(term);
+        rebuild();
+    }
+
+    public boolean remove(String name) {
+        boolean removed = removeByName(name);
+        if (removed) rebuild();
+        return removed;
+    }
+
+    public void clear() {
+        terms.clear();
+        rebuild();
+    }
+
+    private boolean removeByName(String name) {
+        for (int i = 0; i < terms.size(); i++) {
+            if (terms.get(i).getName().equals(name)) {
+                terms.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rebuild() {
+        compiled = terms.toArray(new RewardTerm[0]);
+        if (layout != null) {
+            for (RewardTerm t : compiled) t.compile(layout);
+        }
+        int n = compiled.length;
+        totalNanos = new long[n];
+        lastValue = new float[n];
+        sumValue = new double[n];
+        minValue = new float[n];
+        maxValue = new float[n];
+        resetStats();
+    }
+
+    /** initialize에서 조인트 레이아웃이 확정되면 호출 */
+    public void compile(RewardLayout layout) {
+        this.layout = layout;
+        for (RewardTerm t : compiled) t.compile(layout);
+        resetStats();
+    }
+
+    public float evaluate(RewardState state) {
+        final RewardTerm[] ts = compiled;
+        float total = 0f;
+        if (timingEnabled) {
+            for (int i = 0; i < ts.length; i++) {
+                long t0 = System.nanoTime();
+                float v = ts[i].evaluate(state);
+                totalNanos[i] += System.nanoTime() - t0;
+                record(i, v);
+                total += v;
+            }
+        } else {
+            for (int i = 0; i < ts.length; i++) {
+                float v = ts[i].evaluate(state);
+                record(i, v);
+                total += v;
+            }
+        }
+        evalCount++;
+        return total;
+    }
+
+    private void record(int i, float v) {
+        lastValue[i] = v;
+        sumValue[i] += v;
+        if (v < minValue[i]) minValue[i] = v;
+        if (v > maxValue[i]) maxValue[i] = v;
+    }
+
+    public void resetStats() {
+        evalCount = 0;
+        Arrays.fill(totalNanos, 0L);
+        Arrays.fill(lastValue, 0f);
+        Arrays.fill(sumValue, 0.0);
+        Arrays.fill(minValue, Float.POSITIVE_INFINITY);
+        Arrays.fill(maxValue, Float.NEGATIVE_INFINITY);
+    }
+
+    public void setTimingEnabled(boolean enabled) { this.timingEnabled = enabled; }
+    public boolean isTimingEnabled() { return timingEnabled; }
+    public int getTermCount() { return compiled.length; }
+    public long getEvalCount() { return evalCount; }
+
+    public List<String> getTermNames() {
+        List<String> names = new ArrayList<>(compiled.length);
+        for (RewardTerm t : compiled) names.add(t.getName());
+        return Collections.unmodifiableList(names);
+    }
+
+    /** GUI/로그용 스냅샷 (호출할 때만 할당) */
+    public List<TermStats> getTermStats() {
+        List<TermStats> out = new ArrayList<>(compiled.length);
+        for (int i = 0; i < compiled.length; i++) {
+            boolean any = evalCount > 0;
+            out.add(new TermStats(
+                    compiled[i].getName(),
+                    lastValue[i],
+                    any ? (float) (sumValue[i] / evalCount) : 0f,
+                    any ? minValue[i] : 0f,
+                    any ? maxValue[i] : 0f,
+                    any ? (double) totalNanos[i] / evalCount : 0.0
+            ));
+        }
+        return out;
+    }
+
+    public record TermStats(String name, float last, float mean, float min, float max, double avgNanos) {}
+}
@@ -0,0 +1,45 @@
+package com.kAIS.KAIMyEntity.rl.reward;
+
+import java.util.Arrays;
+
+/**
+ * 보상 계산용 primitive 상태 스냅샷 (스텝마다 재사용, 할당 없음)
+ *
+ * RLEnvironmentCore가 스텝당 1회 채우고 모든 RewardTerm이 공유한다.
+ */
+public final class RewardState {
+    /** 조인트 위치/속도 (RewardLayout 인덱스 순서) */
+    public float[] jointPos = new float[0];
+    public float[] jointVel = new float[0];
+
+    /** 이번 transition의 action (null 가능 → 길이 0 배열로 대체) */
+    public float[] action = new float[0];
+
+    /** 보상용 루트 위치/속도 (physics 또는 observed, Config에 따름) */
+    public final float[] rootPos = new float[3];
+    public final float[] rootVel = new float[3];
+
+    /** 참조 포즈 (refMask[i]가 true인 조인트만 유효) */
+    public float[] refPose = new float[0];
+    public boolean[] refMask = new boolean[0];
+    public boolean hasRefPose = false;
+
+    public float timeInEpisode;
+    public float deltaTime;
+
+    public void ensureJointCount(int n) {
+        if (jointPos.length != n) {
+            jointPos = new float[n];
+            jointVel = new float[n];
+            refPose = new float[n];
+            refMask = new boolean[n];
+        }
+    }
+
+    public void clearRefPose() {
+        if (hasRefPose) {
+            Arrays.fill(refMask, false);
+            hasRefPose = false;
+        }
+    }
+}
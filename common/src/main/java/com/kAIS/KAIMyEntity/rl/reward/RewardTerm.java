@@ -0,0 +1,21 @@
+package com.kAIS.KAIMyEntity.rl.reward;
+
+/**
+ * 보상 항(term) 하나.
+ *
+ * - initialize 시점에 {@link #compile(RewardLayout)}로 조인트 인덱스 레이아웃에 맞춰 한 번 준비
+ * - 매 스텝 {@link #evaluate(RewardState)}는 primitive 스냅샷만 읽어야 함 (Map/문자열 조회 금지)
+ * - 반환값은 가중치까지 적용된 최종 기여분 (패널티면 음수)
+ */
+public interface RewardTerm {
+
+    String getName();
+
+    /**
+     * 조인트 레이아웃이 바뀔 때마다(initialize) 호출된다.
+     * 이름 기반 조회는 여기서 끝내고 인덱스 배열로 캐시할 것.
+     */
+    default void compile(RewardLayout layout) {}
+
+    float evaluate(RewardState state);
+}
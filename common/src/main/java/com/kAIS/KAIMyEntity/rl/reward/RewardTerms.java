@@ -0,0 +1,203 @@
+package com.kAIS.KAIMyEntity.rl.reward;
+
+import com.kAIS.KAIMyEntity.rl.RLEnvironmentCore.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 기본 보상 항 모음 (기존 calculateReward 하드코딩 버전과 동일한 수식)
+ *
+ * 가중치는 매 평가 시 Config에서 읽는다 → GUI에서 바꾼 값이 바로 반영됨.
+ */
+public final class RewardTerms {
+    private RewardTerms() {}
+
+    /** 기존 calculateReward와 같은 순서/구성의 기본 세트 */
+    public static List<RewardTerm> defaults(Config config) {
+        List<RewardTerm> list = new ArrayList<>();
+        list.add(new AliveBonus(config));
+        list.add(new Height(config));
+        list.add(new SpeedMatch(config));
+        list.add(new ControlCost(config));
+        list.add(new VelocityPenalty(config));
+        list.add(new LimitPenalty());
+        list.add(new Symmetry(config));
+        list.add(new PoseMatch(config));
+        return list;
+    }
+
+    // ========== 루트 기반 ==========
+
+    public static final class AliveBonus implements RewardTerm {
+        private final Config config;
+        public AliveBonus(Config config) { this.config = config; }
+        @Override public String getName() { return "alive"; }
+        @Override public float evaluate(RewardState s) { return config.aliveBonus; }
+    }
+
+    public static final class Height implements RewardTerm {
+        private final Config config;
+        public Height(Config config) { this.config = config; }
+        @Override public String getName() { return "height"; }
+
+        @Override
+        public float evaluate(RewardState s) {
+            if (config.targetHeight <= 1e-8f) return 0f;
+            float heightDiff = Math.abs(s.rootPos[1] - config.targetHeight);
+            return (1f - heightDiff / config.targetHeight) * config.heightRewardWeight;
+        }
+    }
+
+    public static final class SpeedMatch implements RewardTerm {
+        private final Config config;
+        public SpeedMatch(Config config) { this.config = config; }
+        @Override public String getName() { return "speedMatch"; }
+
+        @Override
+        public float evaluate(RewardState s) {
+            float vx = s.rootVel[0], vz = s.rootVel[2];
+            float currentSpeed = (float) Math.sqrt(vx * vx + vz * vz);
+            return -Math.abs(currentSpeed - config.targetSpeed) * config.speedMatchWeight;
+        }
+    }
+
+    // ========== 조인트/액션 기반 ==========
+
+    public static final class ControlCost implements RewardTerm {
+        private final Config config;
+        public ControlCost(Config config) { this.config = config; }
+        @Override public String getName() { return "controlCost"; }
+
+        @Override
+        public float evaluate(RewardState s) {
+            final float[] a = s.action;
+            float cost = 0f;
+            for (int i = 0; i < a.length; i++) cost += a[i] * a[i];
+            return -cost * config.controlCostWeight;
+        }
+    }
+
+    public static final class VelocityPenalty implements RewardTerm {
+        private final Config config;
+        public VelocityPenalty(Config config) { this.config = config; }
+        @Override public String getName() { return "jointVelocity"; }
+
+        @Override
+        public float evaluate(RewardState s) {
+            final float[] v = s.jointVel;
+            float sum = 0f;
+            for (int i = 0; i < v.length; i++) sum += v[i] * v[i];
+            return -sum * config.velocityPenaltyWeight;
+        }
+    }
+
+    /** 리밋 10% 마진 안쪽으로 들어가면 조인트당 -0.1 */
+    public static final class LimitPenalty implements RewardTerm {
+        private float[] lo = new float[0];
+        private float[] hi = new float[0];
+        private boolean[] valid = new boolean[0];
+
+        @Override public String getName() { return "jointLimit"; }
+
+        @Override
+        public void compile(RewardLayout layout) {
+            int n = layout.getJointCount();
+            lo = new float[n];
+            hi = new float[n];
+            valid = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                float min = layout.getMinLimit(i);
+                float max = layout.getMaxLimit(i);
+                float range = max - min;
+                valid[i] = range > 1e-8f;
+                float margin = 0.1f * range;
+                lo[i] = min + margin;
+                hi[i] = max - margin;
+            }
+        }
+
+        @Override
+        public float evaluate(RewardState s) {
+            final float[] p = s.jointPos;
+            int n = Math.min(p.length, valid.length);
+            float penalty = 0f;
+            for (int i = 0; i < n; i++) {
+                if (valid[i] && (p[i] < lo[i] || p[i] > hi[i])) penalty += 0.1f;
+            }
+            return -penalty;
+        }
+    }
+
+    /** 좌/우 조인트 쌍을 compile에서 인덱스 배열로 묶어 둠 */
+    public static final class Symmetry implements RewardTerm {
+        private final Config config;
+        private int[] leftIdx = new int[0];
+        private int[] rightIdx = new int[0];
+
+        public Symmetry(Config config) { this.config = config; }
+        @Override public String getName() { return "symmetry"; }
+
+        @Override
+        public void compile(RewardLayout layout) {
+            int n = layout.getJointCount();
+            int[] l = new int[n];
+            int[] r = new int[n];
+            int pairs = 0;
+            for (int i = 0; i < n; i++) {
+                String name = layout.getJointName(i);
+                if (name.contains("_L_") || name.contains("Left") || name.contains("_l_")) {
+                    String rightName = name.replace("_L_", "_R_").replace("Left", "Right").replace("_l_", "_r_");
+                    int j = layout.indexOf(rightName);
+                    if (j >= 0) {
+                        l[pairs] = i;
+                        r[pairs] = j;
+                        pairs++;
+                    }
+                }
+            }
+            leftIdx = Arrays.copyOf(l, pairs);
+            rightIdx = Arrays.copyOf(r, pairs);
+        }
+
+        @Override
+        public float evaluate(RewardState s) {
+            int pairs = leftIdx.length;
+            if (pairs == 0) return 0f;
+            final float[] p = s.jointPos;
+            final float invPi = (float) (1.0 / Math.PI);
+            float symmetry = 0f;
+            for (int k = 0; k < pairs; k++) {
+                float diff = Math.abs(p[leftIdx[k]] - p[rightIdx[k]]);
+                symmetry += 1f - Math.min(diff * invPi, 1f);
+            }
+            return (symmetry / pairs) * config.symmetryRewardWeight;
+        }
+    }
+
+    /** 참조 모션 포즈와의 MSE (refMask가 켜진 조인트만) */
+    public static final class PoseMatch implements RewardTerm {
+        private final Config config;
+        public PoseMatch(Config config) { this.config = config; }
+        @Override public String getName() { return "poseMatch"; }
+
+        @Override
+        public float evaluate(RewardState s) {
+            if (!s.hasRefPose || config.poseMatchWeight <= 0f) return 0f;
+            final float[] p = s.jointPos;
+            final float[] ref = s.refPose;
+            final boolean[] mask = s.refMask;
+            float poseError = 0f;
+            int count = 0;
+            for (int i = 0; i < p.length; i++) {
+                if (!mask[i]) continue;
+                float diff = p[i] - ref[i];
+                poseError += diff * diff;
+                count++;
+            }
+            if (count == 0) return 0f;
+            return -(poseError / count) * config.poseMatchWeight;
+        }
+    }
+}
@@ -0,0 +1,652 @@
+package com.kAIS.KAIMyEntity.urdf;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joml.Vector3f;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * STL 메시 → 볼록 껍질(convex hull) 충돌 형상
+ *
+ * - 껍질은 일정한 방향 집합의 support point 만으로 만든다 (정점 수 상한 고정).
+ *   원래 껍질보다 아주 조금 안쪽이지만 면 수가 작아서 DxConvex 충돌이 싸다.
+ * - 오목한 메시는 축 정렬 평면으로 재귀 분할(삼각형 클리핑)해서 조각별 껍질로 근사한다
+ *   (자식 껍질 부피 합이 부모보다 충분히 작을 때만 분할).
+ * - 결과는 STL 옆의 .hull 파일에 캐시된다 (파일 크기/수정 시각이 바뀌면 다시 계산).
+ */
+public class ConvexHullBuilder {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int CACHE_MAGIC = 0x4B48554C; // "KHUL"
+    private static final int CACHE_VERSION = 1;
+    private static final String CACHE_SUFFIX = ".hull";
+
+    /** support point 방향 수 (피보나치 구 + 축/대각 방향) */
+    private static final int SPHERE_DIRECTIONS = 64;
+
+    /** 분할 후 자식 껍질 부피 합 / 부모 껍질 부피 가 이보다 작아야 분할 */
+    private static final double SPLIT_GAIN = 0.8;
+    private static final double[] SPLIT_POSITIONS = {0.25, 0.5, 0.75};
+    private static final int MIN_SPLIT_TRIANGLES = 8;
+
+    private static final double[] DIRECTIONS = buildDirections();
+
+    /**
+     * 볼록 다면체 하나. ODE DxConvex 형식:
+     * points = x,y,z..., polygons = [정점 수, 인덱스...] 반복 (바깥에서 보아 반시계).
+     */
+    public static class Hull {
+        public final double[] points;
+        public final int[] polygons;
+        public final int faceCount;
+
+        public Hull(double[] points, int[] polygons, int faceCount) {
+            this.points = points;
+            this.polygons = polygons;
+            this.faceCount = faceCount;
+        }
+
+        public int getPointCount() {
+            return points.length / 3;
+        }
+
+        /** 정점 평균 (껍질 내부 점) */
+        public double[] centroid() {
+            int n = getPointCount();
+            double[] c = new double[3];
+            for (int i = 0; i < n; i++) {
+                c[0] += points[i * 3];
+                c[1] += points[i * 3 + 1];
+                c[2] += points[i * 3 + 2];
+            }
+            if (n > 0) { c[0] /= n; c[1] /= n; c[2] /= n; }
+            return c;
+        }
+
+        public double volume() {
+            double[] c = centroid();
+            double v = 0;
+            int pos = 0;
+            for (int f = 0; f < faceCount; f++) {
+                int cnt = polygons[pos];
+                int a = polygons[pos + 1];
+                for (int k = 1; k + 1 < cnt; k++) {
+                    v += tetVolume(points, a, polygons[pos + 1 + k], polygons[pos + 2 + k], c);
+                }
+                pos += cnt + 1;
+            }
+            return v;
+        }
+
+        /**
+         * p' = M * p + t 로 변환한 새 껍질. M 의 행렬식이 음수(거울)이면 면 순서를 뒤집는다.
+         * @param m 3x3 행 우선
+         */
+        public Hull transformed(double[] m, double[] t) {
+            int n = getPointCount();
+            double[] out = new double[n * 3];
+            for (int i = 0; i < n; i++) {
+                double x = points[i * 3], y = points[i * 3 + 1], z = points[i * 3 + 2];
+                out[i * 3]     = m[0] * x + m[1] * y + m[2] * z + t[0];
+                out[i * 3 + 1] = m[3] * x + m[4] * y + m[5] * z + t[1];
+                out[i * 3 + 2] = m[6] * x + m[7] * y + m[8] * z + t[2];
+            }
+            double det = m[0] * (m[4] * m[8] - m[5] * m[7])
+                    - m[1] * (m[3] * m[8] - m[5] * m[6])
+                    + m[2] * (m[3] * m[7] - m[4] * m[6]);
+            int[] polys = polygons.clone();
+            if (det < 0) {
+                int pos = 0;
+                for (int f = 0; f < faceCount; f++) {
+                    int cnt = polys[pos];
+                    for (int i = 0, j = cnt - 1; i < j; i++, j--) {
+                        int tmp = polys[pos + 1 + i];
+                        polys[pos + 1 + i] = polys[pos + 1 + j];
+                        polys[pos + 1 + j] = tmp;
+                    }
+                    pos += cnt + 1;
+                }
+            }
+            return new Hull(out, polys, faceCount);
+        }
+
+        /**
+         * 면 평면 (nx, ny, nz, d) 배열. d = n·p 이므로 원점이 껍질 안에 있으면 d &gt; 0.
+         */
+        public double[] planes() {
+            double[] planes = new double[faceCount * 4];
+            int pos = 0;
+            for (int f = 0; f < faceCount; f++) {
+                int cnt = polygons[pos];
+                // Newell 법선: 거의 평면인 다각형에서도 안정적
+                double nx = 0, ny = 0, nz = 0;
+                for (int k = 0; k < cnt; k++) {
+                    int i = polygons[pos + 1 + k] * 3;
+                    int j = polygons[pos + 1 + (k + 1) % cnt] * 3;
+                    nx += (points[i + 1] - points[j + 1]) * (points[i + 2] + points[j + 2]);
+                    ny += (points[i + 2] - points[j + 2]) * (points[i] + points[j]);
+                    nz += (points[i] - points[j]) * (points[i + 1] + points[j + 1]);
+                }
+                double len = Math.sqrt(nx * nx + ny * ny + nz * nz);
+                if (len > 0) { nx /= len; ny /= len; nz /= len; }
+                int a = polygons[pos + 1] * 3;
+                planes[f * 4] = nx;
+                planes[f * 4 + 1] = ny;
+                planes[f * 4 + 2] = nz;
+                planes[f * 4 + 3] = nx * points[a] + ny * points[a + 1] + nz * points[a + 2];
+                pos += cnt + 1;
+            }
+            return planes;
+        }
+    }
+
+    // ========================================================================
+    // 캐시
+    // ========================================================================
+
+    /**
+     * STL 파일의 볼록 분해 결과를 캐시에서 읽거나 새로 계산한다.
+     * 좌표는 STL 원본 단위 (URDF scale/origin 미적용).
+     * @param maxPieces 조각 수 상한 (1 이면 단일 껍질)
+     * @return 실패 시 null
+     */
+    public static List<Hull> loadOrBuild(String stlPath, int maxPieces) {
+        File stl = new File(stlPath);
+        if (!stl.exists()) return null;
+
+        File cache = new File(stlPath + CACHE_SUFFIX);
+        List<Hull> hulls = readCache(cache, stl, maxPieces);
+        if (hulls != null) {
+            logger.debug("Convex hull cache hit: {} ({} pieces)", cache.getName(), hulls.size());
+            return hulls;
+        }
+
+        STLLoader.STLMesh mesh = STLLoader.load(stlPath);
+        if (mesh == null || mesh.triangles.isEmpty()) return null;
+
+        long t0 = System.nanoTime();
+        hulls = decompose(mesh, maxPieces);
+        if (hulls.isEmpty()) return null;
+        logger.info("Convex decomposition of {}: {} triangles -> {} pieces ({} ms)",
+                stl.getName(), mesh.getTriangleCount(), hulls.size(),
+                (System.nanoTime() - t0) / 1_000_000);
+
+        writeCache(cache, stl, maxPieces, hulls);
+        return hulls;
+    }
+
+    private static List<Hull> readCache(File cache, File stl, int maxPieces) {
+        if (!cache.exists()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache)))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) return null;
+            if (in.readLong() != stl.length() || in.readLong() != stl.lastModified()) return null;
+            if (in.readInt() != maxPieces) return null;
+
+            int count = in.readInt();
+            List<Hull> hulls = new ArrayList<>(count);
+            for (int h = 0; h < count; h++) {
+                double[] pts = new double[in.readInt() * 3];
+                for (int i = 0; i < pts.length; i++) pts[i] = in.readDouble();
+                int faces = in.readInt();
+                int[] polys = new int[in.readInt()];
+                for (int i = 0; i < polys.length; i++) polys[i] = in.readInt();
+                hulls.add(new Hull(pts, polys, faces));
+            }
+            return hulls;
+        } catch (IOException e) {
+            logger.debug("Invalid convex hull cache {}: {}", cache, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeCache(File cache, File stl, int maxPieces, List<Hull> hulls) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cache)))) {
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(CACHE_VERSION);
+            out.writeLong(stl.length());
+            out.writeLong(stl.lastModified());
+            out.writeInt(maxPieces);
+            out.writeInt(hulls.size());
+            for (Hull h : hulls) {
+                out.writeInt(h.getPointCount());
+                for (double v : h.points) out.writeDouble(v);
+                out.writeInt(h.faceCount);
+                out.writeInt(h.polygons.length);
+                for (int v : h.polygons) out.writeInt(v);
+            }
+        } catch (IOException e) {
+            // 읽기 전용 리소스 폴더 등: 캐시 없이 진행
+            logger.debug("Could not write convex hull cache {}: {}", cache, e.getMessage());
+        }
+    }
+
+    // ========================================================================
+    // 근사 볼록 분해
+    // ========================================================================
+
+    /**
+     * 축 정렬 평면으로 메시를 잘라 (삼각형은 평면에서 클리핑) 재귀적으로 분할한다.
+     * 축마다 SPLIT_POSITIONS 위치를 시도해서 자식 껍질 부피 합이 가장 작은 평면을 고르고,
+     * 그 합이 부모 껍질 부피의 SPLIT_GAIN 배보다 크면 (= 충분히 볼록) 멈춘다.
+     */
+    public static List<Hull> decompose(STLLoader.STLMesh mesh, int maxPieces) {
+        List<double[]> polys = new ArrayList<>(mesh.triangles.size());
+        for (STLLoader.Triangle t : mesh.triangles) {
+            double[] poly = new double[9];
+            for (int k = 0; k < 3; k++) {
+                Vector3f v = t.vertices[k];
+                poly[k * 3] = v.x;
+                poly[k * 3 + 1] = v.y;
+                poly[k * 3 + 2] = v.z;
+            }
+            polys.add(poly);
+        }
+
+        List<Hull> out = new ArrayList<>();
+        split(polys, Math.max(1, maxPieces), out);
+        return out;
+    }
+
+    private static void split(List<double[]> polys, int budget, List<Hull> out) {
+        Hull hull = build(polys);
+        if (hull == null) return;
+        if (budget < 2 || polys.size() < MIN_SPLIT_TRIANGLES) {
+            out.add(hull);
+            return;
+        }
+
+        double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+        double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (double[] poly : polys) {
+            for (int i = 0; i < poly.length; i++) {
+                min[i % 3] = Math.min(min[i % 3], poly[i]);
+                max[i % 3] = Math.max(max[i % 3], poly[i]);
+            }
+        }
+
+        double parentVolume = hull.volume();
+        List<double[]> bestA = null, bestB = null;
+        Hull bestHa = null, bestHb = null;
+        double bestVolume = Double.MAX_VALUE;
+
+        List<double[]> a = new ArrayList<>();
+        List<double[]> b = new ArrayList<>();
+        for (int axis = 0; axis < 3; axis++) {
+            for (double f : SPLIT_POSITIONS) {
+                double c = min[axis] + (max[axis] - min[axis]) * f;
+                a.clear();
+                b.clear();
+                for (double[] poly : polys) clip(poly, axis, c, a, b);
+                if (a.isEmpty() || b.isEmpty()) continue;
+
+                Hull ha = build(a);
+                Hull hb = build(b);
+                if (ha == null || hb == null) continue;
+                double v = ha.volume() + hb.volume();
+                if (v < bestVolume) {
+                    bestVolume = v;
+                    bestA = new ArrayList<>(a);
+                    bestB = new ArrayList<>(b);
+                    bestHa = ha;
+                    bestHb = hb;
+                }
+            }
+        }
+
+        if (bestA == null || bestVolume > SPLIT_GAIN * parentVolume) {
+            out.add(hull);
+            return;
+        }
+
+        int budgetA = budget / 2;
+        int budgetB = budget - budgetA;
+        if (budgetA < 2) out.add(bestHa); else split(bestA, budgetA, out);
+        if (budgetB < 2) out.add(bestHb); else split(bestB, budgetB, out);
+    }
+
+    /** 볼록 다각형을 평면 x[axis] = c 로 잘라 아래쪽은 below, 위쪽은 above 에 넣는다 */
+    private static void clip(double[] poly, int axis, double c, List<double[]> below, List<double[]> above) {
+        int n = poly.length / 3;
+        boolean anyBelow = false, anyAbove = false;
+        for (int i = 0; i < n; i++) {
+            if (poly[i * 3 + axis] < c) anyBelow = true; else anyAbove = true;
+        }
+        if (!anyAbove) { below.add(poly); return; }
+        if (!anyBelow) { above.add(poly); return; }
+
+        double[] lo = new double[(n + 2) * 3];
+        double[] hi = new double[(n + 2) * 3];
+        int nl = 0, nh = 0;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            double di = poly[i * 3 + axis] - c;
+            double dj = poly[j * 3 + axis] - c;
+            if (di < 0) { System.arraycopy(poly, i * 3, lo, nl * 3, 3); nl++; }
+            else { System.arraycopy(poly, i * 3, hi, nh * 3, 3); nh++; }
+            if ((di < 0) != (dj < 0)) {
+                double t = di / (di - dj);
+                for (int k = 0; k < 3; k++) {
+                    double v = poly[i * 3 + k] + (poly[j * 3 + k] - poly[i * 3 + k]) * t;
+                    lo[nl * 3 + k] = v;
+                    hi[nh * 3 + k] = v;
+                }
+                nl++;
+                nh++;
+            }
+        }
+        below.add(Arrays.copyOf(lo, nl * 3));
+        above.add(Arrays.copyOf(hi, nh * 3));
+    }
+
+    // ========================================================================
+    // 볼록 껍질
+    // ========================================================================
+
+    /** 다각형들의 정점으로 껍질 생성 */
+    private static Hull build(List<double[]> polys) {
+        int total = 0;
+        for (double[] poly : polys) total += poly.length;
+        double[] pts = new double[total];
+        int pos = 0;
+        for (double[] poly : polys) {
+            System.arraycopy(poly, 0, pts, pos, poly.length);
+            pos += poly.length;
+        }
+        return build(pts, total / 3);
+    }
+
+    /**
+     * support point 로 줄인 점 집합의 볼록 껍질. 공면 삼각형은 다각형 하나로 합친다.
+     * @return 점이 한 점/직선으로 퇴화하면 null
+     */
+    public static Hull build(double[] xyz, int count) {
+        if (count < 1) return null;
+
+        // 1. 방향별 support point (중복 제거)
+        int[] support = new int[DIRECTIONS.length / 3];
+        int ns = 0;
+        for (int d = 0; d < DIRECTIONS.length; d += 3) {
+            double dx = DIRECTIONS[d], dy = DIRECTIONS[d + 1], dz = DIRECTIONS[d + 2];
+            int best = 0;
+            double bestDot = -Double.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                double dot = xyz[i * 3] * dx + xyz[i * 3 + 1] * dy + xyz[i * 3 + 2] * dz;
+                if (dot > bestDot) { bestDot = dot; best = i; }
+            }
+            boolean dup = false;
+            for (int k = 0; k < ns && !dup; k++) {
+                int j = support[k];
+                dup = j == best || (xyz[j * 3] == xyz[best * 3]
+                        && xyz[j * 3 + 1] == xyz[best * 3 + 1]
+                        && xyz[j * 3 + 2] == xyz[best * 3 + 2]);
+            }
+            if (!dup) support[ns++] = best;
+        }
+
+        double[] p = new double[ns * 3];
+        double ext = 0;
+        for (int k = 0; k < ns; k++) {
+            System.arraycopy(xyz, support[k] * 3, p, k * 3, 3);
+        }
+        for (int k = 0; k < ns; k++) {
+            for (int c = 0; c < 3; c++) ext = Math.max(ext, Math.abs(p[k * 3 + c] - p[c]));
+        }
+        if (ext <= 0) return null;
+
+        return quickHull(p, ns, ext);
+    }
+
+    /** 작은 점 집합 (수십 개) 용 점진적 껍질 */
+    private static Hull quickHull(double[] p, int n, double ext) {
+        double eps = ext * 1e-9;
+
+        // 초기 사면체
+        int i0 = 0;
+        int i1 = farthestFromPoint(p, n, i0);
+        int i2 = farthestFromLine(p, n, i0, i1);
+        if (i2 < 0 || lineDistance(p, i0, i1, i2) <= ext * 1e-6) return null;
+        int i3 = farthestFromPlane(p, n, i0, i1, i2);
+        double h = planeDistance(p, i0, i1, i2, i3);
+
+        if (Math.abs(h) <= ext * 1e-6) {
+            // 평평한 메시 (판): 법선 방향으로 두께를 주고 다시 계산
+            double[] nrm = triNormal(p, i0, i1, i2);
+            double half = ext * 0.01;
+            double[] thick = new double[n * 6];
+            for (int i = 0; i < n; i++) {
+                for (int c = 0; c < 3; c++) {
+                    thick[i * 3 + c] = p[i * 3 + c] + nrm[c] * half;
+                    thick[(n + i) * 3 + c] = p[i * 3 + c] - nrm[c] * half;
+                }
+            }
+            return quickHull(thick, n * 2, ext);
+        }
+
+        List<int[]> faces = new ArrayList<>();
+        if (h > 0) {
+            // i3 가 (i0,i1,i2) 앞쪽 → 바깥 법선이 반대가 되도록
+            faces.add(new int[]{i0, i2, i1});
+            faces.add(new int[]{i0, i1, i3});
+            faces.add(new int[]{i1, i2, i3});
+            faces.add(new int[]{i2, i0, i3});
+        } else {
+            faces.add(new int[]{i0, i1, i2});
+            faces.add(new int[]{i0, i3, i1});
+            faces.add(new int[]{i1, i3, i2});
+            faces.add(new int[]{i2, i3, i0});
+        }
+
+        Map<Long, Boolean> visibleEdges = new HashMap<>();
+        List<int[]> visible = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (i == i0 || i == i1 || i == i2 || i == i3) continue;
+
+            visible.clear();
+            for (int[] f : faces) {
+                if (planeDistance(p, f[0], f[1], f[2], i) > eps) visible.add(f);
+            }
+            if (visible.isEmpty()) continue;
+
+            visibleEdges.clear();
+            for (int[] f : visible) {
+                for (int e = 0; e < 3; e++) visibleEdges.put(edgeKey(f[e], f[(e + 1) % 3]), Boolean.TRUE);
+            }
+            faces.removeAll(visible);
+            for (int[] f : visible) {
+                for (int e = 0; e < 3; e++) {
+                    int a = f[e], b = f[(e + 1) % 3];
+                    // 수평선(horizon) 간선: 반대 방향 간선이 보이는 면에 없음
+                    if (!visibleEdges.containsKey(edgeKey(b, a))) faces.add(new int[]{a, b, i});
+                }
+            }
+        }
+
+        return mergeCoplanar(p, faces, ext);
+    }
+
+    /** 같은 평면의 삼각형을 하나의 볼록 다각형으로 합치고, 쓰인 정점만 남긴다 */
+    private static Hull mergeCoplanar(double[] p, List<int[]> faces, double ext) {
+        double tol = ext * 1e-6;
+        int nf = faces.size();
+        double[] nrm = new double[nf * 3];
+        double[] dist = new double[nf];
+        for (int f = 0; f < nf; f++) {
+            int[] t = faces.get(f);
+            double[] nv = triNormal(p, t[0], t[1], t[2]);
+            System.arraycopy(nv, 0, nrm, f * 3, 3);
+            dist[f] = nv[0] * p[t[0] * 3] + nv[1] * p[t[0] * 3 + 1] + nv[2] * p[t[0] * 3 + 2];
+        }
+
+        int[] group = new int[nf];
+        Arrays.fill(group, -1);
+        int groups = 0;
+        for (int f = 0; f < nf; f++) {
+            if (group[f] >= 0) continue;
+            group[f] = groups;
+            for (int g = f + 1; g < nf; g++) {
+                if (group[g] >= 0) continue;
+                double dot = nrm[f * 3] * nrm[g * 3] + nrm[f * 3 + 1] * nrm[g * 3 + 1] + nrm[f * 3 + 2] * nrm[g * 3 + 2];
+                if (dot > 1 - 1e-9 && Math.abs(dist[f] - dist[g]) <= tol) group[g] = groups;
+            }
+            groups++;
+        }
+
+        int[] remap = new int[p.length / 3];
+        Arrays.fill(remap, -1);
+        int np = 0;
+        List<Integer> polys = new ArrayList<>();
+        for (int g = 0; g < groups; g++) {
+            // 그룹 정점 수집
+            List<Integer> verts = new ArrayList<>();
+            int first = -1;
+            for (int f = 0; f < nf; f++) {
+                if (group[f] != g) continue;
+                if (first < 0) first = f;
+                for (int v : faces.get(f)) if (!verts.contains(v)) verts.add(v);
+            }
+            double[] n = {nrm[first * 3], nrm[first * 3 + 1], nrm[first * 3 + 2]};
+            sortCounterClockwise(p, verts, n);
+
+            polys.add(verts.size());
+            for (int v : verts) {
+                if (remap[v] < 0) remap[v] = np++;
+                polys.add(remap[v]);
+            }
+        }
+
+        double[] points = new double[np * 3];
+        for (int i = 0; i < remap.length; i++) {
+            if (remap[i] >= 0) System.arraycopy(p, i * 3, points, remap[i] * 3, 3);
+        }
+        int[] polygons = new int[polys.size()];
+        for (int i = 0; i < polygons.length; i++) polygons[i] = polys.get(i);
+        return new Hull(points, polygons, groups);
+    }
+
+    /** 볼록 다각형 정점을 법선 n 기준 반시계로 정렬 */
+    private static void sortCounterClockwise(double[] p, List<Integer> verts, double[] n) {
+        double cx = 0, cy = 0, cz = 0;
+        for (int v : verts) { cx += p[v * 3]; cy += p[v * 3 + 1]; cz += p[v * 3 + 2]; }
+        cx /= verts.size(); cy /= verts.size(); cz /= verts.size();
+
+        // 평면 기저 u, w (u × w = n)
+        double[] u = Math.abs(n[0]) < 0.9 ? new double[]{1, 0, 0} : new double[]{0, 1, 0};
+        double d = u[0] * n[0] + u[1] * n[1] + u[2] * n[2];
+        u[0] -= d * n[0]; u[1] -= d * n[1]; u[2] -= d * n[2];
+        double ul = Math.sqrt(u[0] * u[0] + u[1] * u[1] + u[2] * u[2]);
+        u[0] /= ul; u[1] /= ul; u[2] /= ul;
+        double[] w = {n[1] * u[2] - n[2] * u[1], n[2] * u[0] - n[0] * u[2], n[0] * u[1] - n[1] * u[0]};
+
+        final double fx = cx, fy = cy, fz = cz;
+        verts.sort((a, b) -> Double.compare(
+                angle(p, a, fx, fy, fz, u, w),
+                angle(p, b, fx, fy, fz, u, w)));
+    }
+
+    private static double angle(double[] p, int v, double cx, double cy, double cz, double[] u, double[] w) {
+        double x = p[v * 3] - cx, y = p[v * 3 + 1] - cy, z = p[v * 3 + 2] - cz;
+        return Math.atan2(x * w[0] + y * w[1] + z * w[2], x * u[0] + y * u[1] + z * u[2]);
+    }
+
+    // ========================================================================
+    // 기하 유틸
+    // ========================================================================
+
+    private static long edgeKey(int a, int b) {
+        return ((long) a << 32) | (b & 0xffffffffL);
+    }
+
+    private static int farthestFromPoint(double[] p, int n, int a) {
+        int best = a;
+        double bestD = -1;
+        for (int i = 0; i < n; i++) {
+            double dx = p[i * 3] - p[a * 3], dy = p[i * 3 + 1] - p[a * 3 + 1], dz = p[i * 3 + 2] - p[a * 3 + 2];
+            double d = dx * dx + dy * dy + dz * dz;
+            if (d > bestD) { bestD = d; best = i; }
+        }
+        return best;
+    }
+
+    private static int farthestFromLine(double[] p, int n, int a, int b) {
+        int best = -1;
+        double bestD = -1;
+        for (int i = 0; i < n; i++) {
+            double d = lineDistance(p, a, b, i);
+            if (d > bestD) { bestD = d; best = i; }
+        }
+        return best;
+    }
+
+    private static double lineDistance(double[] p, int a, int b, int i) {
+        double ux = p[b * 3] - p[a * 3], uy = p[b * 3 + 1] - p[a * 3 + 1], uz = p[b * 3 + 2] - p[a * 3 + 2];
+        double vx = p[i * 3] - p[a * 3], vy = p[i * 3 + 1] - p[a * 3 + 1], vz = p[i * 3 + 2] - p[a * 3 + 2];
+        double cx = uy * vz - uz * vy, cy = uz * vx - ux * vz, cz = ux * vy - uy * vx;
+        double ul = Math.sqrt(ux * ux + uy * uy + uz * uz);
+        return ul > 0 ? Math.sqrt(cx * cx + cy * cy + cz * cz) / ul : 0;
+    }
+
+    private static int farthestFromPlane(double[] p, int n, int a, int b, int c) {
+        int best = a;
+        double bestD = -1;
+        for (int i = 0; i < n; i++) {
+            double d = Math.abs(planeDistance(p, a, b, c, i));
+            if (d > bestD) { bestD = d; best = i; }
+        }
+        return best;
+    }
+
+    /** 삼각형 (a,b,c) 평면에서 점 i 까지 부호 있는 거리 (법선 = (b-a)×(c-a)) */
+    private static double planeDistance(double[] p, int a, int b, int c, int i) {
+        double[] nv = triNormal(p, a, b, c);
+        return nv[0] * (p[i * 3] - p[a * 3]) + nv[1] * (p[i * 3 + 1] - p[a * 3 + 1]) + nv[2] * (p[i * 3 + 2] - p[a * 3 + 2]);
+    }
+
+    private static double[] triNormal(double[] p, int a, int b, int c) {
+        double ux = p[b * 3] - p[a * 3], uy = p[b * 3 + 1] - p[a * 3 + 1], uz = p[b * 3 + 2] - p[a * 3 + 2];
+        double vx = p[c * 3] - p[a * 3], vy = p[c * 3 + 1] - p[a * 3 + 1], vz = p[c * 3 + 2] - p[a * 3 + 2];
+        double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+        double l = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        return l > 0 ? new double[]{nx / l, ny / l, nz / l} : new double[]{0, 0, 0};
+    }
+
+    private static double tetVolume(double[] p, int a, int b, int c, double[] o) {
+        double ax = p[a * 3] - o[0], ay = p[a * 3 + 1] - o[1], az = p[a * 3 + 2] - o[2];
+        double bx = p[b * 3] - o[0], by = p[b * 3 + 1] - o[1], bz = p[b * 3 + 2] - o[2];
+        double cx = p[c * 3] - o[0], cy = p[c * 3 + 1] - o[1], cz = p[c * 3 + 2] - o[2];
+        return (ax * (by * cz - bz * cy) - ay * (bx * cz - bz * cx) + az * (bx * cy - by * cx)) / 6.0;
+    }
+
+    /** 피보나치 구 방향 + 축 6개 + 대각 8개 (상자 모서리가 정확히 잡히도록) */
+    private static double[] buildDirections() {
+        List<double[]> dirs = new ArrayList<>();
+        double golden = Math.PI * (3 - Math.sqrt(5));
+        for (int i = 0; i < SPHERE_DIRECTIONS; i++) {
+            double y = 1 - (i + 0.5) * 2.0 / SPHERE_DIRECTIONS;
+            double r = Math.sqrt(1 - y * y);
+            double th = golden * i;
+            dirs.add(new double[]{Math.cos(th) * r, y, Math.sin(th) * r});
+        }
+        for (int a = 0; a < 3; a++) {
+            for (int s = -1; s <= 1; s += 2) {
+                double[] d = new double[3];
+                d[a] = s;
+                dirs.add(d);
+            }
+        }
+        double k = 1 / Math.sqrt(3);
+        for (int sx = -1; sx <= 1; sx += 2)
+            for (int sy = -1; sy <= 1; sy += 2)
+                for (int sz = -1; sz <= 1; sz += 2)
+                    dirs.add(new double[]{sx * k, sy * k, sz * k});
+
+        double[] out = new double[dirs.size() * 3];
+        for (int i = 0; i < dirs.size(); i++) System.arraycopy(dirs.get(i), 0, out, i * 3, 3);
+        return out;
+    }
+}
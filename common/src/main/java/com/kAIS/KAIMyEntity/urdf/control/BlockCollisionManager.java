@@ -1,4 +1,4 @@
-ackage com.kAIS.KAIMyEntity.urdf.control;
+package com.kAIS.KAIMyEntity.urdf.control;
 
 import com.kAIS.KAIMyEntity.PhysicsManager;
 import net.minecraft.core.BlockPos;
@@ -20,6 +20,11 @@ import java.util.*;
  * - 한 블록이 여러 AABB를 가질 수 있으므로 blockGeoms: Map<BlockPos, List<Object>>
  * - 너무 많은 AABB는 bounding box로 fallback (성능/안정성)
  * - BlockState 변경(문/트랩도어 등) 시 geom 재생성 (fullScan에서)
+ *
+ * 높이맵 지형 모드 (setHeightfieldMode):
+ * - 열(column)마다 가장 위 full 블록 높이를 샘플링해서 heightfield geom 1개로 바닥 표현
+ * - 로봇이 움직이면 샘플 배열을 밀고(shift) 새로 들어온 행/열만 다시 스캔
+ * - 오버행(아래가 비어 있는 블록)과 부분 블록(반블록/계단/울타리)만 기존 박스로 생성
  */
 public class BlockCollisionManager {
     private static final Logger logger = LogManager.getLogger();
@@ -55,6 +60,24 @@ public class BlockCollisionManager {
     private BlockPos lastCenterPos = null;
     private Set<BlockPos> cachedSolidBlocks = new HashSet<>();
 
+    // ========== 높이맵 지형 모드 ==========
+    private boolean heightfieldMode = false;
+    private int samplesPerBlock = 2;        // 블록당 샘플 수 (2면 단차 경사가 0.5블록 폭으로 좁아짐)
+    private int refreshRowsPerUpdate = 2;   // 업데이트마다 다시 스캔하는 행 수 (블록 변경 감지)
+    private static final double HEIGHTFIELD_THICKNESS = 1.0;
+
+    private Object heightfieldGeom = null;
+    private double[] heightSamples = null;  // heightfield가 참조로 들고 있음 (같은 배열을 계속 고쳐 씀)
+    private double[] shiftScratch = null;
+    private int hfColumns = 0;              // 2 * scanRadius + 1
+    private int hfSamples = 0;              // hfColumns * samplesPerBlock
+    private int hfOriginX = 0;              // 높이맵 첫 열의 블록 좌표
+    private int hfOriginZ = 0;
+    private int hfCenterY = 0;
+    private int refreshRow = 0;
+    // 열별 폴백 박스 위치 (오버행/부분 블록)
+    private final Map<Long, List<BlockPos>> columnBoxes = new HashMap<>();
+
     public BlockCollisionManager() {
         this.physics = PhysicsManager.GetInst();
 
@@ -76,6 +99,11 @@ public class BlockCollisionManager {
 
         BlockPos centerPos = BlockPos.containing(entityX, entityY, entityZ);
 
+        if (heightfieldMode) {
+            updateTerrain(level, centerPos);
+            return;
+        }
+
         // 최초 1회는 무조건 전체 스캔
         if (lastCenterPos == null) {
             fullScan(level, centerPos);
@@ -331,10 +359,277 @@ public class BlockCollisionManager {
         }
     }
 
+    // ========================================================================
+    // 높이맵 지형 모드
+    // ========================================================================
+
+    private void updateTerrain(Level level, BlockPos centerPos) {
+        if (heightfieldGeom == null || lastCenterPos == null) {
+            rebuildTerrain(level, centerPos);
+            if (heightfieldGeom != null) {
+                lastCenterPos = centerPos;
+            }
+            tickCounter = 0;
+            return;
+        }
+
+        tickCounter++;
+        if (tickCounter < updateInterval) return;
+        tickCounter = 0;
+
+        int dx = centerPos.getX() - lastCenterPos.getX();
+        int dz = centerPos.getZ() - lastCenterPos.getZ();
+
+        if (centerPos.getY() != lastCenterPos.getY()
+                || Math.abs(dx) >= hfColumns || Math.abs(dz) >= hfColumns) {
+            // 높이가 바뀌면 오버행 판정 기준도 바뀜 -> 열 전체 재스캔 (geom은 재사용)
+            hfOriginX = centerPos.getX() - scanRadius;
+            hfOriginZ = centerPos.getZ() - scanRadius;
+            hfCenterY = centerPos.getY();
+            removeColumnBoxesOutside();
+            for (int iz = 0; iz < hfColumns; iz++) {
+                for (int ix = 0; ix < hfColumns; ix++) {
+                    scanColumn(level, ix, iz);
+                }
+            }
+        } else {
+            if (dx != 0 || dz != 0) {
+                shiftTerrain(level, dx, dz);
+            }
+            refreshRows(level);
+        }
+
+        lastCenterPos = centerPos;
+        commitTerrain();
+    }
+
+    private void rebuildTerrain(Level level, BlockPos centerPos) {
+        destroyTerrain();
+
+        hfColumns = 2 * scanRadius + 1;
+        hfSamples = hfColumns * samplesPerBlock;
+        hfOriginX = centerPos.getX() - scanRadius;
+        hfOriginZ = centerPos.getZ() - scanRadius;
+        hfCenterY = centerPos.getY();
+        refreshRow = 0;
+        heightSamples = new double[hfSamples * hfSamples];
+        shiftScratch = new double[hfSamples * hfSamples];
+
+        for (int iz = 0; iz < hfColumns; iz++) {
+            for (int ix = 0; ix < hfColumns; ix++) {
+                scanColumn(level, ix, iz);
+            }
+        }
+
+        // 샘플 간격 1/samplesPerBlock, 첫 샘플은 블록 안쪽 (0.5/samplesPerBlock)
+        double size = (hfSamples - 1) / (double) samplesPerBlock;
+        heightfieldGeom = physics.createHeightfieldGeom(
+                heightSamples, hfSamples, hfSamples, size, size, HEIGHTFIELD_THICKNESS);
+        if (heightfieldGeom == null) {
+            logger.warn("Heightfield geom not available - falling back to block boxes");
+            destroyTerrain();
+            heightfieldMode = false;
+            lastCenterPos = null;
+            return;
+        }
+        physics.registerStaticGeom(heightfieldGeom);
+        totalGeomsCreated++;
+        commitTerrain();
+    }
+
+    /**
+     * 로봇이 (dx, dz) 블록 움직였을 때: 샘플을 밀고 새로 들어온 열만 스캔
+     */
+    private void shiftTerrain(Level level, int dx, int dz) {
+        int k = samplesPerBlock;
+        int sx = dx * k;
+        int sz = dz * k;
+
+        System.arraycopy(heightSamples, 0, shiftScratch, 0, heightSamples.length);
+        for (int z = 0; z < hfSamples; z++) {
+            int srcZ = z + sz;
+            if (srcZ < 0 || srcZ >= hfSamples) continue;
+            int from = Math.max(0, -sx);
+            int to = Math.min(hfSamples, hfSamples - sx);
+            if (to > from) {
+                System.arraycopy(shiftScratch, srcZ * hfSamples + from + sx,
+                        heightSamples, z * hfSamples + from, to - from);
+            }
+        }
+
+        hfOriginX += dx;
+        hfOriginZ += dz;
+        removeColumnBoxesOutside();
+
+        for (int iz = 0; iz < hfColumns; iz++) {
+            boolean newRow = iz + dz < 0 || iz + dz >= hfColumns;
+            for (int ix = 0; ix < hfColumns; ix++) {
+                if (newRow || ix + dx < 0 || ix + dx >= hfColumns) {
+                    scanColumn(level, ix, iz);
+                }
+            }
+        }
+    }
+
+    // 블록 설치/파괴 감지: 몇 행씩 돌아가며 다시 스캔
+    private void refreshRows(Level level) {
+        for (int r = 0; r < refreshRowsPerUpdate; r++) {
+            int iz = refreshRow;
+            for (int ix = 0; ix < hfColumns; ix++) {
+                scanColumn(level, ix, iz);
+            }
+            refreshRow = (refreshRow + 1) % hfColumns;
+        }
+    }
+
+    /**
+     * 한 열을 위에서 아래로 스캔해서 바닥 높이를 샘플에 기록
+     * - 부분 블록: 박스로 만들고 계속 내려감
+     * - full 블록 덩어리 아래가 비어 있고 그 빈칸이 발 높이(centerY - 1) 이상이면 오버행 -> 박스
+     * - 그 외 첫 full 블록 덩어리의 윗면이 바닥 (더 아래 동굴 등은 heightfield 아래라 무시)
+     */
+    private void scanColumn(Level level, int ix, int iz) {
+        int x = hfOriginX + ix;
+        int z = hfOriginZ + iz;
+        int top = hfCenterY + scanRadius;
+        int bottom = hfCenterY - scanRadius;
+
+        double height = bottom;
+        List<BlockPos> boxes = null;
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+        int y = top;
+        while (y >= bottom) {
+            pos.set(x, y, z);
+            BlockState state = level.getBlockState(pos);
+            if (!isSolidForCollision(level, pos, state)) {
+                y--;
+                continue;
+            }
+            if (state.getCollisionShape(level, pos) != Shapes.block()) {
+                if (boxes == null) boxes = new ArrayList<>(2);
+                boxes.add(pos.immutable());
+                y--;
+                continue;
+            }
+
+            int runBottom = y;
+            while (runBottom - 1 >= bottom && isFullBlock(level, pos.set(x, runBottom - 1, z))) {
+                runBottom--;
+            }
+            int below = runBottom - 1;
+            boolean overhang = false;
+            if (below >= bottom && below >= hfCenterY - 1) {
+                pos.set(x, below, z);
+                overhang = !isSolidForCollision(level, pos, level.getBlockState(pos));
+            }
+            if (!overhang) {
+                height = y + 1;
+                break;
+            }
+
+            if (boxes == null) boxes = new ArrayList<>(y - runBottom + 1);
+            for (int by = y; by >= runBottom; by--) {
+                boxes.add(new BlockPos(x, by, z));
+            }
+            y = below;
+        }
+
+        int k = samplesPerBlock;
+        for (int sz = iz * k; sz < (iz + 1) * k; sz++) {
+            Arrays.fill(heightSamples, sz * hfSamples + ix * k, sz * hfSamples + (ix + 1) * k, height);
+        }
+
+        updateColumnBoxes(level, x, z, boxes);
+    }
+
+    private boolean isFullBlock(Level level, BlockPos pos) {
+        BlockState state = level.getBlockState(pos);
+        return !state.isAir() && state.getCollisionShape(level, pos) == Shapes.block();
+    }
+
+    private void updateColumnBoxes(Level level, int x, int z, List<BlockPos> boxes) {
+        long key = BlockPos.asLong(x, 0, z);
+        List<BlockPos> old = boxes == null ? columnBoxes.remove(key) : columnBoxes.put(key, boxes);
+
+        if (old != null) {
+            for (BlockPos p : old) {
+                if (boxes == null || !boxes.contains(p)) {
+                    removeBoxAt(p);
+                }
+            }
+        }
+        if (boxes != null) {
+            for (BlockPos p : boxes) {
+                BlockState state = level.getBlockState(p);
+                if (!blockGeoms.containsKey(p)) {
+                    createBlockGeoms(level, p, state);
+                    cachedSolidBlocks.add(p);
+                } else if (blockStates.get(p) != state) {
+                    rebuildBlockGeoms(level, p, state);
+                }
+            }
+        }
+    }
+
+    private void removeColumnBoxesOutside() {
+        Iterator<Map.Entry<Long, List<BlockPos>>> it = columnBoxes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, List<BlockPos>> entry = it.next();
+            int x = BlockPos.getX(entry.getKey());
+            int z = BlockPos.getZ(entry.getKey());
+            if (x < hfOriginX || x >= hfOriginX + hfColumns || z < hfOriginZ || z >= hfOriginZ + hfColumns) {
+                for (BlockPos p : entry.getValue()) {
+                    removeBoxAt(p);
+                }
+                it.remove();
+            }
+        }
+    }
+
+    private void removeBoxAt(BlockPos p) {
+        cachedSolidBlocks.remove(p);
+        blockStates.remove(p);
+        List<Object> geoms = blockGeoms.remove(p);
+        if (geoms != null) removeBlockGeoms(geoms);
+    }
+
+    // 샘플 배열을 고친 뒤: 높이 범위(AABB)와 위치 갱신
+    private void commitTerrain() {
+        if (heightfieldGeom == null) return;
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double h : heightSamples) {
+            if (h < min) min = h;
+            if (h > max) max = h;
+        }
+        physics.setHeightfieldBounds(heightfieldGeom, min, max);
+        // heightfield 위치 = 샘플 영역 중심
+        physics.setGeomPosition(heightfieldGeom,
+                hfOriginX + hfColumns * 0.5, 0.0, hfOriginZ + hfColumns * 0.5);
+    }
+
+    private void destroyTerrain() {
+        if (heightfieldGeom != null) {
+            removeBlockGeom(heightfieldGeom);
+            heightfieldGeom = null;
+        }
+        for (List<BlockPos> boxes : columnBoxes.values()) {
+            for (BlockPos p : boxes) {
+                removeBoxAt(p);
+            }
+        }
+        columnBoxes.clear();
+        heightSamples = null;
+        shiftScratch = null;
+    }
+
     public void cleanup() {
         logger.info("Cleaning up BlockCollisionManager ({} active blocks, {} active geoms)",
                 blockGeoms.size(), getActiveGeomCount());
 
+        destroyTerrain();
         for (List<Object> geoms : blockGeoms.values()) {
             removeBlockGeoms(geoms);
         }
@@ -349,6 +644,7 @@ public class BlockCollisionManager {
 
     public void setScanRadius(int radius) {
         this.scanRadius = Math.max(1, Math.min(radius, 16));
+        if (heightfieldMode) lastCenterPos = null; // 높이맵 크기가 바뀜 -> 재생성
     }
 
     public void setUpdateInterval(int ticks) {
@@ -364,6 +660,35 @@ public class BlockCollisionManager {
         this.fallbackToBoundingBox = enabled;
     }
 
+    /**
+     * 높이맵 지형 모드 토글 (기존 geom은 모두 지우고 다음 업데이트에서 새로 만듦)
+     */
+    public void setHeightfieldMode(boolean enabled) {
+        if (enabled == heightfieldMode) return;
+        destroyTerrain();
+        for (List<Object> geoms : blockGeoms.values()) {
+            removeBlockGeoms(geoms);
+        }
+        blockGeoms.clear();
+        blockStates.clear();
+        cachedSolidBlocks.clear();
+        lastCenterPos = null;
+        heightfieldMode = enabled;
+    }
+
+    public boolean isHeightfieldMode() {
+        return heightfieldMode;
+    }
+
+    public void setHeightfieldSamplesPerBlock(int samples) {
+        this.samplesPerBlock = Math.max(1, Math.min(samples, 4));
+        lastCenterPos = null; // 다음 업데이트에서 재생성
+    }
+
+    public void setRefreshRowsPerUpdate(int rows) {
+        this.refreshRowsPerUpdate = Math.max(0, Math.min(rows, 33));
+    }
+
     public void forceUpdate(Level level, double entityX, double entityY, double entityZ) {
         tickCounter = updateInterval;
         lastCenterPos = null; // 캐시 무효화
@@ -375,7 +700,7 @@ public class BlockCollisionManager {
     }
 
     public int getActiveGeomCount() {
-        int count = 0;
+        int count = heightfieldGeom != null ? 1 : 0;
         for (List<Object> list : blockGeoms.values()) {
             if (list != null) count += list.size();
         }
@@ -407,6 +732,9 @@ public class BlockCollisionManager {
         info.put("updateInterval", updateInterval);
         info.put("maxBoxesPerBlock", maxBoxesPerBlock);
         info.put("fallbackToBoundingBox", fallbackToBoundingBox);
+        info.put("heightfieldMode", heightfieldMode);
+        info.put("heightfieldSamples", hfSamples);
+        info.put("heightfieldFallbackColumns", columnBoxes.size());
         info.put("totalGeomsCreated", totalGeomsCreated);
         info.put("totalGeomsRemoved", totalGeomsRemoved);
         return info;
@@ -3,6 +3,7 @@ package com.kAIS.KAIMyEntity.urdf.control;
 import java.util.Locale;
 
 import com.kAIS.KAIMyEntity.PhysicsManager;
+import com.kAIS.KAIMyEntity.urdf.ConvexHullBuilder;
 import com.kAIS.KAIMyEntity.urdf.URDFJoint;
 import com.kAIS.KAIMyEntity.urdf.URDFLink;
 import com.kAIS.KAIMyEntity.urdf.URDFModel;
@@ -12,6 +13,7 @@ import net.minecraft.world.phys.Vec3;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.*;
 
@@ -55,6 +57,12 @@ public final class URDFSimpleController {
     private final Map<String, Object> geoms = new HashMap<>();
     private final Map<String, Object> odeJoints = new HashMap<>();
     private final Map<String, Float> linkRadii = new HashMap<>();
+    // 메시 링크의 볼록 분해 조각 중 geoms 에 들어간 첫 조각 외의 나머지 (cleanup에서 파괴)
+    private final Map<String, List<Object>> extraGeoms = new HashMap<>();
+
+    // STL 메시 링크를 볼록 껍질(조각) geom 으로 (false 면 기존 상자 휴리스틱)
+    private boolean convexMeshCollision = true;
+    private int convexMaxPieces = 4;
 
     private final Map<String, Float> targetVelocities = new HashMap<>();
 
@@ -66,6 +74,20 @@ public final class URDFSimpleController {
     private float maxTorque = 10f;
     private float maxForce = 100f;
 
+    // true: PD 를 ODE 힌지/슬라이더의 암시적 서보 행으로 풀기 (스텝당 한 번 목표만 설정)
+    // false: 서브스텝마다 Java 에서 토크 계산 후 addTorque/addForce
+    private boolean jointServoMode = true;
+    private boolean jointServoApplied = false;
+
+    // ========== 감소 좌표 관절 (Featherstone articulation) ==========
+    // null 이면 기존 방식 (자유 바디 + 힌지/슬라이더 조인트)
+    private Object articulation = null;
+    private final Map<String, Integer> articulationLinks = new HashMap<>();
+    private Method artGetJointPosition;
+    private Method artGetJointVelocity;
+    private Method artSetJointServo;
+    private Method artSetJointServoTarget;
+
     // ========== 블록 충돌 ==========
     private BlockCollisionManager blockCollisionManager;
     private Level currentLevel;
@@ -97,6 +119,10 @@ public final class URDFSimpleController {
     private final Map<String, float[]> spawnBodyQuatWxyz = new HashMap<>();
     private boolean warnedNoQuaternionSetter = false;
 
+    // 첫 하드 리셋 직후 상태를 ODE 스냅샷으로 보관 → 이후 같은 앵커 리셋은 restore 한 번
+    private Object resetSnapshot = null;
+    private Vec3 resetSnapshotAnchor = null;
+
     // ODE4J 버전
     private enum ODE4JVersion { V03X, V04X, V05X, UNKNOWN }
     private ODE4JVersion odeVersion = ODE4JVersion.UNKNOWN;
@@ -117,6 +143,20 @@ public final class URDFSimpleController {
     private Method bodySetMassMethod;
     private Method createMassMethod;
 
+    // 조인트 메서드 캐시 (서브스텝마다 getMethod 하지 않도록)
+    private Method hingeGetAngleMethod;
+    private Method hingeGetAngleRateMethod;
+    private Method hingeAddTorqueMethod;
+    private Method hingeSetServoMethod;
+    private Method hingeSetServoTargetMethod;
+    private Method hingeSetFMaxMethod;
+    private Method sliderGetPositionMethod;
+    private Method sliderGetPositionRateMethod;
+    private Method sliderAddForceMethod;
+    private Method sliderSetServoMethod;
+    private Method sliderSetServoTargetMethod;
+    private Method sliderSetFMaxMethod;
+
     // ✅ ODE4J math 클래스 캐시 (shaded package 대응)
     private ClassLoader odeCl;
     private Class<?> dQuaternionClass;
@@ -548,6 +588,17 @@ public final class URDFSimpleController {
         Vec3 anchor = (anchorWorldPos != null) ? anchorWorldPos : initialAnchorPosition;
         if (anchor == null) return false;
 
+        // ✅ 빠른 경로: 같은 앵커면 스냅샷 복원 (바디별 리플렉션 호출 없음)
+        if (resetSnapshot != null && resetSnapshotAnchor != null
+                && resetSnapshotAnchor.distanceToSqr(anchor) < 1e-12) {
+            if (physics.restoreSnapshot(resetSnapshot)) {
+                finishHardReset(anchor);
+                return true;
+            }
+            resetSnapshot = null;
+            resetSnapshotAnchor = null;
+        }
+
         captureSpawnPoseIfNeeded();
         if (!spawnPoseCaptured) {
             resetBodyVelocitiesOnly();
@@ -593,6 +644,14 @@ public final class URDFSimpleController {
 
         refreshHingeAnchors();
 
+        resetSnapshot = physics.createSnapshot(bodies.values());
+        resetSnapshotAnchor = (resetSnapshot != null) ? anchor : null;
+
+        finishHardReset(anchor);
+        return true;
+    }
+
+    private void finishHardReset(Vec3 anchor) {
         try {
             if (blockCollisionManager != null && currentLevel != null) {
                 blockCollisionManager.forceUpdate(currentLevel, anchor.x, anchor.y, anchor.z);
@@ -600,8 +659,6 @@ public final class URDFSimpleController {
         } catch (Exception ignored) { }
 
         try { syncJointStates(); } catch (Exception ignored) { }
-
-        return true;
     }
 
     private void captureSpawnPoseIfNeeded() {
@@ -793,8 +850,13 @@ public final class URDFSimpleController {
         int subSteps = Math.max(1, physicsSubSteps);
         float subDt = dt / subSteps;
 
+        // 서보 모드: 목표/게인은 스텝당 한 번, PD 는 QuickStep 안에서 암시적으로 풀린다
+        boolean servo = articulation == null && isJointServoMode();
+        if (servo) applyJointServos();
+
         for (int i = 0; i < subSteps; i++) {
-            if (motorsEnabled) applyJointControls();
+            if (articulation != null) applyArticulationControls();
+            else if (motorsEnabled && !servo) applyJointControls();
             physics.step(subDt);
         }
 
@@ -817,6 +879,66 @@ public final class URDFSimpleController {
         }
     }
 
+    /**
+     * 조인트 서보 설정. 게인/토크 제한/목표를 ODE 조인트에 넘기기만 하고
+     * 실제 PD 토크는 솔버가 ERP/CFM 행으로 계산한다.
+     * 모터 off 이면 게인 0 (자유 관절).
+     */
+    private void applyJointServos() {
+        for (Map.Entry<String, Object> entry : odeJoints.entrySet()) {
+            String jointName = entry.getKey();
+            Object odeJoint = entry.getValue();
+            URDFJoint urdfJoint = joints.get(jointName);
+
+            if (urdfJoint == null) continue;
+            if (!urdfJoint.isMovable()) continue;
+
+            double kpJ = motorsEnabled ? physicsKp : 0.0;
+            double kdJ = motorsEnabled ? physicsKd : 0.0;
+            double targetPos = target.getOrDefault(jointName, 0f);
+            double targetVel = targetVelocities.getOrDefault(jointName, 0f);
+
+            try {
+                if (urdfJoint.type == URDFJoint.JointType.REVOLUTE ||
+                        urdfJoint.type == URDFJoint.JointType.CONTINUOUS) {
+                    float limit = (urdfJoint.limit != null && urdfJoint.limit.effort > 0)
+                            ? urdfJoint.limit.effort : maxTorque;
+                    hingeSetServoMethod.invoke(odeJoint, kpJ, kdJ);
+                    hingeSetFMaxMethod.invoke(odeJoint, motorsEnabled ? (double) limit : 0.0);
+                    hingeSetServoTargetMethod.invoke(odeJoint, targetPos, targetVel);
+                } else if (urdfJoint.type == URDFJoint.JointType.PRISMATIC) {
+                    float limit = (urdfJoint.limit != null && urdfJoint.limit.effort > 0)
+                            ? urdfJoint.limit.effort : maxForce;
+                    sliderSetServoMethod.invoke(odeJoint, kpJ, kdJ);
+                    sliderSetFMaxMethod.invoke(odeJoint, motorsEnabled ? (double) limit : 0.0);
+                    sliderSetServoTargetMethod.invoke(odeJoint, targetPos, targetVel);
+                }
+            } catch (Exception e) {
+                logger.debug("applyJointServos failed for {}: {}", jointName, e.getMessage());
+            }
+        }
+        jointServoApplied = true;
+    }
+
+    /** 서보 게인과 FMax 를 0 으로 되돌린다 (explicit PD 모드 전환 시). */
+    private void clearJointServos() {
+        if (!jointServoApplied) return;
+        for (Map.Entry<String, Object> entry : odeJoints.entrySet()) {
+            URDFJoint urdfJoint = joints.get(entry.getKey());
+            if (urdfJoint == null || !urdfJoint.isMovable()) continue;
+            try {
+                if (urdfJoint.type == URDFJoint.JointType.PRISMATIC) {
+                    sliderSetServoMethod.invoke(entry.getValue(), 0.0, 0.0);
+                    sliderSetFMaxMethod.invoke(entry.getValue(), 0.0);
+                } else {
+                    hingeSetServoMethod.invoke(entry.getValue(), 0.0, 0.0);
+                    hingeSetFMaxMethod.invoke(entry.getValue(), 0.0);
+                }
+            } catch (Exception ignored) { }
+        }
+        jointServoApplied = false;
+    }
+
     // ========================================================================
     // ODE4J 초기화
     // ========================================================================
@@ -838,6 +960,26 @@ public final class URDFSimpleController {
         createMassMethod = odeHelperClass.getMethod("createMass");
         odeCl = cl;
 
+        hingeGetAngleMethod         = dHingeJointClass.getMethod("getAngle");
+        hingeGetAngleRateMethod     = dHingeJointClass.getMethod("getAngleRate");
+        hingeAddTorqueMethod        = dHingeJointClass.getMethod("addTorque", double.class);
+        sliderGetPositionMethod     = dSliderJointClass.getMethod("getPosition");
+        sliderGetPositionRateMethod = dSliderJointClass.getMethod("getPositionRate");
+        sliderAddForceMethod        = dSliderJointClass.getMethod("addForce", double.class);
+
+        try {
+            hingeSetServoMethod        = dHingeJointClass.getMethod("setServo", double.class, double.class);
+            hingeSetServoTargetMethod  = dHingeJointClass.getMethod("setServoTarget", double.class, double.class);
+            hingeSetFMaxMethod         = dHingeJointClass.getMethod("setParamFMax", double.class);
+            sliderSetServoMethod       = dSliderJointClass.getMethod("setServo", double.class, double.class);
+            sliderSetServoTargetMethod = dSliderJointClass.getMethod("setServoTarget", double.class, double.class);
+            sliderSetFMaxMethod        = dSliderJointClass.getMethod("setParamFMax", double.class);
+        } catch (NoSuchMethodException e) {
+            hingeSetServoMethod = null;
+            sliderSetServoMethod = null;
+            logger.info("ODE4J joint servo not available, using explicit PD torques");
+        }
+
         try { dQuaternionClass = cl.loadClass("com.kAIS.ode4j.math.DQuaternion"); } catch (Exception ignored) { }
         try { dMatrix3Class = cl.loadClass("com.kAIS.ode4j.math.DMatrix3"); } catch (Exception ignored) { }
     }
@@ -969,6 +1111,10 @@ public final class URDFSimpleController {
                         link.visual.origin.xyz.z * physicsScale);
             }
 
+            if (convexMeshCollision && createConvexGeomsForLink(link, body)) {
+                return body;
+            }
+
             Object geom = createGeomForLink(link, geomInfo);
             if (geom != null) {
                 double[] bp = physics.getBodyPosition(body);
@@ -990,6 +1136,98 @@ public final class URDFSimpleController {
         }
     }
 
+    /**
+     * URDF 메시(STL)를 볼록 껍질 조각으로 바꿔 body 에 붙인다.
+     * &lt;collision&gt; 메시 우선, 없으면 &lt;visual&gt; 메시. 조각마다 자기 중심을 원점으로 두고
+     * geom 오프셋으로 배치한다 (DxConvex 는 원점이 내부에 있어야 함).
+     * @return 조각을 하나 이상 만들었으면 true
+     */
+    private boolean createConvexGeomsForLink(URDFLink link, Object body) {
+        URDFLink.Geometry g = null;
+        URDFLink.Origin origin = null;
+        if (link.collision != null && isStlMesh(link.collision.geometry)) {
+            g = link.collision.geometry;
+            origin = link.collision.origin;
+        } else if (link.visual != null && isStlMesh(link.visual.geometry)) {
+            g = link.visual.geometry;
+            origin = link.visual.origin;
+        }
+        if (g == null) return false;
+
+        List<ConvexHullBuilder.Hull> hulls = ConvexHullBuilder.loadOrBuild(g.meshFilename, convexMaxPieces);
+        if (hulls == null || hulls.isEmpty()) return false;
+
+        // 메시 → body 좌표: physicsScale * (R(rpy) * S * v + origin.xyz - visual.xyz)
+        double sx = g.scale != null ? g.scale.x : 1.0;
+        double sy = g.scale != null ? g.scale.y : 1.0;
+        double sz = g.scale != null ? g.scale.z : 1.0;
+        double[] r = (origin != null && origin.rpy != null)
+                ? rpyToMatrix(origin.rpy.x, origin.rpy.y, origin.rpy.z)
+                : new double[]{1, 0, 0, 0, 1, 0, 0, 0, 1};
+        double[] m = new double[9];
+        for (int row = 0; row < 3; row++) {
+            m[row * 3]     = physicsScale * r[row * 3] * sx;
+            m[row * 3 + 1] = physicsScale * r[row * 3 + 1] * sy;
+            m[row * 3 + 2] = physicsScale * r[row * 3 + 2] * sz;
+        }
+        double[] t = new double[3];
+        if (origin != null && origin.xyz != null) {
+            t[0] = origin.xyz.x; t[1] = origin.xyz.y; t[2] = origin.xyz.z;
+        }
+        if (link.visual != null && link.visual.origin != null) {
+            t[0] -= link.visual.origin.xyz.x;
+            t[1] -= link.visual.origin.xyz.y;
+            t[2] -= link.visual.origin.xyz.z;
+        }
+        t[0] *= physicsScale; t[1] *= physicsScale; t[2] *= physicsScale;
+
+        double[] bp = physics.getBodyPosition(body);
+        List<Object> pieces = new ArrayList<>();
+        for (ConvexHullBuilder.Hull hull : hulls) {
+            ConvexHullBuilder.Hull h = hull.transformed(m, t);
+            double[] c = h.centroid();
+            h = h.transformed(new double[]{1, 0, 0, 0, 1, 0, 0, 0, 1}, new double[]{-c[0], -c[1], -c[2]});
+
+            Object geom = physics.createConvexGeom(h.planes(), h.faceCount, h.points, h.getPointCount(), h.polygons);
+            if (geom == null) continue;
+            physics.setGeomPosition(geom, bp[0] + c[0], bp[1] + c[1], bp[2] + c[2]);
+            physics.setGeomBody(geom, body);
+            physics.setGeomOffsetPosition(geom, c[0], c[1], c[2]);
+            physics.registerDynamicGeom(geom);
+            pieces.add(geom);
+        }
+        if (pieces.isEmpty()) return false;
+
+        geoms.put(link.name, pieces.get(0));
+        destroyExtraGeoms(link.name);
+        if (pieces.size() > 1) extraGeoms.put(link.name, new ArrayList<>(pieces.subList(1, pieces.size())));
+        logger.debug("Convex collision for {}: {} pieces", link.name, pieces.size());
+        return true;
+    }
+
+    private void destroyExtraGeoms(String linkName) {
+        List<Object> extra = extraGeoms.remove(linkName);
+        if (extra == null || physics == null) return;
+        for (Object geom : extra) physics.destroyGeom(geom);
+    }
+
+    private static boolean isStlMesh(URDFLink.Geometry g) {
+        return g != null && g.type == URDFLink.Geometry.GeometryType.MESH && g.meshFilename != null
+                && g.meshFilename.toLowerCase(Locale.ROOT).endsWith(".stl");
+    }
+
+    /** URDF rpy → 회전 행렬 (Rz(yaw) * Ry(pitch) * Rx(roll)), 행 우선 */
+    private static double[] rpyToMatrix(double roll, double pitch, double yaw) {
+        double cr = Math.cos(roll), sr = Math.sin(roll);
+        double cp = Math.cos(pitch), sp = Math.sin(pitch);
+        double cy = Math.cos(yaw), sy = Math.sin(yaw);
+        return new double[]{
+                cy * cp, cy * sp * sr - sy * cr, cy * sp * cr + sy * sr,
+                sy * cp, sy * sp * sr + cy * cr, sy * sp * cr - cy * sr,
+                -sp,     cp * sr,                cp * cr
+        };
+    }
+
     private static class GeometryInfo {
         String type;
         double lx, ly, lz;
@@ -1333,8 +1571,7 @@ public final class URDFSimpleController {
 
     private float getHingeAngle(Object joint) {
         try {
-            Method m = dHingeJointClass.getMethod("getAngle");
-            return ((Number) m.invoke(joint)).floatValue();
+            return ((Number) hingeGetAngleMethod.invoke(joint)).floatValue();
         } catch (Exception e) {
             return 0f;
         }
@@ -1342,8 +1579,7 @@ public final class URDFSimpleController {
 
     private float getHingeAngleRate(Object joint) {
         try {
-            Method m = dHingeJointClass.getMethod("getAngleRate");
-            return ((Number) m.invoke(joint)).floatValue();
+            return ((Number) hingeGetAngleRateMethod.invoke(joint)).floatValue();
         } catch (Exception e) {
             return 0f;
         }
@@ -1351,15 +1587,13 @@ public final class URDFSimpleController {
 
     private void addHingeTorque(Object joint, float torque) {
         try {
-            Method m = dHingeJointClass.getMethod("addTorque", double.class);
-            m.invoke(joint, (double) torque);
+            hingeAddTorqueMethod.invoke(joint, (double) torque);
         } catch (Exception ignored) { }
     }
 
     private float getSliderPosition(Object joint) {
         try {
-            Method m = dSliderJointClass.getMethod("getPosition");
-            return ((Number) m.invoke(joint)).floatValue();
+            return ((Number) sliderGetPositionMethod.invoke(joint)).floatValue();
         } catch (Exception e) {
             return 0f;
         }
@@ -1367,8 +1601,7 @@ public final class URDFSimpleController {
 
     private float getSliderPositionRate(Object joint) {
         try {
-            Method m = dSliderJointClass.getMethod("getPositionRate");
-            return ((Number) m.invoke(joint)).floatValue();
+            return ((Number) sliderGetPositionRateMethod.invoke(joint)).floatValue();
         } catch (Exception e) {
             return 0f;
         }
@@ -1376,12 +1609,15 @@ public final class URDFSimpleController {
 
     private void addSliderForce(Object joint, float force) {
         try {
-            Method m = dSliderJointClass.getMethod("addForce", double.class);
-            m.invoke(joint, (double) force);
+            sliderAddForceMethod.invoke(joint, (double) force);
         } catch (Exception ignored) { }
     }
 
     private void syncJointStates() {
+        if (articulation != null) {
+            syncArticulationJointStates();
+            return;
+        }
         for (Map.Entry<String, Object> entry : odeJoints.entrySet()) {
             String jointName = entry.getKey();
             Object odeJoint = entry.getValue();
@@ -1762,6 +1998,9 @@ public final class URDFSimpleController {
 
     public Set<String> getJointNameSet() { return new HashSet<>(joints.keySet()); }
 
+    // 지형 모드(높이맵/박스) 등 블록 충돌 설정용, 물리 모드가 아니면 null
+    public BlockCollisionManager getBlockCollisionManager() { return blockCollisionManager; }
+
     public List<String> getMovableJointNames() {
         List<String> names = new ArrayList<>();
         for (URDFJoint j : joints.values()) if (j != null && j.isMovable()) names.add(j.name);
@@ -1817,9 +2056,29 @@ public final class URDFSimpleController {
     public void setPhysicsGains(float kp, float kd) { this.physicsKp = kp; this.physicsKd = kd; }
     public void setEffortLimits(float maxTorque, float maxForce) { this.maxTorque = maxTorque; this.maxForce = maxForce; }
     public void setPhysicsScale(float scale) { this.physicsScale = scale; }
+
+    /**
+     * STL 메시 링크 충돌 형상: 볼록 껍질 조각 (maxPieces 개 이하, 1 이면 단일 껍질).
+     * 물리 모델을 만들기 전에 설정해야 한다. off 면 기존 상자 근사.
+     */
+    public void setConvexMeshCollision(boolean enabled, int maxPieces) {
+        this.convexMeshCollision = enabled;
+        this.convexMaxPieces = Math.max(1, Math.min(maxPieces, 16));
+    }
     public void setMotorsEnabled(boolean enabled) { this.motorsEnabled = enabled; }
     public boolean isMotorsEnabled() { return motorsEnabled; }
 
+    /**
+     * 관절 PD 를 ODE 솔버 안의 암시적 서보로 풀지 여부 (기본 on).
+     * on 이면 높은 게인도 큰 타임스텝에서 안정적이고, 서브스텝마다 Java 토크 계산이 없다.
+     * off 이면 기존 explicit 토크 PD.
+     */
+    public void setJointServoMode(boolean enabled) {
+        this.jointServoMode = enabled;
+        if (!enabled) clearJointServos();
+    }
+    public boolean isJointServoMode() { return jointServoMode && hingeSetServoMethod != null; }
+
     public void setPhysicsSubSteps(int subSteps) { this.physicsSubSteps = Math.max(1, Math.min(subSteps, 10)); }
 
     public void applyExternalForce(String linkName, float fx, float fy, float fz) {
@@ -1838,11 +2097,235 @@ public final class URDFSimpleController {
         if (physics != null) physics.setGravity(x, y, z);
     }
 
+    // ========================================================================
+    // 감소 좌표 관절 (Featherstone)
+    // ========================================================================
+
+    /**
+     * 감소 좌표(articulation) 모드 on/off.
+     * on: 로봇 트리 전체를 DArticulation 하나로 묶는다. 링크 바디는 kinematic 이 되고
+     *     관절은 O(n) articulated-body 알고리즘으로 풀린다 (관절이 벌어지지 않음, LCP 행 없음).
+     *     PD 모터는 관절 공간에서 암시적으로 적분되므로 높은 게인도 안정적이다.
+     *     지면/블록 접촉은 기존 접촉 조인트를 그대로 읽어서 처리한다.
+     * off: 기존 방식 (자유 바디 + 힌지/슬라이더 조인트 + 토크 PD).
+     * 관절 각도 기준(0)은 기존 ODE 조인트와 같다.
+     * @return 모드가 적용되었으면 true
+     */
+    public boolean setArticulatedMode(boolean enabled) {
+        if (enabled == (articulation != null)) return true;
+
+        if (!enabled) {
+            try {
+                articulation.getClass().getMethod("destroy").invoke(articulation);
+            } catch (Exception e) {
+                logger.warn("Articulation destroy failed: {}", e.getMessage());
+            }
+            articulation = null;
+            articulationLinks.clear();
+            logger.info("Articulated mode OFF");
+            return true;
+        }
+
+        if (!usePhysics || !physicsInitialized || physics == null) return false;
+        try {
+            buildArticulation();
+            logger.info("Articulated mode ON: {} links, {} joints",
+                    articulationLinks.size() + 1, articulationLinks.size());
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to build articulation", e);
+            if (articulation != null) {
+                try {
+                    articulation.getClass().getMethod("destroy").invoke(articulation);
+                } catch (Exception ignored) { }
+            }
+            articulation = null;
+            articulationLinks.clear();
+            return false;
+        }
+    }
+
+    public boolean isArticulatedMode() { return articulation != null; }
+
+    private void buildArticulation() throws Exception {
+        Object root = getRootBody();
+        if (root == null) throw new IllegalStateException("No root body");
+        String rootName = rootBodyLinkName != null ? rootBodyLinkName : bodies.keySet().iterator().next();
+
+        Class<?> artClass = odeCl.loadClass("com.kAIS.ode4j.ode.DArticulation");
+        Class<?> typeClass = odeCl.loadClass("com.kAIS.ode4j.ode.DArticulation$JointType");
+        Class<?> vecClass = odeCl.loadClass("com.kAIS.ode4j.math.DVector3");
+        Class<?> vecCClass = odeCl.loadClass("com.kAIS.ode4j.math.DVector3C");
+
+        Method createArticulation = dWorldClass.getMethod("createArticulation", dBodyClass);
+        Method addLink = artClass.getMethod("addLink",
+                int.class, dBodyClass, typeClass, vecCClass, vecCClass, double.class);
+        Method setLimits = artClass.getMethod("setJointLimits", int.class, double.class, double.class);
+        Method setFixedBase = artClass.getMethod("setFixedBase", boolean.class);
+        artGetJointPosition = artClass.getMethod("getJointPosition", int.class);
+        artGetJointVelocity = artClass.getMethod("getJointVelocity", int.class);
+        artSetJointServo = artClass.getMethod("setJointServo", int.class, double.class, double.class, double.class);
+        artSetJointServoTarget = artClass.getMethod("setJointServoTarget", int.class, double.class, double.class);
+
+        Constructor<?> vecCtor = vecClass.getConstructor(double.class, double.class, double.class);
+        Method hingeGetAnchor = dHingeJointClass.getMethod("getAnchor", vecClass);
+        Method hingeGetAxis = dHingeJointClass.getMethod("getAxis", vecClass);
+        Method sliderGetAxis = dSliderJointClass.getMethod("getAxis", vecClass);
+        Method vecGet = vecClass.getMethod("get", int.class);
+
+        articulation = createArticulation.invoke(physics.getWorld(), root);
+
+        // 루트가 world 에 붙어 있으면 고정 베이스
+        boolean fixedBase = false;
+        for (URDFJoint j : joints.values()) {
+            if (j != null && allowWorldAttachment && rootName.equals(j.childLinkName)
+                    && bodies.get(j.parentLinkName) == null) {
+                fixedBase = true;
+            }
+        }
+        setFixedBase.invoke(articulation, fixedBase);
+
+        // 부모 → 자식 순서(BFS)로 링크 추가
+        Map<String, Integer> linkIndex = new HashMap<>();
+        linkIndex.put(rootName, 0);
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        queue.add(rootName);
+        while (!queue.isEmpty()) {
+            String parentName = queue.poll();
+            int parentIdx = linkIndex.get(parentName);
+
+            for (URDFJoint j : joints.values()) {
+                if (j == null || !parentName.equals(j.parentLinkName)) continue;
+                Object childBody = bodies.get(j.childLinkName);
+                if (childBody == null || linkIndex.containsKey(j.childLinkName)) continue;
+
+                Object odeJoint = odeJoints.get(j.name);
+                double[] anchor = null;
+                double[] axis = getJointAxis(j);
+                double position = 0.0;
+                String typeName;
+                switch (j.type) {
+                    case REVOLUTE:
+                    case CONTINUOUS:
+                        typeName = "REVOLUTE";
+                        if (odeJoint != null) {
+                            // 기존 힌지의 현재 앵커/축/각도를 그대로 사용 (각도 기준 유지)
+                            anchor = readVector(hingeGetAnchor, odeJoint, vecCtor, vecGet);
+                            axis = readVector(hingeGetAxis, odeJoint, vecCtor, vecGet);
+                            position = getHingeAngle(odeJoint);
+                        }
+                        break;
+                    case PRISMATIC:
+                        typeName = "PRISMATIC";
+                        if (odeJoint != null) {
+                            axis = readVector(sliderGetAxis, odeJoint, vecCtor, vecGet);
+                            position = getSliderPosition(odeJoint);
+                        }
+                        break;
+                    default:
+                        typeName = "FIXED";
+                        break;
+                }
+                if (anchor == null) {
+                    double[] p = physics.getBodyPosition(childBody);
+                    anchor = new double[]{p[0], p[1], p[2]};
+                    if (j.origin != null && j.origin.xyz != null) {
+                        anchor[0] += j.origin.xyz.x * physicsScale;
+                        anchor[1] += j.origin.xyz.y * physicsScale;
+                        anchor[2] += j.origin.xyz.z * physicsScale;
+                    }
+                }
+
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                Object type = Enum.valueOf((Class<Enum>) typeClass, typeName);
+                int idx = (Integer) addLink.invoke(articulation, parentIdx, childBody, type,
+                        vecCtor.newInstance(anchor[0], anchor[1], anchor[2]),
+                        vecCtor.newInstance(axis[0], axis[1], axis[2]),
+                        position);
+
+                if (j.isMovable()) {
+                    articulationLinks.put(j.name, idx);
+                    if (j.type != URDFJoint.JointType.CONTINUOUS && j.limit != null && j.limit.hasLimits()) {
+                        setLimits.invoke(articulation, idx, (double) j.limit.lower, (double) j.limit.upper);
+                    }
+                }
+                linkIndex.put(j.childLinkName, idx);
+                queue.add(j.childLinkName);
+            }
+        }
+
+        if (linkIndex.size() < bodies.size()) {
+            logger.warn("Articulation: {} of {} bodies are not connected to the root and stay free",
+                    bodies.size() - linkIndex.size(), bodies.size());
+        }
+    }
+
+    private static double[] readVector(Method getter, Object joint, Constructor<?> vecCtor, Method vecGet)
+            throws Exception {
+        Object v = vecCtor.newInstance(0.0, 0.0, 0.0);
+        getter.invoke(joint, v);
+        return new double[]{
+                (Double) vecGet.invoke(v, 0), (Double) vecGet.invoke(v, 1), (Double) vecGet.invoke(v, 2)
+        };
+    }
+
+    /**
+     * 관절 공간 PD 서보 설정. 토크는 articulation 내부에서 암시적으로 계산된다.
+     * 모터 off 이면 서보 게인을 0 으로 둔다.
+     */
+    private void applyArticulationControls() {
+        try {
+            for (Map.Entry<String, Integer> entry : articulationLinks.entrySet()) {
+                String jointName = entry.getKey();
+                int idx = entry.getValue();
+                URDFJoint urdfJoint = joints.get(jointName);
+                if (urdfJoint == null) continue;
+
+                if (!motorsEnabled) {
+                    artSetJointServo.invoke(articulation, idx, 0.0, 0.0, 0.0);
+                    continue;
+                }
+
+                double targetPos = target.getOrDefault(jointName, 0f);
+                double targetVel = targetVelocities.getOrDefault(jointName, 0f);
+                if (urdfJoint.type == URDFJoint.JointType.CONTINUOUS) {
+                    // 연속 관절: 현재 각도에서 가장 가까운 목표 각도
+                    double q = (Double) artGetJointPosition.invoke(articulation, idx);
+                    targetPos = q + wrapToPi((float) (targetPos - q));
+                }
+
+                float limit = (urdfJoint.limit != null && urdfJoint.limit.effort > 0)
+                        ? urdfJoint.limit.effort
+                        : (urdfJoint.type == URDFJoint.JointType.PRISMATIC ? maxForce : maxTorque);
+
+                artSetJointServo.invoke(articulation, idx, (double) physicsKp, (double) physicsKd, (double) limit);
+                artSetJointServoTarget.invoke(articulation, idx, targetPos, targetVel);
+            }
+        } catch (Exception e) {
+            logger.debug("applyArticulationControls failed: {}", e.getMessage());
+        }
+    }
+
+    private void syncArticulationJointStates() {
+        try {
+            for (Map.Entry<String, Integer> entry : articulationLinks.entrySet()) {
+                URDFJoint urdfJoint = joints.get(entry.getKey());
+                if (urdfJoint == null) continue;
+                int idx = entry.getValue();
+                urdfJoint.currentPosition = ((Double) artGetJointPosition.invoke(articulation, idx)).floatValue();
+                urdfJoint.currentVelocity = ((Double) artGetJointVelocity.invoke(articulation, idx)).floatValue();
+            }
+        } catch (Exception e) {
+            logger.debug("syncArticulationJointStates failed: {}", e.getMessage());
+        }
+    }
+
     // ========================================================================
     // 정리
     // ========================================================================
 
     public void cleanup() {
+        setArticulatedMode(false);
         if (blockCollisionManager != null) {
             blockCollisionManager.cleanup();
             blockCollisionManager = null;
@@ -1851,7 +2334,9 @@ public final class URDFSimpleController {
         bodies.clear();
         geoms.clear();
         odeJoints.clear();
+        jointServoApplied = false;
         linkRadii.clear();
+        for (String linkName : new ArrayList<>(extraGeoms.keySet())) destroyExtraGeoms(linkName);
         physicsInitialized = false;
         worldAnchored = false;
         initialAnchorPosition = null;
@@ -1860,6 +2345,8 @@ public final class URDFSimpleController {
         spawnBodyOffsetsFromRoot.clear();
         spawnBodyQuatWxyz.clear();
         warnedNoQuaternionSetter = false;
+        resetSnapshot = null;
+        resetSnapshotAnchor = null;
 
         logger.info("URDFSimpleController cleaned up");
     }
@@ -1887,6 +2374,8 @@ public final class URDFSimpleController {
         spawnBodyOffsetsFromRoot.clear();
         spawnBodyQuatWxyz.clear();
         warnedNoQuaternionSetter = false;
+        resetSnapshot = null;
+        resetSnapshotAnchor = null;
 
         logger.info("Physics state reset");
     }
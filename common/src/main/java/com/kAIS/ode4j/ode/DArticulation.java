@@ -0,0 +1,169 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode;
+
+import com.kAIS.ode4j.math.DVector3C;
+
+/**
+ * Reduced coordinate articulation (Featherstone articulated-body algorithm)
+ * for kinematic trees of bodies, e.g. robots loaded from URDF.
+ * <p>
+ * The links of an articulation are ordinary bodies of the world. They are
+ * switched to kinematic state when they are added, so the world stepper does
+ * not simulate them; instead every {@link DWorld#quickStep(double)} and
+ * {@link DWorld#step(double)} advances the articulation as a whole:
+ * <ul>
+ * <li>the joint coordinates are read back from the current body poses and
+ * velocities, so body setters and {@link DWorldSnapshot#restore()} keep
+ * working (a pose that violates a joint is projected onto it),</li>
+ * <li>joint accelerations are computed in O(n) by the articulated-body
+ * algorithm, with gravity, body force/torque accumulators, joint forces and
+ * implicit joint-space PD servos,</li>
+ * <li>contact joints attached to the link bodies and active joint limits are
+ * solved by projected Gauss-Seidel on the joint velocities, using the
+ * articulated inertias for the impulse responses (one O(n) pass per row),</li>
+ * <li>the new pose of every link is computed by forward kinematics, so joints
+ * never drift apart.</li>
+ * </ul>
+ * Contacts are created exactly as for free bodies (contact joints attached to
+ * the link bodies). The other body of a contact is treated as static by the
+ * articulation; contacts between links of the same articulation are ignored.
+ * Joints that still connect the link bodies are not used while they are
+ * articulated (they connect kinematic bodies only).
+ * <p>
+ * Link 0 is the root. Links must be added parent first. Joint coordinates are
+ * angles (radians) for revolute joints and distances for prismatic joints.
+ */
+public interface DArticulation {
+
+	/** Joint connecting a link to its parent. */
+	enum JointType {
+		REVOLUTE,
+		PRISMATIC,
+		FIXED
+	}
+
+	/**
+	 * Add a link to the articulation. The current poses of the link and of
+	 * its parent define the joint frame.
+	 * @param parent index of the parent link
+	 * @param body body of the new link; must not be part of an articulation
+	 * @param type joint type
+	 * @param anchor joint anchor in world coordinates (revolute only)
+	 * @param axis joint axis in world coordinates (revolute and prismatic)
+	 * @param position joint coordinate of the current pose
+	 * @return index of the new link
+	 */
+	int addLink(int parent, DBody body, JointType type, DVector3C anchor, DVector3C axis, double position);
+
+	/**
+	 * Same as {@link #addLink(int, DBody, JointType, DVector3C, DVector3C, double)}
+	 * with joint coordinate 0 for the current pose.
+	 */
+	int addLink(int parent, DBody body, JointType type, DVector3C anchor, DVector3C axis);
+
+	/**
+	 * @return number of links, including the root
+	 */
+	int getLinkCount();
+
+	/**
+	 * @return number of joint coordinates (revolute and prismatic joints)
+	 */
+	int getDofCount();
+
+	DBody getLinkBody(int link);
+
+	/**
+	 * @return index of the parent link, -1 for the root
+	 */
+	int getLinkParent(int link);
+
+	/**
+	 * @return index of the link of this body, -1 if it is not part of this articulation
+	 */
+	int getLinkIndex(DBody body);
+
+	JointType getJointType(int link);
+
+	/**
+	 * Attach the root to the world (fixed base) or let it move freely
+	 * (floating base, default).
+	 */
+	void setFixedBase(boolean fixed);
+
+	boolean isFixedBase();
+
+	/**
+	 * @return joint coordinate of the link (as of the last step or body change)
+	 */
+	double getJointPosition(int link);
+
+	double getJointVelocity(int link);
+
+	/**
+	 * Set joint limits. Use -dInfinity/dInfinity to disable.
+	 */
+	void setJointLimits(int link, double lo, double hi);
+
+	/**
+	 * Configure the joint-space PD servo of a joint. The servo force
+	 * kp*(target - q) + kd*(targetVelocity - dq) is evaluated implicitly at
+	 * the end of the step, so high gains remain stable. kp = kd = 0 disables
+	 * the servo.
+	 * @param maxForce force (torque) limit of the servo, dInfinity for none
+	 */
+	void setJointServo(int link, double kp, double kd, double maxForce);
+
+	void setJointServoTarget(int link, double position, double velocity);
+
+	/**
+	 * Add a force (torque for revolute joints) to a joint for the next step.
+	 */
+	void addJointForce(int link, double force);
+
+	/**
+	 * @param iterations Gauss-Seidel iterations for contacts and limits (default 20)
+	 */
+	void setIterations(int iterations);
+
+	int getIterations();
+
+	/**
+	 * @return number of contact and limit rows solved in the last step
+	 */
+	int getLastRowCount();
+
+	/**
+	 * @return 'true' if all link bodies still exist.
+	 */
+	boolean isValid();
+
+	/**
+	 * Remove the articulation from its world. The link bodies become dynamic
+	 * again and keep their current state.
+	 */
+	void destroy();
+}
@@ -24,9 +24,48 @@
  *************************************************************************/
 package com.kAIS.ode4j.ode;
 
+import com.kAIS.ode4j.ode.threading.task.TaskExecutor;
+
 /**
  * Bounding volume hierarchy.
+ * <p>
+ * {@link OdeHelper#spaceCollide2(DGeom, DGeom, Object, DGeom.DNearCallback)}
+ * of two BVH spaces descends both trees together instead of querying one
+ * tree for every geom of the other space.
  */
 public interface DBVHSpace extends DSpace {
 
+	/**
+	 * Enable or disable the binned SAH build.
+	 * <p>
+	 * In SAH mode the tree is built with a binned surface area heuristic
+	 * instead of median splits, and moving geoms are handled by refitting the
+	 * tree and by tree rotations. It is only rebuilt when geoms are added or
+	 * removed, or when its cost (see {@link #getSAHCost()}) grew by 30% since
+	 * the last build. This suits spaces with many static geoms, such as block
+	 * terrain with some moving bodies.
+	 * @param sah SAH mode
+	 */
+	void setSAHBuild(boolean sah);
+
+	/**
+	 * @return 'true' if SAH mode is enabled.
+	 */
+	boolean isSAHBuild();
+
+	/**
+	 * Set the executor for refitting large parts of the tree (more than 4096
+	 * nodes) in parallel. The resulting tree does not depend on the number
+	 * of threads.
+	 * @param executor executor, or null to refit on the calling thread
+	 */
+	void setTaskExecutor(TaskExecutor executor);
+
+	/**
+	 * @return SAH cost of the tree, the sum of the surface areas of all inner
+	 * nodes relative to the surface area of the root (lower is better), or 0
+	 * if the space has fewer than two geoms or contains geoms with unbounded
+	 * AABBs in the tree (e.g. axis aligned planes).
+	 */
+	double getSAHCost();
 }
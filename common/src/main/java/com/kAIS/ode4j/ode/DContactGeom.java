@@ -88,8 +88,8 @@ public class DContactGeom {
 		pos.set(other.pos);
 		normal.set(other.normal);
 		depth = other.depth;
-		DGeom g1 = other.g1;
-		DGeom g2 = other.g2;
+		g1 = other.g1;
+		g2 = other.g2;
 		side1 = other.side1;
 		side2 = other.side2;
 	}
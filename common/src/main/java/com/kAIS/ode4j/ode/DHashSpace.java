@@ -30,6 +30,31 @@ public interface DHashSpace extends DSpace {
 	int getLevelMax ();
 	void setLevels(int minlevel, int maxlevel);
 
+	/**
+	 * Enable or disable persistent mode.
+	 * <p>
+	 * In persistent mode the cell occupancy of the hash table is kept between
+	 * calls to collide(). Only geoms that were added or moved since the last
+	 * call are re-inserted, and only if their discretized cells changed.
+	 * Each candidate pair is reported exactly once without using the n*n
+	 * 'tested' bitset. This is much cheaper for spaces with many static geoms.
+	 * The order in which pairs are reported may differ from the default mode.
+	 * @param persistent persistent mode
+	 */
+	void setPersistent(boolean persistent);
+
+	/**
+	 * @return 'true' if persistent mode is enabled.
+	 */
+	boolean isPersistent();
+
+	/**
+	 * Drop the hash table kept by persistent mode. The next call to collide()
+	 * rebuilds it from the geom list, so the pair order no longer depends on
+	 * the geoms moved in earlier steps. Does nothing outside persistent mode.
+	 */
+	void resetPersistent();
+
 //	// intentionally undefined, don't use these
 //	dHashSpace (dHashSpace &);
 //	void operator= (dHashSpace &);
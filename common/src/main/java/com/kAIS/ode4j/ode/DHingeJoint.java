@@ -151,6 +151,25 @@ public interface DHingeJoint extends DJoint {
 	void addTorque (double torque);
 	
 	
+	/**
+	 * Turn the hinge motor into an implicit PD servo.
+	 * <p>
+	 * The stiffness and damping are solved inside the step as a soft
+	 * constraint row (ERP/CFM), so large gains stay stable at large time
+	 * steps, unlike a torque computed outside and applied with
+	 * {@link #addTorque(double)}. The torque is limited by dParamFMax if it is
+	 * &gt; 0, otherwise it is unbounded. dParamVel is ignored while the servo
+	 * is active. Pass kp = kd = 0 to switch back to the normal motor.
+	 * @param kp stiffness (torque per radian)
+	 * @param kd damping (torque per radian/s)
+	 */
+	void setServo(double kp, double kd);
+	/**
+	 * Set the servo target. Keeps its value until changed.
+	 * @param angle target angle, in {@link #getAngle()} terms
+	 * @param rate target angle rate
+	 */
+	void setServoTarget(double angle, double rate);
 	void setParamFMax(double d);
 	void setParamVel(double cos);
 	void setParamLoStop(double d);
@@ -0,0 +1,118 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode;
+
+import com.kAIS.ode4j.ode.threading.task.TaskExecutor;
+
+/**
+ * Collision driver that separates broadphase and narrowphase.
+ * <p>
+ * {@link #collide(DSpace, DPairFilter, DContactHandler)} first lets the
+ * space report its candidate pairs into a compact pair list (on the calling
+ * thread). The narrowphase ({@link OdeHelper#collide(DGeom, DGeom, int, DContactGeomBuffer)})
+ * then runs over chunks of that list on the threads of a {@link TaskExecutor};
+ * idle threads keep claiming the next chunk until the list is done. Every
+ * thread writes into its own contact buffers. Finally the contacts are
+ * handed to the {@link DContactHandler} on the calling thread, pair by pair
+ * in pair list order, so the result does not depend on the thread count or
+ * on scheduling.
+ * <p>
+ * Pairs with a heightfield or trimesh geom are collided on the calling
+ * thread, since these geoms use per-geom scratch buffers in their colliders.
+ * The exception are box-trimesh pairs, whose collider only reads the mesh;
+ * trimesh callbacks of those pairs may therefore be called on any thread.
+ * Large trimesh-trimesh pairs can be split with
+ * {@link OdeConfig#setTrimeshTaskExecutor(com.kAIS.ode4j.ode.threading.task.TaskExecutor)}.
+ * Sub-spaces are expanded with {@link OdeHelper#spaceCollide2(DGeom, DGeom, Object, DGeom.DNearCallback)},
+ * as for {@link DSpace#collide(Object, DGeom.DNearCallback)} geoms inside a
+ * sub-space are not tested against each other.
+ */
+public interface DParallelCollider {
+
+	/**
+	 * Called on the calling thread for every candidate pair, before the
+	 * narrowphase.
+	 */
+	interface DPairFilter {
+		/**
+		 * @param o1 geom 1
+		 * @param o2 geom 2
+		 * @return 'false' to skip this pair
+		 */
+		boolean accept(DGeom o1, DGeom o2);
+	}
+
+	/**
+	 * Called on the calling thread for every pair with at least one contact,
+	 * in pair list order.
+	 */
+	interface DContactHandler {
+		/**
+		 * @param o1 geom 1
+		 * @param o2 geom 2
+		 * @param contacts buffer that holds the contacts of this pair; only
+		 * valid until this method returns. The buffer is reused, so the
+		 * surface parameters have to be set here.
+		 * @param offset index of the first contact of this pair in 'contacts'
+		 * @param count number of contacts
+		 */
+		void contacts(DGeom o1, DGeom o2, DContactBuffer contacts, int offset, int count);
+	}
+
+	/**
+	 * @param executor executor for the narrowphase, 'null' to run everything
+	 * on the calling thread.
+	 */
+	void setTaskExecutor(TaskExecutor executor);
+
+	/**
+	 * @param maxContacts maximum number of contacts per pair (default 32)
+	 */
+	void setMaxContacts(int maxContacts);
+
+	int getMaxContacts();
+
+	/**
+	 * @param chunkSize number of pairs a thread claims at once (default 16)
+	 */
+	void setChunkSize(int chunkSize);
+
+	int getChunkSize();
+
+	/**
+	 * Find all contacts in the space.
+	 * @param space space
+	 * @param filter pair filter, may be 'null'
+	 * @param handler receives the contacts
+	 * @return total number of contacts
+	 */
+	int collide(DSpace space, DPairFilter filter, DContactHandler handler);
+
+	/**
+	 * @return number of pairs of the last collide() call that passed the
+	 * filter.
+	 */
+	int getPairCount();
+}
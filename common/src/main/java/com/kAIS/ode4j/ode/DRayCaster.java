@@ -0,0 +1,110 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode;
+
+import com.kAIS.ode4j.ode.threading.task.TaskExecutor;
+
+/**
+ * Batched ray queries (lidar, depth and height scans).
+ * <p>
+ * {@link #cast} takes N rays as flat origin/direction/length arrays and
+ * returns the closest hit of every ray in primitive arrays, without creating
+ * a {@link DRay} geom or going through a near callback per ray.
+ * <p>
+ * On the calling thread the space is cleaned once and its geoms are
+ * prepared for the batch: a BVH space (see {@link DBVHSpace}) is traversed
+ * per ray along its tree; geoms of other spaces whose AABB does not overlap
+ * the bounds of the whole batch are dropped. The rays are then processed in
+ * chunks on the threads of a {@link TaskExecutor}; every thread uses its own
+ * private ray geom with the regular ray colliders. Heightfield and trimesh
+ * geoms keep scratch data in the geom, so those colliders are serialized per
+ * geom. Results do not depend on the thread count.
+ * <p>
+ * An optional {@link DVoxelGrid} is marched cell by cell in addition to the
+ * space, for terrain that is not made of geoms.
+ * <p>
+ * The space and the voxel grid must not be modified during a cast.
+ */
+public interface DRayCaster {
+
+	/**
+	 * @param executor executor for the rays, 'null' to run everything on the
+	 * calling thread.
+	 */
+	void setTaskExecutor(TaskExecutor executor);
+
+	/**
+	 * @param chunkSize number of rays a thread claims at once (default 16)
+	 */
+	void setChunkSize(int chunkSize);
+
+	int getChunkSize();
+
+	/**
+	 * @param bits only geoms with {@code (categoryBits & bits) != 0} are hit
+	 * (default: all)
+	 */
+	void setCollideBits(long bits);
+
+	long getCollideBits();
+
+	/**
+	 * @param staticOnly 'true' to ignore geoms that are attached to a body,
+	 * e.g. to scan the terrain below a robot without hitting the robot.
+	 */
+	void setStaticOnly(boolean staticOnly);
+
+	boolean isStaticOnly();
+
+	/**
+	 * @param grid voxel terrain to test in addition to the space, 'null' for
+	 * none. Voxel hits report a 'null' geom.
+	 */
+	void setVoxelGrid(DVoxelGrid grid);
+
+	DVoxelGrid getVoxelGrid();
+
+	/**
+	 * Find the closest hit of each ray.
+	 * <p>
+	 * Ray i starts at {@code origins[3i..3i+2]}, points along
+	 * {@code dirs[3i..3i+2]} (need not be normalized) and has length
+	 * {@code lengths[i]}. For a hit, {@code outDistances[i]} is the distance
+	 * from the origin, {@code outNormals[3i..3i+2]} the contact normal of the
+	 * ray collider and {@code outGeoms[i]} the geom. For a miss the distance
+	 * is -1, the normal 0 and the geom 'null'.
+	 * @param space space to test, may be 'null' if only the voxel grid is used
+	 * @param count number of rays
+	 * @param origins ray origins, 3 per ray
+	 * @param dirs ray directions, 3 per ray
+	 * @param lengths ray lengths
+	 * @param outDistances hit distances
+	 * @param outNormals hit normals, 3 per ray; may be 'null'
+	 * @param outGeoms hit geoms; may be 'null'
+	 * @return number of rays with a hit
+	 */
+	int cast(DSpace space, int count, double[] origins, double[] dirs, double[] lengths,
+			double[] outDistances, double[] outNormals, DGeom[] outGeoms);
+}
@@ -57,4 +57,24 @@ public interface DSapSpace extends DSpace {
 			return _code;
 		}
 	}
+
+	/**
+	 * Enable or disable incremental mode.
+	 * <p>
+	 * In incremental mode the min/max endpoints of all geoms are kept sorted
+	 * on all three axes between calls to collide(), together with the set of
+	 * overlapping pairs. Only geoms that were added or moved since the last
+	 * call are re-sorted (insertion sort), which is close to O(n) when geoms
+	 * move little between steps. Very fast moving geoms make this mode slower
+	 * than the default full sort.
+	 * The order in which pairs are reported may differ from the default mode.
+	 * Spaces created with a static geom category mask ignore this setting.
+	 * @param incremental incremental mode
+	 */
+	void setIncremental(boolean incremental);
+
+	/**
+	 * @return 'true' if incremental mode is enabled.
+	 */
+	boolean isIncremental();
 }
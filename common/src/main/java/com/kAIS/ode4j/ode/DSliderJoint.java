@@ -82,6 +82,25 @@ public interface DSliderJoint extends DJoint {
 	 * @param force force
 	 */
 	void addForce (double force);
+	/**
+	 * Turn the slider motor into an implicit PD servo.
+	 * <p>
+	 * The stiffness and damping are solved inside the step as a soft
+	 * constraint row (ERP/CFM), so large gains stay stable at large time
+	 * steps, unlike a force computed outside and applied with
+	 * {@link #addForce(double)}. The force is limited by dParamFMax if it is
+	 * &gt; 0, otherwise it is unbounded. dParamVel is ignored while the servo
+	 * is active. Pass kp = kd = 0 to switch back to the normal motor.
+	 * @param kp stiffness (force per unit length)
+	 * @param kd damping (force per unit velocity)
+	 */
+	void setServo(double kp, double kd);
+	/**
+	 * Set the servo target. Keeps its value until changed.
+	 * @param position target position, in {@link #getPosition()} terms
+	 * @param rate target position rate
+	 */
+	void setServoTarget(double position, double rate);
 	void setParamFMax(double d);
 	void setParamLoStop(double d);
 	void setParamHiStop(double d);
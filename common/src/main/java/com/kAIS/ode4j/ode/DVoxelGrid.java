@@ -0,0 +1,82 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode;
+
+/**
+ * Occupancy grid of axis aligned cubic cells for {@link DRayCaster}.
+ * <p>
+ * Cell (x, y, z) covers [x, x+1) * cellSize along each axis in world
+ * coordinates. Cells outside the bounds are empty. Rays are marched through
+ * the grid cell by cell (3D DDA), which is much cheaper than one box geom per
+ * solid cell for block terrain.
+ * <p>
+ * The grid is not synchronized. It must not be modified while a
+ * {@link DRayCaster#cast} that uses it is running.
+ */
+public interface DVoxelGrid {
+
+	/**
+	 * Set the bounds of the grid and clear all cells.
+	 * @param minX first cell index along x
+	 * @param minY first cell index along y
+	 * @param minZ first cell index along z
+	 * @param sizeX number of cells along x
+	 * @param sizeY number of cells along y
+	 * @param sizeZ number of cells along z
+	 */
+	void setBounds(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ);
+
+	/**
+	 * Clear all cells, keep the bounds.
+	 */
+	void clear();
+
+	/**
+	 * @param solid new state of the cell; cells outside the bounds are ignored
+	 */
+	void setSolid(int x, int y, int z, boolean solid);
+
+	/**
+	 * @return 'true' if the cell is inside the bounds and solid.
+	 */
+	boolean isSolid(int x, int y, int z);
+
+	/**
+	 * @return edge length of a cell
+	 */
+	double getCellSize();
+
+	int getMinX();
+
+	int getMinY();
+
+	int getMinZ();
+
+	int getSizeX();
+
+	int getSizeY();
+
+	int getSizeZ();
+}
@@ -444,67 +444,67 @@ public interface DWorld {
 	//	#define dWORLDQUICKSTEP_EXTRA_ITERATION_REQUIREMENT_DELTA_DEFAULT   1e-2f
 	double dWORLDQUICKSTEP_EXTRA_ITERATION_REQUIREMENT_DELTA_DEFAULT = 1e-2f;
 
-	//	/**
-	//	 * Configure QuickStep method dynamic iteration count adjustment.
-	//	 *
-	//	 * <p> REMARK: The function controls dynamic iteration count adjustment basing on maximal contact force change
-	//	 * per iteration in matrix.
-	//	 *
-	//	 * <p>If Premature Exit Delta is configured with {@code ptr_iteration_premature_exit_delta}
-	//	 * and the maximal contact force adjustment does not exceed the value the iterations are abandoned
-	//	 * prematurely and computations complete in fewer steps than it would take normally.
-	//	 * Passing zero in {@code ptr_iteration_premature_exit_delta} will disable the premature exit and enforce
-	//	 * unconditional execution of iteration count set by {@link #setQuickStepNumIterations(int)}.
-	//	 *
-	//	 * <p>If extra iterations are enabled by passing  a positive fraction in {@code ptr_max_num_extra_factor}
-	//	 * and, after the normal number of iterations is executed, the maximal contact force adjustment is still
-	//	 * larger than the limit set with the {@code ptr_extra_iteration_requirement_delta}, up to that fraction of
-	//	 * normal iteration count is executed extra until the maximal contact force change falls below the margin.
-	//	 *
-	//	 * <p>At least one parameter must be not NULL for the call.
-	//	 * If NULL is passed for any of the parameters the corresponding parameter will retain its previous value.
-	//	 * If the standard number of iterations is changed with {@link #setQuickStepNumIterations(int)} call and
-	//	 * an extra iteration count was configured with {@code ptr_max_num_extra_factor} the extra absolute value will be
-	//	 * adjusted accordingly.
-	//	 *
-	//	 * @param ptr_iteration_premature_exit_delta A margin value such that, if contact force adjustment value maximum in an iteration
-	//	 * becomes less, the method is allowed to terminate prematurely.
-	//	 * @param ptr_max_num_extra_factor A non-negative coefficient that defines fraction of the standard iteration count to be executed extra
-	//	 * if contact force still significantly changes after the standard iterations complete.
-	//	 * @param ptr_extra_iteration_requirement_delta A margin that defines when the extra iterations are not needed or can be abandoned after
-	//	 * the start.
-	//	 * @see #getQuickStepDynamicIterationParameters(double[], double[], double[])
-	//	 */
-	//	//		ODE_API void dWorldSetQuickStepDynamicIterationParameters(dWorldID w, const dReal *ptr_iteration_premature_exit_delta/*=NULL*/,
-	//	//		const dReal *ptr_max_num_extra_factor/*=NULL*/, const dReal *ptr_extra_iteration_requirement_delta/*=NULL*/);
-	//	void setQuickStepDynamicIterationParameters(final double[] ptr_iteration_premature_exit_delta/*=NULL*/,
-	//		final double[] ptr_max_num_extra_factor/*=NULL*/, final double[] ptr_extra_iteration_requirement_delta/*=NULL*/);
+	/**
+	 * Configure QuickStep method dynamic iteration count adjustment.
+	 *
+	 * <p> REMARK: The function controls dynamic iteration count adjustment basing on maximal contact force change
+	 * per iteration in matrix.
+	 *
+	 * <p>If Premature Exit Delta is configured with {@code ptr_iteration_premature_exit_delta}
+	 * and the maximal contact force adjustment does not exceed the value the iterations are abandoned
+	 * prematurely and computations complete in fewer steps than it would take normally.
+	 * Passing zero in {@code ptr_iteration_premature_exit_delta} will disable the premature exit and enforce
+	 * unconditional execution of iteration count set by {@link #setQuickStepNumIterations(int)}.
+	 *
+	 * <p>If extra iterations are enabled by passing  a positive fraction in {@code ptr_max_num_extra_factor}
+	 * and, after the normal number of iterations is executed, the maximal contact force adjustment is still
+	 * larger than the limit set with the {@code ptr_extra_iteration_requirement_delta}, up to that fraction of
+	 * normal iteration count is executed extra until the maximal contact force change falls below the margin.
+	 *
+	 * <p>At least one parameter must be not NULL for the call.
+	 * If NULL is passed for any of the parameters the corresponding parameter will retain its previous value.
+	 * If the standard number of iterations is changed with {@link #setQuickStepNumIterations(int)} call and
+	 * an extra iteration count was configured with {@code ptr_max_num_extra_factor} the extra absolute value will be
+	 * adjusted accordingly.
+	 *
+	 * @param ptr_iteration_premature_exit_delta A margin value such that, if contact force adjustment value maximum in an iteration
+	 * becomes less, the method is allowed to terminate prematurely.
+	 * @param ptr_max_num_extra_factor A non-negative coefficient that defines fraction of the standard iteration count to be executed extra
+	 * if contact force still significantly changes after the standard iterations complete.
+	 * @param ptr_extra_iteration_requirement_delta A margin that defines when the extra iterations are not needed or can be abandoned after
+	 * the start.
+	 * @see #getQuickStepDynamicIterationParameters(double[], double[], double[])
+	 */
+	//		ODE_API void dWorldSetQuickStepDynamicIterationParameters(dWorldID w, const dReal *ptr_iteration_premature_exit_delta/*=NULL*/,
+	//		const dReal *ptr_max_num_extra_factor/*=NULL*/, const dReal *ptr_extra_iteration_requirement_delta/*=NULL*/);
+	void setQuickStepDynamicIterationParameters(final double[] ptr_iteration_premature_exit_delta/*=NULL*/,
+		final double[] ptr_max_num_extra_factor/*=NULL*/, final double[] ptr_extra_iteration_requirement_delta/*=NULL*/);
 
 
-	//	/**
-	//	 * Retrieve QuickStep method dynamic iteration count adjustment parameters.
-	//	 *
-	//	 * <p>REMARK: The function retrieves dynamic iteration count adjustment parameters.
-	//	 *
-	//	 * <p>See {@link #setQuickStepDynamicIterationParameters(double[], double[], double[])} for the parameters description.
-	//	 *
-	//	 * <p>At least one parameter must be not NULL for the call.
-	//	 *
-	//	 * @param out_iteration_premature_exit_delta Premature Exit Delta value (can be NULL if the value is not needed).
-	//	 * @param out_max_num_extra_factor Maximum Extra Iteration Number Factor value (can be NULL if the value is not needed).
-	//	 * @param out_extra_iteration_requirement_delta Extra Iteration Requirement Delta value (can be NULL if the value is not needed).
-	//	 * @see #setQuickStepDynamicIterationParameters(double[], double[], double[])
-	//	 */
-	//	//		ODE_API void dWorldGetQuickStepDynamicIterationParameters(dWorldID w, dReal *out_iteration_premature_exit_delta/*=NULL*/,
-	//	//																  dReal *out_max_num_extra_factor/*=NULL*/, dReal *out_extra_iteration_requirement_delta/*=NULL*/);
-	//	void getQuickStepDynamicIterationParameters(double[] out_iteration_premature_exit_delta/*=NULL*/,
-	//											    double[] out_max_num_extra_factor/*=NULL*/, double[] out_extra_iteration_requirement_delta/*=NULL*/);
+	/**
+	 * Retrieve QuickStep method dynamic iteration count adjustment parameters.
+	 *
+	 * <p>REMARK: The function retrieves dynamic iteration count adjustment parameters.
+	 *
+	 * <p>See {@link #setQuickStepDynamicIterationParameters(double[], double[], double[])} for the parameters description.
+	 *
+	 * <p>At least one parameter must be not NULL for the call.
+	 *
+	 * @param out_iteration_premature_exit_delta Premature Exit Delta value (can be NULL if the value is not needed).
+	 * @param out_max_num_extra_factor Maximum Extra Iteration Number Factor value (can be NULL if the value is not needed).
+	 * @param out_extra_iteration_requirement_delta Extra Iteration Requirement Delta value (can be NULL if the value is not needed).
+	 * @see #setQuickStepDynamicIterationParameters(double[], double[], double[])
+	 */
+	//		ODE_API void dWorldGetQuickStepDynamicIterationParameters(dWorldID w, dReal *out_iteration_premature_exit_delta/*=NULL*/,
+	//																  dReal *out_max_num_extra_factor/*=NULL*/, dReal *out_extra_iteration_requirement_delta/*=NULL*/);
+	void getQuickStepDynamicIterationParameters(double[] out_iteration_premature_exit_delta/*=NULL*/,
+											    double[] out_max_num_extra_factor/*=NULL*/, double[] out_extra_iteration_requirement_delta/*=NULL*/);
 
 
 	/**
 	 * Statistics structure to accumulate QuickStep iteration couunt dynamic adjustment data.
 	 *
-//	 * @see #attachQuickStepDynamicIterationStatisticsSink
+	 * @see #attachQuickStepDynamicIterationStatisticsSink
 	 */
 	class dWorldQuickStepIterationCount_DynamicAdjustmentStatistics
 	{
@@ -550,27 +550,49 @@ public interface DWorld {
 	}
 
 
-	//	/**
-	//	 * Attach or remove a structure to collect QuickStep iteration count dynamic adjustment statistics.
-	//	 *
-	//	 * <p>REMARKS: The function can be used to attach or remove a structure instance that will be updated with iteration count dynamic adjustment statistics
-	//	 * of QuickStep. To break the attachment, the function must be called with NULL for the {@code var_stats}.
-	//	 *
-	//	 * <p>See {@link #setQuickStepDynamicIterationParameters(double[], double[], double[])} for information on the iteration count dynamic adjustment options.
-	//	 *
-	//	 * <p>The caller is responsible for initializing the structure before assignment. The structure must persist in memory until unattached or
-	//	 * the host world object is destroyed. The same structure instance may be shared among multiple worlds if that makes sense.
-	//	 *
-	//	 * <p>The assignment may fail if the feature is not configured within the library, or if the structure was not initialized properly.
-	//	 *
-	//	 * @param var_stats A pointer to structure instance to assigned or NULL to break the previous attachment for the world.
-	//	 * @return Boolean status indicating whether the function succeeded
-	//	 * @see dWorldQuickStepIterationCount_DynamicAdjustmentStatistics
-	//	 */
-	//	// ODE_API int dWorldAttachQuickStepDynamicIterationStatisticsSink(dWorldID w, dWorldQuickStepIterationCount_DynamicAdjustmentStatistics *var_stats/*=NULL*/);
-	//	int attachQuickStepDynamicIterationStatisticsSink(dWorldQuickStepIterationCount_DynamicAdjustmentStatistics var_stats/*=NULL*/);
+	/**
+	 * Attach or remove a structure to collect QuickStep iteration count dynamic adjustment statistics.
+	 *
+	 * <p>REMARKS: The function can be used to attach or remove a structure instance that will be updated with iteration count dynamic adjustment statistics
+	 * of QuickStep. To break the attachment, the function must be called with NULL for the {@code var_stats}.
+	 *
+	 * <p>See {@link #setQuickStepDynamicIterationParameters(double[], double[], double[])} for information on the iteration count dynamic adjustment options.
+	 *
+	 * <p>The caller is responsible for initializing the structure before assignment. The structure must persist in memory until unattached or
+	 * the host world object is destroyed. The same structure instance may be shared among multiple worlds if that makes sense.
+	 *
+	 * <p>The assignment may fail if the feature is not configured within the library, or if the structure was not initialized properly.
+	 *
+	 * @param var_stats A pointer to structure instance to assigned or NULL to break the previous attachment for the world.
+	 * @return Boolean status indicating whether the function succeeded (always 'true' in Java)
+	 * @see dWorldQuickStepIterationCount_DynamicAdjustmentStatistics
+	 */
+	// ODE_API int dWorldAttachQuickStepDynamicIterationStatisticsSink(dWorldID w, dWorldQuickStepIterationCount_DynamicAdjustmentStatistics *var_stats/*=NULL*/);
+	boolean attachQuickStepDynamicIterationStatisticsSink(dWorldQuickStepIterationCount_DynamicAdjustmentStatistics var_stats/*=NULL*/);
 
 
+	/**
+	 * @return the largest number of SOR iterations any island executed in
+	 * the last {@link #quickStep(double)} call.
+	 */
+	int getQuickStepLastIterationCount();
+
+	/**
+	 * @return the number of SOR iterations of all islands in the last
+	 * {@link #quickStep(double)} call, summed up.
+	 */
+	int getQuickStepLastTotalIterationCount();
+
+	/**
+	 * Residual of the last {@link #quickStep(double)} call: the largest
+	 * contact force adjustment of the final SOR iteration over all islands.
+	 * This is the value compared against the deltas of
+	 * {@link #setQuickStepDynamicIterationParameters(double[], double[], double[])}.
+	 * @return the adjustment, or NaN if dynamic iteration count adjustment is
+	 * disabled (the adjustments are not tracked then).
+	 */
+	double getQuickStepLastMaxAdjustment();
+
 
 	/**
 	 * Set the SOR over-relaxation parameter
@@ -815,4 +837,168 @@ public interface DWorld {
 	void setMaxAngularSpeed (double max_speed);
 
 	void setTaskExecutor(TaskExecutor executor);
+
+	/**
+	 * Enable or disable the multi-threaded stages inside the island steppers
+	 * (e.g. the parallel LCP iterations of QuickStep) for this world.
+	 * <p>
+	 * When disabled, islands are still stepped in parallel on the task
+	 * executor, but each island is stepped by one thread. When enabled, the
+	 * island stepping and LCP solving thread limits of
+	 * {@link #setSteppingThreadingParameters(dWorldSteppingThreadingParameters)}
+	 * apply. Default: {@link com.kAIS.ode4j.ode.threading.Threading#ENABLE_STEPPER_MULTITHREADING}.
+	 * @param enable enable stepper multithreading
+	 */
+	void setStepperMultithreading(boolean enable);
+
+	/**
+	 * @return 'true' if the multi-threaded stepper stages are enabled.
+	 */
+	boolean isStepperMultithreading();
+
+	/**
+	 * Create a snapshot of the given bodies and capture their current state.
+	 * @param bodies bodies to bind; if none are given, all bodies of this world
+	 * are used.
+	 * @return the captured snapshot
+	 * @see DWorldSnapshot
+	 */
+	DWorldSnapshot createSnapshot(DBody... bodies);
+
+	/**
+	 * Create an articulation (reduced coordinate kinematic tree) with the
+	 * given body as root. The body becomes kinematic; add the other links
+	 * with {@link DArticulation#addLink}. The articulation is advanced by
+	 * {@link #step(double)} and {@link #quickStep(double)}.
+	 * @param root root body of the tree
+	 * @return the new articulation
+	 * @see DArticulation
+	 */
+	DArticulation createArticulation(DBody root);
+
+	/**
+	 * Enable or disable warm starting of the QuickStep LCP solver.
+	 * <p>
+	 * When enabled, each quickStep starts its iterations from the lambdas of
+	 * the previous step instead of zero. Non-contact joints (motor and limit
+	 * rows included) reuse their own lambdas. Contact joints are recreated
+	 * every step, so the world keeps a contact cache: a new contact joint
+	 * takes the lambdas of the previous-step contact with the same geom pair
+	 * and feature ids (side1/side2) whose position, in the frame of the
+	 * contact body, is within {@link #setQuickStepWarmStartingMatchDistance(double)}.
+	 * <p>
+	 * Coherent contacts, e.g. bodies resting or walking on flat ground,
+	 * converge in far fewer iterations, in particular together with the
+	 * dynamic iteration count adjustment. Restoring a {@link DWorldSnapshot}
+	 * clears the contact cache. Default: disabled, as in ODE.
+	 * @param enable enable warm starting
+	 */
+	void setQuickStepWarmStarting(boolean enable);
+
+	/**
+	 * @return 'true' if QuickStep warm starting is enabled.
+	 */
+	boolean isQuickStepWarmStarting();
+
+	/**
+	 * Set the factor that is applied to the cached lambdas when warm
+	 * starting. The cached lambdas include the error reduction push-out of
+	 * the previous step; re-applying them in full makes resting stacks
+	 * jitter, values below 1 damp that stale part.
+	 * @param factor factor in [0, 1], default 0.7
+	 */
+	void setQuickStepWarmStartingFactor(double factor);
+
+	/**
+	 * @return the warm starting factor.
+	 */
+	double getQuickStepWarmStartingFactor();
+
+	/**
+	 * Set the maximum distance between a new contact and a contact of the
+	 * previous step for the cached lambdas to be reused.
+	 * @param distance distance in world units, default 0.02
+	 */
+	void setQuickStepWarmStartingMatchDistance(double distance);
+
+	/**
+	 * @return the contact match distance for warm starting.
+	 */
+	double getQuickStepWarmStartingMatchDistance();
+
+	/**
+	 * Enable or disable single precision constraint rows in the QuickStep
+	 * SOR iterations.
+	 * <p>
+	 * When enabled, the Jacobian rows (with rhs, cfm, lo and hi) and the
+	 * inv(M)*J' rows that the single threaded SOR sweep reads in every
+	 * iteration are stored as float, which halves the memory traffic of the
+	 * sweep. The rows are still built in double precision, and lambda, the
+	 * constraint forces and the per-row delta stay double, so the rounding
+	 * of the rows is not accumulated over the iterations. The sweep is still
+	 * a different approximate solution though: redundant contacts (boxes
+	 * stacked on each other) amplify the rounding, and such scenes drift
+	 * apart from the double precision result by up to centimetres over a few
+	 * hundred steps. Body integration is unchanged.
+	 * <p>
+	 * Islands whose LCP is solved by several threads (lcp_solving_max_threads
+	 * of {@link #setSteppingThreadingParameters(dWorldSteppingThreadingParameters)})
+	 * use the double precision rows. Default: disabled.
+	 * @param enable enable single precision rows
+	 */
+	void setQuickStepSinglePrecision(boolean enable);
+
+	/**
+	 * @return 'true' if the QuickStep SOR iterations use single precision rows.
+	 */
+	boolean isQuickStepSinglePrecision();
+
+	/**
+	 * Enable island sleeping.
+	 * <p>
+	 * With the regular auto-disable every body is disabled on its own, which
+	 * can freeze a part of an articulated robot while the rest of it is still
+	 * moving. With island sleeping enabled, bodies are never disabled one by
+	 * one: an island (a group of bodies connected by joints and contacts) is
+	 * put to sleep only when all of its bodies have the auto-disable flag set
+	 * and have been idle for the auto-disable steps/time. Sleeping islands
+	 * are skipped by the stepper, so the cost of a step scales with the
+	 * number of awake islands.
+	 * <p>
+	 * A sleeping island is woken up when an awake body touches it or is
+	 * connected to it by a joint, when a non-zero force, torque or velocity
+	 * is applied to one of its bodies, or when the servo target or motor
+	 * velocity/force of one of its joints is changed. A joint motor whose
+	 * activity is above {@link #setAutoDisableMotorThreshold(double)} keeps
+	 * its bodies from being counted as idle.
+	 * <p>
+	 * Disabling island sleeping wakes all sleeping bodies. Default: disabled.
+	 * @param enable enable island sleeping
+	 */
+	void setIslandSleeping(boolean enable);
+
+	/**
+	 * @return 'true' if island sleeping is enabled.
+	 */
+	boolean isIslandSleeping();
+
+	/**
+	 * Set the joint motor activity above which the bodies attached to the
+	 * joint are not considered idle when island sleeping is enabled. The
+	 * activity of a hinge or slider is the magnitude of its servo or motor
+	 * target velocity.
+	 * @param threshold activity threshold, default 0.01
+	 */
+	void setAutoDisableMotorThreshold(double threshold);
+
+	/**
+	 * @return the motor activity threshold for island sleeping.
+	 */
+	double getAutoDisableMotorThreshold();
+
+	/**
+	 * @return number of bodies that island sleeping has currently put to
+	 * sleep; bodies disabled with {@link DBody#disable()} are not counted.
+	 */
+	int getSleepingBodyCount();
 }
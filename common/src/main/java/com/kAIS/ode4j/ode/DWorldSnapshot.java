@@ -0,0 +1,74 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode;
+
+/**
+ * Saved dynamic state of a set of bodies in a world.
+ * <p>
+ * A snapshot is bound to the bodies it was created for (see
+ * {@link DWorld#createSnapshot(DBody...)}). It stores, in flat primitive
+ * buffers, each body's position, rotation, quaternion, linear and angular
+ * velocity, force/torque accumulators, enable flags and auto-disable
+ * counters, the last-step lambdas of every non-contact joint attached to
+ * those bodies, and the global random number seed.
+ * <p>
+ * {@link #capture()} and {@link #restore()} are plain array copies and do not
+ * allocate, so a snapshot can be restored every episode, or several
+ * snapshots can be used to branch rollouts from one saved state.
+ * <p>
+ * Configuration (mass, joint anchors/axes, limits, motor parameters, geoms)
+ * is not part of the snapshot. The averaging buffers used by auto-disable
+ * and the QuickStep warm starting contact cache are cleared on restore.
+ */
+public interface DWorldSnapshot {
+
+	/**
+	 * Copy the current state of the bound bodies/joints into this snapshot.
+	 */
+	void capture();
+
+	/**
+	 * Write the saved state back into the bound bodies/joints and mark their
+	 * geoms as moved.
+	 * @throws IllegalStateException if a bound body or joint was destroyed
+	 * after the snapshot was created.
+	 */
+	void restore();
+
+	/**
+	 * @return 'true' if all bound bodies and joints still exist.
+	 */
+	boolean isValid();
+
+	/**
+	 * @return number of bodies captured by this snapshot.
+	 */
+	int getBodyCount();
+
+	/**
+	 * @return number of joints whose lambdas are captured by this snapshot.
+	 */
+	int getJointCount();
+}
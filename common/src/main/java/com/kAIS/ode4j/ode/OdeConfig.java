@@ -24,6 +24,8 @@
  *************************************************************************/
 package com.kAIS.ode4j.ode;
 
+import com.kAIS.ode4j.ode.threading.task.TaskExecutor;
+
 /**
  * OdeConfig class.
  *
@@ -35,6 +37,11 @@ public class OdeConfig {
 	public static boolean dDEBUG = Boolean.parseBoolean(System.getProperty("dDEBUG", "false"));
 	private static final boolean dDOUBLE = true;
 	private static boolean dLIBCCD = true;
+	private static volatile boolean dLIBCCD_SEPARATION_CACHE = true;
+	private static volatile TaskExecutor dTRIMESH_EXECUTOR = null;
+	private static volatile int dTRIMESH_PARALLEL_MIN_PAIRS = 256;
+	private static volatile TaskExecutor dLDLT_EXECUTOR = null;
+	private static volatile int dLDLT_PARALLEL_MIN_ROWS = 256;
 	
 	/** 
 	 * This enables contact sorting by penetration depth. 
@@ -89,6 +96,102 @@ public class OdeConfig {
 	public static void setLibCCDEndabled(boolean enable) {
 		dLIBCCD = enable;
 	}
+
+	/**
+	 * @return Whether the LIBCCD colliders re-test the separating axis found
+	 * for a geom pair in the previous query before running MPR again.
+	 */
+	public static boolean isLibCCDSeparationCacheEnabled() {
+		return dLIBCCD_SEPARATION_CACHE;
+	}
+
+	/**
+	 * Enable or disable the per-pair separating axis cache of the LIBCCD
+	 * colliders. The cache does not change the generated contacts, it only
+	 * skips MPR for pairs that are still separated along the cached axis.
+	 * See {@link OdeHelper#getLibCCDQueryCount()}.
+	 * @param enable enable/disable
+	 */
+	public static void setLibCCDSeparationCacheEnabled(boolean enable) {
+		dLIBCCD_SEPARATION_CACHE = enable;
+	}
+
+	/**
+	 * @return Executor for the triangle pairs of trimesh-trimesh collisions,
+	 * or 'null' if they are tested on the calling thread.
+	 */
+	public static TaskExecutor getTrimeshTaskExecutor() {
+		return dTRIMESH_EXECUTOR;
+	}
+
+	/**
+	 * Set an executor that splits large triangle pair batches of
+	 * trimesh-trimesh collisions into chunks. The contacts are the same as
+	 * with the calling thread only.
+	 * <p>
+	 * Trimesh-trimesh pairs are collided on the calling thread of a
+	 * {@link DParallelCollider}, so the executor may be shared with the
+	 * world, but it must not be the executor of the parallel collider
+	 * itself.
+	 * @param executor executor, 'null' (default) to disable
+	 */
+	public static void setTrimeshTaskExecutor(TaskExecutor executor) {
+		dTRIMESH_EXECUTOR = executor;
+	}
+
+	/**
+	 * @return Minimum number of overlapping triangle pairs for which the
+	 * trimesh executor is used.
+	 */
+	public static int getTrimeshParallelMinPairs() {
+		return dTRIMESH_PARALLEL_MIN_PAIRS;
+	}
+
+	/**
+	 * @param minPairs Minimum number of overlapping triangle pairs for which
+	 * the trimesh executor is used (default 256).
+	 */
+	public static void setTrimeshParallelMinPairs(int minPairs) {
+		dTRIMESH_PARALLEL_MIN_PAIRS = Math.max(1, minPairs);
+	}
+
+	/**
+	 * @return Executor for the panel updates of large LDLT factorizations,
+	 * or 'null' if they run on the calling thread.
+	 */
+	public static TaskExecutor getLDLTTaskExecutor() {
+		return dLDLT_EXECUTOR;
+	}
+
+	/**
+	 * Set an executor that splits the panel updates of the blocked LDLT
+	 * factorization of large islands (dWorldStep) over its threads. The
+	 * factors are the same as with the calling thread only.
+	 * <p>
+	 * Islands are factorized inside the tasks of the world's executor, so
+	 * this must be a different executor than the one passed to
+	 * {@link DWorld#setTaskExecutor(TaskExecutor)}.
+	 * @param executor executor, 'null' (default) to disable
+	 */
+	public static void setLDLTTaskExecutor(TaskExecutor executor) {
+		dLDLT_EXECUTOR = executor;
+	}
+
+	/**
+	 * @return Minimum number of matrix rows for which the LDLT executor is
+	 * used.
+	 */
+	public static int getLDLTParallelMinRows() {
+		return dLDLT_PARALLEL_MIN_ROWS;
+	}
+
+	/**
+	 * @param minRows Minimum number of matrix rows for which the LDLT
+	 * executor is used (default 256).
+	 */
+	public static void setLDLTParallelMinRows(int minRows) {
+		dLDLT_PARALLEL_MIN_ROWS = Math.max(1, minRows);
+	}
 	
 /* Pull in the standard headers */
 //#include <stdio.h>
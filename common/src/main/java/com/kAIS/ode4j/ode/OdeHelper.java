@@ -42,6 +42,7 @@ import com.kAIS.ode4j.ode.internal.trimesh.DxTriMeshData;
 import com.kAIS.ode4j.ode.internal.OdeFactoryImpl;
 import com.kAIS.ode4j.ode.ragdoll.DRagdoll;
 import com.kAIS.ode4j.ode.ragdoll.DRagdollConfig;
+import com.kAIS.ode4j.ode.threading.task.TaskExecutor;
 
 /**
  * This is the general helper class for ode4j.
@@ -405,6 +406,35 @@ public abstract class OdeHelper {
 		DxSpace.dSpaceCollide2((DxGeom)space1, (DxGeom)space2, data, callback);
 	}
 
+	/**
+	 * Create a collision driver that runs the narrowphase on several threads.
+	 * @param executor executor for the narrowphase, 'null' for the calling thread
+	 * @return new parallel collider
+	 * @see DParallelCollider
+	 */
+	public static DParallelCollider createParallelCollider(TaskExecutor executor) {
+		return new DxParallelCollider(executor);
+	}
+
+	/**
+	 * Create a batched ray query object (lidar, depth or height scans).
+	 * @param executor executor for the rays, 'null' for the calling thread
+	 * @return new ray caster
+	 * @see DRayCaster
+	 */
+	public static DRayCaster createRayCaster(TaskExecutor executor) {
+		return new DxRayCaster(executor);
+	}
+
+	/**
+	 * Create an empty voxel grid for {@link DRayCaster#setVoxelGrid(DVoxelGrid)}.
+	 * @param cellSize edge length of a cell
+	 * @return new voxel grid, call {@link DVoxelGrid#setBounds} before use
+	 */
+	public static DVoxelGrid createVoxelGrid(double cellSize) {
+		return new DxVoxelGrid(cellSize);
+	}
+
 	public static void setColliderOverride (int i, int j, DColliderFn fn) {
 		DxGeom.dSetColliderOverride(i, j, fn);
 	}
@@ -451,6 +481,32 @@ public abstract class OdeHelper {
 		return "0.5.2";
 	}
 
+	/**
+	 * @return Number of LIBCCD geom-geom queries (box-cylinder, capsule-cylinder,
+	 * cylinder-cylinder and convex pairs) that went through the separating axis
+	 * cache since the last {@link #resetLibCCDStatistics()}.
+	 * @see OdeConfig#setLibCCDSeparationCacheEnabled(boolean)
+	 */
+	public static long getLibCCDQueryCount() {
+		return ODE._dLibCCDGetQueryCount();
+	}
+
+	/**
+	 * @return Number of LIBCCD queries answered by the cached separating axis
+	 * of the previous query, without running MPR. The hit rate is this value
+	 * divided by {@link #getLibCCDQueryCount()}.
+	 */
+	public static long getLibCCDCacheHitCount() {
+		return ODE._dLibCCDGetCacheHitCount();
+	}
+
+	/**
+	 * Reset the LIBCCD query counters.
+	 */
+	public static void resetLibCCDStatistics() {
+		ODE._dLibCCDResetStatistics();
+	}
+
 	@Deprecated
 	public static void worldExportDIF(DWorld world, File f, String string) {
 		throw new UnsupportedOperationException(); //TODO
@@ -0,0 +1,244 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kAIS.ode4j.ode.OdeConfig;
+import com.kAIS.ode4j.ode.threading.task.Task;
+import com.kAIS.ode4j.ode.threading.task.TaskExecutor;
+import com.kAIS.ode4j.ode.threading.task.TaskGroup;
+
+/**
+ * Panel-blocked variant of {@link FastLDLTFactor#factorMatrixAsLDLT(double[], double[], int, int, int)}.
+ * <p>
+ * The row-by-row factorizer solves every pair of rows against the whole
+ * triangle above it, so for large matrices L is streamed from L2 once per
+ * row pair. Here the rows are processed in panels: for every pair of L rows
+ * above the panel the outer products are accumulated for four panel rows at
+ * a time, so each L row is loaded once per panel while the panel rows stay
+ * in L1, and eight independent sums are in flight instead of four. The part
+ * of the panel that depends on its own rows is then finished pair by pair as
+ * before.
+ * <p>
+ * Every element is computed with the same operations in the same order as
+ * in {@link FastLDLTFactor}, only the loop order across elements differs, so
+ * the factorization is bit-identical. The row pairs of a panel are
+ * independent in the first phase and can be split over the threads of
+ * {@link OdeConfig#getLDLTTaskExecutor()} for large matrices.
+ */
+class BlockedLDLTFactor {
+
+    /** Rows per panel, even. 32 rows of 300 columns fill ~75 KB. */
+    static final int PANEL_ROWS = 32;
+
+    /** Matrices with fewer rows use the row-by-row factorizer. */
+    static final int MIN_ROWS = 48;
+
+    private BlockedLDLTFactor() {}
+
+    //    template<unsigned int d_stride>
+    static void factorMatrixAsLDLT(double[] A, double[] d, int rowCount, int rowSkip, int d_stride) {
+        if (rowCount < 1) return;
+
+        TaskExecutor executor = OdeConfig.getLDLTTaskExecutor();
+        int threads = (executor == null) ? 1 : executor.getThreadCount();
+        if (threads > 1 && rowCount < OdeConfig.getLDLTParallelMinRows()) {
+            threads = 1;
+        }
+
+        final int pairRowCount = rowCount & ~1;
+        for (int panelStart = 0; panelStart < pairRowCount; panelStart += PANEL_ROWS) {
+            final int panelEnd = Math.min(pairRowCount, panelStart + PANEL_ROWS);
+
+            /* rows of the panel against the finished rows above it */
+            if (panelStart != 0) {
+                if (threads > 1) {
+                    solvePanelParallel(A, panelStart, panelEnd, rowSkip, executor, threads);
+                } else {
+                    solvePanel(A, panelStart, panelEnd, panelStart, panelEnd, rowSkip);
+                }
+            }
+
+            /* rows of the panel against each other */
+            for (int blockStartRow = panelStart; blockStartRow < panelEnd; blockStartRow += 2) {
+                final int ARow_pos = blockStartRow * rowSkip;
+                if (blockStartRow != 0) {
+                    for (int columnRow = panelStart; columnRow < blockStartRow; columnRow += 2) {
+                        solvePairBlock(A, ARow_pos, columnRow, rowSkip);
+                    }
+                    FastLDLTFactor.scaleAndFactorizeL1Stripe_2(A, ARow_pos, d, blockStartRow, rowSkip, d_stride);
+                } else {
+                    FastLDLTFactor.scaleAndFactorizeL1FirstRowStripe_2(A, ARow_pos, d, rowSkip, d_stride);
+                }
+            }
+        }
+
+        /* compute the (less than 2) rows at the bottom */
+        if (pairRowCount != rowCount) {
+            final int ARow_pos = pairRowCount * rowSkip;
+            if (pairRowCount != 0) {
+                FastLDLTFactor.solveStripeL1_1(A, A, ARow_pos, pairRowCount, rowSkip);
+                FastLDLTFactor.scaleAndFactorizeL1Stripe_1(A, ARow_pos, d, pairRowCount, d_stride);
+            } else {
+                FastLDLTFactor.scaleAndFactorizeL1FirstRowStripe_1(A, ARow_pos, d, d_stride);
+            }
+        }
+    }
+
+    /**
+     * Solve the row pairs [rowBegin, rowEnd) of the panel against all L rows
+     * above the panel (columns [0, panelStart)).
+     */
+    private static void solvePanel(double[] A, int panelStart, int panelEnd, int rowBegin, int rowEnd, int rowSkip) {
+        final int quadRowEnd = rowBegin + ((rowEnd - rowBegin) & ~3);
+        for (int columnRow = 0; columnRow < panelStart; columnRow += 2) {
+            int blockStartRow = rowBegin;
+            for (; blockStartRow < quadRowEnd; blockStartRow += 4) {
+                solveQuadBlock(A, blockStartRow * rowSkip, columnRow, rowSkip);
+            }
+            if (blockStartRow < rowEnd) {
+                solvePairBlock(A, blockStartRow * rowSkip, columnRow, rowSkip);
+            }
+        }
+    }
+
+    private static void solvePanelParallel(final double[] A, final int panelStart, final int panelEnd,
+            final int rowSkip, TaskExecutor executor, int threads) {
+        final int pairs = (panelEnd - panelStart) / 2;
+        final int chunks = Math.min(threads, pairs);
+        final AtomicInteger nextChunk = new AtomicInteger();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                    int rowBegin = panelStart + 2 * (pairs * chunk / chunks);
+                    int rowEnd = panelStart + 2 * (pairs * (chunk + 1) / chunks);
+                    solvePanel(A, panelStart, panelEnd, rowBegin, rowEnd, rowSkip);
+                }
+            }
+        };
+        TaskGroup group = executor.group("LDLT Group", new Runnable() {
+            @Override
+            public void run() {}
+        });
+        for (int w = 1; w < chunks; w++) {
+            Task task = group.subtask("LDLT Panel", worker);
+            task.submit();
+        }
+        group.submit();
+        worker.run();
+        group.awaitCompletion();
+    }
+
+    /**
+     * Two {@link #solvePairBlock(double[], int, int, int)} calls for the X rows
+     * i..i+3 at ARow_pos, sharing the loads of the L rows. The eight
+     * accumulators are independent, each one is summed in the same order.
+     */
+    private static void solveQuadBlock(double[] A, int ARow_pos, int columnRow, int rowSkip) {
+        final int ptrL1 = columnRow * rowSkip;
+        final int ptrL2 = ptrL1 + rowSkip;
+        final int ptrB1 = ARow_pos;
+        final int ptrB2 = ptrB1 + rowSkip;
+        final int ptrB3 = ptrB2 + rowSkip;
+        final int ptrB4 = ptrB3 + rowSkip;
+
+        double Z11 = 0, Z12 = 0, Z13 = 0, Z14 = 0;
+        double Z21 = 0, Z22 = 0, Z23 = 0, Z24 = 0;
+        for (int k = 0; k < columnRow; k++) {
+            double p1 = A[ptrL1 + k];
+            double p2 = A[ptrL2 + k];
+            double q1 = A[ptrB1 + k];
+            double q2 = A[ptrB2 + k];
+            double q3 = A[ptrB3 + k];
+            double q4 = A[ptrB4 + k];
+            Z11 += p1 * q1;
+            Z12 += p1 * q2;
+            Z13 += p1 * q3;
+            Z14 += p1 * q4;
+            Z21 += p2 * q1;
+            Z22 += p2 * q2;
+            Z23 += p2 * q3;
+            Z24 += p2 * q4;
+        }
+
+        double p2 = A[ptrL2 + columnRow];
+
+        double Y11 = A[ptrB1 + columnRow] - Z11;
+        double Y12 = A[ptrB2 + columnRow] - Z12;
+        double Y13 = A[ptrB3 + columnRow] - Z13;
+        double Y14 = A[ptrB4 + columnRow] - Z14;
+
+        A[ptrB1 + columnRow] = Y11;
+        A[ptrB2 + columnRow] = Y12;
+        A[ptrB3 + columnRow] = Y13;
+        A[ptrB4 + columnRow] = Y14;
+
+        A[ptrB1 + columnRow + 1] = A[ptrB1 + columnRow + 1] - Z21 - p2 * Y11;
+        A[ptrB2 + columnRow + 1] = A[ptrB2 + columnRow + 1] - Z22 - p2 * Y12;
+        A[ptrB3 + columnRow + 1] = A[ptrB3 + columnRow + 1] - Z23 - p2 * Y13;
+        A[ptrB4 + columnRow + 1] = A[ptrB4 + columnRow + 1] - Z24 - p2 * Y14;
+    }
+
+    /**
+     * Solve the 2 x 2 block of X at rows (i, i+1), columns (j, j+1), with
+     * j = columnRow and the two X rows at ARow_pos. Same operations as one
+     * step of {@link FastLDLTFactor#solveL1Stripe_2(double[], double[], int, int, int)}.
+     */
+    private static void solvePairBlock(double[] A, int ARow_pos, int columnRow, int rowSkip) {
+        final int ptrL1 = columnRow * rowSkip;
+        final int ptrL2 = ptrL1 + rowSkip;
+        final int ptrB1 = ARow_pos;
+        final int ptrB2 = ARow_pos + rowSkip;
+
+        double Z11 = 0, Z12 = 0, Z21 = 0, Z22 = 0;
+        for (int k = 0; k < columnRow; k++) {
+            double p1 = A[ptrL1 + k];
+            double q1 = A[ptrB1 + k];
+            Z11 += p1 * q1;
+            double q2 = A[ptrB2 + k];
+            Z12 += p1 * q2;
+            double p2 = A[ptrL2 + k];
+            Z21 += p2 * q1;
+            Z22 += p2 * q2;
+        }
+
+        double Y11 = A[ptrB1 + columnRow] - Z11;
+        double Y12 = A[ptrB2 + columnRow] - Z12;
+
+        double p2 = A[ptrL2 + columnRow];
+
+        A[ptrB1 + columnRow] = Y11;
+        A[ptrB2 + columnRow] = Y12;
+
+        double Y21 = A[ptrB1 + columnRow + 1] - Z21 - p2 * Y11;
+        double Y22 = A[ptrB2 + columnRow + 1] - Z22 - p2 * Y12;
+
+        A[ptrB1 + columnRow + 1] = Y21;
+        A[ptrB2 + columnRow + 1] = Y22;
+    }
+}
@@ -49,7 +49,18 @@ class CollideBoxBox implements DColliderFn {
 //		dIASSERT (o2.type == dBoxClass);
 		dIASSERT ((flags & DxGeom.NUMC_MASK) >= 1);
 
-		DVector3 normal = new DVector3();
+		ScratchPool pool = ScratchPool.get();
+		pool.push();
+		try {
+			return dCollideBoxBox(pool.vector(), o1, o2, flags, contacts, skip);
+		} finally {
+			pool.pop();
+		}
+	}
+
+	private int dCollideBoxBox (DVector3 normal, DxBox o1, DxBox o2, int flags,
+			DContactGeomBuffer contacts, int skip)
+	{
 		RefDouble depth = new RefDouble(0); //double depth;
 		RefInt code = new RefInt();//int code;
 		//int num = dBoxBox (o1.final_posr.pos,o1.final_posr.R,b1.side, 
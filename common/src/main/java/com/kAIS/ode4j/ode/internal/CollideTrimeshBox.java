@@ -1421,9 +1421,8 @@ class CollideTrimeshBox implements DColliderFn {
 		int[] boxesresult = collision_result.GIM_DYNARRAY_POINTER();
 		ptrimesh.gim_trimesh_locks_work_data();
 
+        DVector3 dv0 = new DVector3(), dv1 = new DVector3(), dv2 = new DVector3();
         for (int i = 0; i < collision_result.size(); i++) {
-            DVector3 dv0 = new DVector3(), dv1 = new DVector3(), dv2 = new DVector3();
-
 			int Triint = boxesresult[i];
 			ptrimesh.gim_trimesh_get_triangle_vertices(Triint, dv0, dv1, dv2);
 			cData.TestCollisionForSingleTriangle(Triint, dv0, dv1, dv2);
@@ -24,6 +24,8 @@
  *************************************************************************/
 package com.kAIS.ode4j.ode.internal;
 
+import java.util.concurrent.atomic.LongAdder;
+
 import com.kAIS.ode4j.math.DQuaternion;
 import com.kAIS.ode4j.math.DQuaternionC;
 import com.kAIS.ode4j.math.DVector3;
@@ -61,6 +63,8 @@ class CollisionLibccd {
     private static class ccd_obj_t {
         final ccd_vec3_t pos = new ccd_vec3_t();
         final ccd_quat_t rot = new ccd_quat_t(), rot_inv = new ccd_quat_t();
+        // scratch for the support functions (objects are not shared between threads)
+        final ccd_vec3_t tmp = new ccd_vec3_t(), tmp2 = new ccd_vec3_t();
     }
     //typedef struct _ccd_obj_t ccd_obj_t;
 
@@ -164,14 +168,12 @@ class CollisionLibccd {
     }
 
     static void ccdGeomToBox(final DxBox g, ccd_box_t box) {
-        DVector3 dim = new DVector3();
-
         ccdGeomToObj(g, box);
 
-        g.getLengths(dim);
-        box.dim[0] = dim.get0() * 0.5;
-        box.dim[1] = dim.get1() * 0.5;
-        box.dim[2] = dim.get2() * 0.5;
+        DVector3C side = g.getLengths();
+        box.dim[0] = side.get0() * 0.5;
+        box.dim[1] = side.get1() * 0.5;
+        box.dim[2] = side.get2() * 0.5;
     }
 
     static void ccdGeomToCap(final DxCapsule g, ccd_cap_t cap) {
@@ -221,7 +223,7 @@ class CollisionLibccd {
         @Override
         public void run(Object obj, ccd_vec3_t _dir, ccd_vec3_t v) {
             final ccd_box_t o = (ccd_box_t) obj;
-            final ccd_vec3_t dir = new ccd_vec3_t();
+            final ccd_vec3_t dir = o.tmp;
 
             ccdVec3Copy(dir, _dir);
             ccdQuatRotVec(dir, o.rot_inv);
@@ -253,7 +255,7 @@ class CollisionLibccd {
         @Override
         public void run(Object obj, ccd_vec3_t _dir, ccd_vec3_t v) {
             final ccd_cyl_t cyl = (ccd_cyl_t) obj;
-            final ccd_vec3_t dir = new ccd_vec3_t();
+            final ccd_vec3_t dir = cyl.tmp;
 
             double dot = ccdVec3Dot(_dir, cyl.axis);
             if (dot > 0.0) {
@@ -290,7 +292,7 @@ class CollisionLibccd {
         @Override
         public void run(Object obj, ccd_vec3_t _dir, ccd_vec3_t v) {
             final ccd_convex_t c = (ccd_convex_t) obj;
-            final ccd_vec3_t dir = new ccd_vec3_t(), p = new ccd_vec3_t();
+            final ccd_vec3_t dir = c.tmp, p = c.tmp2;
             double maxdot, dot;
             int i;
             double[] curp;
@@ -335,10 +337,16 @@ class CollisionLibccd {
     static int ccdCollide(DGeom o1, DGeom o2, int flags, DContactGeom contacts, ccd_obj_t obj1,
                           ccd_support_fn supp1, ccd_center_fn cen1, ccd_obj_t obj2, ccd_support_fn supp2,
                           ccd_center_fn cen2) {
-        ccd_t ccd = new ccd_t();
+        return ccdCollide(SCRATCH.get(), o1, o2, flags, contacts, obj1, supp1, cen1, obj2, supp2, cen2);
+    }
+
+    private static int ccdCollide(CcdScratch sc, DGeom o1, DGeom o2, int flags, DContactGeom contacts,
+                                  ccd_obj_t obj1, ccd_support_fn supp1, ccd_center_fn cen1, ccd_obj_t obj2,
+                                  ccd_support_fn supp2, ccd_center_fn cen2) {
+        final ccd_t ccd = sc.ccd;
         int res;
-        final RefDouble depth = new RefDouble();
-        final ccd_vec3_t dir = new ccd_vec3_t(), pos = new ccd_vec3_t();
+        final RefDouble depth = sc.depth;
+        final ccd_vec3_t dir = sc.dir, pos = sc.pos;
         int max_contacts = (flags & DxGeom.NUMC_MASK);
 
         if (max_contacts < 1) return 0;
@@ -381,112 +389,194 @@ class CollisionLibccd {
         return 0;
     }
 
+    /**
+     * Geom-geom version of ccdCollide() with temporal coherence: if MPR found
+     * a separating axis for the same (o1, o2) pair in an earlier call, that
+     * axis is re-tested first (one support query per object) and MPR is
+     * skipped while it still separates the pair. The test uses the same
+     * criterion as MPR itself, so the result is identical to an uncached call.
+     * <p>
+     * Only for colliders where obj1/obj2 describe the whole geoms; the trimesh
+     * path runs one query per triangle and must use the uncached version.
+     */
+    private static int ccdCollideCached(CcdScratch sc, DGeom o1, DGeom o2, int flags, DContactGeomBuffer contacts,
+                                        ccd_obj_t obj1, ccd_support_fn supp1, ccd_obj_t obj2,
+                                        ccd_support_fn supp2) {
+        if ((flags & DxGeom.NUMC_MASK) < 1) return 0;
+        if (!OdeConfig.isLibCCDSeparationCacheEnabled()) {
+            return ccdCollide(sc, o1, o2, flags, contacts.get(), obj1, supp1, ccdCenter, obj2, supp2, ccdCenter);
+        }
+
+        QUERIES.increment();
+        final int slot = sc.slot(o1, o2);
+        final ccd_t ccd = sc.ccd;
+        if (sc.pairG1[slot] == o1 && sc.pairG2[slot] == o2) {
+            ccd.support1 = supp1;
+            ccd.support2 = supp2;
+            if (ccdMPRSeparatedAlong(obj1, obj2, ccd, sc.axis[slot])) {
+                SEPARATION_HITS.increment();
+                return 0;
+            }
+        }
+
+        int n = ccdCollide(sc, o1, o2, flags, contacts.get(), obj1, supp1, ccdCenter, obj2, supp2, ccdCenter);
+        if (n == 0 && ccd.has_sep_dir) {
+            sc.pairG1[slot] = o1;
+            sc.pairG2[slot] = o2;
+            ccdVec3Copy(sc.axis[slot], ccd.sep_dir);
+        } else if (sc.pairG1[slot] == o1 && sc.pairG2[slot] == o2) {
+            sc.pairG1[slot] = null;
+            sc.pairG2[slot] = null;
+        }
+        return n;
+    }
+
+    // Pair cache size per thread, power of two. Colliding slots simply evict.
+    private static final int PAIR_CACHE_SIZE = 256;
+
+    /**
+     * Per-thread collider state: pooled ccd objects and MPR scratch, and the
+     * direct-mapped (o1, o2) -> separating axis cache. The narrow phase may run
+     * on several threads (see DParallelCollider), so nothing here is shared.
+     * Because a cache hit gives the same answer as a full MPR query, contacts
+     * do not depend on which thread handled a pair in earlier steps.
+     */
+    private static final class CcdScratch {
+        final ccd_t ccd = new ccd_t();
+        final RefDouble depth = new RefDouble();
+        final ccd_vec3_t dir = new ccd_vec3_t(), pos = new ccd_vec3_t();
+        final ccd_box_t box = new ccd_box_t();
+        final ccd_cap_t cap = new ccd_cap_t();
+        final ccd_cyl_t cyl1 = new ccd_cyl_t(), cyl2 = new ccd_cyl_t();
+        final ccd_sphere_t sphere = new ccd_sphere_t();
+        final ccd_convex_t conv1 = new ccd_convex_t(), conv2 = new ccd_convex_t();
+
+        final DGeom[] pairG1 = new DGeom[PAIR_CACHE_SIZE], pairG2 = new DGeom[PAIR_CACHE_SIZE];
+        final ccd_vec3_t[] axis = new ccd_vec3_t[PAIR_CACHE_SIZE];
+
+        CcdScratch() {
+            for (int i = 0; i < PAIR_CACHE_SIZE; i++) {
+                axis[i] = new ccd_vec3_t();
+            }
+        }
+
+        int slot(DGeom o1, DGeom o2) {
+            int h = System.identityHashCode(o1) * 31 + System.identityHashCode(o2);
+            h ^= (h >>> 16);
+            return h & (PAIR_CACHE_SIZE - 1);
+        }
+    }
+
+    private static final ThreadLocal<CcdScratch> SCRATCH = ThreadLocal.withInitial(CcdScratch::new);
+
+    private static final LongAdder QUERIES = new LongAdder();
+    private static final LongAdder SEPARATION_HITS = new LongAdder();
+
+    /** @return Number of cached geom-geom queries since the last reset. */
+    static long getQueryCount() {
+        return QUERIES.sum();
+    }
+
+    /** @return Number of queries answered by a cached separating axis. */
+    static long getSeparationCacheHits() {
+        return SEPARATION_HITS.sum();
+    }
+
+    static void resetStatistics() {
+        QUERIES.reset();
+        SEPARATION_HITS.reset();
+    }
+
     public static class CollideBoxCylinderCCD implements DColliderFn {
         @Override
         public int dColliderFn(DGeom o1, DGeom o2, int flags, DContactGeomBuffer contacts) {
-            ccd_cyl_t cyl = new ccd_cyl_t();
-            ccd_box_t box = new ccd_box_t();
-            ccdGeomToBox((DxBox) o1, box);
-            ccdGeomToCyl((DxCylinder) o2, cyl);
+            final CcdScratch sc = SCRATCH.get();
+            ccdGeomToBox((DxBox) o1, sc.box);
+            ccdGeomToCyl((DxCylinder) o2, sc.cyl1);
 
-            return ccdCollide(o1, o2, flags, contacts, box, ccdSupportBox, ccdCenter, cyl, ccdSupportCyl, ccdCenter);
+            return ccdCollideCached(sc, o1, o2, flags, contacts, sc.box, ccdSupportBox, sc.cyl1, ccdSupportCyl);
         }
     }
 
     public static class CollideCapsuleCylinder implements DColliderFn {
         @Override
         public int dColliderFn(DGeom o1, DGeom o2, int flags, DContactGeomBuffer contacts) {
-            ccd_cap_t cap = new ccd_cap_t();
-            ccd_cyl_t cyl = new ccd_cyl_t();
-
-            ccdGeomToCap((DxCapsule) o1, cap);
-            ccdGeomToCyl((DxCylinder) o2, cyl);
+            final CcdScratch sc = SCRATCH.get();
+            ccdGeomToCap((DxCapsule) o1, sc.cap);
+            ccdGeomToCyl((DxCylinder) o2, sc.cyl1);
 
-            return ccdCollide(o1, o2, flags, contacts, cap, ccdSupportCap, ccdCenter, cyl, ccdSupportCyl, ccdCenter);
+            return ccdCollideCached(sc, o1, o2, flags, contacts, sc.cap, ccdSupportCap, sc.cyl1, ccdSupportCyl);
         }
     }
 
     public static class CollideConvexBoxCCD implements DColliderFn {
         @Override
         public int dColliderFn(DGeom o1, DGeom o2, int flags, DContactGeomBuffer contacts) {
-            ccd_box_t box = new ccd_box_t();
-            ccd_convex_t conv = new ccd_convex_t();
+            final CcdScratch sc = SCRATCH.get();
+            ccdGeomToConvex((DxConvex) o1, sc.conv1);
+            ccdGeomToBox((DxBox) o2, sc.box);
 
-            ccdGeomToConvex((DxConvex) o1, conv);
-            ccdGeomToBox((DxBox) o2, box);
-
-            return ccdCollide(o1, o2, flags, contacts, conv, ccdSupportConvex, ccdCenter, box, ccdSupportBox,
-					ccdCenter);
+            return ccdCollideCached(sc, o1, o2, flags, contacts, sc.conv1, ccdSupportConvex, sc.box, ccdSupportBox);
         }
     }
 
     public static class CollideConvexCapsuleCCD implements DColliderFn {
         @Override
         public int dColliderFn(DGeom o1, DGeom o2, int flags, DContactGeomBuffer contacts) {
-            ccd_cap_t cap = new ccd_cap_t();
-            ccd_convex_t conv = new ccd_convex_t();
-
-            ccdGeomToConvex((DxConvex) o1, conv);
-            ccdGeomToCap((DxCapsule) o2, cap);
+            final CcdScratch sc = SCRATCH.get();
+            ccdGeomToConvex((DxConvex) o1, sc.conv1);
+            ccdGeomToCap((DxCapsule) o2, sc.cap);
 
-            return ccdCollide(o1, o2, flags, contacts, conv, ccdSupportConvex, ccdCenter, cap, ccdSupportCap,
-					ccdCenter);
+            return ccdCollideCached(sc, o1, o2, flags, contacts, sc.conv1, ccdSupportConvex, sc.cap, ccdSupportCap);
         }
     }
 
     public static class CollideConvexSphereCCD implements DColliderFn {
         @Override
         public int dColliderFn(DGeom o1, DGeom o2, int flags, DContactGeomBuffer contacts) {
-            ccd_sphere_t sphere = new ccd_sphere_t();
-            ccd_convex_t conv = new ccd_convex_t();
+            final CcdScratch sc = SCRATCH.get();
+            ccdGeomToConvex((DxConvex) o1, sc.conv1);
+            ccdGeomToSphere((DxSphere) o2, sc.sphere);
 
-            ccdGeomToConvex((DxConvex) o1, conv);
-            ccdGeomToSphere((DxSphere) o2, sphere);
-
-            return ccdCollide(o1, o2, flags, contacts, conv, ccdSupportConvex, ccdCenter, sphere, ccdSupportSphere,
-					ccdCenter);
+            return ccdCollideCached(sc, o1, o2, flags, contacts, sc.conv1, ccdSupportConvex, sc.sphere,
+					ccdSupportSphere);
         }
     }
 
     public static class CollideConvexCylinderCCD implements DColliderFn {
         @Override
         public int dColliderFn(DGeom o1, DGeom o2, int flags, DContactGeomBuffer contacts) {
-            ccd_cyl_t cyl = new ccd_cyl_t();
-            ccd_convex_t conv = new ccd_convex_t();
-
-            ccdGeomToConvex((DxConvex) o1, conv);
-            ccdGeomToCyl((DxCylinder) o2, cyl);
+            final CcdScratch sc = SCRATCH.get();
+            ccdGeomToConvex((DxConvex) o1, sc.conv1);
+            ccdGeomToCyl((DxCylinder) o2, sc.cyl1);
 
-            return ccdCollide(o1, o2, flags, contacts, conv, ccdSupportConvex, ccdCenter, cyl, ccdSupportCyl,
-					ccdCenter);
+            return ccdCollideCached(sc, o1, o2, flags, contacts, sc.conv1, ccdSupportConvex, sc.cyl1, ccdSupportCyl);
         }
     }
 
     public static class CollideConvexConvexCCD implements DColliderFn {
         @Override
         public int dColliderFn(DGeom o1, DGeom o2, int flags, DContactGeomBuffer contacts) {
-            ccd_convex_t c1 = new ccd_convex_t(), c2 = new ccd_convex_t();
+            final CcdScratch sc = SCRATCH.get();
+            ccdGeomToConvex((DxConvex) o1, sc.conv1);
+            ccdGeomToConvex((DxConvex) o2, sc.conv2);
 
-            ccdGeomToConvex((DxConvex) o1, c1);
-            ccdGeomToConvex((DxConvex) o2, c2);
-
-            return ccdCollide(o1, o2, flags, contacts, c1, ccdSupportConvex, ccdCenter, c2, ccdSupportConvex,
-					ccdCenter);
+            return ccdCollideCached(sc, o1, o2, flags, contacts, sc.conv1, ccdSupportConvex, sc.conv2,
+					ccdSupportConvex);
         }
     }
 
     public static class CollideCylinderCylinder implements DColliderFn {
         @Override
         public int dColliderFn(DGeom o1, DGeom o2, int flags, DContactGeomBuffer contacts) {
-            final ccd_cyl_t cyl1 = new ccd_cyl_t(), cyl2 = new ccd_cyl_t();
-
-            ccdGeomToCyl((DxCylinder) o1, cyl1);
-            ccdGeomToCyl((DxCylinder) o2, cyl2);
+            final CcdScratch sc = SCRATCH.get();
+            ccdGeomToCyl((DxCylinder) o1, sc.cyl1);
+            ccdGeomToCyl((DxCylinder) o2, sc.cyl2);
 
-            int numContacts = CollisionLibccdCylinderStacking.collideCylCyl(o1, o2, cyl1, cyl2, flags, contacts);
+            int numContacts = CollisionLibccdCylinderStacking.collideCylCyl(o1, o2, sc.cyl1, sc.cyl2, flags, contacts);
             if (numContacts < 0) {
-                numContacts = ccdCollide(o1, o2, flags, contacts, cyl1, ccdSupportCyl, ccdCenter, cyl2, ccdSupportCyl
-						, ccdCenter);
+                numContacts = ccdCollideCached(sc, o1, o2, flags, contacts, sc.cyl1, ccdSupportCyl, sc.cyl2,
+						ccdSupportCyl);
             }
             return numContacts;
         }
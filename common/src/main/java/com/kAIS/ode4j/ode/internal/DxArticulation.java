@@ -0,0 +1,1218 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode.internal;
+
+import static com.kAIS.ode4j.ode.OdeConstants.dContactApprox1_1;
+import static com.kAIS.ode4j.ode.OdeConstants.dContactApprox1_2;
+import static com.kAIS.ode4j.ode.OdeConstants.dContactFDir1;
+import static com.kAIS.ode4j.ode.OdeConstants.dContactMu2;
+import static com.kAIS.ode4j.ode.OdeConstants.dContactSoftCFM;
+import static com.kAIS.ode4j.ode.OdeConstants.dContactSoftERP;
+import static com.kAIS.ode4j.ode.OdeConstants.dInfinity;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import com.kAIS.ode4j.math.DMatrix3C;
+import com.kAIS.ode4j.math.DVector3;
+import com.kAIS.ode4j.math.DVector3C;
+import com.kAIS.ode4j.ode.DArticulation;
+import com.kAIS.ode4j.ode.DBody;
+import com.kAIS.ode4j.ode.DContact;
+import com.kAIS.ode4j.ode.OdeMath;
+import com.kAIS.ode4j.ode.internal.joints.DxJoint;
+import com.kAIS.ode4j.ode.internal.joints.DxJointContact;
+import com.kAIS.ode4j.ode.internal.joints.DxJointNode;
+
+/**
+ * Articulated-body algorithm implementation of {@link DArticulation}.
+ * <p>
+ * All spatial quantities of one step are expressed in a single world aligned
+ * frame whose origin is the root position at the beginning of the step
+ * (Featherstone, "Rigid Body Dynamics Algorithms", ch. 7.3 / 9.3), so no
+ * coordinate transforms are needed between links. Spatial vectors are stored
+ * as 6 doubles (angular part first), spatial inertias as 6x6 row major
+ * matrices. Per-link data lives in flat arrays indexed by link, with links
+ * sorted parent first, so every pass is a plain loop.
+ * <p>
+ * A step is split in two parts: {@link #step(double)} runs before the world
+ * steps its islands (it needs the force accumulators and the contact joints)
+ * and writes the new link velocities, {@link #commit()} runs afterwards and
+ * overwrites the poses the stepper integrated for the kinematic link bodies.
+ */
+public class DxArticulation implements DArticulation {
+
+	private static final JointType[] TYPES = JointType.values();
+	private static final int REVOLUTE = JointType.REVOLUTE.ordinal();
+	private static final int PRISMATIC = JointType.PRISMATIC.ordinal();
+
+	/** Lower bound for the articulated inertia about a joint axis. */
+	private static final double MIN_JOINT_INERTIA = 1e-12;
+
+	private final DxWorld world;
+	private final IdentityHashMap<DxBody, Integer> linkOf = new IdentityHashMap<>();
+	private boolean fixedBase = false;
+	private int iterations = 20;
+	private boolean destroyed = false;
+	private boolean stepped = false;
+
+	// links
+	private int n = 0;
+	private int ndof = 0;
+	private DxBody[] body = new DxBody[0];
+	private int[] parent = new int[0];
+	private int[] type = new int[0];
+	private int[] dof = new int[0];          // index of the joint coordinate, -1 for fixed joints
+	private double[] axisP = new double[0];  // 3: joint axis in parent frame
+	private double[] anchorP = new double[0];// 3: joint anchor in parent frame
+	private double[] anchorC = new double[0];// 3: joint anchor in link frame
+	private double[] rel0 = new double[0];   // 4: link orientation relative to parent at q = 0
+
+	// joints
+	private double[] q = new double[0];
+	private double[] qd = new double[0];
+	private double[] lo = new double[0];
+	private double[] hi = new double[0];
+	private double[] kp = new double[0];
+	private double[] kd = new double[0];
+	private double[] fmax = new double[0];
+	private double[] qTarget = new double[0];
+	private double[] qdTarget = new double[0];
+	private double[] force = new double[0];
+
+	// step working memory, see ensureLinkCapacity()
+	private double[] lpos = new double[0];   // 3
+	private double[] lquat = new double[0];  // 4
+	private double[] lR = new double[0];     // 9
+	private double[] llvel = new double[0];  // 3
+	private double[] lavel = new double[0];  // 3
+	private double[] I = new double[0];      // 36
+	private double[] IA = new double[0];     // 36
+	private double[] pA = new double[0];     // 6
+	private double[] V = new double[0];      // 6
+	private double[] C = new double[0];      // 6
+	private double[] S = new double[0];      // 6
+	private double[] U = new double[0];      // 6
+	private double[] D = new double[0];
+	private double[] u = new double[0];
+	private double[] qdd = new double[0];
+	private double[] acc = new double[0];    // 6
+	private double[] pT = new double[0];     // 6, test impulse propagation
+	private double[] uT = new double[0];
+	private double[] dV = new double[0];     // 6
+	private double[] gen = new double[0];    // 6 + ndof generalized velocity
+	private final double[] L0 = new double[36];
+	private final double[] tmp36 = new double[36];
+	private final double[] tmp6 = new double[6];
+	private final double[] tmp6b = new double[6];
+	private final double[] origin = new double[3];
+	private final double[] rootPos = new double[3];
+	private final double[] rootQuat = new double[4];
+	private final DVector3 nrm = new DVector3();
+	private final DVector3 dir1 = new DVector3();
+	private final DVector3 dir2 = new DVector3();
+
+	// rows (contacts and limits)
+	private int rows = 0;
+	private int rowCap = 0;
+	private int rowStride = 0;
+	private double[] rJ = new double[0];
+	private double[] rW = new double[0];
+	private double[] rb = new double[0];
+	private double[] rlo = new double[0];
+	private double[] rhi = new double[0];
+	private double[] rmu = new double[0];    // friction: bound = rmu * lambda[normal]
+	private int[] rnormal = new int[0];      // friction: index of the normal row, -1 otherwise
+	private double[] rcfm = new double[0];
+	private double[] rinv = new double[0];
+	private double[] lambda = new double[0];
+
+	DxArticulation(DxWorld world, DxBody root) {
+		this.world = world;
+		checkBody(root);
+		int i = newLink(-1, root, JointType.FIXED.ordinal());
+		rel0[4 * i] = 1;
+	}
+
+	// ========== construction ==========
+
+	@Override
+	public int addLink(int parentLink, DBody b, JointType jointType, DVector3C anchor, DVector3C axis,
+			double position) {
+		checkAlive();
+		if (parentLink < 0 || parentLink >= n) {
+			throw new IllegalArgumentException("Invalid parent link " + parentLink);
+		}
+		DxBody child = (DxBody) b;
+		checkBody(child);
+		DxBody par = body[parentLink];
+
+		double[] qp = quat(par, new double[4]);
+		double[] qc = quat(child, new double[4]);
+		DMatrix3C Rp = par._posr.R();
+		DMatrix3C Rc = child._posr.R();
+		DVector3C pp = par._posr.pos;
+		DVector3C pc = child._posr.pos;
+
+		int i = newLink(parentLink, child, jointType.ordinal());
+		int i3 = 3 * i, i4 = 4 * i;
+
+		if (jointType != JointType.FIXED) {
+			double l = axis.length();
+			if (l < 1e-12) {
+				throw new IllegalArgumentException("Joint axis must not be zero");
+			}
+			// axis in parent frame
+			for (int k = 0; k < 3; k++) {
+				axisP[i3 + k] = (Rp.get(0, k) * axis.get0() + Rp.get(1, k) * axis.get1()
+						+ Rp.get(2, k) * axis.get2()) / l;
+			}
+			dof[i] = ndof++;
+			q[i] = position;
+		}
+
+		double[] conjP = conj(qp, new double[4]);
+		double[] rel = mulQ(conjP, 0, qc, 0, new double[4], 0);
+		if (jointType == JointType.REVOLUTE) {
+			// anchor in both frames; rel0 = conj(rot(axis, position)) * conj(qp) * qc
+			for (int k = 0; k < 3; k++) {
+				anchorP[i3 + k] = Rp.get(0, k) * (anchor.get0() - pp.get0()) + Rp.get(1, k) * (anchor.get1() - pp.get1())
+						+ Rp.get(2, k) * (anchor.get2() - pp.get2());
+				anchorC[i3 + k] = Rc.get(0, k) * (anchor.get0() - pc.get0()) + Rc.get(1, k) * (anchor.get1() - pc.get1())
+						+ Rc.get(2, k) * (anchor.get2() - pc.get2());
+			}
+			double[] qa = axisQuat(axisP, i3, -position, new double[4]);
+			mulQ(qa, 0, rel, 0, rel0, i4);
+		} else {
+			// the link origin is the anchor, prismatic coordinate measured along the parent axis
+			for (int k = 0; k < 3; k++) {
+				anchorP[i3 + k] = Rp.get(0, k) * (pc.get0() - pp.get0()) + Rp.get(1, k) * (pc.get1() - pp.get1())
+						+ Rp.get(2, k) * (pc.get2() - pp.get2()) - axisP[i3 + k] * q[i];
+			}
+			System.arraycopy(rel, 0, rel0, i4, 4);
+		}
+		return i;
+	}
+
+	@Override
+	public int addLink(int parentLink, DBody b, JointType jointType, DVector3C anchor, DVector3C axis) {
+		return addLink(parentLink, b, jointType, anchor, axis, 0);
+	}
+
+	private void checkBody(DxBody b) {
+		if (b == null || b.world != world) {
+			throw new IllegalArgumentException("Body does not belong to this world.");
+		}
+		if (linkOf.containsKey(b)) {
+			throw new IllegalArgumentException("Body is already part of this articulation.");
+		}
+		if (world.isArticulated(b)) {
+			throw new IllegalArgumentException("Body is already part of an articulation.");
+		}
+	}
+
+	private void checkAlive() {
+		if (destroyed) {
+			throw new IllegalStateException("Articulation has been destroyed.");
+		}
+	}
+
+	private int newLink(int parentLink, DxBody b, int jointType) {
+		ensureLinkCapacity(n + 1);
+		int i = n++;
+		body[i] = b;
+		parent[i] = parentLink;
+		type[i] = jointType;
+		dof[i] = -1;
+		lo[i] = -dInfinity;
+		hi[i] = dInfinity;
+		fmax[i] = dInfinity;
+		linkOf.put(b, i);
+		b.dBodySetKinematic();
+		return i;
+	}
+
+	private void ensureLinkCapacity(int cap) {
+		if (cap <= body.length) {
+			return;
+		}
+		int c = Math.max(8, Math.max(cap, body.length * 2));
+		body = Arrays.copyOf(body, c);
+		parent = Arrays.copyOf(parent, c);
+		type = Arrays.copyOf(type, c);
+		dof = Arrays.copyOf(dof, c);
+		axisP = Arrays.copyOf(axisP, 3 * c);
+		anchorP = Arrays.copyOf(anchorP, 3 * c);
+		anchorC = Arrays.copyOf(anchorC, 3 * c);
+		rel0 = Arrays.copyOf(rel0, 4 * c);
+		q = Arrays.copyOf(q, c);
+		qd = Arrays.copyOf(qd, c);
+		lo = Arrays.copyOf(lo, c);
+		hi = Arrays.copyOf(hi, c);
+		kp = Arrays.copyOf(kp, c);
+		kd = Arrays.copyOf(kd, c);
+		fmax = Arrays.copyOf(fmax, c);
+		qTarget = Arrays.copyOf(qTarget, c);
+		qdTarget = Arrays.copyOf(qdTarget, c);
+		force = Arrays.copyOf(force, c);
+		lpos = new double[3 * c];
+		lquat = new double[4 * c];
+		lR = new double[9 * c];
+		llvel = new double[3 * c];
+		lavel = new double[3 * c];
+		I = new double[36 * c];
+		IA = new double[36 * c];
+		pA = new double[6 * c];
+		V = new double[6 * c];
+		C = new double[6 * c];
+		S = new double[6 * c];
+		U = new double[6 * c];
+		D = new double[c];
+		u = new double[c];
+		qdd = new double[c];
+		acc = new double[6 * c];
+		pT = new double[6 * c];
+		uT = new double[c];
+		dV = new double[6 * c];
+	}
+
+	// ========== accessors ==========
+
+	@Override
+	public int getLinkCount() {
+		return n;
+	}
+
+	@Override
+	public int getDofCount() {
+		return ndof;
+	}
+
+	@Override
+	public DBody getLinkBody(int link) {
+		return body[checkLink(link)];
+	}
+
+	@Override
+	public int getLinkParent(int link) {
+		return parent[checkLink(link)];
+	}
+
+	@Override
+	public int getLinkIndex(DBody b) {
+		Integer i = linkOf.get(b);
+		return i == null ? -1 : i;
+	}
+
+	@Override
+	public JointType getJointType(int link) {
+		return TYPES[type[checkLink(link)]];
+	}
+
+	@Override
+	public void setFixedBase(boolean fixed) {
+		fixedBase = fixed;
+	}
+
+	@Override
+	public boolean isFixedBase() {
+		return fixedBase;
+	}
+
+	@Override
+	public double getJointPosition(int link) {
+		return q[checkLink(link)];
+	}
+
+	@Override
+	public double getJointVelocity(int link) {
+		return qd[checkLink(link)];
+	}
+
+	@Override
+	public void setJointLimits(int link, double lo, double hi) {
+		checkLink(link);
+		this.lo[link] = lo;
+		this.hi[link] = hi;
+	}
+
+	@Override
+	public void setJointServo(int link, double kp, double kd, double maxForce) {
+		checkLink(link);
+		this.kp[link] = kp;
+		this.kd[link] = kd;
+		this.fmax[link] = maxForce;
+	}
+
+	@Override
+	public void setJointServoTarget(int link, double position, double velocity) {
+		checkLink(link);
+		qTarget[link] = position;
+		qdTarget[link] = velocity;
+	}
+
+	@Override
+	public void addJointForce(int link, double f) {
+		force[checkLink(link)] += f;
+	}
+
+	@Override
+	public void setIterations(int iterations) {
+		Common.dUASSERT(iterations > 0, "iterations must be > 0");
+		this.iterations = iterations;
+	}
+
+	@Override
+	public int getIterations() {
+		return iterations;
+	}
+
+	@Override
+	public int getLastRowCount() {
+		return rows;
+	}
+
+	@Override
+	public boolean isValid() {
+		if (destroyed) {
+			return false;
+		}
+		for (int i = 0; i < n; i++) {
+			if (body[i].world != world) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void destroy() {
+		if (destroyed) {
+			return;
+		}
+		destroyed = true;
+		world.removeArticulation(this);
+		for (int i = 0; i < n; i++) {
+			if (body[i].world == world) {
+				body[i].dBodySetDynamic();
+			}
+		}
+		linkOf.clear();
+	}
+
+	private int checkLink(int link) {
+		if (link < 0 || link >= n) {
+			throw new IndexOutOfBoundsException("link " + link);
+		}
+		return link;
+	}
+
+	// ========== stepping ==========
+
+	/**
+	 * Advance the articulation and write the new link velocities. Called by
+	 * the world before its islands are stepped.
+	 */
+	void step(double h) {
+		stepped = false;
+		rows = 0;
+		if (!isValid() || (body[0].flags & DxBody.dxBodyDisabled) != 0) {
+			return;
+		}
+		for (int i = 0; i < n; i++) {
+			// setMass() makes a body dynamic again
+			if (body[i].invMass != 0) {
+				body[i].dBodySetKinematic();
+			}
+		}
+		final int nv = 6 + ndof;
+		if (gen.length < nv) {
+			gen = new double[nv];
+		}
+
+		readState();
+		forwardKinematics();
+		computeDynamics(h);
+
+		// unconstrained velocities
+		for (int k = 0; k < 6; k++) {
+			gen[k] = V[k] + h * acc[k];
+		}
+		for (int i = 1; i < n; i++) {
+			if (dof[i] >= 0) {
+				gen[6 + dof[i]] = qd[i] + h * qdd[i];
+			}
+		}
+
+		buildRows(h, nv);
+		solveRows(nv);
+		integrate(h);
+		forwardKinematics();
+		for (int i = 0; i < n; i++) {
+			DxBody b = body[i];
+			b.lvel.set(llvel[3 * i], llvel[3 * i + 1], llvel[3 * i + 2]);
+			b.avel.set(lavel[3 * i], lavel[3 * i + 1], lavel[3 * i + 2]);
+			b.facc.setZero();
+			b.tacc.setZero();
+		}
+		Arrays.fill(force, 0, n, 0);
+		stepped = true;
+	}
+
+	/**
+	 * Write the poses computed by the last {@link #step(double)}. Called by the
+	 * world after its islands are stepped.
+	 */
+	void commit() {
+		if (!stepped) {
+			return;
+		}
+		stepped = false;
+		for (int i = 0; i < n; i++) {
+			DxBody b = body[i];
+			b._q.set(lquat[4 * i], lquat[4 * i + 1], lquat[4 * i + 2], lquat[4 * i + 3]);
+			Rotation.dRfromQ(b._posr.Rw(), b._q);
+			b.dBodySetPosition(lpos[3 * i], lpos[3 * i + 1], lpos[3 * i + 2]);
+			b.lvel.set(llvel[3 * i], llvel[3 * i + 1], llvel[3 * i + 2]);
+			b.avel.set(lavel[3 * i], lavel[3 * i + 1], lavel[3 * i + 2]);
+		}
+	}
+
+	/**
+	 * Read root state and joint coordinates from the link bodies. Joint
+	 * velocities are stored in qd[], the root velocity in V[0..5] (about the
+	 * root position).
+	 */
+	private void readState() {
+		DxBody r = body[0];
+		rootPos[0] = r._posr.pos.get0();
+		rootPos[1] = r._posr.pos.get1();
+		rootPos[2] = r._posr.pos.get2();
+		quat(r, rootQuat);
+		System.arraycopy(rootPos, 0, origin, 0, 3);
+		if (fixedBase) {
+			Arrays.fill(V, 0, 6, 0);
+		} else {
+			V[0] = r.avel.get0(); V[1] = r.avel.get1(); V[2] = r.avel.get2();
+			V[3] = r.lvel.get0(); V[4] = r.lvel.get1(); V[5] = r.lvel.get2();
+		}
+
+		final double[] qp = tmp6, qi = tmp6b, rel = tmp36;
+		for (int i = 1; i < n; i++) {
+			if (dof[i] < 0) {
+				continue;
+			}
+			DxBody bp = body[parent[i]], bi = body[i];
+			DMatrix3C Rp = bp._posr.R();
+			int i3 = 3 * i;
+			double ax = Rp.get00() * axisP[i3] + Rp.get01() * axisP[i3 + 1] + Rp.get02() * axisP[i3 + 2];
+			double ay = Rp.get10() * axisP[i3] + Rp.get11() * axisP[i3 + 1] + Rp.get12() * axisP[i3 + 2];
+			double az = Rp.get20() * axisP[i3] + Rp.get21() * axisP[i3 + 1] + Rp.get22() * axisP[i3 + 2];
+			if (type[i] == REVOLUTE) {
+				// rot(axis, q) = conj(qp) * qi * conj(rel0)
+				quat(bp, qp);
+				quat(bi, qi);
+				conj(qp, qp);
+				mulQ(qp, 0, qi, 0, rel, 0);
+				rel[4] = rel0[4 * i];
+				rel[5] = -rel0[4 * i + 1];
+				rel[6] = -rel0[4 * i + 2];
+				rel[7] = -rel0[4 * i + 3];
+				mulQ(rel, 0, rel, 4, rel, 8);
+				double s = rel[9] * axisP[i3] + rel[10] * axisP[i3 + 1] + rel[11] * axisP[i3 + 2];
+				double angle = 2 * Math.atan2(s, rel[8]);
+				// wrap into one turn around the reference angle of the joint (q = 0,
+				// or the middle of the limits), independent of the previous q, so a
+				// restored snapshot gives the same q as the original state
+				double reference = (lo[i] != -dInfinity && hi[i] != dInfinity) ? 0.5 * (lo[i] + hi[i]) : 0;
+				angle += 2 * Math.PI * Math.rint((reference - angle) / (2 * Math.PI));
+				q[i] = angle;
+				qd[i] = ax * (bi.avel.get0() - bp.avel.get0()) + ay * (bi.avel.get1() - bp.avel.get1())
+						+ az * (bi.avel.get2() - bp.avel.get2());
+			} else {
+				// q = axis . (link origin - parent anchor)
+				DVector3C pp = bp._posr.pos, pi = bi._posr.pos;
+				double apx = pp.get0() + Rp.get00() * anchorP[i3] + Rp.get01() * anchorP[i3 + 1] + Rp.get02() * anchorP[i3 + 2];
+				double apy = pp.get1() + Rp.get10() * anchorP[i3] + Rp.get11() * anchorP[i3 + 1] + Rp.get12() * anchorP[i3 + 2];
+				double apz = pp.get2() + Rp.get20() * anchorP[i3] + Rp.get21() * anchorP[i3 + 1] + Rp.get22() * anchorP[i3 + 2];
+				q[i] = ax * (pi.get0() - apx) + ay * (pi.get1() - apy) + az * (pi.get2() - apz);
+				// velocity of the link origin relative to the coincident parent point
+				DVector3C wp = bp.avel;
+				double rx = pi.get0() - pp.get0(), ry = pi.get1() - pp.get1(), rz = pi.get2() - pp.get2();
+				double vx = bi.lvel.get0() - bp.lvel.get0() - (wp.get1() * rz - wp.get2() * ry);
+				double vy = bi.lvel.get1() - bp.lvel.get1() - (wp.get2() * rx - wp.get0() * rz);
+				double vz = bi.lvel.get2() - bp.lvel.get2() - (wp.get0() * ry - wp.get1() * rx);
+				qd[i] = ax * vx + ay * vy + az * vz;
+			}
+		}
+	}
+
+	/**
+	 * Link poses from rootPos/rootQuat and q[], link velocities from V[0..5]
+	 * (root angular velocity and root linear velocity) and qd[].
+	 */
+	private void forwardKinematics() {
+		System.arraycopy(rootPos, 0, lpos, 0, 3);
+		System.arraycopy(rootQuat, 0, lquat, 0, 4);
+		rotationFromQuat(lquat, 0, lR, 0);
+		lavel[0] = V[0]; lavel[1] = V[1]; lavel[2] = V[2];
+		llvel[0] = V[3]; llvel[1] = V[4]; llvel[2] = V[5];
+
+		final double[] qa = tmp6;
+		for (int i = 1; i < n; i++) {
+			int p = parent[i];
+			int i3 = 3 * i, i4 = 4 * i, i9 = 9 * i, p3 = 3 * p, p9 = 9 * p;
+			if (type[i] == REVOLUTE) {
+				axisQuat(axisP, i3, q[i], qa);
+				mulQ(lquat, 4 * p, qa, 0, tmp36, 0);
+				mulQ(tmp36, 0, rel0, i4, lquat, i4);
+			} else {
+				mulQ(lquat, 4 * p, rel0, i4, lquat, i4);
+			}
+			normalizeQ(lquat, i4);
+			rotationFromQuat(lquat, i4, lR, i9);
+
+			// world anchor (on the parent) and world axis
+			double ox = anchorP[i3], oy = anchorP[i3 + 1], oz = anchorP[i3 + 2];
+			if (type[i] == PRISMATIC) {
+				ox += axisP[i3] * q[i];
+				oy += axisP[i3 + 1] * q[i];
+				oz += axisP[i3 + 2] * q[i];
+			}
+			double awx = lpos[p3] + lR[p9] * ox + lR[p9 + 1] * oy + lR[p9 + 2] * oz;
+			double awy = lpos[p3 + 1] + lR[p9 + 3] * ox + lR[p9 + 4] * oy + lR[p9 + 5] * oz;
+			double awz = lpos[p3 + 2] + lR[p9 + 6] * ox + lR[p9 + 7] * oy + lR[p9 + 8] * oz;
+			double cx = anchorC[i3], cy = anchorC[i3 + 1], cz = anchorC[i3 + 2];
+			lpos[i3] = awx - (lR[i9] * cx + lR[i9 + 1] * cy + lR[i9 + 2] * cz);
+			lpos[i3 + 1] = awy - (lR[i9 + 3] * cx + lR[i9 + 4] * cy + lR[i9 + 5] * cz);
+			lpos[i3 + 2] = awz - (lR[i9 + 6] * cx + lR[i9 + 7] * cy + lR[i9 + 8] * cz);
+
+			// velocities
+			double wx = lavel[p3], wy = lavel[p3 + 1], wz = lavel[p3 + 2];
+			double rx = lpos[i3] - lpos[p3], ry = lpos[i3 + 1] - lpos[p3 + 1], rz = lpos[i3 + 2] - lpos[p3 + 2];
+			double vx = llvel[p3] + wy * rz - wz * ry;
+			double vy = llvel[p3 + 1] + wz * rx - wx * rz;
+			double vz = llvel[p3 + 2] + wx * ry - wy * rx;
+			if (dof[i] >= 0) {
+				double ax = (lR[p9] * axisP[i3] + lR[p9 + 1] * axisP[i3 + 1] + lR[p9 + 2] * axisP[i3 + 2]) * qd[i];
+				double ay = (lR[p9 + 3] * axisP[i3] + lR[p9 + 4] * axisP[i3 + 1] + lR[p9 + 5] * axisP[i3 + 2]) * qd[i];
+				double az = (lR[p9 + 6] * axisP[i3] + lR[p9 + 7] * axisP[i3 + 1] + lR[p9 + 8] * axisP[i3 + 2]) * qd[i];
+				if (type[i] == REVOLUTE) {
+					wx += ax; wy += ay; wz += az;
+					double sx = lpos[i3] - awx, sy = lpos[i3 + 1] - awy, sz = lpos[i3 + 2] - awz;
+					vx += ay * sz - az * sy;
+					vy += az * sx - ax * sz;
+					vz += ax * sy - ay * sx;
+				} else {
+					vx += ax; vy += ay; vz += az;
+				}
+			}
+			lavel[i3] = wx; lavel[i3 + 1] = wy; lavel[i3 + 2] = wz;
+			llvel[i3] = vx; llvel[i3 + 1] = vy; llvel[i3 + 2] = vz;
+		}
+	}
+
+
+	/**
+	 * Articulated-body algorithm (three passes). Fills the spatial inertias,
+	 * motion subspaces S, articulated inertias IA, U = IA S, D = S^T U and
+	 * u = tau - S^T pA of every link, the root acceleration in acc[0..5]
+	 * and the joint accelerations in qdd[]. The root velocity is V[0..5].
+	 * <p>
+	 * The PD servos are integrated implicitly: with
+	 * tau = kp (qt - q(t+h)) + kd (dqt - dq(t+h)) and semi-implicit Euler,
+	 * the terms depending on the acceleration move to the left hand side,
+	 * i.e. (kp h + kd) h is added to D. Test impulses see the same D, so
+	 * contacts feel the servo stiffness as well.
+	 */
+	private void computeDynamics(double h) {
+		final double gx = world.gravity.get0(), gy = world.gravity.get1(), gz = world.gravity.get2();
+		final double[] Ic = tmp36;
+
+		// pass 1: inertias, velocities, bias forces
+		for (int i = 0; i < n; i++) {
+			DxBody b = body[i];
+			int i3 = 3 * i, i6 = 6 * i, i9 = 9 * i, i36 = 36 * i;
+			double m = b.mass._mass;
+			double cx = lpos[i3] - origin[0], cy = lpos[i3 + 1] - origin[1], cz = lpos[i3 + 2] - origin[2];
+
+			// Ic = R I R^T (about the center of mass, world frame)
+			DMatrix3C Ib = b.mass._I;
+			for (int r = 0; r < 3; r++) {
+				for (int c = 0; c < 3; c++) {
+					Ic[9 + 3 * r + c] = lR[i9 + 3 * r] * Ib.get(0, c) + lR[i9 + 3 * r + 1] * Ib.get(1, c)
+							+ lR[i9 + 3 * r + 2] * Ib.get(2, c);
+				}
+			}
+			for (int r = 0; r < 3; r++) {
+				for (int c = 0; c < 3; c++) {
+					Ic[3 * r + c] = Ic[9 + 3 * r] * lR[i9 + 3 * c] + Ic[9 + 3 * r + 1] * lR[i9 + 3 * c + 1]
+							+ Ic[9 + 3 * r + 2] * lR[i9 + 3 * c + 2];
+				}
+			}
+			// spatial inertia about the origin: [Ic + m cx cx^T, m cx; m cx^T, m 1]
+			double cc = cx * cx + cy * cy + cz * cz;
+			tmp6b[0] = cx; tmp6b[1] = cy; tmp6b[2] = cz;
+			for (int r = 0; r < 3; r++) {
+				for (int c = 0; c < 3; c++) {
+					I[i36 + 6 * r + c] = Ic[3 * r + c] + m * ((r == c ? cc : 0) - tmp6b[r] * tmp6b[c]);
+					I[i36 + 6 * (r + 3) + c + 3] = r == c ? m : 0;
+				}
+			}
+			I[i36 + 4] = -m * cz; I[i36 + 5] = m * cy;
+			I[i36 + 9] = m * cz; I[i36 + 11] = -m * cx;
+			I[i36 + 15] = -m * cy; I[i36 + 16] = m * cx;
+			I[i36 + 3] = 0; I[i36 + 10] = 0; I[i36 + 17] = 0;
+			for (int r = 0; r < 3; r++) {
+				for (int c = 0; c < 3; c++) {
+					I[i36 + 6 * (r + 3) + c] = I[i36 + 6 * c + r + 3];
+				}
+			}
+			System.arraycopy(I, i36, IA, i36, 36);
+
+			// motion subspace, velocity and velocity product acceleration
+			Arrays.fill(S, i6, i6 + 6, 0);
+			Arrays.fill(C, i6, i6 + 6, 0);
+			if (i > 0) {
+				int p = parent[i], p3 = 3 * p, p9 = 9 * p;
+				if (dof[i] >= 0) {
+					double ax = lR[p9] * axisP[i3] + lR[p9 + 1] * axisP[i3 + 1] + lR[p9 + 2] * axisP[i3 + 2];
+					double ay = lR[p9 + 3] * axisP[i3] + lR[p9 + 4] * axisP[i3 + 1] + lR[p9 + 5] * axisP[i3 + 2];
+					double az = lR[p9 + 6] * axisP[i3] + lR[p9 + 7] * axisP[i3 + 1] + lR[p9 + 8] * axisP[i3 + 2];
+					if (type[i] == REVOLUTE) {
+						double rx = lpos[p3] + lR[p9] * anchorP[i3] + lR[p9 + 1] * anchorP[i3 + 1] + lR[p9 + 2] * anchorP[i3 + 2] - origin[0];
+						double ry = lpos[p3 + 1] + lR[p9 + 3] * anchorP[i3] + lR[p9 + 4] * anchorP[i3 + 1] + lR[p9 + 5] * anchorP[i3 + 2] - origin[1];
+						double rz = lpos[p3 + 2] + lR[p9 + 6] * anchorP[i3] + lR[p9 + 7] * anchorP[i3 + 1] + lR[p9 + 8] * anchorP[i3 + 2] - origin[2];
+						S[i6] = ax; S[i6 + 1] = ay; S[i6 + 2] = az;
+						S[i6 + 3] = ry * az - rz * ay;
+						S[i6 + 4] = rz * ax - rx * az;
+						S[i6 + 5] = rx * ay - ry * ax;
+					} else {
+						S[i6 + 3] = ax; S[i6 + 4] = ay; S[i6 + 5] = az;
+					}
+				}
+				int p6 = 6 * p;
+				for (int k = 0; k < 6; k++) {
+					V[i6 + k] = V[p6 + k] + S[i6 + k] * qd[i];
+					tmp6[k] = S[i6 + k] * qd[i];
+				}
+				crossMotion(V, i6, tmp6, 0, C, i6);
+			}
+
+			// pA = V x* (I V) - f_ext
+			mul66(I, i36, V, i6, tmp6, 0);
+			crossForce(V, i6, tmp6, 0, pA, i6);
+			double fx = b.facc.get0(), fy = b.facc.get1(), fz = b.facc.get2();
+			if ((b.flags & DxBody.dxBodyNoGravity) == 0) {
+				fx += m * gx; fy += m * gy; fz += m * gz;
+			}
+			pA[i6] -= b.tacc.get0() + cy * fz - cz * fy;
+			pA[i6 + 1] -= b.tacc.get1() + cz * fx - cx * fz;
+			pA[i6 + 2] -= b.tacc.get2() + cx * fy - cy * fx;
+			pA[i6 + 3] -= fx;
+			pA[i6 + 4] -= fy;
+			pA[i6 + 5] -= fz;
+		}
+
+		// pass 2: articulated inertias, leaves to root
+		final double[] Ia = tmp36, pa = tmp6;
+		for (int i = n - 1; i > 0; i--) {
+			int p = parent[i], i6 = 6 * i, i36 = 36 * i, p6 = 6 * p, p36 = 36 * p;
+			System.arraycopy(IA, i36, Ia, 0, 36);
+			System.arraycopy(pA, i6, pa, 0, 6);
+			if (dof[i] >= 0) {
+				double tau = force[i], stiffness = 0;
+				if (kp[i] != 0 || kd[i] != 0) {
+					double t0 = kp[i] * (qTarget[i] - q[i] - h * qd[i]) + kd[i] * (qdTarget[i] - qd[i]);
+					if (Math.abs(t0) <= fmax[i]) {
+						tau += t0;
+						stiffness = (kp[i] * h + kd[i]) * h;
+					} else {
+						// saturated: constant force
+						tau += Math.copySign(fmax[i], t0);
+					}
+				}
+				mul66(IA, i36, S, i6, U, i6);
+				double d = dot6(S, i6, U, i6) + stiffness;
+				D[i] = Math.max(d, MIN_JOINT_INERTIA);
+				u[i] = tau - dot6(S, i6, pA, i6);
+				double dInv = 1 / D[i];
+				for (int r = 0; r < 6; r++) {
+					double ur = U[i6 + r] * dInv;
+					for (int c = 0; c < 6; c++) {
+						Ia[6 * r + c] -= ur * U[i6 + c];
+					}
+				}
+				mul66(Ia, 0, C, i6, tmp6b, 0);
+				double s = u[i] * dInv;
+				for (int k = 0; k < 6; k++) {
+					pa[k] += tmp6b[k] + U[i6 + k] * s;
+				}
+			}
+			for (int k = 0; k < 36; k++) {
+				IA[p36 + k] += Ia[k];
+			}
+			for (int k = 0; k < 6; k++) {
+				pA[p6 + k] += pa[k];
+			}
+		}
+
+		// root
+		if (fixedBase) {
+			Arrays.fill(acc, 0, 6, 0);
+		} else {
+			cholesky6(IA, 0, L0);
+			for (int k = 0; k < 6; k++) {
+				acc[k] = -pA[k];
+			}
+			cholSolve6(L0, acc, 0);
+		}
+
+		// pass 3: accelerations, root to leaves
+		for (int i = 1; i < n; i++) {
+			int i6 = 6 * i, p6 = 6 * parent[i];
+			for (int k = 0; k < 6; k++) {
+				acc[i6 + k] = acc[p6 + k] + C[i6 + k];
+			}
+			if (dof[i] >= 0) {
+				double a = (u[i] - dot6(U, i6, acc, i6)) / D[i];
+				qdd[i] = a;
+				for (int k = 0; k < 6; k++) {
+					acc[i6 + k] += S[i6 + k] * a;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Generalized velocity change caused by a unit impulse: the spatial
+	 * impulse f (about the origin) on link k plus the joint impulse tau on
+	 * the joint of link k. O(n), uses the articulated inertias of the step.
+	 * @param out generalized velocity change [root (6); joints (ndof)]
+	 */
+	private void testImpulse(int k, double[] f, int fo, double tau, double[] out, int oo) {
+		Arrays.fill(uT, 0, n, 0);
+		for (int i = k; i >= 0; i = parent[i]) {
+			Arrays.fill(pT, 6 * i, 6 * i + 6, 0);
+		}
+		if (f != null) {
+			for (int j = 0; j < 6; j++) {
+				pT[6 * k + j] = -f[fo + j];
+			}
+		}
+		for (int i = k; i > 0; i = parent[i]) {
+			int i6 = 6 * i, p6 = 6 * parent[i];
+			if (dof[i] >= 0) {
+				double ui = (i == k ? tau : 0) - dot6(S, i6, pT, i6);
+				uT[i] = ui;
+				double s = ui / D[i];
+				for (int j = 0; j < 6; j++) {
+					pT[p6 + j] += pT[i6 + j] + U[i6 + j] * s;
+				}
+			} else {
+				for (int j = 0; j < 6; j++) {
+					pT[p6 + j] += pT[i6 + j];
+				}
+			}
+		}
+		if (fixedBase) {
+			Arrays.fill(dV, 0, 6, 0);
+		} else {
+			for (int j = 0; j < 6; j++) {
+				dV[j] = -pT[j];
+			}
+			cholSolve6(L0, dV, 0);
+		}
+		System.arraycopy(dV, 0, out, oo, 6);
+		for (int i = 1; i < n; i++) {
+			int i6 = 6 * i, p6 = 6 * parent[i];
+			if (dof[i] >= 0) {
+				double dq = (uT[i] - dot6(U, i6, dV, p6)) / D[i];
+				for (int j = 0; j < 6; j++) {
+					dV[i6 + j] = dV[p6 + j] + S[i6 + j] * dq;
+				}
+				out[oo + 6 + dof[i]] = dq;
+			} else {
+				System.arraycopy(dV, p6, dV, i6, 6);
+			}
+		}
+	}
+
+	// ========== contacts and limits ==========
+
+	private void buildRows(double h, int nv) {
+		rows = 0;
+		rowStride = nv;
+		final double hInv = 1 / h;
+		final double worldCfm = world.getCFM() * hInv;
+
+		for (int k = 0; k < n; k++) {
+			for (DxJointNode node = body[k].firstjoint.get(); node != null; node = node.next) {
+				DxJoint joint = node.joint;
+				if (!(joint instanceof DxJointContact) || !joint.isEnabled()) {
+					continue;
+				}
+				if (node.body != null && linkOf.containsKey(node.body)) {
+					continue; // contact between two links
+				}
+				DContact contact = ((DxJointContact) joint).getContact();
+				// the normal points into body 1; attach() swaps the bodies when
+				// body 1 is null, the normal then points into body 2
+				double sign = node == joint.node[1] ? 1 : -1;
+				if (joint.isFlagsReverse()) {
+					sign = -sign;
+				}
+				int mode = contact.surface.mode;
+				double erp = (mode & dContactSoftERP) != 0 ? contact.surface.soft_erp : world.getERP();
+				double cfm = (mode & dContactSoftCFM) != 0 ? contact.surface.soft_cfm : world.getCFM();
+				double depth = contact.geom.depth - world.contactp.min_depth;
+				double bias = Math.min(erp * Math.max(depth, 0) * hInv, world.contactp.max_vel);
+
+				DVector3C pos = contact.geom.pos;
+				nrm.set(contact.geom.normal).scale(sign);
+				int normalRow = addPointRow(k, pos, nrm, bias, 0, dInfinity, cfm * hInv, -1, 0);
+
+				double mu = contact.surface.mu;
+				if (mu <= 0) {
+					continue;
+				}
+				double mu2 = (mode & dContactMu2) != 0 ? contact.surface.mu2 : mu;
+				if ((mode & dContactFDir1) != 0) {
+					dir1.set(contact.fdir1);
+					dir2.eqCross(nrm, dir1);
+				} else {
+					OdeMath.dPlaneSpace(nrm, dir1, dir2);
+				}
+				addFrictionRow(k, pos, dir1, mu, (mode & dContactApprox1_1) != 0, h, worldCfm, normalRow);
+				if (mu2 > 0) {
+					addFrictionRow(k, pos, dir2, mu2, (mode & dContactApprox1_2) != 0, h, worldCfm, normalRow);
+				}
+			}
+		}
+
+		final double erp = world.getERP();
+		for (int i = 1; i < n; i++) {
+			if (dof[i] < 0 || (lo[i] == -dInfinity && hi[i] == dInfinity)) {
+				continue;
+			}
+			// add a limit row if the unconstrained step would cross the limit
+			double qn = q[i] + h * gen[6 + dof[i]];
+			if (qn < lo[i]) {
+				double b = (lo[i] - q[i]) * hInv * (q[i] < lo[i] ? erp : 1);
+				addJointRow(i, 1, b, worldCfm);
+			} else if (qn > hi[i]) {
+				double b = (q[i] - hi[i]) * hInv * (q[i] > hi[i] ? erp : 1);
+				addJointRow(i, -1, b, worldCfm);
+			}
+		}
+	}
+
+	private void addFrictionRow(int k, DVector3C pos, DVector3C dir, double mu, boolean approx1, double h,
+			double cfmh, int normalRow) {
+		if (mu == dInfinity) {
+			addPointRow(k, pos, dir, 0, -dInfinity, dInfinity, cfmh, -1, 0);
+		} else if (approx1) {
+			addPointRow(k, pos, dir, 0, 0, 0, cfmh, normalRow, mu);
+		} else {
+			addPointRow(k, pos, dir, 0, -mu * h, mu * h, cfmh, -1, 0);
+		}
+	}
+
+	/**
+	 * Row for the velocity of the point pos of link k along dir.
+	 */
+	private int addPointRow(int k, DVector3C pos, DVector3C dir, double b, double rl, double rh, double cfmh,
+			int normalRow, double mu) {
+		int r = newRow(b, rl, rh, cfmh, normalRow, mu);
+		int j = r * rowStride;
+		// unit force dir at pos as spatial force about the origin
+		double rx = pos.get0() - origin[0], ry = pos.get1() - origin[1], rz = pos.get2() - origin[2];
+		double dx = dir.get0(), dy = dir.get1(), dz = dir.get2();
+		double[] f = tmp6b;
+		f[0] = ry * dz - rz * dy;
+		f[1] = rz * dx - rx * dz;
+		f[2] = rx * dy - ry * dx;
+		f[3] = dx; f[4] = dy; f[5] = dz;
+		if (!fixedBase) {
+			System.arraycopy(f, 0, rJ, j, 6);
+		}
+		for (int i = k; i > 0; i = parent[i]) {
+			if (dof[i] >= 0) {
+				rJ[j + 6 + dof[i]] = dot6(S, 6 * i, f, 0);
+			}
+		}
+		testImpulse(k, f, 0, 0, rW, j);
+		finishRow(r);
+		return r;
+	}
+
+	/**
+	 * Row for sign * (velocity of the joint of link i).
+	 */
+	private void addJointRow(int i, double sign, double b, double cfmh) {
+		int r = newRow(b, 0, dInfinity, cfmh, -1, 0);
+		int j = r * rowStride;
+		rJ[j + 6 + dof[i]] = sign;
+		testImpulse(i, null, 0, sign, rW, j);
+		finishRow(r);
+	}
+
+	private int newRow(double b, double rl, double rh, double cfmh, int normalRow, double mu) {
+		if (rows == rowCap || rJ.length < (rows + 1) * rowStride) {
+			rowCap = Math.max(16, rowCap * 2);
+			rJ = Arrays.copyOf(rJ, rowCap * rowStride);
+			rW = Arrays.copyOf(rW, rowCap * rowStride);
+			rb = Arrays.copyOf(rb, rowCap);
+			rlo = Arrays.copyOf(rlo, rowCap);
+			rhi = Arrays.copyOf(rhi, rowCap);
+			rmu = Arrays.copyOf(rmu, rowCap);
+			rnormal = Arrays.copyOf(rnormal, rowCap);
+			rcfm = Arrays.copyOf(rcfm, rowCap);
+			rinv = Arrays.copyOf(rinv, rowCap);
+			lambda = Arrays.copyOf(lambda, rowCap);
+		}
+		int r = rows++;
+		Arrays.fill(rJ, r * rowStride, (r + 1) * rowStride, 0);
+		rb[r] = b;
+		rlo[r] = rl;
+		rhi[r] = rh;
+		rcfm[r] = cfmh;
+		rnormal[r] = normalRow;
+		rmu[r] = mu;
+		lambda[r] = 0;
+		return r;
+	}
+
+	private void finishRow(int r) {
+		int j = r * rowStride;
+		double a = rcfm[r];
+		for (int k = 0; k < rowStride; k++) {
+			a += rJ[j + k] * rW[j + k];
+		}
+		rinv[r] = a > 0 ? 1 / a : 0;
+	}
+
+	/**
+	 * Projected Gauss-Seidel on the generalized velocity gen[].
+	 */
+	private void solveRows(int nv) {
+		for (int it = 0; it < iterations && rows > 0; it++) {
+			for (int r = 0; r < rows; r++) {
+				int j = r * rowStride;
+				double jv = 0;
+				for (int k = 0; k < nv; k++) {
+					jv += rJ[j + k] * gen[k];
+				}
+				double old = lambda[r];
+				double l = old + (rb[r] - jv - rcfm[r] * old) * rinv[r];
+				double rl, rh;
+				if (rnormal[r] >= 0) {
+					rh = rmu[r] * lambda[rnormal[r]];
+					rl = -rh;
+				} else {
+					rl = rlo[r];
+					rh = rhi[r];
+				}
+				if (l < rl) {
+					l = rl;
+				} else if (l > rh) {
+					l = rh;
+				}
+				double delta = l - old;
+				if (delta != 0) {
+					lambda[r] = l;
+					for (int k = 0; k < nv; k++) {
+						gen[k] += rW[j + k] * delta;
+					}
+				}
+			}
+		}
+	}
+
+	// ========== integration ==========
+
+	private void integrate(double h) {
+		for (int i = 1; i < n; i++) {
+			if (dof[i] >= 0) {
+				qd[i] = gen[6 + dof[i]];
+				q[i] += h * qd[i];
+			}
+		}
+		if (fixedBase) {
+			Arrays.fill(V, 0, 6, 0);
+			return;
+		}
+		// gen[3..5] is the velocity of the body point at the origin; the root
+		// moves away from the origin by about h * v during the step
+		double wx = gen[0], wy = gen[1], wz = gen[2], vx = gen[3], vy = gen[4], vz = gen[5];
+		V[0] = wx;
+		V[1] = wy;
+		V[2] = wz;
+		V[3] = vx + h * (wy * vz - wz * vy);
+		V[4] = vy + h * (wz * vx - wx * vz);
+		V[5] = vz + h * (wx * vy - wy * vx);
+		rootPos[0] += h * V[3];
+		rootPos[1] += h * V[4];
+		rootPos[2] += h * V[5];
+		double w = Math.sqrt(V[0] * V[0] + V[1] * V[1] + V[2] * V[2]);
+		if (w * h > 1e-12) {
+			double half = 0.5 * w * h;
+			double s = Math.sin(half) / w;
+			tmp6[0] = Math.cos(half);
+			tmp6[1] = V[0] * s;
+			tmp6[2] = V[1] * s;
+			tmp6[3] = V[2] * s;
+			mulQ(tmp6, 0, rootQuat, 0, tmp36, 0);
+			System.arraycopy(tmp36, 0, rootQuat, 0, 4);
+			normalizeQ(rootQuat, 0);
+		}
+	}
+
+	// ========== spatial algebra and quaternions ==========
+
+	/** out = v x m (motion cross product) */
+	private static void crossMotion(double[] v, int vo, double[] m, int mo, double[] out, int oo) {
+		double wx = v[vo], wy = v[vo + 1], wz = v[vo + 2], lx = v[vo + 3], ly = v[vo + 4], lz = v[vo + 5];
+		double mwx = m[mo], mwy = m[mo + 1], mwz = m[mo + 2], mlx = m[mo + 3], mly = m[mo + 4], mlz = m[mo + 5];
+		out[oo] = wy * mwz - wz * mwy;
+		out[oo + 1] = wz * mwx - wx * mwz;
+		out[oo + 2] = wx * mwy - wy * mwx;
+		out[oo + 3] = wy * mlz - wz * mly + ly * mwz - lz * mwy;
+		out[oo + 4] = wz * mlx - wx * mlz + lz * mwx - lx * mwz;
+		out[oo + 5] = wx * mly - wy * mlx + lx * mwy - ly * mwx;
+	}
+
+	/** out = v x* f (force cross product) */
+	private static void crossForce(double[] v, int vo, double[] f, int fo, double[] out, int oo) {
+		double wx = v[vo], wy = v[vo + 1], wz = v[vo + 2], lx = v[vo + 3], ly = v[vo + 4], lz = v[vo + 5];
+		double nx = f[fo], ny = f[fo + 1], nz = f[fo + 2], fx = f[fo + 3], fy = f[fo + 4], fz = f[fo + 5];
+		out[oo] = wy * nz - wz * ny + ly * fz - lz * fy;
+		out[oo + 1] = wz * nx - wx * nz + lz * fx - lx * fz;
+		out[oo + 2] = wx * ny - wy * nx + lx * fy - ly * fx;
+		out[oo + 3] = wy * fz - wz * fy;
+		out[oo + 4] = wz * fx - wx * fz;
+		out[oo + 5] = wx * fy - wy * fx;
+	}
+
+	private static void mul66(double[] M, int mo, double[] x, int xo, double[] out, int oo) {
+		for (int r = 0; r < 6; r++) {
+			int m = mo + 6 * r;
+			out[oo + r] = M[m] * x[xo] + M[m + 1] * x[xo + 1] + M[m + 2] * x[xo + 2]
+					+ M[m + 3] * x[xo + 3] + M[m + 4] * x[xo + 4] + M[m + 5] * x[xo + 5];
+		}
+	}
+
+	private static double dot6(double[] a, int ao, double[] b, int bo) {
+		return a[ao] * b[bo] + a[ao + 1] * b[bo + 1] + a[ao + 2] * b[bo + 2]
+				+ a[ao + 3] * b[bo + 3] + a[ao + 4] * b[bo + 4] + a[ao + 5] * b[bo + 5];
+	}
+
+	/** Cholesky factor L (lower, row major) of the symmetric 6x6 matrix A. */
+	private static void cholesky6(double[] A, int ao, double[] L) {
+		for (int i = 0; i < 6; i++) {
+			for (int j = 0; j <= i; j++) {
+				double s = A[ao + 6 * i + j];
+				for (int k = 0; k < j; k++) {
+					s -= L[6 * i + k] * L[6 * j + k];
+				}
+				if (i == j) {
+					L[6 * i + i] = Math.sqrt(Math.max(s, MIN_JOINT_INERTIA));
+				} else {
+					L[6 * i + j] = s / L[6 * j + j];
+				}
+			}
+		}
+	}
+
+	/** Solve L L^T x = b in place. */
+	private static void cholSolve6(double[] L, double[] b, int bo) {
+		for (int i = 0; i < 6; i++) {
+			double s = b[bo + i];
+			for (int k = 0; k < i; k++) {
+				s -= L[6 * i + k] * b[bo + k];
+			}
+			b[bo + i] = s / L[6 * i + i];
+		}
+		for (int i = 5; i >= 0; i--) {
+			double s = b[bo + i];
+			for (int k = i + 1; k < 6; k++) {
+				s -= L[6 * k + i] * b[bo + k];
+			}
+			b[bo + i] = s / L[6 * i + i];
+		}
+	}
+
+	private static double[] quat(DxBody b, double[] out) {
+		double w = b._q.get0(), x = b._q.get1(), y = b._q.get2(), z = b._q.get3();
+		double l = Math.sqrt(w * w + x * x + y * y + z * z);
+		out[0] = w / l; out[1] = x / l; out[2] = y / l; out[3] = z / l;
+		return out;
+	}
+
+	private static double[] conj(double[] a, double[] out) {
+		out[0] = a[0]; out[1] = -a[1]; out[2] = -a[2]; out[3] = -a[3];
+		return out;
+	}
+
+	/** out = a * b (Hamilton product, w first); out must not overlap a or b. */
+	private static double[] mulQ(double[] a, int ao, double[] b, int bo, double[] out, int oo) {
+		double aw = a[ao], ax = a[ao + 1], ay = a[ao + 2], az = a[ao + 3];
+		double bw = b[bo], bx = b[bo + 1], by = b[bo + 2], bz = b[bo + 3];
+		out[oo] = aw * bw - ax * bx - ay * by - az * bz;
+		out[oo + 1] = aw * bx + ax * bw + ay * bz - az * by;
+		out[oo + 2] = aw * by - ax * bz + ay * bw + az * bx;
+		out[oo + 3] = aw * bz + ax * by - ay * bx + az * bw;
+		return out;
+	}
+
+	private static double[] axisQuat(double[] axis, int ao, double angle, double[] out) {
+		double s = Math.sin(0.5 * angle);
+		out[0] = Math.cos(0.5 * angle);
+		out[1] = axis[ao] * s;
+		out[2] = axis[ao + 1] * s;
+		out[3] = axis[ao + 2] * s;
+		return out;
+	}
+
+	private static void normalizeQ(double[] a, int ao) {
+		double l = Math.sqrt(a[ao] * a[ao] + a[ao + 1] * a[ao + 1] + a[ao + 2] * a[ao + 2] + a[ao + 3] * a[ao + 3]);
+		a[ao] /= l; a[ao + 1] /= l; a[ao + 2] /= l; a[ao + 3] /= l;
+	}
+
+	/** Same convention as dRfromQ(). */
+	private static void rotationFromQuat(double[] q, int qo, double[] R, int ro) {
+		double q0 = q[qo], q1 = q[qo + 1], q2 = q[qo + 2], q3 = q[qo + 3];
+		double qq1 = 2 * q1 * q1, qq2 = 2 * q2 * q2, qq3 = 2 * q3 * q3;
+		R[ro] = 1 - qq2 - qq3;
+		R[ro + 1] = 2 * (q1 * q2 - q0 * q3);
+		R[ro + 2] = 2 * (q1 * q3 + q0 * q2);
+		R[ro + 3] = 2 * (q1 * q2 + q0 * q3);
+		R[ro + 4] = 1 - qq1 - qq3;
+		R[ro + 5] = 2 * (q2 * q3 - q0 * q1);
+		R[ro + 6] = 2 * (q1 * q3 - q0 * q2);
+		R[ro + 7] = 2 * (q2 * q3 + q0 * q1);
+		R[ro + 8] = 1 - qq1 - qq2;
+	}
+}
@@ -37,7 +37,9 @@ import com.kAIS.ode4j.ode.DSpace;
 import com.kAIS.ode4j.ode.internal.aabbtree.AABBTree;
 import com.kAIS.ode4j.ode.internal.aabbtree.AABBTreeNodeCallback;
 import com.kAIS.ode4j.ode.internal.aabbtree.AABBTreePairCallback;
+import com.kAIS.ode4j.ode.internal.aabbtree.AABBTreeRayCallback;
 import com.kAIS.ode4j.ode.internal.aabbtree.ExternalObjectHandler;
+import com.kAIS.ode4j.ode.threading.task.TaskExecutor;
 
 @SuppressWarnings("deprecation")
 public class DxBVHSpace extends DxSpace implements DBhvSpace {
@@ -47,6 +49,7 @@ public class DxBVHSpace extends DxSpace implements DBhvSpace {
 	private List<DxGeom> dirty = new ArrayList<DxGeom>();
 	// geoms with infinite AABBs
 	private List<DxGeom> infGeomList = new ArrayList<DxGeom>();
+	private final double[] extents = new double[6];
 
 	private class GeomSpatialIndexHandler implements ExternalObjectHandler<DxGeom> {
 
@@ -89,6 +92,29 @@ public class DxBVHSpace extends DxSpace implements DBhvSpace {
 		bvhTree = new AABBTree<>(new GeomSpatialIndexHandler(staticGeomCategoryMask), nodesPerLeaf, highQuality, fatAabbMargin);
 	}
 
+	@Override
+	public void setSAHBuild(boolean sah) {
+		bvhTree.setSAHBuild(sah);
+		// applied by the next cleanGeoms()
+		dirtyGeoms = true;
+	}
+
+	@Override
+	public boolean isSAHBuild() {
+		return bvhTree.isSAHBuild();
+	}
+
+	@Override
+	public void setTaskExecutor(TaskExecutor executor) {
+		bvhTree.setTaskExecutor(executor);
+	}
+
+	@Override
+	public double getSAHCost() {
+		cleanGeoms();
+		return bvhTree.getSAHCost();
+	}
+
 	@Override
 	void add(DxGeom g) {
 		CHECK_NOT_LOCKED(this);
@@ -146,8 +172,8 @@ public class DxBVHSpace extends DxSpace implements DBhvSpace {
 		lock_count--;
 	}
 
+	// the tree copies the extents, so one buffer is enough
 	private double[] getExtents(DxGeom g) {
-		double[] extents = new double[6];
 		extents[0] = g.getAABB().getMin0();
 		extents[1] = g.getAABB().getMin1();
 		extents[2] = g.getAABB().getMin2();
@@ -255,4 +281,67 @@ public class DxBVHSpace extends DxSpace implements DBhvSpace {
 		lock_count--;
 	}
 
+	/**
+	 * Collide all geoms of this space with all geoms of another BVH space by
+	 * descending both trees together. The callback is called with the geom of
+	 * this space first. Disabled geoms of both spaces are ignored.
+	 */
+	void collideTree(final Object data, DxBVHSpace other, final DNearCallback callback) {
+		dAASSERT(other != null && callback != null);
+
+		lock_count++;
+		other.lock_count++;
+		cleanGeoms();
+		other.cleanGeoms();
+
+		bvhTree.getOverlappingPairs(other.bvhTree, new AABBTreePairCallback<DxGeom>() {
+			@Override
+			public void overlap(DxGeom o1, DxGeom o2) {
+				collideGeomsNoAABBs(o1, o2, data, callback);
+			}
+		});
+
+		// infinite geoms of this space with all geoms of the other space
+		if (!infGeomList.isEmpty()) {
+			DataCallback dc = new DataCallback(data, callback);
+			for (DxGeom g : infGeomList) {
+				if (GEOM_ENABLED(g)) {
+					other.collide2(dc, g, DxSpace::swap_callback);
+				}
+			}
+		}
+		// infinite geoms of the other space with the normal geoms of this space
+		for (final DxGeom g : other.infGeomList) {
+			if (GEOM_ENABLED(g)) {
+				bvhTree.getOverlappingNodes(getExtents(g), new AABBTreeNodeCallback<DxGeom>() {
+					@Override
+					public void overlap(DxGeom o) {
+						collideGeomsNoAABBs(o, g, data, callback);
+					}
+				});
+			}
+		}
+		other.lock_count--;
+		lock_count--;
+	}
+
+	/**
+	 * Pass the geoms whose AABB is crossed by a ray to {@code callback} (see
+	 * {@link AABBTree#getRayOverlappingNodes}), infinite geoms last. The
+	 * geoms must be clean; the space is only read, so rays may be cast from
+	 * several threads at once.
+	 * @return the ray length after the last callback
+	 */
+	double rayCast(double ox, double oy, double oz, double dx, double dy, double dz,
+			double maxT, AABBTreeRayCallback<DxGeom> callback) {
+		maxT = bvhTree.getRayOverlappingNodes(ox, oy, oz, dx, dy, dz, maxT, callback);
+		for (int i = 0, n = infGeomList.size(); i < n; i++) {
+			DxGeom g = infGeomList.get(i);
+			if (GEOM_ENABLED(g)) {
+				maxT = callback.hit(g, maxT);
+			}
+		}
+		return maxT;
+	}
+
 }
@@ -87,6 +87,7 @@ public class DxBody extends DObject implements DBody {
 	static final int dxBodyAngularDamping 			=64;  	// use angular damping
 	static final int dxBodyMaxAngularSpeed			=128;  	// use maximum angular speed
 	private static final int dxBodyGyroscopic 				=256;	// use gyroscopic term
+	static final int dxBodySleeping				=512;	// disabled by island sleeping, not by dBodyDisable()
 
 
 	//	  public dxJointNode firstjoint;	// list of attached joints
@@ -324,20 +325,24 @@ public class DxBody extends DObject implements DBody {
 	public void dBodySetLinearVel  (double x, double y, double z)
 	{
 		lvel.set(x, y, z);
+		wakeOnCommand(x, y, z);
 	}
 	public void dBodySetLinearVel  (DVector3C xyz)
 	{
 		lvel.set(xyz);
+		wakeOnCommand(xyz);
 	}
 
 
 	public void dBodySetAngularVel (double x, double y, double z)
 	{
 		avel.set(x, y, z);
+		wakeOnCommand(x, y, z);
 	}
 	public void dBodySetAngularVel (DVector3C xyz)
 	{
 		avel.set(xyz);
+		wakeOnCommand(xyz);
 	}
 
 
@@ -451,10 +456,12 @@ public class DxBody extends DObject implements DBody {
 	public void dBodyAddForce (double fx, double fy, double fz)
 	{
 		facc.add(fx, fy, fz);
+		wakeOnCommand(fx, fy, fz);
 	}
 	public void dBodyAddForce (DVector3C f)
 	{
 		facc.add(f);
+		wakeOnCommand(f);
 	}
 
 
@@ -462,10 +469,12 @@ public class DxBody extends DObject implements DBody {
 	public void dBodyAddTorque (double fx, double fy, double fz)
 	{
 		tacc.add(fx, fy, fz);
+		wakeOnCommand(fx, fy, fz);
 	}
 	public void dBodyAddTorque (DVector3C f)
 	{
 		tacc.add(f);
+		wakeOnCommand(f);
 	}
 
 
@@ -474,6 +483,7 @@ public class DxBody extends DObject implements DBody {
 		DVector3 t2 = new DVector3();
 		dMultiply0_331 (t2,_posr.R(),f);
 		facc.add(t2);
+		wakeOnCommand(f);
 	}
 
 
@@ -483,11 +493,13 @@ public class DxBody extends DObject implements DBody {
 		DVector3 t2 = new DVector3();
 		dMultiply0_331 (t2,_posr.R(),f);
 		tacc.add(t2);
+		wakeOnCommand(f);
 	}
 
 
 	void dBodyAddForceAtPos (DVector3C f, DVector3C p)
 	{
+		wakeOnCommand(f);
 		facc.add(f);
 		DVector3 q = p.reSub(_posr.pos());
 		dAddVectorCross3 (tacc,q,f);
@@ -496,6 +508,7 @@ public class DxBody extends DObject implements DBody {
 
 	void dBodyAddForceAtRelPos (DVector3C f, DVector3C prel)
 	{
+		wakeOnCommand(f);
 		DVector3 p = new DVector3();
 		dMultiply0_331 (p,_posr.R(),prel);
 		facc.add(f);
@@ -505,6 +518,7 @@ public class DxBody extends DObject implements DBody {
 
 	void dBodyAddRelForceAtPos (DVector3C frel, DVector3C p)
 	{
+		wakeOnCommand(frel);
 		DVector3 f = new DVector3();
 		dMultiply0_331 (f,_posr.R(),frel);
 		facc.add(f);
@@ -517,6 +531,7 @@ public class DxBody extends DObject implements DBody {
 	//	double px, double py, double pz)
 	void dBodyAddRelForceAtRelPos (DVector3C fRel, DVector3C pRel)
 	{
+		wakeOnCommand(fRel);
 		//		dVector3 frel = new dVector3(fx, fy, fz);
 		//		dVector3 prel = new dVector3(px, py, pz);
 		DVector3 f = new DVector3();
@@ -719,7 +734,7 @@ public class DxBody extends DObject implements DBody {
 	//	void dBodyEnable (dxBody b)
     public void dBodyEnable ()
     {
-        flags &= ~dxBodyDisabled;
+        flags &= ~(dxBodyDisabled | dxBodySleeping);
         adis_stepsleft = adis.idle_steps;
         adis_timeleft = adis.idle_time;
         // no code for average-processing needed here
@@ -731,14 +746,72 @@ public class DxBody extends DObject implements DBody {
     //(TZ)
     public void dBodyEnable_noAdis ()
     {
-        flags &= ~dxBodyDisabled;
+        flags &= ~(dxBodyDisabled | dxBodySleeping);
     }
 
 
+	/**
+	 * Wake a body that was put to sleep with its island: enable it and
+	 * restart the idle countdown and the velocity averaging, so the island
+	 * is not put back to sleep on the next step.
+	 */
+	public void dBodyWake ()
+	{
+		dBodyEnable();
+		average_counter = 0;
+		average_ready = 0;
+	}
+
+	/**
+	 * Put a body to sleep as part of its island (see
+	 * {@link DxWorld#setIslandSleeping(boolean)}): disable it and clear its
+	 * velocity.
+	 */
+	public void dBodySleep ()
+	{
+		flags |= dxBodyDisabled | dxBodySleeping;
+		lvel.setZero();
+		avel.setZero();
+	}
+
+	/**
+	 * @return 'true' if the body has the auto-disable flag and has been idle
+	 * for the auto-disable steps and time.
+	 */
+	public boolean dBodyIsReadyToSleep ()
+	{
+		return (flags & dxBodyAutoDisable) != 0 && adis_stepsleft <= 0 && adis_timeleft <= 0;
+	}
+
+	/**
+	 * @return 'true' if the body was disabled by island sleeping (and not
+	 * by {@link #dBodyDisable()}).
+	 */
+	public boolean dBodyIsSleeping ()
+	{
+		return (flags & dxBodySleeping) != 0;
+	}
+
+	// a non-zero force, torque or velocity wakes a sleeping island; bodies
+	// disabled with dBodyDisable() stay disabled
+	private void wakeOnCommand (double x, double y, double z)
+	{
+		if ((flags & dxBodySleeping) != 0 && (x != 0 || y != 0 || z != 0) && world.isIslandSleeping()) {
+			dBodyWake();
+		}
+	}
+
+	private void wakeOnCommand (DVector3C v)
+	{
+		wakeOnCommand(v.get0(), v.get1(), v.get2());
+	}
+
+
 	//	void dBodyDisable (dxBody b)
 	public void dBodyDisable ()
 	{
 		flags |= dxBodyDisabled;
+		flags &= ~dxBodySleeping;
 	}
 
 
@@ -869,7 +942,7 @@ public class DxBody extends DObject implements DBody {
 		{
 			flags &= ~dxBodyAutoDisable;
 			// (mg) we should also reset the IsDisabled state to correspond to the DoDisabling flag
-			flags &= ~dxBodyDisabled;
+			flags &= ~(dxBodyDisabled | dxBodySleeping);
 			adis.idle_steps = world.getAutoDisableSteps();
 			adis.idle_time = world.getAutoDisableTime();
 			// resetting the average calculations too
@@ -238,11 +238,16 @@ public class DxBox extends DxGeom implements DBox {
 
 	//static int intersectRectQuad (double h[2], double p[8], double ret[16])
 	static int intersectRectQuad (double h[], double p[], double ret[])
+	{
+		return intersectRectQuad(h, p, ret, new double[16]);
+	}
+
+	/** @param buffer scratch array of length 16 */
+	private static int intersectRectQuad (double h[], double p[], double ret[], double buffer[])
 	{
 		// q (and r) contain nq (and nr) coordinate points for the current (and
 		// chopped) polygons
 		int nq=4,nr = 0;
-		double[] buffer = new double[16];
 		//  double *q = p;
 		//  double *r = ret;
 		double[] r = ret;
@@ -444,15 +449,29 @@ public class DxBox extends DxGeom implements DBox {
 		DVector3 _normalC = new DVector3();
 		double _s;
 		double _fudge_factor;
-		final int _flags;
+		int _flags;
 		boolean _invert_normal;
-		TstClass(int flags, double fudge_factor) {
+		TstClass() {}
+		TstClass init(int flags, double fudge_factor) {
 			_flags = flags;
 			_fudge_factor = fudge_factor;
+			_normalR_M = null;
+			_normalR_col = 0;
+			_normalC.setZero();
+			_break = false;
+			return this;
 		}
 		boolean _break = false;
 	}
 
+	// one TstClass per thread, dBoxBox() does not recurse
+	private static final ThreadLocal<TstClass> TST_CLASS = new ThreadLocal<TstClass>() {
+		@Override
+		protected TstClass initialValue() {
+			return new TstClass();
+		}
+	};
+
 
 	/** 
 	 * given two boxes (p1,R1,side1) and (p2,R2,side2), collide them together and
@@ -495,12 +514,27 @@ public class DxBox extends DxGeom implements DBox {
 			final DMatrix3C R2, final DVector3C side2,
 			DVector3 normal, RefDouble depth, RefInt return_code,
 			int flags, DContactGeomBuffer contacts, int skip)
+	{
+		ScratchPool pool = ScratchPool.get();
+		pool.push();
+		try {
+			return dBoxBox(pool, p1, R1, side1, p2, R2, side2, normal, depth, return_code, flags, contacts, skip);
+		} finally {
+			pool.pop();
+		}
+	}
+
+	private static int dBoxBox (ScratchPool pool, final DVector3C p1, final DMatrix3C R1,
+			final DVector3C side1, final DVector3C p2,
+			final DMatrix3C R2, final DVector3C side2,
+			DVector3 normal, RefDouble depth, RefInt return_code,
+			int flags, DContactGeomBuffer contacts, int skip)
 	{
 		//TZ final double fudge_factor = (1.05);
-		DVector3 p = new DVector3(),pp = new DVector3();//,normalC=new dVector3(0,0,0);
+		DVector3 p = pool.vector(),pp = pool.vector();//,normalC=new dVector3(0,0,0);
 		//final double *normalR = 0;
 		//final dVector3 normalR;
-		DVector3 A = new DVector3(), B = new DVector3();//double A[3],B[3];
+		DVector3 A = pool.vector(), B = pool.vector();//double A[3],B[3];
 		double R11,R12,R13,R21,R22,R23,R31,R32,R33,
 		Q11,Q12,Q13,Q21,Q22,Q23,Q31,Q32,Q33;//,s,s2,l,expr1_val;
 		int i,j;//,invert_normal;//,code;
@@ -543,7 +577,7 @@ public class DxBox extends DxGeom implements DBox {
 		// set to a vector relative to body 1. invert_normal is 1 if the sign of
 		// the normal should be flipped.
 
-		TstClass tst = new TstClass(flags, 1.05);//fudge_factor);
+		TstClass tst = TST_CLASS.get().init(flags, 1.05);//fudge_factor);
 		do {
 			//	#define TST(expr1,expr2,norm,cc) \
 			//	    expr1_val = (expr1); /* Avoid duplicate evaluation of expr1 */ \
@@ -658,7 +692,7 @@ public class DxBox extends DxGeom implements DBox {
 			double sign;
 			// Copy p1 into pa
 			//for (i=0; i<3; i++) pa[i] = p1[i]; // why no memcpy?
-			DVector3 pa = new DVector3(p1);
+			DVector3 pa = pool.vector().set(p1);
 			// Get world position of p2 into pa
 			for (j=0; j<3; j++) {
 				sign = (dCalcVectorDot3_14(normal,R1,j) > 0) ? (1.0) : (-1.0);
@@ -669,7 +703,7 @@ public class DxBox extends DxGeom implements DBox {
 			// find a point pb on the intersecting edge of box 2
 			// Copy p2 into pb
 			//for (i=0; i<3; i++) pb[i] = p2[i]; // why no memcpy?
-			DVector3 pb = new DVector3(p2);
+			DVector3 pb = pool.vector().set(p2);
 			// Get world position of p2 into pb
 			for (j=0; j<3; j++) {
 				sign = (dCalcVectorDot3_14(normal,R2,j) > 0) ? (-1.0) : (1.0);
@@ -678,7 +712,7 @@ public class DxBox extends DxGeom implements DBox {
 			}
 
 			RefDouble alpha = new RefDouble(0),beta = new RefDouble(0);
-			DVector3 ua = new DVector3(),ub = new DVector3();
+			DVector3 ua = pool.vector(),ub = pool.vector();
 			// Get direction of first edge
 			//for (i=0; i<3; i++) ua.set(i, R1.v[((tst._code)-7)/3 + i*4] );
 			for (i=0; i<3; i++) ua.set(i, R1.get(i, (tst._code-7)/3 ) );
@@ -730,7 +764,7 @@ public class DxBox extends DxGeom implements DBox {
 		The normal is flipped if necessary so it always points outward from box 'a',
 		box 'b' is thus always the incident box
 		 */
-		DVector3 normal2 = new DVector3(),nr = new DVector3(),anr = new DVector3();
+		DVector3 normal2 = pool.vector(),nr = pool.vector(),anr = pool.vector();
 		if (tst._code <= 3) {
 			//	    normal2[0] = normal[0];
 			//	    normal2[1] = normal[1];
@@ -780,7 +814,7 @@ public class DxBox extends DxGeom implements DBox {
 		}
 
 		// compute center point of incident face, in reference-face coordinates
-		DVector3 center = new DVector3();
+		DVector3 center = pool.vector();
 		if (nr.get(lanr) < 0) {
 			//for (i=0; i<3; i++) center.set(i, pb.get(i) - pa.get(i) + Sb.get(lanr) * Rb.v[i*4+lanr] );
 			for (i=0; i<3; i++) center.set(i, pb.get(i) - pa.get(i) + Sb.get(lanr) * Rb.get(i, lanr) );
@@ -807,7 +841,7 @@ public class DxBox extends DxGeom implements DBox {
 		}
 
 		// find the four corners of the incident face, in reference-face coordinates
-		double[] quad=new double[8];	// 2D coordinate of incident face (x,y pairs)
+		double[] quad=pool.doubles(8);	// 2D coordinate of incident face (x,y pairs)
 		double c1,c2,m11,m12,m21,m22;
 		c1 = dCalcVectorDot3_14 (center,Ra,code1);
 		c2 = dCalcVectorDot3_14 (center,Ra,code2);
@@ -834,21 +868,21 @@ public class DxBox extends DxGeom implements DBox {
 		}
 
 		// find the size of the reference face
-		double[] rect=new double[2];
+		double[] rect=pool.doubles(2);
 		rect[0] = Sa.get(code1);
 		rect[1] = Sa.get(code2);
 
 		// intersect the incident and reference faces
-		double[] ret=new double[16];
-		int n = intersectRectQuad (rect,quad,ret);
+		double[] ret=pool.doubles(16);
+		int n = intersectRectQuad (rect,quad,ret,pool.doubles(16));
 		if (n < 1) return 0;		// this should never happen
 
 		// convert the intersection points into reference-face coordinates,
 		// and compute the contact position and depth for each point. only keep
 		// those points that have a positive (penetrating) depth. delete points in
 		// the 'ret' array as necessary so that 'point' and 'ret' correspond.
-		double[] point=new double[3*8];		// penetrating contact points
-		double[] dep=new double[8];			// depths for those points
+		double[] point=pool.doubles(3*8);		// penetrating contact points
+		double[] dep=pool.doubles(8);			// depths for those points
 		double det1 = dRecip(m11*m22 - m12*m21);
 		m11 *= det1;
 		m12 *= det1;
@@ -0,0 +1,231 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode.internal;
+
+import java.util.Arrays;
+
+import com.kAIS.ode4j.math.DMatrix3C;
+import com.kAIS.ode4j.math.DVector3;
+import com.kAIS.ode4j.math.DVector3C;
+import com.kAIS.ode4j.ode.DContactGeom;
+import com.kAIS.ode4j.ode.internal.joints.DxJoint;
+import com.kAIS.ode4j.ode.internal.joints.DxJointContact;
+
+/**
+ * Contact impulse cache for QuickStep warm starting.
+ * <p>
+ * Contact joints are recreated every step and have no identity of their
+ * own. After a step the cache records, for every contact joint of the
+ * world, the geom pair, the feature ids (side1/side2), position and normal
+ * in the frame of the body of the first geom (or of the second geom if the
+ * first one is static) and the lambdas QuickStep has solved for. A new
+ * contact joint then takes the lambdas of the recorded contact of the same
+ * geom pair and features that is within the match distance and has a
+ * similar normal. Each recorded contact is handed out at most once.
+ * <p>
+ * Lookups are done when the contact joint is created and are not thread
+ * safe, recording is done by the world after the step.
+ */
+public class DxContactCache {
+
+	private static final int LAMBDA_STRIDE = 6;
+	private static final int FRAME_STRIDE = 6; // local position, local normal
+	private static final double MIN_NORMAL_DOT = 0.95;
+
+	private double matchDistance2 = 0.02 * 0.02;
+
+	private DxGeom[] geom1 = new DxGeom[64];
+	private DxGeom[] geom2 = new DxGeom[64];
+	private int[] sides = new int[64 * 2];
+	private double[] frames = new double[64 * FRAME_STRIDE];
+	private double[] lambdas = new double[64 * LAMBDA_STRIDE];
+	private boolean[] used = new boolean[64];
+	private int[] next = new int[64];
+	private int[] heads = new int[128];
+	private int count = 0;
+
+	private final DVector3 tmpPos = new DVector3();
+	private final DVector3 tmpNormal = new DVector3();
+
+	DxContactCache() {
+		Arrays.fill(heads, -1);
+	}
+
+	void setMatchDistance(double distance) {
+		matchDistance2 = distance * distance;
+	}
+
+	double getMatchDistance() {
+		return Math.sqrt(matchDistance2);
+	}
+
+	/**
+	 * Copy the lambdas of the matching contact of the previous step into
+	 * <code>lambda</code>. Leaves <code>lambda</code> untouched if there is
+	 * no match.
+	 * @return 'true' if a cached contact was found
+	 */
+	public boolean lookup(DContactGeom contact, double[] lambda) {
+		if (count == 0) {
+			return false;
+		}
+		DxGeom g1 = (DxGeom) contact.g1;
+		DxGeom g2 = (DxGeom) contact.g2;
+		DxBody b = frameBody(g1, g2);
+		if (b == null) {
+			return false;
+		}
+		toLocal(b, contact.pos, contact.normal, tmpPos, tmpNormal);
+
+		int best = -1;
+		double bestDist2 = matchDistance2;
+		for (int i = heads[slot(g1, g2)]; i != -1; i = next[i]) {
+			if (used[i] || geom1[i] != g1 || geom2[i] != g2
+					|| sides[2 * i] != contact.side1 || sides[2 * i + 1] != contact.side2) {
+				continue;
+			}
+			int f = i * FRAME_STRIDE;
+			double dx = frames[f] - tmpPos.get0();
+			double dy = frames[f + 1] - tmpPos.get1();
+			double dz = frames[f + 2] - tmpPos.get2();
+			double dist2 = dx * dx + dy * dy + dz * dz;
+			double dot = frames[f + 3] * tmpNormal.get0() + frames[f + 4] * tmpNormal.get1()
+					+ frames[f + 5] * tmpNormal.get2();
+			if (dist2 < bestDist2 && dot > MIN_NORMAL_DOT) {
+				best = i;
+				bestDist2 = dist2;
+			}
+		}
+		if (best == -1) {
+			return false;
+		}
+		used[best] = true;
+		System.arraycopy(lambdas, best * LAMBDA_STRIDE, lambda, 0, LAMBDA_STRIDE);
+		return true;
+	}
+
+	/**
+	 * Replace the cache content with the contact joints currently in the
+	 * world and the lambdas of the last step.
+	 */
+	void record(DxWorld world) {
+		clear();
+		for (DxJoint j = world.firstjoint.get(); j != null; j = (DxJoint) j.getNext()) {
+			if (!(j instanceof DxJointContact)) {
+				continue;
+			}
+			DContactGeom contact = ((DxJointContact) j).getContact().geom;
+			DxGeom g1 = (DxGeom) contact.g1;
+			DxGeom g2 = (DxGeom) contact.g2;
+			DxBody b = frameBody(g1, g2);
+			if (b == null) {
+				continue;
+			}
+			if (count == used.length) {
+				grow();
+			}
+			int i = count++;
+			geom1[i] = g1;
+			geom2[i] = g2;
+			sides[2 * i] = contact.side1;
+			sides[2 * i + 1] = contact.side2;
+			toLocal(b, contact.pos, contact.normal, tmpPos, tmpNormal);
+			int f = i * FRAME_STRIDE;
+			frames[f] = tmpPos.get0();
+			frames[f + 1] = tmpPos.get1();
+			frames[f + 2] = tmpPos.get2();
+			frames[f + 3] = tmpNormal.get0();
+			frames[f + 4] = tmpNormal.get1();
+			frames[f + 5] = tmpNormal.get2();
+			System.arraycopy(j.lambda, 0, lambdas, i * LAMBDA_STRIDE, LAMBDA_STRIDE);
+		}
+		if (heads.length < count * 2) {
+			heads = new int[Integer.highestOneBit(count * 2) * 2];
+			Arrays.fill(heads, -1);
+		}
+		for (int i = 0; i < count; i++) {
+			int s = slot(geom1[i], geom2[i]);
+			next[i] = heads[s];
+			heads[s] = i;
+		}
+	}
+
+	void clear() {
+		for (int i = 0; i < count; i++) {
+			heads[slot(geom1[i], geom2[i])] = -1;
+			geom1[i] = null;
+			geom2[i] = null;
+			used[i] = false;
+		}
+		count = 0;
+	}
+
+	/**
+	 * @return number of contacts recorded by the last step
+	 */
+	int size() {
+		return count;
+	}
+
+	private void grow() {
+		int cap = used.length * 2;
+		geom1 = Arrays.copyOf(geom1, cap);
+		geom2 = Arrays.copyOf(geom2, cap);
+		sides = Arrays.copyOf(sides, cap * 2);
+		frames = Arrays.copyOf(frames, cap * FRAME_STRIDE);
+		lambdas = Arrays.copyOf(lambdas, cap * LAMBDA_STRIDE);
+		used = Arrays.copyOf(used, cap);
+		next = Arrays.copyOf(next, cap);
+	}
+
+	private int slot(DxGeom g1, DxGeom g2) {
+		int h = System.identityHashCode(g1) * 31 + System.identityHashCode(g2);
+		h ^= h >>> 16;
+		return h & (heads.length - 1);
+	}
+
+	private static DxBody frameBody(DxGeom g1, DxGeom g2) {
+		if (g1 != null && g1.body != null) {
+			return g1.body;
+		}
+		return g2 != null ? g2.body : null;
+	}
+
+	private static void toLocal(DxBody b, DVector3C pos, DVector3C normal, DVector3 localPos, DVector3 localNormal) {
+		DMatrix3C R = b._posr.R();
+		DVector3C p = b._posr.pos();
+		double dx = pos.get0() - p.get0();
+		double dy = pos.get1() - p.get1();
+		double dz = pos.get2() - p.get2();
+		localPos.set(
+				R.get00() * dx + R.get10() * dy + R.get20() * dz,
+				R.get01() * dx + R.get11() * dy + R.get21() * dz,
+				R.get02() * dx + R.get12() * dy + R.get22() * dz);
+		localNormal.set(
+				R.get00() * normal.get0() + R.get10() * normal.get1() + R.get20() * normal.get2(),
+				R.get01() * normal.get0() + R.get11() * normal.get1() + R.get21() * normal.get2(),
+				R.get02() * normal.get0() + R.get12() * normal.get1() + R.get22() * normal.get2());
+	}
+}
@@ -25,6 +25,7 @@
 package com.kAIS.ode4j.ode.internal;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import com.kAIS.ode4j.ode.DAABB;
 import com.kAIS.ode4j.ode.DHashSpace;
@@ -139,6 +140,41 @@ public class DxHashSpace extends DxSpace implements DHashSpace {
 	//	};
 
 
+	// persistent mode (see DHashSpace.setPersistent()). Cell occupancy is kept
+	// across collide() calls in pooled primitive arrays:
+	// - one 'slot' per geom (geom._hashIdxEx), holding level and discrete bounds
+	// - one 'node' per occupied cell, chained per hash bucket and per slot
+	private static final int LEVEL_NONE = Integer.MIN_VALUE;	// not inserted yet
+	private static final int LEVEL_BIG = MAXINT;			// too big for the table
+
+	private boolean persistent = false;
+	private boolean persistentValid = false;
+
+	private DxGeom[] slotGeom = new DxGeom[0];
+	private int[] slotLevel = new int[0];
+	private int[] slotBounds = new int[0];		// 6 per slot
+	private int[] slotFirstNode = new int[0];
+	private int[] slotNextFree = new int[0];
+	private boolean[] slotPending = new boolean[0];
+	private int slotHigh = 0;
+	private int slotFree = -1;
+	private int slotLive = 0;
+
+	private int[] pending = new int[0];
+	private int pendingCount = 0;
+
+	private int[] nodeX = new int[0], nodeY = new int[0], nodeZ = new int[0];
+	private int[] nodeSlot = new int[0];
+	private int[] nodeNext = new int[0];		// bucket chain (or free list)
+	private int[] nodeSlotNext = new int[0];	// next node of the same slot
+	private int nodeHigh = 0;
+	private int nodeFree = -1;
+
+	private int[] buckets = new int[0];
+	private int[] bigSlots = new int[0];
+	private final int[] cellScratch = new int[6];
+	private final int[] queryBounds = new int[6];
+
 	DxHashSpace (DxSpace _space)// : dxSpace (_space)
 	{
 		super(_space);
@@ -154,6 +190,29 @@ public class DxHashSpace extends DxSpace implements DHashSpace {
 		dAASSERT (minlevel <= maxlevel);
 		global_minlevel = minlevel;
 		global_maxlevel = maxlevel;
+		persistentValid = false;
+	}
+
+	@Override
+	public void setPersistent (boolean persistent)
+	{
+		CHECK_NOT_LOCKED ();
+		if (this.persistent == persistent) return;
+		this.persistent = persistent;
+		clearPersistent ();
+	}
+
+	@Override
+	public boolean isPersistent ()
+	{
+		return persistent;
+	}
+
+	@Override
+	public void resetPersistent ()
+	{
+		CHECK_NOT_LOCKED ();
+		if (persistent) clearPersistent ();
 	}
 
 
@@ -187,10 +246,33 @@ public class DxHashSpace extends DxSpace implements DHashSpace {
 			// g->gflags &= ~GEOM_DIRTY;
 			dIASSERT(!g.hasFlagAabbBad());
 			g.unsetFlagDirty();
+			if (persistentValid && g._hashIdxEx >= 0) {
+				markPending (g._hashIdxEx);
+			}
 		}
 		lock_count--;
 	}
 
+	@Override
+	void add (DxGeom geom)
+	{
+		super.add (geom);
+		// geoms may arrive clean (e.g. moved from another space), so they are
+		// queued explicitly instead of relying on the dirty flag
+		if (persistentValid) {
+			allocSlot (geom);
+		}
+	}
+
+	@Override
+	void remove (DxGeom geom)
+	{
+		super.remove (geom);
+		if (persistentValid && geom._hashIdxEx >= 0) {
+			releaseSlot (geom._hashIdxEx);
+		}
+	}
+
 	@Override
 	public void collide (Object data, DNearCallback callback)
 	{
@@ -201,6 +283,11 @@ public class DxHashSpace extends DxSpace implements DHashSpace {
 		// 0 or 1 geoms can't collide with anything
 		if (getNumGeoms() < 2) return;
 
+		if (persistent) {
+			collidePersistent (data, callback);
+			return;
+		}
+
 		lock_count++;
 		cleanGeoms();
 
@@ -387,6 +474,310 @@ public class DxHashSpace extends DxSpace implements DHashSpace {
 		lock_count--;
 	}
 
+	//****************************************************************************
+	// persistent mode
+
+	private void collidePersistent (Object data, DNearCallback callback)
+	{
+		lock_count++;
+		if (!persistentValid) {
+			rebuildPersistent ();
+		}
+		cleanGeoms();
+
+		ensureBuckets ();
+		for (int p = 0; p < pendingCount; p++) {
+			int s = pending[p];
+			if (slotPending[s]) {
+				slotPending[s] = false;
+				placeSlot (s);
+			}
+		}
+		pendingCount = 0;
+
+		// find the levels in use and collect the big boxes
+		int maxlevel = global_minlevel - 1;
+		int bigCount = 0;
+		for (int s = 0; s < slotHigh; s++) {
+			DxGeom g = slotGeom[s];
+			if (g == null || !GEOM_ENABLED(g)) continue;
+			int level = slotLevel[s];
+			if (level == LEVEL_BIG) {
+				if (bigCount == bigSlots.length) {
+					bigSlots = Arrays.copyOf (bigSlots, Math.max (8, bigCount * 2));
+				}
+				bigSlots[bigCount++] = s;
+			}
+			else if (level > maxlevel) {
+				maxlevel = level;
+			}
+		}
+
+		final int sz = buckets.length;
+		final int[] db = queryBounds;
+		for (int s = 0; s < slotHigh; s++) {
+			DxGeom g = slotGeom[s];
+			if (g == null || !GEOM_ENABLED(g)) continue;
+			final int ownLevel = slotLevel[s];
+			if (ownLevel == LEVEL_BIG) continue;
+
+			System.arraycopy (slotBounds, s * 6, db, 0, 6);
+			for (int level = ownLevel; ; ) {
+				final int xend = db[1];
+				for (int xi = db[0]; xi <= xend; xi++) {
+					final int yend = db[3];
+					for (int yi = db[2]; yi <= yend; yi++) {
+						int zbegin = db[4];
+						int hi = (int)Math.floorMod((getVirtualAddressBase(level, xi, yi) + zbegin), (long)sz);
+						final int zend = db[5];
+						for (int zi = zbegin; zi <= zend; hi = hi + 1 != sz ? hi + 1 : 0, zi++) {
+							for (int n = buckets[hi]; n >= 0; n = nodeNext[n]) {
+								int t = nodeSlot[n];
+								if (t == s || slotLevel[t] != level) continue;
+								if (nodeX[n] != xi || nodeY[n] != yi || nodeZ[n] != zi) continue;
+								// same level pairs are seen from both sides
+								if (level == ownLevel && t < s) continue;
+								// report only in the first cell both boxes share
+								int tb = t * 6;
+								if (xi != Math.max (db[0], slotBounds[tb]) ||
+										yi != Math.max (db[2], slotBounds[tb + 2]) ||
+										zi != Math.max (db[4], slotBounds[tb + 4])) continue;
+								DxGeom g2 = slotGeom[t];
+								if (GEOM_ENABLED(g2)) {
+									collideAABBs (g, g2, data, callback);
+								}
+							}
+						}
+					}
+				}
+
+				if (level >= maxlevel) {
+					break;
+				}
+				++level;
+				for (int i = 0; i < 6; i++) 
+					db[i] >>= 1;
+			}
+
+			for (int b = 0; b < bigCount; b++) {
+				collideAABBs (g, slotGeom[bigSlots[b]], data, callback);
+			}
+		}
+
+		for (int b = 0; b < bigCount; b++) {
+			for (int b2 = b + 1; b2 < bigCount; b2++) {
+				collideAABBs (slotGeom[bigSlots[b]], slotGeom[bigSlots[b2]], data, callback);
+			}
+		}
+
+		lock_count--;
+	}
+
+	private void clearPersistent ()
+	{
+		for (int s = 0; s < slotHigh; s++) {
+			if (slotGeom[s] != null) {
+				slotGeom[s]._hashIdxEx = -1;
+				slotGeom[s] = null;
+			}
+			slotPending[s] = false;
+		}
+		slotHigh = 0;
+		slotFree = -1;
+		slotLive = 0;
+		pendingCount = 0;
+		nodeHigh = 0;
+		nodeFree = -1;
+		Arrays.fill (buckets, -1);
+		persistentValid = false;
+	}
+
+	private void rebuildPersistent ()
+	{
+		clearPersistent ();
+		persistentValid = true;
+		for (DxGeom g : getGeomsDx()) {
+			allocSlot (g);
+		}
+	}
+
+	private void allocSlot (DxGeom g)
+	{
+		int s;
+		if (slotFree >= 0) {
+			s = slotFree;
+			slotFree = slotNextFree[s];
+		}
+		else {
+			if (slotHigh == slotGeom.length) {
+				int cap = Math.max (16, slotHigh * 2);
+				slotGeom = Arrays.copyOf (slotGeom, cap);
+				slotLevel = Arrays.copyOf (slotLevel, cap);
+				slotBounds = Arrays.copyOf (slotBounds, cap * 6);
+				slotFirstNode = Arrays.copyOf (slotFirstNode, cap);
+				slotNextFree = Arrays.copyOf (slotNextFree, cap);
+				slotPending = Arrays.copyOf (slotPending, cap);
+			}
+			s = slotHigh++;
+		}
+		slotGeom[s] = g;
+		slotLevel[s] = LEVEL_NONE;
+		slotFirstNode[s] = -1;
+		slotPending[s] = false;
+		g._hashIdxEx = s;
+		slotLive++;
+		markPending (s);
+	}
+
+	private void releaseSlot (int s)
+	{
+		unlinkNodes (s);
+		slotGeom[s]._hashIdxEx = -1;
+		slotGeom[s] = null;
+		slotPending[s] = false;
+		slotNextFree[s] = slotFree;
+		slotFree = s;
+		slotLive--;
+	}
+
+	private void markPending (int s)
+	{
+		if (slotPending[s]) return;
+		slotPending[s] = true;
+		if (pendingCount == pending.length) {
+			pending = Arrays.copyOf (pending, Math.max (16, pendingCount * 2));
+		}
+		pending[pendingCount++] = s;
+	}
+
+	// (re)insert a slot if its level or discrete bounds changed
+	private void placeSlot (int s)
+	{
+		DxGeom g = slotGeom[s];
+		int level = findLevel (g._aabb);
+		if (level < global_minlevel) level = global_minlevel;
+		if (level > global_maxlevel) {
+			if (slotLevel[s] != LEVEL_BIG) {
+				unlinkNodes (s);
+				slotLevel[s] = LEVEL_BIG;
+			}
+			return;
+		}
+
+		final int[] cb = cellScratch;
+		double cellSizeRecip = dRecip(ldexp(1.0, level));
+		for (int i=0; i < 3; i++) {
+			double aabbBoundMin = Math.floor (g._aabb.getMin(i) * cellSizeRecip);
+			double aabbBoundMax = Math.floor (g._aabb.getMax(i) * cellSizeRecip);
+			dICHECK(aabbBoundMin >= Integer.MIN_VALUE && aabbBoundMin < Integer.MAX_VALUE);
+			dICHECK(aabbBoundMax >= Integer.MIN_VALUE && aabbBoundMax < Integer.MAX_VALUE);
+			cb[2*i] = (int)aabbBoundMin;
+			cb[2*i+1] = (int)aabbBoundMax;
+		}
+
+		int b = s * 6;
+		if (slotLevel[s] == level &&
+				cb[0] == slotBounds[b] && cb[1] == slotBounds[b+1] &&
+				cb[2] == slotBounds[b+2] && cb[3] == slotBounds[b+3] &&
+				cb[4] == slotBounds[b+4] && cb[5] == slotBounds[b+5]) {
+			return;	// same cells, nothing to do
+		}
+
+		unlinkNodes (s);
+		slotLevel[s] = level;
+		System.arraycopy (cb, 0, slotBounds, b, 6);
+
+		final int sz = buckets.length;
+		for (int xi = cb[0]; xi <= cb[1]; xi++) {
+			for (int yi = cb[2]; yi <= cb[3]; yi++) {
+				int zbegin = cb[4];
+				int hi = (int) Math.floorMod((getVirtualAddressBase (level,xi,yi) + zbegin), (long) sz);
+				for (int zi = zbegin; zi <= cb[5]; hi = hi + 1 != sz ? hi + 1 : 0, zi++) {
+					int n = allocNode ();
+					nodeX[n] = xi;
+					nodeY[n] = yi;
+					nodeZ[n] = zi;
+					nodeSlot[n] = s;
+					nodeNext[n] = buckets[hi];
+					buckets[hi] = n;
+					nodeSlotNext[n] = slotFirstNode[s];
+					slotFirstNode[s] = n;
+				}
+			}
+		}
+	}
+
+	private int allocNode ()
+	{
+		if (nodeFree >= 0) {
+			int n = nodeFree;
+			nodeFree = nodeNext[n];
+			return n;
+		}
+		if (nodeHigh == nodeX.length) {
+			int cap = Math.max (64, nodeHigh * 2);
+			nodeX = Arrays.copyOf (nodeX, cap);
+			nodeY = Arrays.copyOf (nodeY, cap);
+			nodeZ = Arrays.copyOf (nodeZ, cap);
+			nodeSlot = Arrays.copyOf (nodeSlot, cap);
+			nodeNext = Arrays.copyOf (nodeNext, cap);
+			nodeSlotNext = Arrays.copyOf (nodeSlotNext, cap);
+		}
+		return nodeHigh++;
+	}
+
+	private int bucketOf (int level, int x, int y, int z)
+	{
+		return (int) Math.floorMod((getVirtualAddressBase (level,x,y) + z), (long) buckets.length);
+	}
+
+	private void unlinkNodes (int s)
+	{
+		int level = slotLevel[s];
+		for (int n = slotFirstNode[s]; n >= 0; ) {
+			int nextOfSlot = nodeSlotNext[n];
+			int hi = bucketOf (level, nodeX[n], nodeY[n], nodeZ[n]);
+			if (buckets[hi] == n) {
+				buckets[hi] = nodeNext[n];
+			}
+			else {
+				int prev = buckets[hi];
+				while (nodeNext[prev] != n) prev = nodeNext[prev];
+				nodeNext[prev] = nodeNext[n];
+			}
+			nodeNext[n] = nodeFree;
+			nodeFree = n;
+			n = nextOfSlot;
+		}
+		slotFirstNode[s] = -1;
+	}
+
+	// keep the table size a prime >= 8 * (number of geoms), rehash when growing
+	private void ensureBuckets ()
+	{
+		int need = 8 * Math.max (slotLive, 1);
+		if (buckets.length >= need) return;
+		int i;
+		for (i=0; i<NUM_PRIMES; i++) {
+			if (prime[i] >= need) break;
+		}
+		if (i >= NUM_PRIMES) 
+			i = NUM_PRIMES-1;
+		if (buckets.length == prime[i]) return;
+
+		buckets = new int[prime[i]];
+		Arrays.fill (buckets, -1);
+		for (int s = 0; s < slotHigh; s++) {
+			if (slotGeom[s] == null) continue;
+			int level = slotLevel[s];
+			for (int n = slotFirstNode[s]; n >= 0; n = nodeSlotNext[n]) {
+				int hi = bucketOf (level, nodeX[n], nodeY[n], nodeZ[n]);
+				nodeNext[n] = buckets[hi];
+				buckets[hi] = n;
+			}
+		}
+	}
+
 	@Override
 	void collide2 (Object data, DxGeom geom,
 			DNearCallback callback)
@@ -0,0 +1,512 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode.internal;
+
+import java.util.Arrays;
+
+import com.kAIS.ode4j.ode.DAABB;
+
+/**
+ * Incremental sweep and prune with temporal coherence, used by
+ * {@link DxSAPSpace} in incremental mode.
+ * <p>
+ * For each of the three axes the min/max endpoints of all proxies are kept
+ * sorted in primitive arrays. When a proxy moves, its endpoints are moved
+ * with insertion sort; since most geoms move little between steps this is
+ * close to O(n). Whenever a min and a max endpoint of two proxies swap, the
+ * overlap of that pair may have changed and the pair set is updated:
+ * <ul>
+ * <li>min moves in front of max: the boxes may now overlap, test all axes</li>
+ * <li>max moves in front of min: the boxes are separated on this axis</li>
+ * </ul>
+ * Endpoints with equal values are ordered min before max, so touching boxes
+ * overlap (same as the inclusive test of the non-incremental SAP).
+ * <p>
+ * The set of overlapping pairs is stored in a flat list plus an open
+ * addressing hash table on the packed proxy indices.
+ */
+final class DxIncrementalSAP {
+
+	private static final int NONE = -1;
+	private static final long EMPTY_KEY = -1L;
+	/** batches up to this size are always inserted one by one */
+	private static final int REBUILD_MIN = 32;
+
+	/** AABB axis for sort axis 0..2 */
+	private final int[] axis;
+
+	// proxies
+	private DxGeom[] proxyGeom = new DxGeom[0];
+	private double[] proxyBounds = new double[0];	// 6 per proxy: (min,max) per sort axis
+	private int[] proxyEp = new int[0];			// 6 per proxy: endpoint position (min,max) per sort axis
+	private int[] proxyNextFree = new int[0];
+	private int proxyHigh = 0;
+	private int proxyFree = NONE;
+
+	// endpoints, sorted per axis. ref = (proxy << 1) | (1 if max)
+	private final double[][] epVal = new double[3][0];
+	private final int[][] epRef = new int[3][0];
+	private int epCount = 0;
+
+	// overlapping pairs
+	private int[] pairA = new int[0];
+	private int[] pairB = new int[0];
+	private int pairCount = 0;
+	private long[] hashKey = new long[0];
+	private int[] hashPair = new int[0];
+	private int hashMask = -1;
+
+	DxIncrementalSAP(int ax0, int ax1, int ax2) {
+		axis = new int[] {ax0, ax1, ax2};
+		resizeHash(64);
+	}
+
+	int getPairCount() {
+		return pairCount;
+	}
+
+	DxGeom getPairGeom0(int i) {
+		return proxyGeom[pairA[i]];
+	}
+
+	DxGeom getPairGeom1(int i) {
+		return proxyGeom[pairB[i]];
+	}
+
+	//==============================================================================
+	// proxies
+
+	/**
+	 * Add geoms with valid, finite AABBs. Small batches are inserted one by
+	 * one, large batches (e.g. the first collide() call) are appended and the
+	 * sorted axes and pair set are rebuilt from scratch, since sifting many
+	 * unsorted endpoints in is O(n*n).
+	 */
+	void insert(DxGeom[] geoms, int count) {
+		if (count <= REBUILD_MIN || count * 4 <= epCount / 2) {
+			for (int i = 0; i < count; i++) {
+				insert(geoms[i]);
+			}
+			return;
+		}
+		ensureEndpoints(epCount + 2 * count);
+		for (int i = 0; i < count; i++) {
+			int p = newProxy(geoms[i]);
+			int b = p * 6;
+			for (int k = 0; k < 3; k++) {
+				epVal[k][epCount] = proxyBounds[b + 2*k];
+				epRef[k][epCount] = p << 1;
+				epVal[k][epCount + 1] = proxyBounds[b + 2*k + 1];
+				epRef[k][epCount + 1] = (p << 1) | 1;
+			}
+			epCount += 2;
+		}
+		rebuild();
+	}
+
+	/** Add a geom with a valid, finite AABB. */
+	void insert(DxGeom g) {
+		int p = newProxy(g);
+
+		ensureEndpoints(epCount + 2);
+		int b = p * 6;
+		for (int k = 0; k < 3; k++) {
+			// max first: while it sinks no min of this proxy is in the array yet,
+			// so the only events are (harmless) separations. The min then
+			// discovers every overlap on this axis.
+			int e = epCount;
+			epVal[k][e] = proxyBounds[b + 2*k + 1];
+			epRef[k][e] = (p << 1) | 1;
+			proxyEp[b + 2*k + 1] = e;
+			epVal[k][e + 1] = proxyBounds[b + 2*k];
+			epRef[k][e + 1] = p << 1;
+			proxyEp[b + 2*k] = e + 1;
+		}
+		epCount += 2;
+		for (int k = 0; k < 3; k++) {
+			siftDown(k, proxyEp[b + 2*k + 1]);
+			siftDown(k, proxyEp[b + 2*k]);
+		}
+	}
+
+	/** Update a proxy after the AABB of its geom changed. */
+	void update(DxGeom g) {
+		int p = g._sapProxyEx;
+		readBounds(g._aabb, p);
+		int b = p * 6;
+		for (int k = 0; k < 3; k++) {
+			int emin = proxyEp[b + 2*k];
+			int emax = proxyEp[b + 2*k + 1];
+			double newMin = proxyBounds[b + 2*k];
+			double newMax = proxyBounds[b + 2*k + 1];
+			boolean minDown = newMin < epVal[k][emin];
+			boolean maxUp = newMax > epVal[k][emax];
+			epVal[k][emin] = newMin;
+			epVal[k][emax] = newMax;
+			// growing first, then shrinking
+			if (minDown) siftDown(k, emin);
+			if (maxUp) siftUp(k, emax);
+			if (!minDown) siftUp(k, proxyEp[b + 2*k]);
+			if (!maxUp) siftDown(k, proxyEp[b + 2*k + 1]);
+		}
+	}
+
+	/** Remove a geom and all its pairs. */
+	void remove(DxGeom g) {
+		int p = g._sapProxyEx;
+		for (int i = pairCount - 1; i >= 0; i--) {
+			if (pairA[i] == p || pairB[i] == p) {
+				removePairAt(i);
+			}
+		}
+		int b = p * 6;
+		for (int k = 0; k < 3; k++) {
+			int e0 = Math.min(proxyEp[b + 2*k], proxyEp[b + 2*k + 1]);
+			int e1 = Math.max(proxyEp[b + 2*k], proxyEp[b + 2*k + 1]);
+			double[] val = epVal[k];
+			int[] ref = epRef[k];
+			System.arraycopy(val, e0 + 1, val, e0, e1 - e0 - 1);
+			System.arraycopy(ref, e0 + 1, ref, e0, e1 - e0 - 1);
+			System.arraycopy(val, e1 + 1, val, e1 - 1, epCount - e1 - 1);
+			System.arraycopy(ref, e1 + 1, ref, e1 - 1, epCount - e1 - 1);
+			for (int e = e0; e < epCount - 2; e++) {
+				int r = ref[e];
+				proxyEp[(r >> 1) * 6 + 2*k + (r & 1)] = e;
+			}
+		}
+		epCount -= 2;
+
+		proxyGeom[p] = null;
+		proxyNextFree[p] = proxyFree;
+		proxyFree = p;
+		g._sapProxyEx = NONE;
+	}
+
+	/** Remove all proxies and pairs. */
+	void clear() {
+		for (int p = 0; p < proxyHigh; p++) {
+			if (proxyGeom[p] != null) {
+				proxyGeom[p]._sapProxyEx = NONE;
+				proxyGeom[p] = null;
+			}
+		}
+		proxyHigh = 0;
+		proxyFree = NONE;
+		epCount = 0;
+		pairCount = 0;
+		Arrays.fill(hashKey, EMPTY_KEY);
+	}
+
+	private int newProxy(DxGeom g) {
+		int p = allocProxy();
+		proxyGeom[p] = g;
+		g._sapProxyEx = p;
+		readBounds(g._aabb, p);
+		return p;
+	}
+
+	private int allocProxy() {
+		if (proxyFree != NONE) {
+			int p = proxyFree;
+			proxyFree = proxyNextFree[p];
+			return p;
+		}
+		if (proxyHigh == proxyGeom.length) {
+			int cap = Math.max(16, proxyHigh * 2);
+			proxyGeom = Arrays.copyOf(proxyGeom, cap);
+			proxyBounds = Arrays.copyOf(proxyBounds, cap * 6);
+			proxyEp = Arrays.copyOf(proxyEp, cap * 6);
+			proxyNextFree = Arrays.copyOf(proxyNextFree, cap);
+		}
+		return proxyHigh++;
+	}
+
+	private void readBounds(DAABB aabb, int p) {
+		int b = p * 6;
+		for (int k = 0; k < 3; k++) {
+			proxyBounds[b + 2*k] = aabb.getMin(axis[k]);
+			proxyBounds[b + 2*k + 1] = aabb.getMax(axis[k]);
+		}
+	}
+
+	private void ensureEndpoints(int n) {
+		if (n <= epVal[0].length) return;
+		int cap = Math.max(32, Math.max(n, epVal[0].length * 2));
+		for (int k = 0; k < 3; k++) {
+			epVal[k] = Arrays.copyOf(epVal[k], cap);
+			epRef[k] = Arrays.copyOf(epRef[k], cap);
+		}
+	}
+
+	//==============================================================================
+	// full rebuild
+
+	/**
+	 * Sort all axes and recompute the pair set with a single sweep on the
+	 * first axis.
+	 */
+	private void rebuild() {
+		int[] tmpRef = new int[epCount];
+		double[] tmpVal = new double[epCount];
+		for (int k = 0; k < 3; k++) {
+			mergeSort(epVal[k], epRef[k], tmpVal, tmpRef, 0, epCount);
+			for (int e = 0; e < epCount; e++) {
+				int r = epRef[k][e];
+				proxyEp[(r >> 1) * 6 + 2*k + (r & 1)] = e;
+			}
+		}
+
+		pairCount = 0;
+		Arrays.fill(hashKey, EMPTY_KEY);
+		// proxies whose interval on axis 0 is open, and their position in 'active'
+		int[] active = new int[epCount / 2];
+		int[] activePos = new int[proxyHigh];
+		int activeCount = 0;
+		for (int e = 0; e < epCount; e++) {
+			int r = epRef[0][e];
+			int p = r >> 1;
+			if ((r & 1) == 0) {
+				for (int i = 0; i < activeCount; i++) {
+					if (overlaps(p, active[i])) {
+						addPair(active[i], p);
+					}
+				}
+				activePos[p] = activeCount;
+				active[activeCount++] = p;
+			}
+			else {
+				int i = activePos[p];
+				int last = active[--activeCount];
+				active[i] = last;
+				activePos[last] = i;
+			}
+		}
+	}
+
+	private static void mergeSort(double[] val, int[] ref, double[] tmpVal, int[] tmpRef,
+			int from, int to) {
+		if (to - from < 16) {
+			for (int i = from + 1; i < to; i++) {
+				double v = val[i];
+				int r = ref[i];
+				int j = i;
+				while (j > from && before(v, r, val[j - 1], ref[j - 1])) {
+					val[j] = val[j - 1];
+					ref[j] = ref[j - 1];
+					j--;
+				}
+				val[j] = v;
+				ref[j] = r;
+			}
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		mergeSort(val, ref, tmpVal, tmpRef, from, mid);
+		mergeSort(val, ref, tmpVal, tmpRef, mid, to);
+		if (!before(val[mid], ref[mid], val[mid - 1], ref[mid - 1])) {
+			return;
+		}
+		System.arraycopy(val, from, tmpVal, from, to - from);
+		System.arraycopy(ref, from, tmpRef, from, to - from);
+		int i = from, j = mid;
+		for (int o = from; o < to; o++) {
+			if (j >= to || (i < mid && !before(tmpVal[j], tmpRef[j], tmpVal[i], tmpRef[i]))) {
+				val[o] = tmpVal[i];
+				ref[o] = tmpRef[i++];
+			}
+			else {
+				val[o] = tmpVal[j];
+				ref[o] = tmpRef[j++];
+			}
+		}
+	}
+
+	//==============================================================================
+	// insertion sort with overlap events
+
+	/** true if endpoint (v0,r0) belongs before (v1,r1) */
+	private static boolean before(double v0, int r0, double v1, int r1) {
+		return v0 < v1 || (v0 == v1 && (r0 & 1) == 0 && (r1 & 1) != 0);
+	}
+
+	private void siftDown(int k, int e) {
+		final double[] val = epVal[k];
+		final int[] ref = epRef[k];
+		final double v = val[e];
+		final int r = ref[e];
+		while (e > 0 && before(v, r, val[e - 1], ref[e - 1])) {
+			int other = ref[e - 1];
+			swapEvent(r, other);
+			val[e] = val[e - 1];
+			ref[e] = other;
+			proxyEp[(other >> 1) * 6 + 2*k + (other & 1)] = e;
+			e--;
+		}
+		val[e] = v;
+		ref[e] = r;
+		proxyEp[(r >> 1) * 6 + 2*k + (r & 1)] = e;
+	}
+
+	private void siftUp(int k, int e) {
+		final double[] val = epVal[k];
+		final int[] ref = epRef[k];
+		final double v = val[e];
+		final int r = ref[e];
+		final int last = epCount - 1;
+		while (e < last && before(val[e + 1], ref[e + 1], v, r)) {
+			int other = ref[e + 1];
+			// 'other' moves in front of 'r'
+			swapEvent(other, r);
+			val[e] = val[e + 1];
+			ref[e] = other;
+			proxyEp[(other >> 1) * 6 + 2*k + (other & 1)] = e;
+			e++;
+		}
+		val[e] = v;
+		ref[e] = r;
+		proxyEp[(r >> 1) * 6 + 2*k + (r & 1)] = e;
+	}
+
+	/** endpoint 'front' has just moved in front of endpoint 'back' */
+	private void swapEvent(int front, int back) {
+		int p0 = front >> 1;
+		int p1 = back >> 1;
+		if (p0 == p1) return;
+		boolean frontIsMax = (front & 1) != 0;
+		boolean backIsMax = (back & 1) != 0;
+		if (frontIsMax == backIsMax) return;
+		if (frontIsMax) {
+			// max in front of min: separated on this axis
+			removePair(p0, p1);
+		}
+		else if (overlaps(p0, p1)) {
+			addPair(p0, p1);
+		}
+	}
+
+	private boolean overlaps(int p0, int p1) {
+		final double[] bb = proxyBounds;
+		int b0 = p0 * 6;
+		int b1 = p1 * 6;
+		for (int k = 0; k < 6; k += 2) {
+			if (bb[b0 + k] > bb[b1 + k + 1] || bb[b1 + k] > bb[b0 + k + 1]) return false;
+		}
+		return true;
+	}
+
+	//==============================================================================
+	// pair set
+
+	private static long key(int p0, int p1) {
+		return (p0 < p1) ? ((long) p0 << 32) | p1 : ((long) p1 << 32) | p0;
+	}
+
+	private int slotOf(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & hashMask;
+	}
+
+	private int findSlot(long key) {
+		int i = slotOf(key);
+		while (hashKey[i] != EMPTY_KEY) {
+			if (hashKey[i] == key) return i;
+			i = (i + 1) & hashMask;
+		}
+		return ~i;
+	}
+
+	private void addPair(int p0, int p1) {
+		long key = key(p0, p1);
+		int slot = findSlot(key);
+		if (slot >= 0) return;
+		if ((pairCount + 1) * 2 > hashKey.length) {
+			resizeHash(hashKey.length * 2);
+			slot = findSlot(key);
+		}
+		if (pairCount == pairA.length) {
+			int cap = Math.max(64, pairCount * 2);
+			pairA = Arrays.copyOf(pairA, cap);
+			pairB = Arrays.copyOf(pairB, cap);
+		}
+		pairA[pairCount] = p0;
+		pairB[pairCount] = p1;
+		hashKey[~slot] = key;
+		hashPair[~slot] = pairCount;
+		pairCount++;
+	}
+
+	private void removePair(int p0, int p1) {
+		int slot = findSlot(key(p0, p1));
+		if (slot >= 0) {
+			removePairAt(hashPair[slot]);
+		}
+	}
+
+	private void removePairAt(int i) {
+		int slot = findSlot(key(pairA[i], pairB[i]));
+		deleteSlot(slot);
+		int last = pairCount - 1;
+		if (i != last) {
+			pairA[i] = pairA[last];
+			pairB[i] = pairB[last];
+			hashPair[findSlot(key(pairA[i], pairB[i]))] = i;
+		}
+		pairCount = last;
+	}
+
+	// linear probing deletion with backward shift (no tombstones)
+	private void deleteSlot(int i) {
+		int j = i;
+		while (true) {
+			j = (j + 1) & hashMask;
+			if (hashKey[j] == EMPTY_KEY) break;
+			int home = slotOf(hashKey[j]);
+			// move j back to i if its home is not in (i, j]
+			boolean between = (i <= j) ? (i < home && home <= j) : (i < home || home <= j);
+			if (!between) {
+				hashKey[i] = hashKey[j];
+				hashPair[i] = hashPair[j];
+				i = j;
+			}
+		}
+		hashKey[i] = EMPTY_KEY;
+	}
+
+	private void resizeHash(int capacity) {
+		long[] oldKey = hashKey;
+		int[] oldPair = hashPair;
+		hashKey = new long[capacity];
+		hashPair = new int[capacity];
+		hashMask = capacity - 1;
+		Arrays.fill(hashKey, EMPTY_KEY);
+		for (int i = 0; i < oldKey.length; i++) {
+			if (oldKey[i] != EMPTY_KEY) {
+				int slot = ~findSlot(oldKey[i]);
+				hashKey[slot] = oldKey[i];
+				hashPair[slot] = oldPair[i];
+			}
+		}
+	}
+}
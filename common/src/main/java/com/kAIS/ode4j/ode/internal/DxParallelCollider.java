@@ -0,0 +1,318 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kAIS.ode4j.ode.DContactBuffer;
+import com.kAIS.ode4j.ode.DContactGeomBuffer;
+import com.kAIS.ode4j.ode.DGeom;
+import com.kAIS.ode4j.ode.DGeom.DNearCallback;
+import com.kAIS.ode4j.ode.DParallelCollider;
+import com.kAIS.ode4j.ode.DSpace;
+import com.kAIS.ode4j.ode.internal.trimesh.DxTriMesh;
+import com.kAIS.ode4j.ode.threading.task.Task;
+import com.kAIS.ode4j.ode.threading.task.TaskExecutor;
+import com.kAIS.ode4j.ode.threading.task.TaskGroup;
+
+/**
+ * Implementation of {@link DParallelCollider}.
+ * <p>
+ * The pair list is stored in flat arrays. Each worker (slot 0 is the calling
+ * thread) owns a list of contact blocks; for every pair the worker records
+ * which slot/block/offset holds its contacts. Blocks are kept between calls.
+ */
+public class DxParallelCollider implements DParallelCollider {
+
+	private static final int MIN_BLOCK_SIZE = 256;
+
+	private TaskExecutor executor;
+	private int maxContacts = 32;
+	private int chunkSize = 16;
+
+	// pair list
+	private DxGeom[] pairG1 = new DxGeom[0];
+	private DxGeom[] pairG2 = new DxGeom[0];
+	private boolean[] pairSerial = new boolean[0];
+	private int pairCount = 0;
+	private int serialCount = 0;
+	private DPairFilter filter;
+
+	// narrowphase results per pair
+	private int[] pairSlot = new int[0];
+	private int[] pairBlock = new int[0];
+	private int[] pairOfs = new int[0];
+	private int[] pairNumC = new int[0];
+
+	private Worker[] workers = new Worker[0];
+	private final AtomicInteger nextChunk = new AtomicInteger();
+
+	private final DNearCallback pairCollector = new DNearCallback() {
+		@Override
+		public void call(Object data, DGeom o1, DGeom o2) {
+			if (o1.isSpace() || o2.isSpace()) {
+				DxSpace.dSpaceCollide2((DxGeom) o1, (DxGeom) o2, data, this);
+				return;
+			}
+			if (filter != null && !filter.accept(o1, o2)) {
+				return;
+			}
+			addPair((DxGeom) o1, (DxGeom) o2);
+		}
+	};
+
+	/** Contact blocks of one thread. */
+	private final class Worker {
+		final int slot;
+		final List<DContactBuffer> blocks = new ArrayList<DContactBuffer>();
+		final List<DContactGeomBuffer> geomBlocks = new ArrayList<DContactGeomBuffer>();
+		int blockSize;
+		int block;
+		int ofs;
+
+		Worker(int slot) {
+			this.slot = slot;
+		}
+
+		void reset() {
+			block = 0;
+			ofs = 0;
+			int size = Math.max(MIN_BLOCK_SIZE, maxContacts);
+			if (size != blockSize) {
+				blocks.clear();
+				geomBlocks.clear();
+				blockSize = size;
+			}
+		}
+
+		/** Collide chunks until the pair list is done. */
+		void run() {
+			final int chunks = (pairCount + chunkSize - 1) / chunkSize;
+			int c;
+			while ((c = nextChunk.getAndIncrement()) < chunks) {
+				int end = Math.min(pairCount, (c + 1) * chunkSize);
+				for (int i = c * chunkSize; i < end; i++) {
+					if (!pairSerial[i]) {
+						collidePair(i);
+					}
+				}
+			}
+		}
+
+		void collidePair(int i) {
+			if (ofs + maxContacts > blockSize) {
+				block++;
+				ofs = 0;
+			}
+			if (block == blocks.size()) {
+				DContactBuffer buf = new DContactBuffer(blockSize);
+				blocks.add(buf);
+				geomBlocks.add(buf.getGeomBuffer());
+			}
+			DContactGeomBuffer geoms = geomBlocks.get(block);
+			int numc = DxGeom.dCollide(pairG1[i], pairG2[i], maxContacts,
+					(ofs == 0) ? geoms : geoms.createView(ofs), 1);
+			pairSlot[i] = slot;
+			pairBlock[i] = block;
+			pairOfs[i] = ofs;
+			pairNumC[i] = numc;
+			ofs += numc;
+		}
+	}
+
+	public DxParallelCollider(TaskExecutor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public void setTaskExecutor(TaskExecutor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public void setMaxContacts(int maxContacts) {
+		if (maxContacts < 1) {
+			throw new IllegalArgumentException("maxContacts=" + maxContacts);
+		}
+		this.maxContacts = maxContacts;
+	}
+
+	@Override
+	public int getMaxContacts() {
+		return maxContacts;
+	}
+
+	@Override
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize=" + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	@Override
+	public int getPairCount() {
+		return pairCount;
+	}
+
+	@Override
+	public int collide(DSpace space, DPairFilter filter, DContactHandler handler) {
+		// 1) broadphase into the pair list
+		pairCount = 0;
+		serialCount = 0;
+		this.filter = filter;
+		try {
+			((DxSpace) space).collide(null, pairCollector);
+		} finally {
+			this.filter = null;
+		}
+		if (pairCount == 0) {
+			return 0;
+		}
+
+		// 2) narrowphase
+		int threads = (executor == null) ? 1 : Math.max(1, executor.getThreadCount());
+		int chunks = (pairCount + chunkSize - 1) / chunkSize;
+		int helpers = Math.min(threads, chunks) - 1;
+		if (serialCount == pairCount) {
+			helpers = 0;
+		}
+		ensureWorkers(helpers + 1);
+		for (int w = 0; w <= helpers; w++) {
+			workers[w].reset();
+		}
+		nextChunk.set(0);
+
+		final Worker caller = workers[0];
+		if (helpers > 0) {
+			TaskGroup group = executor.group("Narrowphase Group", new Runnable() {
+				@Override
+				public void run() {}
+			});
+			for (int w = 1; w <= helpers; w++) {
+				final Worker worker = workers[w];
+				Task task = group.subtask("Narrowphase Chunks", new Runnable() {
+					@Override
+					public void run() {
+						worker.run();
+					}
+				});
+				task.submit();
+			}
+			group.submit();
+			collideSerialPairs(caller);
+			caller.run();
+			group.awaitCompletion();
+		}
+		else {
+			collideSerialPairs(caller);
+			caller.run();
+		}
+
+		// 3) report in pair order
+		int total = 0;
+		for (int i = 0; i < pairCount; i++) {
+			int numc = pairNumC[i];
+			if (numc > 0) {
+				DContactBuffer buf = workers[pairSlot[i]].blocks.get(pairBlock[i]);
+				handler.contacts(pairG1[i], pairG2[i], buf, pairOfs[i], numc);
+				total += numc;
+			}
+		}
+		Arrays.fill(pairG1, 0, pairCount, null);
+		Arrays.fill(pairG2, 0, pairCount, null);
+		return total;
+	}
+
+	private void collideSerialPairs(Worker caller) {
+		if (serialCount == 0) {
+			return;
+		}
+		for (int i = 0; i < pairCount; i++) {
+			if (pairSerial[i]) {
+				caller.collidePair(i);
+			}
+		}
+	}
+
+	private void addPair(DxGeom g1, DxGeom g2) {
+		if (pairCount == pairG1.length) {
+			int cap = Math.max(64, pairCount * 2);
+			pairG1 = Arrays.copyOf(pairG1, cap);
+			pairG2 = Arrays.copyOf(pairG2, cap);
+			pairSerial = Arrays.copyOf(pairSerial, cap);
+			pairSlot = Arrays.copyOf(pairSlot, cap);
+			pairBlock = Arrays.copyOf(pairBlock, cap);
+			pairOfs = Arrays.copyOf(pairOfs, cap);
+			pairNumC = Arrays.copyOf(pairNumC, cap);
+		}
+		boolean serial = needsCallerThread(g1, g2);
+		pairG1[pairCount] = g1;
+		pairG2[pairCount] = g2;
+		pairSerial[pairCount] = serial;
+		pairNumC[pairCount] = 0;
+		pairCount++;
+		if (serial) {
+			serialCount++;
+		}
+	}
+
+	/**
+	 * Colliders of these geoms use scratch buffers stored in the geom. The
+	 * box-trimesh collider only reads the (already updated) trimesh and may
+	 * run on any thread.
+	 */
+	private static boolean needsCallerThread(DxGeom g1, DxGeom g2) {
+		if (g1 instanceof DxAbstractHeightfield || g2 instanceof DxAbstractHeightfield) {
+			return true;
+		}
+		if (g1 instanceof DxTriMesh) {
+			return !(g1 instanceof DxGimpact && g2 instanceof DxBox);
+		}
+		if (g2 instanceof DxTriMesh) {
+			return !(g2 instanceof DxGimpact && g1 instanceof DxBox);
+		}
+		return false;
+	}
+
+	private void ensureWorkers(int n) {
+		if (workers.length >= n) {
+			return;
+		}
+		int old = workers.length;
+		workers = Arrays.copyOf(workers, n);
+		for (int w = old; w < n; w++) {
+			workers[w] = new Worker(w);
+		}
+	}
+}
@@ -82,6 +82,15 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
      * as a simple loop rather than related tasks executed concurrently.
      */
     public static boolean ENABLE_LCP_ITERATIONS_MULTITHREADING = false;
+
+    /**
+     * If enabled, the single threaded SOR sweep works on a copy of the J and
+     * invM*J' rows laid out in solving order (see PSE__* in QuickStepEnums).
+     * The copy is refreshed whenever the constraints are reordered, so the
+     * sweep walks one array linearly instead of jumping through order[],
+     * J and iMJ for every row. Results are identical to the unpacked sweep.
+     */
+    public static boolean ENABLE_PACKED_SOR_ROWS = true;
     
     public static int RANDOM_CONSTRAINTS_REORDERING_FREQUENCY = 8;
     public static int RRS_REORDERING = 0;
@@ -125,11 +134,11 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 	// configuration
 
 	// for the SOR and CG methods:
-	// uncomment the following line to use warm starting. this definitely
-	// help for motor-driven joints. unfortunately it appears to hurt
-	// with high-friction contacts using the SOR method. use with care
-
-	private static final boolean WARM_STARTING = false; // This is disabled in ODE
+	// warm starting definitely helps for motor-driven joints. unfortunately
+	// it appears to hurt with high-friction contacts using the SOR method.
+	// In ODE this is the compile time WARM_STARTING switch (disabled), here
+	// it is enabled per world with DWorld.setQuickStepWarmStarting(); contact
+	// lambdas are carried over by the world's DxContactCache.
 
 	private enum ReorderingMethod {
 		REORDERING_METHOD__DONT_REORDER,
@@ -183,9 +192,6 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 	private static final int dxQUICKSTEPISLAND_STAGE2C_STEP = Math.max((PER_THREAD_PROCESSING_BLOCK_SIZE / (JME__MAX * sizeofdReal)), 32);
 
 	//		#ifdef WARM_STARTING
-	static {
-		if (WARM_STARTING) throw new UnsupportedOperationException();
-	}
 	// #define dxQUICKSTEPISLAND_STAGE4A_STEP  dMAX((PER_THREAD_PROCESSING_BLOCK_SIZE / (1 * sizeof(dReal))), 256U)
 	//		#else
 	private static final int dxQUICKSTEPISLAND_STAGE4A_STEP = Math.max((PER_THREAD_PROCESSING_BLOCK_SIZE / (1 * sizeofdReal)), 512);
@@ -195,9 +201,6 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 	private static final int dxQUICKSTEPISLAND_STAGE4LCP_AD_STEP = Math.max((PER_THREAD_PROCESSING_BLOCK_SIZE / (JME__MAX * sizeofdReal)), 8);
 
 	//	#ifdef WARM_STARTING
-	static {
-		if (WARM_STARTING) throw new UnsupportedOperationException();
-	}
 	// #define dxQUICKSTEPISLAND_STAGE4LCP_FC_STEP  dMAX((PER_THREAD_PROCESSING_BLOCK_SIZE / 4), 128U)
 	//		#define dxQUICKSTEPISLAND_STAGE4LCP_FC_COMPLETE_TO_PREPARE_COMPLEXITY_DIVISOR  4
 	//		#define dxQUICKSTEPISLAND_STAGE4LCP_FC_STEP_PREPARE  (dxQUICKSTEPISLAND_STAGE4LCP_FC_STEP * dxQUICKSTEPISLAND_STAGE4LCP_FC_COMPLETE_TO_PREPARE_COMPLEXITY_DIVISOR)
@@ -473,12 +476,27 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 			m_bi_forceMaxAdj.set(0);
 			m_bi_fc.set(0);
             m_mi_Ad.set(0);
+            m_packedRows = null;
+            m_packedRowsSingle = null;
+            m_packedRowInfos = null;
             m_LCP_iteration = 0;
 			m_LCP_extra_num_iterations = 0;
+			m_LCP_prematureExit = false;
+			m_LCP_lastMaxAdjustment = 0.0;
             m_cf_4b.set(0);
             m_ji_4b.set(0);
         }
 
+        void AssignPackedRows(double[] packedRows, int[] packedRowInfos) {
+            m_packedRows = packedRows;
+            m_packedRowInfos = packedRowInfos;
+        }
+
+        void AssignPackedRows(float[] packedRowsSingle, int[] packedRowInfos) {
+            m_packedRowsSingle = packedRowsSingle;
+            m_packedRowInfos = packedRowInfos;
+        }
+
         void AssignLCP_IterationData(TaskGroup releaseeInstance, int iterationAllowedThreads) {
             m_LCP_IterationSyncReleasee = releaseeInstance;
             m_LCP_IterationAllowedThreads = iterationAllowedThreads;
@@ -523,6 +541,9 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
         double[] m_last_lambda;
         AtomicInteger[] m_bi_links_or_mi_levels;
         AtomicInteger[] m_mi_links;
+        double[] m_packedRows;
+        float[] m_packedRowsSingle;
+        int[] m_packedRowInfos;
 		double m_LCP_iteration_premature_exit_delta;
         TaskGroup m_LCP_IterationSyncReleasee;
         int m_LCP_IterationAllowedThreads;
@@ -536,6 +557,8 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
         final AtomicInteger m_mi_Ad = new AtomicInteger();
         int m_LCP_iteration;
 		int m_LCP_extra_num_iterations;
+		boolean m_LCP_prematureExit;
+		double m_LCP_lastMaxAdjustment;
         int m_LCP_iterationThreadsTotal;
         final AtomicInteger m_LCP_iterationThreadsRemaining = new AtomicInteger();
         TaskGroup m_LCP_iterationNextReleasee;
@@ -838,6 +861,8 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
         final int step_size = dxQUICKSTEPISLAND_STAGE0_BODIES_STEP;
 		int nb_steps = (nb + (step_size - 1)) / step_size;
 
+		// temporaries come from the pool of the thread running this stage
+		final ScratchPool pool = ScratchPool.get();
 		int bi_step;
         while ((bi_step = Atomics.ThrsafeIncrementIntUpToLimit(callContext.m_inertiaBodyIndex, nb_steps)) != nb_steps) {
 			int bi = bi_step * step_size;
@@ -847,7 +872,8 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 			for (int invIrowP = bi * IIE__MAX; ; invIrowP += IIE__MAX) {
 				DxBody b = bodyA[bi + bodyOfs];
 
-	            DMatrix3 tmp = new DMatrix3();
+				pool.push();
+	            DMatrix3 tmp = pool.matrix();
 				// compute inverse inertia tensor in global frame
 				dMultiply2_333 (tmp,b.invI,b.posr().R());
 				dMultiply0_333(invIA, invIrowP + IIE__MATRIX_MIN, b.posr().R(), tmp);
@@ -855,7 +881,7 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 				// Don't apply gyroscopic torques to bodies
 				// if not flagged or the body is kinematic
 				if (b.isFlagsGyroscopic() && (b.invMass>0)) {
-					DMatrix3 I = new DMatrix3();
+					DMatrix3 I = pool.matrix();
 					// compute inertia tensor in global frame
 					dMultiply2_333(tmp, b.mass._I, b.posr().R());
 					dMultiply0_333(I, b.posr().R(), tmp);
@@ -871,7 +897,7 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 					//"Stabilizing Gyroscopic Forces in Rigid Multibody Simulations"
 					// (LacoursiÃ¨re 2006)
 					double h = callContext.m_stepperCallContext.m_stepSize(); // Step size
-					DVector3 L = new DVector3(); // Compute angular momentum
+					DVector3 L = pool.vector(); // Compute angular momentum
 					dMultiply0_331(L, I, b.avel);
 
 					// Compute a new effective 'inertia tensor'
@@ -881,7 +907,7 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 					// Itild may not be symmetric pos-definite,
 					// but we can still use it to compute implicit
 					// gyroscopic torques.
-					DMatrix3 Itild = new DMatrix3();//{0};
+					DMatrix3 Itild = pool.matrix();//{0};
 					dSetCrossMatrixMinus(Itild, L);//,4);
 					//	                    for (int ii=0;ii<12;++ii) {
 					//	                      Itild[ii]=Itild[ii]*h+I[ii];
@@ -893,7 +919,7 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 					// a sort of "torque"
 					L.scale(dRecip(h));//dScaleVector3(L,dRecip(h));
 					// Invert the pseudo-tensor
-					DMatrix3 itInv = new DMatrix3();
+					DMatrix3 itInv = pool.matrix();
 					// This is a closed-form inversion.
 					// It's probably not numerically stable
 					// when dealing with small masses with
@@ -915,7 +941,7 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 						// to the old inertia matrix as explicit
 						// torques with a semi-implicit update
 						// step.
-						DVector3 tau0 = new DVector3();
+						DVector3 tau0 = pool.vector();
 						dMultiply0_331(tau0, Itild, L);
 
 						// Add the gyro torques to the torque
@@ -927,6 +953,7 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 					}
 					//	#endif
 				}
+				pool.pop();
 				if (++bi == biend) {
 					break;
 				}
@@ -1045,8 +1072,7 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 			// force mixing vector `cfm', and LCP low and high bound vectors, and an
 			// 'findex' vector.
 			//dReal *rhs_tmp = memarena.AllocateArray<dReal>((size_t)nb*6);
-			memarena.dummy();
-			double[] rhs_tmp = new double[nb * RHS__MAX];
+			double[] rhs_tmp = memarena.AllocateArrayDReal(nb * RHS__MAX);
 
 			memarena.dummy();
 			final dxQuickStepperStage2CallContext stage2CallContext = new dxQuickStepperStage2CallContext(); 
@@ -1452,6 +1478,14 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 
 	        final dxQuickStepperStage4CallContext stage4CallContext = new dxQuickStepperStage4CallContext();
 	        stage4CallContext.Initialize(callContext, localContext, lambda, cforce, forceMaxAdjustments, iMJ, order, last_lambda, bi_links_or_mi_levels, mi_links);
+	        if (ENABLE_PACKED_SOR_ROWS && (singleThreadedExecution || !ENABLE_LCP_ITERATIONS_MULTITHREADING)) {
+	        	int[] packedRowInfos = memarena.AllocateArrayInt(m * PSI__MAX);
+	        	if (callContext.m_world().qs.m_singlePrecisionRows) {
+	        		stage4CallContext.AssignPackedRows(memarena.AllocateArrayFloat(m * PSE__MAX), packedRowInfos);
+	        	} else {
+	        		stage4CallContext.AssignPackedRows(memarena.AllocateArrayDReal(m * PSE__MAX), packedRowInfos);
+	        	}
+	        }
         
 	        if (singleThreadedExecution) {
 	            dxQuickStepIsland_Stage4a(stage4CallContext);
@@ -1459,49 +1493,13 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 				IFTIMING_dTimerNow ("solving LCP problem");
 				dxQuickStepIsland_Stage4LCP_iMJComputation(stage4CallContext);
 	            dxQuickStepIsland_Stage4LCP_STfcComputation(stage4CallContext);
+	            if (callContext.m_world().qs.m_warmStarting) {
+	            	dxQuickStepIsland_Stage4LCP_WarmfcComputation(stage4CallContext);
+	            }
 	            dxQuickStepIsland_Stage4LCP_AdComputation(stage4CallContext);
 	            dxQuickStepIsland_Stage4LCP_ReorderPrep(stage4CallContext);
 	            
-	            DxWorld world = callContext.m_world();
-//	            int num_iterations = world.qs.num_iterations;
-//				for (int iteration = 0; iteration < num_iterations; iteration++) {
-				final boolean dynamicIterationCountAdjustmentEnabled = world.qs.GetIsDynamicIterationCountAdjustmentEnabled();
-				double prematureExitDelta = world.qs.GetPrematureExitDelta();
-				final int num_iterations = world.qs.m_iterationCount;
-
-				for (int iteration = 0, extra_num_iterations = 0; ; ) {
-					if (IsSORConstraintsReorderRequiredForIteration(iteration)) {
-						stage4CallContext.ResetSOR_ConstraintsReorderVariables(0);
-						dxQuickStepIsland_Stage4LCP_ConstraintsShuffling(stage4CallContext, iteration);
-					}
-
-					dxQuickStepIsland_Stage4LCP_STIteration(stage4CallContext);
-					++iteration;
-
-					if (iteration - extra_num_iterations == num_iterations) {
-						if (extra_num_iterations != 0 || world.qs.m_maxExtraIterationCount == 0) {
-							if (extra_num_iterations != 0) {
-								AtomicInteger fullExtraExecutionsStorage = world.qs.GetStatisticsFullExtraExecutionsStorage();
-								Atomics.ThrsafeIncrementNoResult(fullExtraExecutionsStorage);
-							}
-							break;
-						}
-
-						extra_num_iterations = world.qs.m_maxExtraIterationCount;
-						prematureExitDelta = world.qs.GetExtraIterationsRequirementDelta();
-					}
-
-					if (dynamicIterationCountAdjustmentEnabled && CheckForMaximumToBeLessThanLimitAndResetMaxAdjustments(stage4CallContext.m_forceMaxAdjustments, nb, prematureExitDelta)) {
-						if (iteration < num_iterations) {
-							AtomicInteger prematureExitsStorage = world.qs.GetStatisticsPrematureExitsStorage();
-							Atomics.ThrsafeIncrementNoResult(prematureExitsStorage);
-						}
-						else if (iteration > num_iterations) {
-							AtomicInteger prolongedExecutionsStorage = world.qs.GetStatisticsProlongedExecutionsStorage();
-							Atomics.ThrsafeIncrementNoResult(prolongedExecutionsStorage);
-						}
-						break;
-					}	            }
+	            dxQuickStepIsland_Stage4LCP_IterationsSingleThread(stage4CallContext);
 	            dxQuickStepIsland_Stage4b(stage4CallContext);
 	            dxQuickStepIsland_Stage5(stage5CallContext);
 	        } else {
@@ -1584,6 +1582,7 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
         dxQuickStepperLocalContext localContext = stage4CallContext.m_localContext;
         double[] lambda = stage4CallContext.m_lambda;
         int[] mindex = localContext.m_mindex;
+        dxQuickStepParameters qs = stage4CallContext.m_stepperCallContext.m_world().qs;
 
         int nj = localContext.m_nj;
         int step_size = dxQUICKSTEPISLAND_STAGE4A_STEP;
@@ -1592,9 +1591,24 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
         int ji_step;
         while ((ji_step = Atomics.ThrsafeIncrementIntUpToLimit(stage4CallContext.m_ji_4a, nj_steps)) != nj_steps) {
             int ji = ji_step * step_size;
-            int lambdacurr = getMIndex(mindex, ji);
-            int lambdsnext = getMIndex(mindex, ji + dRESTRICT_STEP(step_size, nj - ji));
-            dSetZero(lambda, lambdacurr, lambdsnext - lambdacurr);
+            final int jiend = ji + dRESTRICT_STEP(step_size, nj - ji);
+            if (qs.m_warmStarting) {
+                // load lambda from the value saved on the previous step
+                DJointWithInfo1[] jointinfos = localContext.m_jointinfos;
+                double factor = qs.m_warmStartingFactor;
+                for (; ji != jiend; ++ji) {
+                    int lambdacurr = getMIndex(mindex, ji);
+                    int infom = getMIndex(mindex, ji + 1) - lambdacurr;
+                    double[] jointLambda = jointinfos[ji].joint.lambda;
+                    for (int i = 0; i != infom; ++i) {
+                        lambda[lambdacurr + i] = factor * jointLambda[i];
+                    }
+                }
+            } else {
+                int lambdacurr = getMIndex(mindex, ji);
+                int lambdsnext = getMIndex(mindex, jiend);
+                dSetZero(lambda, lambdacurr, lambdsnext - lambdacurr);
+            }
         }
     }
 
@@ -1603,9 +1617,15 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
     {
     	DxStepperProcessingCallContext callContext = stage4CallContext.m_stepperCallContext;
         dxQuickStepperLocalContext localContext = stage4CallContext.m_localContext;
-        
+
+        if (ENABLE_LCP_ITERATIONS_MULTITHREADING) {
+        	// the single threaded iteration path has recorded its statistics already
+        	dxQuickStepIsland_Stage4LCP_RecordIterationStatistics(stage4CallContext, stage4CallContext.m_LCP_iteration,
+        			!stage4CallContext.m_LCP_prematureExit && callContext.m_world().qs.GetIsDynamicIterationCountAdjustmentEnabled());
+        }
+
         int stage4b_allowedThreads = 1;
-        if (IsStage4bJointInfosIterationRequired(localContext)) {
+        if (IsStage4bJointInfosIterationRequired(callContext.m_world(), localContext)) {
             int allowedThreads = Math.max(callContext.m_stepperAllowedThreads(), callContext.m_lcpAllowedThreads());
             stage4b_allowedThreads += CalculateOptimalThreadsCount(localContext.m_nj, allowedThreads - stage4b_allowedThreads, dxQUICKSTEPISLAND_STAGE4B_STEP);
         }
@@ -1752,6 +1772,45 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 		double[] fc = stage4CallContext.m_cforce;
         Matrix.dSetZero(fc, nb * CFE__MAX);
     }
+
+    // compute fc=(inv(M)*J')*lambda for the warm started lambdas. fc is then
+    // maintained incrementally by the iterations. This needs both iMJ and
+    // lambda, so unlike the "cold" zeroing it runs once on one thread.
+    private static
+    void dxQuickStepIsland_Stage4LCP_WarmfcComputation(dxQuickStepperStage4CallContext stage4CallContext)
+    {
+        dxQuickStepperLocalContext localContext = stage4CallContext.m_localContext;
+        int m = localContext.m_m;
+        int[] jb = localContext.m_jb;
+        double[] lambda = stage4CallContext.m_lambda;
+        double[] iMJ = stage4CallContext.m_iMJ;
+        double[] fc = stage4CallContext.m_cforce;
+
+        for (int i = 0; i != m; ++i) {
+            double lambda_i = lambda[i];
+            if (lambda_i == 0) {
+                continue;
+            }
+            final int iMJ_ptr = i * IMJ__MAX;
+            int fc_ptr1P = getJbFirst(jb, i) * CFE__MAX;
+            fc[fc_ptr1P + CFE_LX] += lambda_i * iMJ[iMJ_ptr + IMJ_1LX];
+            fc[fc_ptr1P + CFE_LY] += lambda_i * iMJ[iMJ_ptr + IMJ_1LY];
+            fc[fc_ptr1P + CFE_LZ] += lambda_i * iMJ[iMJ_ptr + IMJ_1LZ];
+            fc[fc_ptr1P + CFE_AX] += lambda_i * iMJ[iMJ_ptr + IMJ_1AX];
+            fc[fc_ptr1P + CFE_AY] += lambda_i * iMJ[iMJ_ptr + IMJ_1AY];
+            fc[fc_ptr1P + CFE_AZ] += lambda_i * iMJ[iMJ_ptr + IMJ_1AZ];
+            final int b2 = getJbSecond(jb, i);
+            if (b2 != -1) {
+                int fc_ptr2P = b2 * CFE__MAX;
+                fc[fc_ptr2P + CFE_LX] += lambda_i * iMJ[iMJ_ptr + IMJ_2LX];
+                fc[fc_ptr2P + CFE_LY] += lambda_i * iMJ[iMJ_ptr + IMJ_2LY];
+                fc[fc_ptr2P + CFE_LZ] += lambda_i * iMJ[iMJ_ptr + IMJ_2LZ];
+                fc[fc_ptr2P + CFE_AX] += lambda_i * iMJ[iMJ_ptr + IMJ_2AX];
+                fc[fc_ptr2P + CFE_AY] += lambda_i * iMJ[iMJ_ptr + IMJ_2AY];
+                fc[fc_ptr2P + CFE_AZ] += lambda_i * iMJ[iMJ_ptr + IMJ_2AZ];
+            }
+        }
+    }
     
     private static
     void dxQuickStepIsland_Stage4LCP_AdComputation(dxQuickStepperStage4CallContext stage4CallContext)
@@ -1841,16 +1900,100 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
     {
         DxStepperProcessingCallContext callContext = stage4CallContext.m_stepperCallContext;
         DxWorld world = callContext.m_world();
-        int num_iterations = world.qs.m_iterationCount;
-		for (int iteration = 0; iteration < num_iterations; iteration++) {
+        if (world.qs.m_warmStarting) {
+        	dxQuickStepIsland_Stage4LCP_WarmfcComputation(stage4CallContext);
+        }
+        dxQuickStepIsland_Stage4LCP_IterationsSingleThread(stage4CallContext);
+    }
+
+	/**
+	 * Runs the SOR iterations on the calling thread. With dynamic iteration
+	 * count adjustment enabled, the loop exits as soon as the maximal body
+	 * force adjustment of an iteration falls below the premature exit delta,
+	 * and may continue for up to m_maxExtraIterationCount extra iterations
+	 * while it stays above the extra iteration requirement delta.
+	 */
+	private static
+	void dxQuickStepIsland_Stage4LCP_IterationsSingleThread(final dxQuickStepperStage4CallContext stage4CallContext)
+	{
+		DxStepperProcessingCallContext callContext = stage4CallContext.m_stepperCallContext;
+		DxWorld world = callContext.m_world();
+		int nb = callContext.m_islandBodiesCount();
+
+		final boolean dynamicIterationCountAdjustmentEnabled = world.qs.GetIsDynamicIterationCountAdjustmentEnabled();
+		double prematureExitDelta = world.qs.GetPrematureExitDelta();
+		final int num_iterations = world.qs.m_iterationCount;
+
+		final boolean packed = stage4CallContext.m_packedRowInfos != null;
+		final boolean single = stage4CallContext.m_packedRowsSingle != null;
+
+		int iteration = 0;
+		boolean adjustmentsPending = dynamicIterationCountAdjustmentEnabled;
+		for (int extra_num_iterations = 0; ; ) {
 			if (IsSORConstraintsReorderRequiredForIteration(iteration)) {
 				stage4CallContext.ResetSOR_ConstraintsReorderVariables(0);
 				dxQuickStepIsland_Stage4LCP_ConstraintsShuffling(stage4CallContext, iteration);
+				if (packed) {
+					dxQuickStepIsland_Stage4LCP_PackRows(stage4CallContext);
+				}
 			}
-			dxQuickStepIsland_Stage4LCP_STIteration(stage4CallContext);
-        }
 
-    }
+			if (single) {
+				dxQuickStepIsland_Stage4LCP_PackedSingleSTIteration(stage4CallContext);
+			} else if (packed) {
+				dxQuickStepIsland_Stage4LCP_PackedSTIteration(stage4CallContext);
+			} else {
+				dxQuickStepIsland_Stage4LCP_STIteration(stage4CallContext);
+			}
+			++iteration;
+
+			if (iteration - extra_num_iterations == num_iterations) {
+				if (extra_num_iterations != 0 || world.qs.m_maxExtraIterationCount == 0) {
+					if (extra_num_iterations != 0) {
+						AtomicInteger fullExtraExecutionsStorage = world.qs.GetStatisticsFullExtraExecutionsStorage();
+						Atomics.ThrsafeIncrementNoResult(fullExtraExecutionsStorage);
+					}
+					break;
+				}
+
+				extra_num_iterations = world.qs.m_maxExtraIterationCount;
+				prematureExitDelta = world.qs.GetExtraIterationsRequirementDelta();
+			}
+
+			if (dynamicIterationCountAdjustmentEnabled && CheckForMaximumToBeLessThanLimitAndResetMaxAdjustments(stage4CallContext, nb, prematureExitDelta)) {
+				if (iteration < num_iterations) {
+					AtomicInteger prematureExitsStorage = world.qs.GetStatisticsPrematureExitsStorage();
+					Atomics.ThrsafeIncrementNoResult(prematureExitsStorage);
+				}
+				else if (iteration > num_iterations) {
+					AtomicInteger prolongedExecutionsStorage = world.qs.GetStatisticsProlongedExecutionsStorage();
+					Atomics.ThrsafeIncrementNoResult(prolongedExecutionsStorage);
+				}
+				adjustmentsPending = false;
+				break;
+			}
+		}
+
+		dxQuickStepIsland_Stage4LCP_RecordIterationStatistics(stage4CallContext, iteration, adjustmentsPending);
+	}
+
+	/**
+	 * Reports the iteration count and the last maximal force adjustment of
+	 * this island to the per-step statistics of the world.
+	 * @param adjustmentsPending 'true' if the adjustments of the last
+	 * iteration have not been checked (the iteration limit was reached).
+	 */
+	private static
+	void dxQuickStepIsland_Stage4LCP_RecordIterationStatistics(dxQuickStepperStage4CallContext stage4CallContext,
+			int iterationCount, boolean adjustmentsPending)
+	{
+		DxStepperProcessingCallContext callContext = stage4CallContext.m_stepperCallContext;
+		if (adjustmentsPending) {
+			stage4CallContext.m_LCP_lastMaxAdjustment = ResetMaxAdjustments(stage4CallContext.m_forceMaxAdjustments,
+					callContext.m_islandBodiesCount());
+		}
+		callContext.m_world().qs.RecordStepStatistics(iterationCount, stage4CallContext.m_LCP_lastMaxAdjustment);
+	}
 
     private static
     int dxQuickStepIsland_Stage4LCP_IterationStart(final dxQuickStepperStage4CallContext stage4CallContext)
@@ -1864,10 +2007,15 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
         int iteration = stage4CallContext.m_LCP_iteration;
 		dIASSERT(iteration< num_iterations + stage4CallContext.m_LCP_extra_num_iterations);
 
+		if (iteration == 0 && qs.m_warmStarting) {
+			// fc and iMJ/lambda are computed by parallel tasks, all of them have completed here
+			dxQuickStepIsland_Stage4LCP_WarmfcComputation(stage4CallContext);
+		}
+
 		boolean abortIterating = false;
 		if (iteration != 0
 				&& world.qs.GetIsDynamicIterationCountAdjustmentEnabled()
-				&& CheckForMaximumToBeLessThanLimitAndResetMaxAdjustments(stage4CallContext.m_forceMaxAdjustments, callContext.m_islandBodiesCount(), stage4CallContext.m_LCP_iteration_premature_exit_delta)) {
+				&& CheckForMaximumToBeLessThanLimitAndResetMaxAdjustments(stage4CallContext, callContext.m_islandBodiesCount(), stage4CallContext.m_LCP_iteration_premature_exit_delta)) {
 			if (iteration < num_iterations) {
 				AtomicInteger prematureExitsStorage = world.qs.GetStatisticsPrematureExitsStorage();
 				Atomics.ThrsafeIncrementNoResult(prematureExitsStorage);
@@ -1877,6 +2025,7 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 				Atomics.ThrsafeIncrementNoResult(prolongedExecutionsStorage);
 			}
 			abortIterating = true;
+			stage4CallContext.m_LCP_prematureExit = true;
 		}
 
 		if (!abortIterating) {
@@ -2413,6 +2562,212 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
         }
     }
 
+	/**
+	 * Copies J and iMJ rows into m_packedRows (or m_packedRowsSingle) in the
+	 * current solving order. Must be called after every change of m_order;
+	 * J must already be scaled by Ad.
+	 */
+	private static
+	void dxQuickStepIsland_Stage4LCP_PackRows(dxQuickStepperStage4CallContext stage4CallContext)
+	{
+		dxQuickStepperLocalContext localContext = stage4CallContext.m_localContext;
+		final int m = localContext.m_m;
+		final IndexError[] order = stage4CallContext.m_order;
+		final double[] J = localContext.m_J;
+		final int[] jb = localContext.m_jb;
+		final int[] findex = localContext.m_findex;
+		final double[] iMJ = stage4CallContext.m_iMJ;
+		final double[] rows = stage4CallContext.m_packedRows;
+		final float[] rowsSingle = stage4CallContext.m_packedRowsSingle;
+		final int[] infos = stage4CallContext.m_packedRowInfos;
+
+		for (int i = 0, rowP = 0, infoP = 0; i != m; ++i, rowP += PSE__MAX, infoP += PSI__MAX) {
+			int index = order[i].index;
+			if (rowsSingle != null) {
+				final int J_ptr = index * JME__MAX;
+				for (int k = 0; k != JME__MAX; ++k) {
+					rowsSingle[rowP + PSE__J_MIN + k] = (float) J[J_ptr + k];
+				}
+				final int iMJ_ptr = index * IMJ__MAX;
+				for (int k = 0; k != IMJ__MAX; ++k) {
+					rowsSingle[rowP + PSE__IMJ_MIN + k] = (float) iMJ[iMJ_ptr + k];
+				}
+			} else {
+				System.arraycopy(J, index * JME__MAX, rows, rowP + PSE__J_MIN, JME__MAX);
+				System.arraycopy(iMJ, index * IMJ__MAX, rows, rowP + PSE__IMJ_MIN, IMJ__MAX);
+			}
+			infos[infoP + PSI_INDEX] = index;
+			infos[infoP + PSI_B1] = getJbFirst(jb, index);
+			infos[infoP + PSI_B2] = getJbSecond(jb, index);
+			infos[infoP + PSI_FINDEX] = findex[index];
+		}
+	}
+
+	/**
+	 * Same arithmetic as {@link #dxQuickStepIsland_Stage4LCP_IterationStep}
+	 * in the same order, over the rows packed by
+	 * {@link #dxQuickStepIsland_Stage4LCP_PackRows}. Everything the inner
+	 * loop touches apart from lambda, fc and the force adjustments is read
+	 * sequentially.
+	 */
+	private static
+	void dxQuickStepIsland_Stage4LCP_PackedSTIteration(dxQuickStepperStage4CallContext stage4CallContext)
+	{
+		dxQuickStepperLocalContext localContext = stage4CallContext.m_localContext;
+		final int m = localContext.m_m;
+		final double[] rows = stage4CallContext.m_packedRows;
+		final int[] infos = stage4CallContext.m_packedRowInfos;
+		final double[] lambda = stage4CallContext.m_lambda;
+		final double[] fc = stage4CallContext.m_cforce;
+		final double[] fa = stage4CallContext.m_forceMaxAdjustments;
+
+		for (int i = 0, rowP = 0, infoP = 0; i != m; ++i, rowP += PSE__MAX, infoP += PSI__MAX) {
+			final int index = infos[infoP + PSI_INDEX];
+			final int b1 = infos[infoP + PSI_B1];
+			final int b2 = infos[infoP + PSI_B2];
+			final int iMJP = rowP + PSE__IMJ_MIN;
+
+			final double old_lambda = lambda[index];
+			double delta = rows[rowP + JME_RHS] - old_lambda * rows[rowP + JME_CFM];
+
+			final int fc1P = b1 * CFE__MAX;
+			delta -= fc[fc1P + CFE_LX] * rows[rowP + JME_J1LX] + fc[fc1P + CFE_LY] * rows[rowP + JME_J1LY] +
+					fc[fc1P + CFE_LZ] * rows[rowP + JME_J1LZ] + fc[fc1P + CFE_AX] * rows[rowP + JME_J1AX] +
+					fc[fc1P + CFE_AY] * rows[rowP + JME_J1AY] + fc[fc1P + CFE_AZ] * rows[rowP + JME_J1AZ];
+			final int fc2P = b2 * CFE__MAX;
+			if (b2 != -1) {
+				delta -= fc[fc2P + CFE_LX] * rows[rowP + JME_J2LX] + fc[fc2P + CFE_LY] * rows[rowP + JME_J2LY] +
+						fc[fc2P + CFE_LZ] * rows[rowP + JME_J2LZ] + fc[fc2P + CFE_AX] * rows[rowP + JME_J2AX] +
+						fc[fc2P + CFE_AY] * rows[rowP + JME_J2AY] + fc[fc2P + CFE_AZ] * rows[rowP + JME_J2AZ];
+			}
+
+			double hi_act, lo_act;
+			final int fi = infos[infoP + PSI_FINDEX];
+			if (fi != -1) {
+				hi_act = dFabs(rows[rowP + JME_HI] * lambda[fi]);
+				lo_act = -hi_act;
+			} else {
+				hi_act = rows[rowP + JME_HI];
+				lo_act = rows[rowP + JME_LO];
+			}
+
+			double new_lambda = old_lambda + delta;
+			if (new_lambda < lo_act) {
+				delta = lo_act - old_lambda;
+				lambda[index] = lo_act;
+			}
+			else if (new_lambda > hi_act) {
+				delta = hi_act - old_lambda;
+				lambda[index] = hi_act;
+			}
+			else {
+				lambda[index] = new_lambda;
+			}
+
+			if (delta != 0) {
+				final int faP = ENCODE_SIGNUM_AS_FORCE_ADJUSTMENT_ELEMENT(delta > 0);
+				fc[fc1P + CFE_LX] += delta * rows[iMJP + IMJ_1LX];
+				fc[fc1P + CFE_LY] += delta * rows[iMJP + IMJ_1LY];
+				fc[fc1P + CFE_LZ] += delta * rows[iMJP + IMJ_1LZ];
+				fc[fc1P + CFE_AX] += delta * rows[iMJP + IMJ_1AX];
+				fc[fc1P + CFE_AY] += delta * rows[iMJP + IMJ_1AY];
+				fc[fc1P + CFE_AZ] += delta * rows[iMJP + IMJ_1AZ];
+				fa[faP + b1 * FAE__MAX] += delta * rows[iMJP + IMJ_1JVE_MAXABS];
+				if (b2 != -1) {
+					fa[faP + b2 * FAE__MAX] += delta * rows[iMJP + IMJ_2JVE_MAXABS];
+					fc[fc2P + CFE_LX] += delta * rows[iMJP + IMJ_2LX];
+					fc[fc2P + CFE_LY] += delta * rows[iMJP + IMJ_2LY];
+					fc[fc2P + CFE_LZ] += delta * rows[iMJP + IMJ_2LZ];
+					fc[fc2P + CFE_AX] += delta * rows[iMJP + IMJ_2AX];
+					fc[fc2P + CFE_AY] += delta * rows[iMJP + IMJ_2AY];
+					fc[fc2P + CFE_AZ] += delta * rows[iMJP + IMJ_2AZ];
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@link #dxQuickStepIsland_Stage4LCP_PackedSTIteration} over the float
+	 * rows of m_packedRowsSingle. Every row element is widened to double
+	 * before it is used, so delta, lambda, fc and the force adjustments are
+	 * computed and accumulated in double precision.
+	 */
+	private static
+	void dxQuickStepIsland_Stage4LCP_PackedSingleSTIteration(dxQuickStepperStage4CallContext stage4CallContext)
+	{
+		dxQuickStepperLocalContext localContext = stage4CallContext.m_localContext;
+		final int m = localContext.m_m;
+		final float[] rows = stage4CallContext.m_packedRowsSingle;
+		final int[] infos = stage4CallContext.m_packedRowInfos;
+		final double[] lambda = stage4CallContext.m_lambda;
+		final double[] fc = stage4CallContext.m_cforce;
+		final double[] fa = stage4CallContext.m_forceMaxAdjustments;
+
+		for (int i = 0, rowP = 0, infoP = 0; i != m; ++i, rowP += PSE__MAX, infoP += PSI__MAX) {
+			final int index = infos[infoP + PSI_INDEX];
+			final int b1 = infos[infoP + PSI_B1];
+			final int b2 = infos[infoP + PSI_B2];
+			final int iMJP = rowP + PSE__IMJ_MIN;
+
+			final double old_lambda = lambda[index];
+			double delta = rows[rowP + JME_RHS] - old_lambda * rows[rowP + JME_CFM];
+
+			final int fc1P = b1 * CFE__MAX;
+			delta -= fc[fc1P + CFE_LX] * rows[rowP + JME_J1LX] + fc[fc1P + CFE_LY] * rows[rowP + JME_J1LY] +
+					fc[fc1P + CFE_LZ] * rows[rowP + JME_J1LZ] + fc[fc1P + CFE_AX] * rows[rowP + JME_J1AX] +
+					fc[fc1P + CFE_AY] * rows[rowP + JME_J1AY] + fc[fc1P + CFE_AZ] * rows[rowP + JME_J1AZ];
+			final int fc2P = b2 * CFE__MAX;
+			if (b2 != -1) {
+				delta -= fc[fc2P + CFE_LX] * rows[rowP + JME_J2LX] + fc[fc2P + CFE_LY] * rows[rowP + JME_J2LY] +
+						fc[fc2P + CFE_LZ] * rows[rowP + JME_J2LZ] + fc[fc2P + CFE_AX] * rows[rowP + JME_J2AX] +
+						fc[fc2P + CFE_AY] * rows[rowP + JME_J2AY] + fc[fc2P + CFE_AZ] * rows[rowP + JME_J2AZ];
+			}
+
+			double hi_act, lo_act;
+			final int fi = infos[infoP + PSI_FINDEX];
+			if (fi != -1) {
+				hi_act = dFabs(rows[rowP + JME_HI] * lambda[fi]);
+				lo_act = -hi_act;
+			} else {
+				hi_act = rows[rowP + JME_HI];
+				lo_act = rows[rowP + JME_LO];
+			}
+
+			double new_lambda = old_lambda + delta;
+			if (new_lambda < lo_act) {
+				delta = lo_act - old_lambda;
+				lambda[index] = lo_act;
+			}
+			else if (new_lambda > hi_act) {
+				delta = hi_act - old_lambda;
+				lambda[index] = hi_act;
+			}
+			else {
+				lambda[index] = new_lambda;
+			}
+
+			if (delta != 0) {
+				final int faP = ENCODE_SIGNUM_AS_FORCE_ADJUSTMENT_ELEMENT(delta > 0);
+				fc[fc1P + CFE_LX] += delta * rows[iMJP + IMJ_1LX];
+				fc[fc1P + CFE_LY] += delta * rows[iMJP + IMJ_1LY];
+				fc[fc1P + CFE_LZ] += delta * rows[iMJP + IMJ_1LZ];
+				fc[fc1P + CFE_AX] += delta * rows[iMJP + IMJ_1AX];
+				fc[fc1P + CFE_AY] += delta * rows[iMJP + IMJ_1AY];
+				fc[fc1P + CFE_AZ] += delta * rows[iMJP + IMJ_1AZ];
+				fa[faP + b1 * FAE__MAX] += delta * rows[iMJP + IMJ_1JVE_MAXABS];
+				if (b2 != -1) {
+					fa[faP + b2 * FAE__MAX] += delta * rows[iMJP + IMJ_2JVE_MAXABS];
+					fc[fc2P + CFE_LX] += delta * rows[iMJP + IMJ_2LX];
+					fc[fc2P + CFE_LY] += delta * rows[iMJP + IMJ_2LY];
+					fc[fc2P + CFE_LZ] += delta * rows[iMJP + IMJ_2LZ];
+					fc[fc2P + CFE_AX] += delta * rows[iMJP + IMJ_2AX];
+					fc[fc2P + CFE_AY] += delta * rows[iMJP + IMJ_2AY];
+					fc[fc2P + CFE_AZ] += delta * rows[iMJP + IMJ_2AZ];
+				}
+			}
+		}
+	}
+
 	//***************************************************************************
 	// SOR-LCP method
 
@@ -2545,8 +2900,9 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 		}
     }  
 
-	private static boolean IsStage4bJointInfosIterationRequired(dxQuickStepperLocalContext localContext) {
-		return localContext.m_mfb > 0;
+	private static boolean IsStage4bJointInfosIterationRequired(DxWorld world, dxQuickStepperLocalContext localContext) {
+		// with warm starting every joint saves its lambdas for the next step
+		return localContext.m_mfb > 0 || world.qs.m_warmStarting;
 	}
     
 	private static
@@ -2576,7 +2932,8 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
         // note that the SOR method overwrites rhs and J at this point, so
         // they should not be used again.
 
-        if (IsStage4bJointInfosIterationRequired(localContext)) {
+        if (IsStage4bJointInfosIterationRequired(callContext.m_world(), localContext)) {
+			final boolean warmStarting = callContext.m_world().qs.m_warmStarting;
 			DVector3 dataL = new DVector3(); //JVE__MAX;
 			DVector3 dataA = new DVector3(); //JVE__MAX;
             double[] Jcopy = localContext.m_Jcopy;
@@ -2609,7 +2966,7 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 						DxJoint joint = jointinfos[ji].joint;
 
 				// #ifdef WARM_STARTING
-						if (WARM_STARTING) {
+						if (warmStarting) {
 							memcpy(joint.lambda, 0, lambda, lambdacurrOfs, fb_infom);
 						}
 				// #endif
@@ -2647,7 +3004,7 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 					}
 					else {
 				// #ifdef WARM_STARTING
-						if (WARM_STARTING) {
+						if (warmStarting) {
                     		int lambdacurrOfs = getMIndex(mindex, ji);
                     		int infom = getMIndex(mindex,  ji + 1) - getMIndex(mindex, ji);
 							DxJoint joint = jointinfos[ji].joint;
@@ -2726,43 +3083,42 @@ dmemestimate_fn_t, dmaxcallcountestimate_fn_t {
 	private static
 	// bool CheckForMaximumToBeLessThanLimitAndResetMaxAdjustments(dReal *forceMaxAdjustments/*=[FAE__MAX]*/,
 	// unsigned int elementCount, dReal limitValue)
-	boolean CheckForMaximumToBeLessThanLimitAndResetMaxAdjustments(double[] forceMaxAdjustments/*=[FAE__MAX]*/,
+	boolean CheckForMaximumToBeLessThanLimitAndResetMaxAdjustments(dxQuickStepperStage4CallContext stage4CallContext,
 																   int elementCount, double limitValue)
 	{
 		dIASSERT(limitValue >= 0);
 
-		boolean hitTheLimit = false;
+		double maxAdjustment = ResetMaxAdjustments(stage4CallContext.m_forceMaxAdjustments, elementCount);
+		stage4CallContext.m_LCP_lastMaxAdjustment = maxAdjustment;
 
-		// dReal *const adjustmentsEnd = forceMaxAdjustments + (sizeint)elementCount * FAE__MAX;
-		int adjustmentsEndP = elementCount * FAE__MAX;
+		// Use "strict less" comparison to allow disabling premature algorithm exits by setting limit to zero
+		boolean result = maxAdjustment < limitValue;
+		return result;
+	}
 
-		if (limitValue == 0) {
-			dxSetZero(forceMaxAdjustments, elementCount * FAE__MAX);
-			hitTheLimit = true; // Due to the "strict less" comparison (see further in the function implementation), no absolute adjustment can "pass below" this limit
-		}
+	/**
+	 * @return the largest absolute force adjustment accumulated since the
+	 * last reset (NaN if any adjustment is NaN); all adjustments are zeroed.
+	 */
+	private static
+	double ResetMaxAdjustments(double[] forceMaxAdjustments/*=[FAE__MAX]*/, int elementCount)
+	{
+		double maxAdjustment = 0;
 
-		// for (dReal *currentAdjustment = !hitTheLimit ? forceMaxAdjustments : adjustmentsEnd;
-		// currentAdjustment != adjustmentsEnd; currentAdjustment += FAE__MAX) {
-		for (int currentAdjustmentP = !hitTheLimit ? 0 : adjustmentsEndP; currentAdjustmentP != adjustmentsEndP; currentAdjustmentP += FAE__MAX) {
+		int adjustmentsEndP = elementCount * FAE__MAX;
+		for (int currentAdjustmentP = 0; currentAdjustmentP != adjustmentsEndP; currentAdjustmentP += FAE__MAX) {
 			dIASSERT(forceMaxAdjustments[currentAdjustmentP + FAE_NEGATIVE] <= 0); // TODO (TZ) remove / comment out.
 			dIASSERT(forceMaxAdjustments[currentAdjustmentP + FAE_POSITIVE] >= 0);
 			dSASSERT(FAE__MAX == 2);
 
-			// Use "strict less" comparison to allow disabling premature algorithm exits by setting limit to zero
-			if (!(forceMaxAdjustments[currentAdjustmentP + FAE_POSITIVE] < limitValue) ||
-					!(-forceMaxAdjustments[currentAdjustmentP + FAE_NEGATIVE] < limitValue)) {
-				dxSetZero(forceMaxAdjustments, currentAdjustmentP + adjustmentsEndP - currentAdjustmentP);
-				hitTheLimit = true;
-				break;
-			}
+			maxAdjustment = Math.max(maxAdjustment, forceMaxAdjustments[currentAdjustmentP + FAE_POSITIVE]);
+			maxAdjustment = Math.max(maxAdjustment, -forceMaxAdjustments[currentAdjustmentP + FAE_NEGATIVE]);
 
 			forceMaxAdjustments[currentAdjustmentP + FAE_NEGATIVE] = 0;
 			forceMaxAdjustments[currentAdjustmentP + FAE_POSITIVE] = 0;
-			dSASSERT(FAE__MAX == 2);
 		}
 
-		boolean result = !hitTheLimit;
-		return result;
+		return maxAdjustment;
 	}
 
 	private static
@@ -25,6 +25,7 @@
 package com.kAIS.ode4j.ode.internal;
 
 import com.kAIS.ode4j.ode.DColliderFn;
+import com.kAIS.ode4j.math.DMatrix3;
 import com.kAIS.ode4j.math.DMatrix3C;
 import com.kAIS.ode4j.math.DVector3;
 import com.kAIS.ode4j.math.DVector3C;
@@ -157,6 +158,22 @@ public class DxRay extends DxGeom implements DRay {
 		rot.viewCol(2).set(n);
 		dGeomMoved ();
 	}
+	/**
+	 * Set origin, normalized direction and length without allocating; used
+	 * by the batched ray caster for its private rays.
+	 */
+	void setRay (double px, double py, double pz, double dx, double dy, double dz,
+			double length)
+	{
+		recomputePosr();
+		_final_posr.pos.set(px, py, pz);
+		DMatrix3 rot = _final_posr.Rw();
+		rot.set02(dx);
+		rot.set12(dy);
+		rot.set22(dz);
+		_length = length;
+		dGeomMoved ();
+	}
 	private void dGeomRaySet (DVector3C p, DVector3C d)
 	{
 		recomputePosr();
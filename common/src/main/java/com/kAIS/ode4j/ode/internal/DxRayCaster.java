@@ -0,0 +1,605 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode.internal;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kAIS.ode4j.ode.DAABB;
+import com.kAIS.ode4j.ode.DContactGeom;
+import com.kAIS.ode4j.ode.DContactGeomBuffer;
+import com.kAIS.ode4j.ode.DGeom;
+import com.kAIS.ode4j.ode.DRayCaster;
+import com.kAIS.ode4j.ode.DSpace;
+import com.kAIS.ode4j.ode.DVoxelGrid;
+import com.kAIS.ode4j.ode.internal.aabbtree.AABBTreeRayCallback;
+import com.kAIS.ode4j.ode.internal.trimesh.DxTriMesh;
+import com.kAIS.ode4j.ode.threading.task.Task;
+import com.kAIS.ode4j.ode.threading.task.TaskExecutor;
+import com.kAIS.ode4j.ode.threading.task.TaskGroup;
+
+/**
+ * Implementation of {@link DRayCaster}.
+ * <p>
+ * Per cast, the space hierarchy is flattened on the calling thread into a
+ * list of BVH spaces (queried per ray along their tree) and a list of plain
+ * geoms with their AABBs, culled against the bounds of the whole batch.
+ * Spaces inside a BVH space are walked geom by geom when a ray reaches them.
+ * Each worker (slot 0 is the calling thread) owns a private {@link DxRay}
+ * and a one-contact buffer, both kept between calls.
+ */
+public class DxRayCaster implements DRayCaster {
+
+	private TaskExecutor executor;
+	private int chunkSize = 16;
+	private long collideBits = ~0L;
+	private boolean staticOnly = false;
+	private DVoxelGrid voxelGrid;
+
+	// prepared space, valid during cast()
+	private DxBVHSpace[] trees = new DxBVHSpace[0];
+	private int numTrees = 0;
+	private DxGeom[] flat = new DxGeom[0];
+	private double[] flatBounds = new double[0];	// 6 per geom
+	private int numFlat = 0;
+	private final double[] batchBounds = new double[6];
+
+	// current batch, valid during cast()
+	private int count;
+	private double[] origins, dirs, lengths;
+	private double[] outDistances, outNormals;
+	private DGeom[] outGeoms;
+
+	private Worker[] workers = new Worker[0];
+	private final AtomicInteger nextChunk = new AtomicInteger();
+
+	/** Ray geom, contact buffer and current hit of one thread. */
+	private final class Worker implements AABBTreeRayCallback<DxGeom> {
+		final DxRay ray = DxRay.dCreateRay(null, 1);
+		final DContactGeomBuffer contacts = new DContactGeomBuffer(1);
+		double ox, oy, oz, dx, dy, dz;
+		boolean hit;
+		DxGeom hitGeom;
+		double hitNX, hitNY, hitNZ;
+		final double[] clipLo = new double[3], clipHi = new double[3];
+		final double[] clipO = new double[3], clipD = new double[3];
+
+		Worker() {
+			ray.setClosestHit(true);
+		}
+
+		/** Cast chunks until the batch is done. */
+		void run() {
+			final int chunks = (count + chunkSize - 1) / chunkSize;
+			int c;
+			while ((c = nextChunk.getAndIncrement()) < chunks) {
+				int end = Math.min(count, (c + 1) * chunkSize);
+				for (int i = c * chunkSize; i < end; i++) {
+					castRay(i);
+				}
+			}
+		}
+
+		void castRay(int i) {
+			ox = origins[i * 3];
+			oy = origins[i * 3 + 1];
+			oz = origins[i * 3 + 2];
+			dx = dirs[i * 3];
+			dy = dirs[i * 3 + 1];
+			dz = dirs[i * 3 + 2];
+			double len = lengths[i];
+			double dl = Math.sqrt(dx * dx + dy * dy + dz * dz);
+			hit = false;
+			hitGeom = null;
+			if (dl > 0 && len >= 0) {
+				dx /= dl;
+				dy /= dl;
+				dz /= dl;
+				double maxT = len;
+				for (int t = 0; t < numTrees; t++) {
+					maxT = trees[t].rayCast(ox, oy, oz, dx, dy, dz, maxT, this);
+				}
+				if (numFlat > 0) {
+					double invX = 1.0 / dx;
+					double invY = 1.0 / dy;
+					double invZ = 1.0 / dz;
+					for (int g = 0; g < numFlat; g++) {
+						int b = g * 6;
+						if (rayOverlaps(flatBounds[b], flatBounds[b + 1], flatBounds[b + 2], flatBounds[b + 3],
+								flatBounds[b + 4], flatBounds[b + 5], ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxT)) {
+							maxT = test(flat[g], maxT);
+						}
+					}
+				}
+				if (voxelGrid != null) {
+					maxT = marchVoxels(voxelGrid, maxT);
+				}
+				if (hit) {
+					outDistances[i] = maxT;
+					if (outNormals != null) {
+						outNormals[i * 3] = hitNX;
+						outNormals[i * 3 + 1] = hitNY;
+						outNormals[i * 3 + 2] = hitNZ;
+					}
+					if (outGeoms != null) {
+						outGeoms[i] = hitGeom;
+					}
+					hitGeom = null;
+					return;
+				}
+			}
+			outDistances[i] = -1;
+			if (outNormals != null) {
+				outNormals[i * 3] = 0;
+				outNormals[i * 3 + 1] = 0;
+				outNormals[i * 3 + 2] = 0;
+			}
+			if (outGeoms != null) {
+				outGeoms[i] = null;
+			}
+		}
+
+		@Override
+		public double hit(DxGeom g, double maxT) {
+			if (g instanceof DxSpace) {
+				return descend((DxSpace) g, maxT);
+			}
+			if (!accept(g)) {
+				return maxT;
+			}
+			return test(g, maxT);
+		}
+
+		/** Sub-space reached from a BVH tree; walk its (clean) geoms. */
+		double descend(DxSpace space, double maxT) {
+			if (space instanceof DxBVHSpace) {
+				return ((DxBVHSpace) space).rayCast(ox, oy, oz, dx, dy, dz, maxT, this);
+			}
+			double invX = 1.0 / dx;
+			double invY = 1.0 / dy;
+			double invZ = 1.0 / dz;
+			for (DxGeom g = space._first; g != null; g = g.getNext()) {
+				DAABB b = g._aabb;
+				if (enabled(g) && rayOverlaps(b.getMin0(), b.getMin1(), b.getMin2(), b.getMax0(), b.getMax1(),
+						b.getMax2(), ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxT)) {
+					maxT = hit(g, maxT);
+				}
+			}
+			return maxT;
+		}
+
+		/** Narrowphase of the current ray, shortened to maxT, against g. */
+		double test(DxGeom g, double maxT) {
+			ray.setRay(ox, oy, oz, dx, dy, dz, maxT);
+			int n;
+			if (needsLock(g)) {
+				synchronized (g) {
+					n = DxGeom.dCollide(ray, g, 1, contacts, 1);
+				}
+			} else {
+				n = DxGeom.dCollide(ray, g, 1, contacts, 1);
+			}
+			if (n > 0) {
+				DContactGeom c = contacts.get(0);
+				if (!hit || c.depth < maxT) {
+					hit = true;
+					hitGeom = g;
+					hitNX = c.normal.get0();
+					hitNY = c.normal.get1();
+					hitNZ = c.normal.get2();
+					return c.depth;
+				}
+			}
+			return maxT;
+		}
+
+		/**
+		 * 3D DDA through the voxel grid, up to maxT.
+		 * @return new ray length
+		 */
+		double marchVoxels(DVoxelGrid grid, double maxT) {
+			final double cs = grid.getCellSize();
+			final int minX = grid.getMinX(), minY = grid.getMinY(), minZ = grid.getMinZ();
+			final int endX = minX + grid.getSizeX(), endY = minY + grid.getSizeY(), endZ = minZ + grid.getSizeZ();
+			if (endX == minX || endY == minY || endZ == minZ) {
+				return maxT;
+			}
+
+			// clip the ray against the grid bounds, remember the entry axis
+			double tEnter = 0;
+			double tExit = maxT;
+			int axis = -1;
+			double[] lo = clipLo, hi = clipHi, o = clipO, d = clipD;
+			lo[0] = minX * cs; lo[1] = minY * cs; lo[2] = minZ * cs;
+			hi[0] = endX * cs; hi[1] = endY * cs; hi[2] = endZ * cs;
+			o[0] = ox; o[1] = oy; o[2] = oz;
+			d[0] = dx; d[1] = dy; d[2] = dz;
+			for (int a = 0; a < 3; a++) {
+				if (d[a] == 0) {
+					if (o[a] < lo[a] || o[a] >= hi[a]) {
+						return maxT;
+					}
+					continue;
+				}
+				double t1 = (lo[a] - o[a]) / d[a];
+				double t2 = (hi[a] - o[a]) / d[a];
+				if (t1 > t2) {
+					double tmp = t1;
+					t1 = t2;
+					t2 = tmp;
+				}
+				if (t1 > tEnter) {
+					tEnter = t1;
+					axis = a;
+				}
+				if (t2 < tExit) {
+					tExit = t2;
+				}
+				if (tEnter > tExit) {
+					return maxT;
+				}
+			}
+
+			int ix = clampCell(Math.floor((ox + dx * tEnter) / cs), minX, endX);
+			int iy = clampCell(Math.floor((oy + dy * tEnter) / cs), minY, endY);
+			int iz = clampCell(Math.floor((oz + dz * tEnter) / cs), minZ, endZ);
+			int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+			int stepY = dy > 0 ? 1 : (dy < 0 ? -1 : 0);
+			int stepZ = dz > 0 ? 1 : (dz < 0 ? -1 : 0);
+			double tDeltaX = stepX != 0 ? cs / Math.abs(dx) : Double.POSITIVE_INFINITY;
+			double tDeltaY = stepY != 0 ? cs / Math.abs(dy) : Double.POSITIVE_INFINITY;
+			double tDeltaZ = stepZ != 0 ? cs / Math.abs(dz) : Double.POSITIVE_INFINITY;
+			double tMaxX = stepX > 0 ? ((ix + 1) * cs - ox) / dx : (stepX < 0 ? (ix * cs - ox) / dx : Double.POSITIVE_INFINITY);
+			double tMaxY = stepY > 0 ? ((iy + 1) * cs - oy) / dy : (stepY < 0 ? (iy * cs - oy) / dy : Double.POSITIVE_INFINITY);
+			double tMaxZ = stepZ > 0 ? ((iz + 1) * cs - oz) / dz : (stepZ < 0 ? (iz * cs - oz) / dz : Double.POSITIVE_INFINITY);
+
+			double t = tEnter;
+			for (;;) {
+				if (grid.isSolid(ix, iy, iz)) {
+					if (!hit || t < maxT) {
+						hit = true;
+						hitGeom = null;
+						if (axis == 0) {
+							hitNX = -stepX; hitNY = 0; hitNZ = 0;
+						} else if (axis == 1) {
+							hitNX = 0; hitNY = -stepY; hitNZ = 0;
+						} else if (axis == 2) {
+							hitNX = 0; hitNY = 0; hitNZ = -stepZ;
+						} else {
+							// starts inside a solid cell
+							hitNX = -dx; hitNY = -dy; hitNZ = -dz;
+						}
+						return t;
+					}
+					return maxT;
+				}
+				if (tMaxX <= tMaxY && tMaxX <= tMaxZ) {
+					t = tMaxX;
+					ix += stepX;
+					tMaxX += tDeltaX;
+					axis = 0;
+					if (ix < minX || ix >= endX) {
+						return maxT;
+					}
+				} else if (tMaxY <= tMaxZ) {
+					t = tMaxY;
+					iy += stepY;
+					tMaxY += tDeltaY;
+					axis = 1;
+					if (iy < minY || iy >= endY) {
+						return maxT;
+					}
+				} else {
+					t = tMaxZ;
+					iz += stepZ;
+					tMaxZ += tDeltaZ;
+					axis = 2;
+					if (iz < minZ || iz >= endZ) {
+						return maxT;
+					}
+				}
+				if (t > tExit) {
+					return maxT;
+				}
+			}
+		}
+	}
+
+	public DxRayCaster(TaskExecutor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public void setTaskExecutor(TaskExecutor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize=" + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	@Override
+	public void setCollideBits(long bits) {
+		this.collideBits = bits;
+	}
+
+	@Override
+	public long getCollideBits() {
+		return collideBits;
+	}
+
+	@Override
+	public void setStaticOnly(boolean staticOnly) {
+		this.staticOnly = staticOnly;
+	}
+
+	@Override
+	public boolean isStaticOnly() {
+		return staticOnly;
+	}
+
+	@Override
+	public void setVoxelGrid(DVoxelGrid grid) {
+		this.voxelGrid = grid;
+	}
+
+	@Override
+	public DVoxelGrid getVoxelGrid() {
+		return voxelGrid;
+	}
+
+	@Override
+	public int cast(DSpace space, int count, double[] origins, double[] dirs, double[] lengths,
+			double[] outDistances, double[] outNormals, DGeom[] outGeoms) {
+		if (count < 0 || origins.length < count * 3 || dirs.length < count * 3 || lengths.length < count
+				|| outDistances.length < count || (outNormals != null && outNormals.length < count * 3)
+				|| (outGeoms != null && outGeoms.length < count)) {
+			throw new IllegalArgumentException("arrays too short for " + count + " rays");
+		}
+		if (count == 0) {
+			return 0;
+		}
+		this.count = count;
+		this.origins = origins;
+		this.dirs = dirs;
+		this.lengths = lengths;
+		this.outDistances = outDistances;
+		this.outNormals = outNormals;
+		this.outGeoms = outGeoms;
+
+		DxSpace root = (DxSpace) space;
+		if (root != null) {
+			root.cleanGeoms();
+			root.lock_count++;
+		}
+		try {
+			// 1) flatten the space for this batch
+			numTrees = 0;
+			numFlat = 0;
+			if (root != null) {
+				computeBatchBounds();
+				collect(root);
+			}
+
+			// 2) rays
+			int threads = (executor == null) ? 1 : Math.max(1, executor.getThreadCount());
+			int chunks = (count + chunkSize - 1) / chunkSize;
+			int helpers = Math.min(threads, chunks) - 1;
+			ensureWorkers(helpers + 1);
+			nextChunk.set(0);
+
+			final Worker caller = workers[0];
+			if (helpers > 0) {
+				TaskGroup group = executor.group("Ray Cast Group", new Runnable() {
+					@Override
+					public void run() {}
+				});
+				for (int w = 1; w <= helpers; w++) {
+					final Worker worker = workers[w];
+					Task task = group.subtask("Ray Cast Chunks", new Runnable() {
+						@Override
+						public void run() {
+							worker.run();
+						}
+					});
+					task.submit();
+				}
+				group.submit();
+				caller.run();
+				group.awaitCompletion();
+			}
+			else {
+				caller.run();
+			}
+		} finally {
+			if (root != null) {
+				root.lock_count--;
+			}
+			Arrays.fill(trees, 0, numTrees, null);
+			Arrays.fill(flat, 0, numFlat, null);
+			numTrees = 0;
+			numFlat = 0;
+			this.origins = this.dirs = this.lengths = null;
+			this.outDistances = this.outNormals = null;
+			this.outGeoms = null;
+		}
+
+		int hits = 0;
+		for (int i = 0; i < count; i++) {
+			if (outDistances[i] >= 0) {
+				hits++;
+			}
+		}
+		return hits;
+	}
+
+	/** Union of the segments of all rays. */
+	private void computeBatchBounds() {
+		double[] b = batchBounds;
+		b[0] = b[1] = b[2] = Double.POSITIVE_INFINITY;
+		b[3] = b[4] = b[5] = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < count; i++) {
+			double dx = dirs[i * 3], dy = dirs[i * 3 + 1], dz = dirs[i * 3 + 2];
+			double dl = Math.sqrt(dx * dx + dy * dy + dz * dz);
+			if (!(dl > 0) || !(lengths[i] >= 0)) {
+				continue;
+			}
+			double s = lengths[i] / dl;
+			for (int a = 0; a < 3; a++) {
+				double p0 = origins[i * 3 + a];
+				double p1 = p0 + dirs[i * 3 + a] * s;
+				if (Double.isNaN(p1)) {
+					// infinite length along a zero direction component
+					p1 = p0;
+				}
+				b[a] = Math.min(b[a], Math.min(p0, p1));
+				b[a + 3] = Math.max(b[a + 3], Math.max(p0, p1));
+			}
+		}
+	}
+
+	private boolean overlapsBatch(DAABB aabb) {
+		double[] b = batchBounds;
+		return aabb.getMin0() <= b[3] && aabb.getMax0() >= b[0]
+				&& aabb.getMin1() <= b[4] && aabb.getMax1() >= b[1]
+				&& aabb.getMin2() <= b[5] && aabb.getMax2() >= b[2];
+	}
+
+	private void collect(DxSpace space) {
+		if (space instanceof DxBVHSpace) {
+			if (numTrees == trees.length) {
+				trees = Arrays.copyOf(trees, Math.max(4, numTrees * 2));
+			}
+			trees[numTrees++] = (DxBVHSpace) space;
+			return;
+		}
+		for (DxGeom g = space._first; g != null; g = g.getNext()) {
+			if (!enabled(g) || !overlapsBatch(g._aabb)) {
+				continue;
+			}
+			if (g instanceof DxSpace) {
+				collect((DxSpace) g);
+			} else if (accept(g)) {
+				addFlat(g);
+			}
+		}
+	}
+
+	private void addFlat(DxGeom g) {
+		if (numFlat == flat.length) {
+			int cap = Math.max(64, numFlat * 2);
+			flat = Arrays.copyOf(flat, cap);
+			flatBounds = Arrays.copyOf(flatBounds, cap * 6);
+		}
+		DAABB aabb = g._aabb;
+		int o = numFlat * 6;
+		flatBounds[o] = aabb.getMin0();
+		flatBounds[o + 1] = aabb.getMin1();
+		flatBounds[o + 2] = aabb.getMin2();
+		flatBounds[o + 3] = aabb.getMax0();
+		flatBounds[o + 4] = aabb.getMax1();
+		flatBounds[o + 5] = aabb.getMax2();
+		flat[numFlat++] = g;
+	}
+
+	private boolean accept(DxGeom g) {
+		return (g.category_bits & collideBits) != 0 && !(staticOnly && g.body != null);
+	}
+
+	private static boolean enabled(DxGeom g) {
+		return g.GEOM_ENABLED(g);
+	}
+
+	/** Colliders of these geoms use scratch buffers stored in the geom. */
+	private static boolean needsLock(DxGeom g) {
+		return g instanceof DxAbstractHeightfield || g instanceof DxTriMesh;
+	}
+
+	/** Slab test of the segment [0, maxT] against the bounds. */
+	private static boolean rayOverlaps(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+			double ox, double oy, double oz, double dx, double dy, double dz,
+			double invX, double invY, double invZ, double maxT) {
+		double tNear = 0;
+		double tFar = maxT;
+		if (dx == 0) {
+			if (ox < minX || ox > maxX) {
+				return false;
+			}
+		} else {
+			double t1 = (minX - ox) * invX;
+			double t2 = (maxX - ox) * invX;
+			tNear = Math.max(tNear, Math.min(t1, t2));
+			tFar = Math.min(tFar, Math.max(t1, t2));
+			if (tNear > tFar) {
+				return false;
+			}
+		}
+		if (dy == 0) {
+			if (oy < minY || oy > maxY) {
+				return false;
+			}
+		} else {
+			double t1 = (minY - oy) * invY;
+			double t2 = (maxY - oy) * invY;
+			tNear = Math.max(tNear, Math.min(t1, t2));
+			tFar = Math.min(tFar, Math.max(t1, t2));
+			if (tNear > tFar) {
+				return false;
+			}
+		}
+		if (dz == 0) {
+			return oz >= minZ && oz <= maxZ;
+		}
+		double t1 = (minZ - oz) * invZ;
+		double t2 = (maxZ - oz) * invZ;
+		tNear = Math.max(tNear, Math.min(t1, t2));
+		tFar = Math.min(tFar, Math.max(t1, t2));
+		return tNear <= tFar;
+	}
+
+	private static int clampCell(double c, int min, int end) {
+		return (int) Math.max(min, Math.min(end - 1, c));
+	}
+
+	private void ensureWorkers(int n) {
+		if (workers.length >= n) {
+			return;
+		}
+		int old = workers.length;
+		workers = Arrays.copyOf(workers, n);
+		for (int w = old; w < n; w++) {
+			workers[w] = new Worker();
+		}
+	}
+}
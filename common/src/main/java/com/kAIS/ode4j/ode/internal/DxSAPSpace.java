@@ -27,6 +27,7 @@ package com.kAIS.ode4j.ode.internal;
 import static com.kAIS.ode4j.ode.internal.Common.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -88,6 +89,12 @@ public class DxSAPSpace extends DxSpace implements DSapSpace {
 	private int ax1id;
 	private int ax2id;
 
+	// incremental sweep and prune, null if disabled
+	private DxIncrementalSAP incremental = null;
+	// geoms that need a new incremental SAP proxy, inserted as one batch
+	private DxGeom[] newProxies = new DxGeom[0];
+	private int newProxyCount = 0;
+
 	// pruning position array scratch pad
 	// NOTE: this is float not dReal because of the OPCODE radix sorter
 	//private dArray< Float > poslist;
@@ -262,6 +269,10 @@ public class DxSAPSpace extends DxSpace implements DSapSpace {
 			GeomList.remove( geomSize-1 );
 		}
 
+		if ( g._sapProxyEx != GEOM_INVALID_IDX ) {
+			incremental.remove( g );
+		}
+
 		//g->tome_ex = 0;
 		g._qtIdxEx = null;
 		// dUASSERT((g->next_ex = 0, true), "Needed for an assertion check only");
@@ -328,6 +339,10 @@ public class DxSAPSpace extends DxSpace implements DSapSpace {
 			dIASSERT(!g.hasFlagAabbBad());
 			g.unsetFlagDirty();
 
+			if ( incremental != null ) {
+				updateProxy( g );
+			}
+
 			// remove from dirty list, add to geom list
 			GEOM_SET_DIRTY_IDX( g, GEOM_INVALID_IDX );
 			GEOM_SET_GEOM_IDX( g, geomSize + i );
@@ -336,6 +351,10 @@ public class DxSAPSpace extends DxSpace implements DSapSpace {
 		// clear dirty list
 		DirtyList.clear();
 
+		if ( newProxyCount > 0 ) {
+			insertNewProxies();
+		}
+
 		lock_count--;
 	}
 
@@ -353,6 +372,12 @@ public class DxSAPSpace extends DxSpace implements DSapSpace {
 		int geom_count = GeomList.size();
 		dUASSERT( geom_count == getNumGeoms(), "geom counts messed up" );
 
+		if ( incremental != null ) {
+			collideIncremental( data, callback );
+			lock_count--;
+			return;
+		}
+
 		// separate all ENABLED geoms into infinite AABBs and normal AABBs
 		TmpGeomList.clear();//setSize(0);
 		TmpInfGeomList.clear();
@@ -400,6 +425,95 @@ public class DxSAPSpace extends DxSpace implements DSapSpace {
 		lock_count--;
 	}
 
+	/**
+	 * Report the pairs of the incremental SAP, then the pairs with infinite
+	 * geoms (these are not part of the incremental SAP).
+	 */
+	private void collideIncremental( Object data, DNearCallback callback )
+	{
+		int pairCount = incremental.getPairCount();
+		for ( int i = 0; i < pairCount; ++i ) {
+			DxGeom g1 = incremental.getPairGeom0( i );
+			DxGeom g2 = incremental.getPairGeom1( i );
+			if ( GEOM_ENABLED(g1) && GEOM_ENABLED(g2) )
+				collideGeomsNoAABBs( g1, g2, data, callback );
+		}
+
+		int geom_count = GeomList.size();
+		TmpInfGeomList.clear();
+		for ( int i = 0; i < geom_count; ++i ) {
+			DxGeom g = GeomList.get(i);
+			if ( g._sapProxyEx == GEOM_INVALID_IDX && GEOM_ENABLED(g) )
+				TmpInfGeomList.add( g );
+		}
+
+		int infSize = TmpInfGeomList.size();
+		for ( int m = 0; m < infSize; ++m ) {
+			DxGeom g1 = TmpInfGeomList.get( m );
+			for ( int n = m+1; n < infSize; ++n ) {
+				collideGeomsNoAABBs( g1, TmpInfGeomList.get( n ), data, callback );
+			}
+			for ( int n = 0; n < geom_count; ++n ) {
+				DxGeom g2 = GeomList.get(n);
+				if ( g2._sapProxyEx != GEOM_INVALID_IDX && GEOM_ENABLED(g2) )
+					collideGeomsNoAABBs( g1, g2, data, callback );
+			}
+		}
+	}
+
+	/**
+	 * Update or remove the incremental SAP proxy of a geom after its AABB was
+	 * recomputed, or queue the geom for insertion. Geoms with infinite AABBs
+	 * have no proxy.
+	 */
+	private void updateProxy( DxGeom g )
+	{
+		boolean infinite = g._aabb.getMax(ax0id) == dInfinity;
+		if ( g._sapProxyEx == GEOM_INVALID_IDX ) {
+			if ( !infinite ) {
+				if ( newProxyCount == newProxies.length )
+					newProxies = Arrays.copyOf( newProxies, Math.max( 16, newProxyCount * 2 ) );
+				newProxies[newProxyCount++] = g;
+			}
+		} else if ( infinite ) {
+			incremental.remove( g );
+		} else {
+			incremental.update( g );
+		}
+	}
+
+	private void insertNewProxies()
+	{
+		incremental.insert( newProxies, newProxyCount );
+		Arrays.fill( newProxies, 0, newProxyCount, null );
+		newProxyCount = 0;
+	}
+
+	@Override
+	public void setIncremental( boolean enable )
+	{
+		CHECK_NOT_LOCKED(this);
+		if ( enable == (incremental != null) )
+			return;
+		if ( enable ) {
+			incremental = new DxIncrementalSAP( ax0id, ax1id, ax2id );
+			// dirty geoms are inserted by cleanGeoms()
+			for ( DxGeom g : GeomList ) {
+				updateProxy( g );
+			}
+			insertNewProxies();
+		} else {
+			incremental.clear();
+			incremental = null;
+		}
+	}
+
+	@Override
+	public boolean isIncremental()
+	{
+		return incremental != null;
+	}
+
 	//void dxSAPSpace::collide2( void *data, dxGeom *geom, dNearCallback *callback )
 	@Override
 	void collide2( Object data, DxGeom geom, DNearCallback callback )
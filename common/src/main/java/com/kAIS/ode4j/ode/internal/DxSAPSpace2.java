@@ -365,4 +365,18 @@ public class DxSAPSpace2 extends DxSpace implements DSapSpace {
             }
         }
     }
+
+    /**
+     * Not supported, this space keeps its own (partially) coherent sort order.
+     * Calls are ignored.
+     */
+    @Override
+    public void setIncremental(boolean incremental) {
+        // nothing
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return false;
+    }
 }
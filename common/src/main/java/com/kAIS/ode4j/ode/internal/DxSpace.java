@@ -194,7 +194,7 @@ public abstract class DxSpace extends DxGeom implements DSpace {
 	}
 
 
-	private static class DataCallback {
+	static class DataCallback {
 		Object data;
 		DNearCallback callback;
 		public DataCallback(Object data, DNearCallback callback) {
@@ -241,6 +241,10 @@ public abstract class DxSpace extends DxGeom implements DSpace {
 					// collide a space with itself -. interior collision
 					s1.collide (data,callback);
 				}
+				else if (s1 instanceof DxBVHSpace && s2 instanceof DxBVHSpace) {
+					// descend both trees together
+					((DxBVHSpace) s1).collideTree (data, (DxBVHSpace) s2, callback);
+				}
 				else {
 					// iterate through the space that has the fewest geoms, calling
 					// collide2 in the other space for each one.
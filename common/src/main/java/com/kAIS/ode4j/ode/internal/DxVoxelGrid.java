@@ -0,0 +1,136 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode.internal;
+
+import java.util.Arrays;
+
+import com.kAIS.ode4j.ode.DVoxelGrid;
+
+/**
+ * Implementation of {@link DVoxelGrid}: one bit per cell, x varies fastest.
+ */
+public class DxVoxelGrid implements DVoxelGrid {
+
+	private final double cellSize;
+	private int minX, minY, minZ;
+	private int sizeX, sizeY, sizeZ;
+	private long[] bits = new long[0];
+
+	public DxVoxelGrid(double cellSize) {
+		if (!(cellSize > 0)) {
+			throw new IllegalArgumentException("cellSize=" + cellSize);
+		}
+		this.cellSize = cellSize;
+	}
+
+	@Override
+	public void setBounds(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+		if (sizeX < 0 || sizeY < 0 || sizeZ < 0) {
+			throw new IllegalArgumentException("size=" + sizeX + "," + sizeY + "," + sizeZ);
+		}
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		this.sizeX = sizeX;
+		this.sizeY = sizeY;
+		this.sizeZ = sizeZ;
+		int words = (int) (((long) sizeX * sizeY * sizeZ + 63) >>> 6);
+		if (bits.length < words) {
+			bits = new long[words];
+		} else {
+			Arrays.fill(bits, 0L);
+		}
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(bits, 0L);
+	}
+
+	@Override
+	public void setSolid(int x, int y, int z, boolean solid) {
+		int i = index(x, y, z);
+		if (i < 0) {
+			return;
+		}
+		if (solid) {
+			bits[i >>> 6] |= 1L << i;
+		} else {
+			bits[i >>> 6] &= ~(1L << i);
+		}
+	}
+
+	@Override
+	public boolean isSolid(int x, int y, int z) {
+		int i = index(x, y, z);
+		return i >= 0 && (bits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	/** @return bit index of the cell, -1 outside the bounds */
+	private int index(int x, int y, int z) {
+		x -= minX;
+		y -= minY;
+		z -= minZ;
+		if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) {
+			return -1;
+		}
+		return (z * sizeY + y) * sizeX + x;
+	}
+
+	@Override
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	@Override
+	public int getMinX() {
+		return minX;
+	}
+
+	@Override
+	public int getMinY() {
+		return minY;
+	}
+
+	@Override
+	public int getMinZ() {
+		return minZ;
+	}
+
+	@Override
+	public int getSizeX() {
+		return sizeX;
+	}
+
+	@Override
+	public int getSizeY() {
+		return sizeY;
+	}
+
+	@Override
+	public int getSizeZ() {
+		return sizeZ;
+	}
+}
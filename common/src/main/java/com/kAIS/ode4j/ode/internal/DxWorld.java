@@ -29,9 +29,15 @@ import static com.kAIS.ode4j.ode.OdeMath.dCalcVectorDot3;
 import static com.kAIS.ode4j.ode.internal.Common.*;
 import static com.kAIS.ode4j.ode.internal.ErrorHandler.dMessage;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import com.kAIS.ode4j.math.DVector3;
 import com.kAIS.ode4j.math.DVector3C;
+import com.kAIS.ode4j.ode.DArticulation;
+import com.kAIS.ode4j.ode.DBody;
 import com.kAIS.ode4j.ode.DWorld;
+import com.kAIS.ode4j.ode.DWorldSnapshot;
 import com.kAIS.ode4j.ode.internal.Objects_H.dxAutoDisable;
 import com.kAIS.ode4j.ode.internal.Objects_H.dxContactParameters;
 import com.kAIS.ode4j.ode.internal.Objects_H.dxDampingParameters;
@@ -39,6 +45,7 @@ import com.kAIS.ode4j.ode.internal.Objects_H.dxQuickStepParameters;
 import com.kAIS.ode4j.ode.internal.cpp4j.java.Ref;
 import com.kAIS.ode4j.ode.internal.cpp4j.java.RefInt;
 import com.kAIS.ode4j.ode.internal.joints.DxJoint;
+import com.kAIS.ode4j.ode.internal.joints.DxJointNode;
 import com.kAIS.ode4j.ode.internal.processmem.DxIslandsProcessingCallContext;
 import com.kAIS.ode4j.ode.internal.processmem.DxStepWorkingMemory;
 import com.kAIS.ode4j.ode.internal.processmem.DxStepperProcessingCallContext.dmaxcallcountestimate_fn_t;
@@ -80,6 +87,11 @@ public class DxWorld extends DBase implements DWorld {
     private int islands_max_threads; // maximum threads to allocate for island processing
 	private int stepping_max_threads; // maximum threads to allocate for stepping each island
 	private int solving_max_threads; // maximum threads to allocate for solving equation systems
+	private boolean stepper_multithreading = Threading.ENABLE_STEPPER_MULTITHREADING;
+	private final DxContactCache contactCache = new DxContactCache(); // warm starting, see DxQuickStep
+	private final ArrayList<DxArticulation> articulations = new ArrayList<DxArticulation>(); // see DxArticulation
+	private boolean islandSleeping = false; // sleep whole islands instead of single bodies
+	private double motorActivityThreshold = 0.01; // joint motor activity that keeps an island awake
 	public DxStepWorkingMemory wmem; // Working memory object for dWorldStep/dWorldQuickStep
 
 	dxQuickStepParameters qs;
@@ -375,6 +387,7 @@ public class DxWorld extends DBase implements DWorld {
 
 	    boolean result = false;
 
+	    dxStepArticulations(stepsize);
 	    DxWorldProcessIslandsInfo islandsinfo = new DxWorldProcessIslandsInfo();
         if (DxWorldProcessContext.dxReallocateWorldProcessContext (this, islandsinfo, stepsize, 
         		Step.INSTANCE))//dxEstimateQuickStepMemoryRequirements))
@@ -385,6 +398,7 @@ public class DxWorld extends DBase implements DWorld {
                 result = true;
             }
 	    }
+	    dxCommitArticulations();
 	    return result;
 	}
 
@@ -394,6 +408,8 @@ public class DxWorld extends DBase implements DWorld {
 
 	    boolean result = false;
 
+	    qs.ResetStepStatistics();
+	    dxStepArticulations(stepsize);
 	    DxWorldProcessIslandsInfo islandsinfo = new DxWorldProcessIslandsInfo();
 	    if (DxWorldProcessContext.dxReallocateWorldProcessContext (this, islandsinfo, stepsize, 
 	            DxQuickStep.INSTANCE))//dxEstimateQuickStepMemoryRequirements))
@@ -404,9 +420,46 @@ public class DxWorld extends DBase implements DWorld {
 	        	result = true;
 	        }
 	    }
+	    dxCommitArticulations();
+	    if (qs.m_warmStarting) {
+	    	contactCache.record(this);
+	    }
 	    return result;
 	}
 
+	// Articulations need the force accumulators and contact joints of the
+	// step, so they run before the islands; their kinematic link bodies are
+	// integrated by the island steppers as well, so the poses are written
+	// afterwards.
+	private void dxStepArticulations(double stepsize)
+	{
+		for (int i = 0; i < articulations.size(); i++) {
+			articulations.get(i).step(stepsize);
+		}
+	}
+
+	private void dxCommitArticulations()
+	{
+		for (int i = 0; i < articulations.size(); i++) {
+			articulations.get(i).commit();
+		}
+	}
+
+	boolean isArticulated(DxBody b)
+	{
+		for (int i = 0; i < articulations.size(); i++) {
+			if (articulations.get(i).getLinkIndex(b) >= 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	void removeArticulation(DxArticulation a)
+	{
+		articulations.remove(a);
+	}
+
 	
 	private void dWorldImpulseToForce (double stepsize,
 			double ix, double iy, double iz,
@@ -603,79 +656,64 @@ public class DxWorld extends DBase implements DWorld {
 	/*extern */
 	//	void dWorldSetQuickStepDynamicIterationParameters(dWorldID w, const dReal *ptr_iteration_premature_exit_delta/*=NULL*/,
 	//    const dReal *ptr_max_num_extra_factor/*=NULL*/, const dReal *ptr_extra_iteration_requirement_delta/*=NULL*/)
-	//	void dWorldSetQuickStepDynamicIterationParameters(final double[] ptr_iteration_premature_exit_delta/*=NULL*/,
-	//    final double[] ptr_max_num_extra_factor/*=NULL*/, final double[] ptr_extra_iteration_requirement_delta/*=NULL*/)
-	//
-	//	{
-	//		// dAASSERT(w);
-	//		dAASSERT(ptr_iteration_premature_exit_delta != null || ptr_max_num_extra_factor != null || ptr_extra_iteration_requirement_delta != null);
-	//		dAASSERT(ptr_iteration_premature_exit_delta == null || *ptr_iteration_premature_exit_delta >= 0);
-	//		dAASSERT(ptr_max_num_extra_factor == null || *ptr_max_num_extra_factor >= 0);
-	//		dAASSERT(ptr_extra_iteration_requirement_delta == null || *ptr_extra_iteration_requirement_delta >= 0);
-	//
-	//		if (ptr_iteration_premature_exit_delta != null) {
-	//			this.qs.AssignPrematureExitDelta(Math.max(*ptr_iteration_premature_exit_delta, 0.0));
-	//		}
-	//
-	//		if (ptr_extra_iteration_requirement_delta != null) {
-	//			this.qs.AssignExtraIterationsRequirementDelta(Math.max(*ptr_extra_iteration_requirement_delta, 0.0));
-	//		}
-	//
-	//		if (ptr_max_num_extra_factor != null) {
-	//			this.qs.AssignMaxNumExtraFactor(Math.max(*ptr_max_num_extra_factor, 0.0));
-	//		}
-	//	}
+	private void dWorldSetQuickStepDynamicIterationParameters(final double[] ptr_iteration_premature_exit_delta/*=NULL*/,
+	    final double[] ptr_max_num_extra_factor/*=NULL*/, final double[] ptr_extra_iteration_requirement_delta/*=NULL*/)
+	{
+		dAASSERT(ptr_iteration_premature_exit_delta != null || ptr_max_num_extra_factor != null || ptr_extra_iteration_requirement_delta != null);
+		dAASSERT(ptr_iteration_premature_exit_delta == null || ptr_iteration_premature_exit_delta[0] >= 0);
+		dAASSERT(ptr_max_num_extra_factor == null || ptr_max_num_extra_factor[0] >= 0);
+		dAASSERT(ptr_extra_iteration_requirement_delta == null || ptr_extra_iteration_requirement_delta[0] >= 0);
+
+		if (ptr_iteration_premature_exit_delta != null) {
+			this.qs.AssignPrematureExitDelta(Math.max(ptr_iteration_premature_exit_delta[0], 0.0));
+		}
+
+		if (ptr_extra_iteration_requirement_delta != null) {
+			this.qs.AssignExtraIterationsRequirementDelta(Math.max(ptr_extra_iteration_requirement_delta[0], 0.0));
+		}
+
+		if (ptr_max_num_extra_factor != null) {
+			this.qs.AssignMaxNumExtraFactor(Math.max(ptr_max_num_extra_factor[0], 0.0));
+		}
+	}
 
 	/*extern */
 	//	void dWorldGetQuickStepDynamicIterationParameters(dWorldID w, dReal *out_iteration_premature_exit_delta/*=NULL*/,
 	//				  dReal *out_max_num_extra_factor/*=NULL*/, dReal *out_extra_iteration_requirement_delta/*=NULL*/)
-	//	void dWorldGetQuickStepDynamicIterationParameters(double[] out_iteration_premature_exit_delta/*=NULL*/,
-	//													  double[] out_max_num_extra_factor/*=NULL*/,
-	//													  double[] out_extra_iteration_requirement_delta/*=NULL*/)
-	//	{
-	//		// dAASSERT(w);
-	//		dAASSERT(out_iteration_premature_exit_delta != null || out_max_num_extra_factor != null || out_extra_iteration_requirement_delta != null);
-	//
-	//		if (out_iteration_premature_exit_delta != null) {
-	//        *out_iteration_premature_exit_delta = this.qs.GetPrematureExitDelta();
-	//		}
-	//
-	//		if (out_extra_iteration_requirement_delta != null) {
-	//        *out_extra_iteration_requirement_delta = this.qs.GetExtraIterationsRequirementDelta();
-	//		}
-	//
-	//		if (out_max_num_extra_factor != null) {
-	//        *out_max_num_extra_factor = this.qs.GetMaxNumExtraFactor();
-	//		}
-	//	}
+	private void dWorldGetQuickStepDynamicIterationParameters(double[] out_iteration_premature_exit_delta/*=NULL*/,
+													  double[] out_max_num_extra_factor/*=NULL*/,
+													  double[] out_extra_iteration_requirement_delta/*=NULL*/)
+	{
+		dAASSERT(out_iteration_premature_exit_delta != null || out_max_num_extra_factor != null || out_extra_iteration_requirement_delta != null);
+
+		if (out_iteration_premature_exit_delta != null) {
+			out_iteration_premature_exit_delta[0] = this.qs.GetPrematureExitDelta();
+		}
+
+		if (out_extra_iteration_requirement_delta != null) {
+			out_extra_iteration_requirement_delta[0] = this.qs.GetExtraIterationsRequirementDelta();
+		}
+
+		if (out_max_num_extra_factor != null) {
+			out_max_num_extra_factor[0] = this.qs.GetMaxNumExtraFactor();
+		}
+	}
 
 	/*extern */
 	//	int dWorldAttachQuickStepDynamicIterationStatisticsSink(dWorldID w,
 	//							dWorldQuickStepIterationCount_DynamicAdjustmentStatistics *var_stats/*=NULL*/)
-	//	boolean dWorldAttachQuickStepDynamicIterationStatisticsSink(
-	//							dWorldQuickStepIterationCount_DynamicAdjustmentStatistics var_stats/*=NULL*/)
-	//
-	//	{
-	//		// dAASSERT(w);
-	//		dAASSERT(var_stats == null || (var_stats.struct_size >= sizeof(*var_stats) && var_stats.struct_size % sizeof(duint32) == 0));
-	//		dSASSERT(sizeof(dWorldQuickStepIterationCount_DynamicAdjustmentStatistics) % sizeof(duint32) == 0);
-	//
-	//		boolean result = false;
-	//
-	//		if (var_stats != null) {
-	//			if (var_stats.struct_size >= sizeof(*var_stats) && var_stats.struct_size % sizeof(duint32) == 0) {
-	//
-	//				this.qs.AssignStatisticsSink(var_stats);
-	//				result = true;
-	//			}
-	//		}
-	//		else {
-	//			this.qs.ClearStatisticsSink();
-	//			result = true;
-	//		}
-	//
-	//		return result;
-	//	}
+	private boolean dWorldAttachQuickStepDynamicIterationStatisticsSink(
+							dWorldQuickStepIterationCount_DynamicAdjustmentStatistics var_stats/*=NULL*/)
+	{
+		// There is no struct_size to validate in Java, any instance is accepted.
+		if (var_stats != null) {
+			this.qs.AssignStatisticsSink(var_stats);
+		}
+		else {
+			this.qs.ClearStatisticsSink();
+		}
+		return true;
+	}
 
 
 	private void dWorldSetQuickStepW (double param)
@@ -825,8 +863,8 @@ public class DxWorld extends DBase implements DWorld {
 		int stepperAllowedThreadCount = this.calculatePerIslandSteppingMaxThreadCount();
 		int lcpAllowedThreadCount = this.calculatePerIslandSolvingMaxThreadCount();
 
-		callContext.SetStepperAllowedThreads(Threading.ENABLE_STEPPER_MULTITHREADING ? stepperAllowedThreadCount : 1,
-				Threading.ENABLE_STEPPER_MULTITHREADING ? lcpAllowedThreadCount : 1);
+		callContext.SetStepperAllowedThreads(stepper_multithreading ? stepperAllowedThreadCount : 1,
+				stepper_multithreading ? lcpAllowedThreadCount : 1);
 
 		final TaskGroup group = taskExecutor.group("World Islands Stepping Group", new Runnable() {
 			@Override
@@ -970,6 +1008,14 @@ public class DxWorld extends DBase implements DWorld {
 				}
 			}
 
+			// in island mode a joint motor that is driving the body keeps it
+			// awake even if the body itself barely moves (e.g. a robot
+			// pushing against the ground or holding a pose)
+			if ( idle && islandSleeping && isMotorActive(bb) )
+			{
+				idle = false;
+			}
+
 			// if it's idle, accumulate steps and time.
 			// these counters won't overflow because this code doesn't run for disabled bodies.
 			if (idle) {
@@ -982,8 +1028,9 @@ public class DxWorld extends DBase implements DWorld {
 				bb.adis_timeleft = bb.adis.idle_time;
 			}
 
-			// disable the body if it's idle for a long enough time
-			if ( bb.adis_stepsleft <= 0 && bb.adis_timeleft <= 0 )
+			// disable the body if it's idle for a long enough time; in island
+			// mode whole islands are put to sleep by the island builder instead
+			if ( !islandSleeping && bb.adis_stepsleft <= 0 && bb.adis_timeleft <= 0 )
 			{
 				bb.flags |= DxBody.dxBodyDisabled; // set the disable flag
 
@@ -1001,6 +1048,16 @@ public class DxWorld extends DBase implements DWorld {
 		}
 	}
 
+	private boolean isMotorActive (DxBody bb)
+	{
+		for (DxJointNode n = bb.firstjoint.get(); n != null; n = n.next) {
+			if (n.joint.getMotorActivity() > motorActivityThreshold) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	// ************************************************************
 	// API dWorld
 	// ************************************************************
@@ -1089,6 +1146,141 @@ public class DxWorld extends DBase implements DWorld {
 	public void setTaskExecutor(TaskExecutor executor) {
 		this.taskExecutor = executor;
 	}
+
+	@Override
+	public void setStepperMultithreading(boolean enable) {
+		stepper_multithreading = enable;
+	}
+
+	@Override
+	public boolean isStepperMultithreading() {
+		return stepper_multithreading;
+	}
+
+	/**
+	 * @return the contact cache if QuickStep warm starting is enabled, null otherwise.
+	 */
+	public DxContactCache getContactCache() {
+		return qs.m_warmStarting ? contactCache : null;
+	}
+
+	@Override
+	public void setQuickStepWarmStarting(boolean enable) {
+		if (enable == qs.m_warmStarting) {
+			return;
+		}
+		// joint lambdas are only maintained while warm starting is on
+		for (DxJoint j = firstjoint.get(); j != null; j = (DxJoint) j.getNext()) {
+			Arrays.fill(j.lambda, 0);
+		}
+		contactCache.clear();
+		qs.m_warmStarting = enable;
+	}
+
+	@Override
+	public boolean isQuickStepWarmStarting() {
+		return qs.m_warmStarting;
+	}
+
+	@Override
+	public void setQuickStepWarmStartingFactor(double factor) {
+		dUASSERT(factor >= 0 && factor <= 1, "warm starting factor must be in [0, 1]");
+		qs.m_warmStartingFactor = factor;
+	}
+
+	@Override
+	public double getQuickStepWarmStartingFactor() {
+		return qs.m_warmStartingFactor;
+	}
+
+	@Override
+	public void setQuickStepWarmStartingMatchDistance(double distance) {
+		dUASSERT(distance >= 0, "match distance must be >= 0");
+		contactCache.setMatchDistance(distance);
+	}
+
+	@Override
+	public double getQuickStepWarmStartingMatchDistance() {
+		return contactCache.getMatchDistance();
+	}
+
+	@Override
+	public void setQuickStepSinglePrecision(boolean enable) {
+		qs.m_singlePrecisionRows = enable;
+	}
+
+	@Override
+	public boolean isQuickStepSinglePrecision() {
+		return qs.m_singlePrecisionRows;
+	}
+
+	@Override
+	public void setIslandSleeping(boolean enable) {
+		if (!enable && islandSleeping) {
+			// don't leave bodies sleeping that single-body auto-disable would
+			// never have disabled
+			for (DxBody b = firstbody.get(); b != null; b = (DxBody) b.getNext()) {
+				if (b.dBodyIsSleeping()) {
+					b.dBodyWake();
+				}
+			}
+		}
+		islandSleeping = enable;
+	}
+
+	@Override
+	public boolean isIslandSleeping() {
+		return islandSleeping;
+	}
+
+	@Override
+	public void setAutoDisableMotorThreshold(double threshold) {
+		dUASSERT(threshold >= 0, "motor threshold must be >= 0");
+		motorActivityThreshold = threshold;
+	}
+
+	@Override
+	public double getAutoDisableMotorThreshold() {
+		return motorActivityThreshold;
+	}
+
+	@Override
+	public int getSleepingBodyCount() {
+		int n = 0;
+		for (DxBody b = firstbody.get(); b != null; b = (DxBody) b.getNext()) {
+			if ((b.flags & DxBody.dxBodySleeping) != 0) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	@Override
+	public DWorldSnapshot createSnapshot(DBody... bodies) {
+		DxBody[] bs;
+		if (bodies == null || bodies.length == 0) {
+			bs = new DxBody[nb];
+			int i = 0;
+			for (DxBody b = firstbody.get(); b != null; b = (DxBody) b.getNext()) {
+				bs[i++] = b;
+			}
+		} else {
+			bs = new DxBody[bodies.length];
+			for (int i = 0; i < bodies.length; i++) {
+				bs[i] = (DxBody) bodies[i];
+			}
+		}
+		DxWorldSnapshot snapshot = new DxWorldSnapshot(this, bs);
+		snapshot.capture();
+		return snapshot;
+	}
+
+	@Override
+	public DArticulation createArticulation(DBody root) {
+		DxArticulation a = new DxArticulation(this, (DxBody) root);
+		articulations.add(a);
+		return a;
+	}
 	@Override
 	public void setGravity (double x, double y, double z)
 	{ dWorldSetGravity (x,y,z); }
@@ -1128,6 +1320,28 @@ public class DxWorld extends DBase implements DWorld {
 	public int getQuickStepNumIterations() 
 	{ return dWorldGetQuickStepNumIterations (); }
 	@Override
+	public void setQuickStepDynamicIterationParameters(double[] ptr_iteration_premature_exit_delta,
+			double[] ptr_max_num_extra_factor, double[] ptr_extra_iteration_requirement_delta)
+	{ dWorldSetQuickStepDynamicIterationParameters (ptr_iteration_premature_exit_delta, ptr_max_num_extra_factor,
+			ptr_extra_iteration_requirement_delta); }
+	@Override
+	public void getQuickStepDynamicIterationParameters(double[] out_iteration_premature_exit_delta,
+			double[] out_max_num_extra_factor, double[] out_extra_iteration_requirement_delta)
+	{ dWorldGetQuickStepDynamicIterationParameters (out_iteration_premature_exit_delta, out_max_num_extra_factor,
+			out_extra_iteration_requirement_delta); }
+	@Override
+	public boolean attachQuickStepDynamicIterationStatisticsSink(dWorldQuickStepIterationCount_DynamicAdjustmentStatistics var_stats)
+	{ return dWorldAttachQuickStepDynamicIterationStatisticsSink (var_stats); }
+	@Override
+	public int getQuickStepLastIterationCount()
+	{ return qs.GetStepIterationsMax(); }
+	@Override
+	public int getQuickStepLastTotalIterationCount()
+	{ return qs.GetStepIterationsTotal(); }
+	@Override
+	public double getQuickStepLastMaxAdjustment()
+	{ return qs.GetIsDynamicIterationCountAdjustmentEnabled() ? qs.GetStepMaxAdjustment() : Double.NaN; }
+	@Override
 	public void setQuickStepW(double over_relaxation)
 	{ dWorldSetQuickStepW (over_relaxation); }
 	@Override
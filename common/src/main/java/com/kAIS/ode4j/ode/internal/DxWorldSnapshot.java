@@ -0,0 +1,253 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import com.kAIS.ode4j.math.DMatrix3;
+import com.kAIS.ode4j.math.DQuaternion;
+import com.kAIS.ode4j.math.DVector3;
+import com.kAIS.ode4j.ode.DWorldSnapshot;
+import com.kAIS.ode4j.ode.internal.joints.DxJoint;
+import com.kAIS.ode4j.ode.internal.joints.DxJointContact;
+import com.kAIS.ode4j.ode.internal.joints.DxJointNode;
+
+/**
+ * Flat-buffer implementation of {@link DWorldSnapshot}.
+ * <p>
+ * Body state is stored with a fixed stride in one double[] and one int[],
+ * joint lambdas in a second double[]. Contact joints are skipped, they are
+ * recreated every step anyway.
+ */
+public class DxWorldSnapshot implements DWorldSnapshot {
+
+	// double layout per body
+	private static final int D_POS = 0;
+	private static final int D_R = 3;
+	private static final int D_Q = 12;
+	private static final int D_LVEL = 16;
+	private static final int D_AVEL = 19;
+	private static final int D_FACC = 22;
+	private static final int D_TACC = 25;
+	private static final int D_ADIS_TIME = 28;
+	private static final int D_STRIDE = 29;
+
+	// int layout per body
+	private static final int I_FLAGS = 0;
+	private static final int I_ADIS_STEPS = 1;
+	private static final int I_STRIDE = 2;
+
+	private static final int LAMBDA_STRIDE = 6;
+
+	private final DxWorld world;
+	private final DxBody[] bodies;
+	private final Set<DxBody> bodySet;
+	private final double[] bodyD;
+	private final int[] bodyI;
+
+	private DxJoint[] joints = new DxJoint[0];
+	private int jointCount = 0;
+	private double[] lambdas = new double[0];
+
+	private long rngSeed;
+	private boolean captured = false;
+
+	DxWorldSnapshot(DxWorld world, DxBody[] bodies) {
+		this.world = world;
+		this.bodies = bodies;
+		this.bodySet = Collections.newSetFromMap(new IdentityHashMap<>(bodies.length * 2));
+		for (DxBody b : bodies) {
+			if (b.world != world) {
+				throw new IllegalArgumentException("Body does not belong to this world.");
+			}
+			bodySet.add(b);
+		}
+		this.bodyD = new double[bodies.length * D_STRIDE];
+		this.bodyI = new int[bodies.length * I_STRIDE];
+	}
+
+	@Override
+	public void capture() {
+		checkBodies();
+		for (int i = 0; i < bodies.length; i++) {
+			DxBody b = bodies[i];
+			int d = i * D_STRIDE;
+			int n = i * I_STRIDE;
+			put3(bodyD, d + D_POS, b._posr.pos);
+			DMatrix3 R = b._posr.Rw();
+			for (int k = 0; k < DMatrix3.LEN; k++) {
+				bodyD[d + D_R + k] = R.get(k);
+			}
+			DQuaternion q = b._q;
+			bodyD[d + D_Q] = q.get0();
+			bodyD[d + D_Q + 1] = q.get1();
+			bodyD[d + D_Q + 2] = q.get2();
+			bodyD[d + D_Q + 3] = q.get3();
+			put3(bodyD, d + D_LVEL, b.lvel);
+			put3(bodyD, d + D_AVEL, b.avel);
+			put3(bodyD, d + D_FACC, b.facc);
+			put3(bodyD, d + D_TACC, b.tacc);
+			bodyD[d + D_ADIS_TIME] = b.adis_timeleft;
+			bodyI[n + I_FLAGS] = b.flags;
+			bodyI[n + I_ADIS_STEPS] = b.adis_stepsleft;
+		}
+
+		jointCount = 0;
+		for (DxBody b : bodies) {
+			for (DxJointNode node = b.firstjoint.get(); node != null; node = node.next) {
+				if (isOwnedBy(node)) {
+					appendJoint(node.joint);
+				}
+			}
+		}
+
+		rngSeed = Misc.dRandGetSeed();
+		captured = true;
+	}
+
+	@Override
+	public void restore() {
+		if (!captured) {
+			throw new IllegalStateException("Snapshot has not been captured.");
+		}
+		checkBodies();
+		for (int i = 0; i < bodies.length; i++) {
+			DxBody b = bodies[i];
+			int d = i * D_STRIDE;
+			int n = i * I_STRIDE;
+			get3(bodyD, d + D_POS, b._posr.pos);
+			DMatrix3 R = b._posr.Rw();
+			R.set00(bodyD[d + D_R]);     R.set01(bodyD[d + D_R + 1]); R.set02(bodyD[d + D_R + 2]);
+			R.set10(bodyD[d + D_R + 3]); R.set11(bodyD[d + D_R + 4]); R.set12(bodyD[d + D_R + 5]);
+			R.set20(bodyD[d + D_R + 6]); R.set21(bodyD[d + D_R + 7]); R.set22(bodyD[d + D_R + 8]);
+			b._q.set(bodyD[d + D_Q], bodyD[d + D_Q + 1], bodyD[d + D_Q + 2], bodyD[d + D_Q + 3]);
+			get3(bodyD, d + D_LVEL, b.lvel);
+			get3(bodyD, d + D_AVEL, b.avel);
+			get3(bodyD, d + D_FACC, b.facc);
+			get3(bodyD, d + D_TACC, b.tacc);
+			b.adis_timeleft = bodyD[d + D_ADIS_TIME];
+			b.flags = bodyI[n + I_FLAGS];
+			b.adis_stepsleft = bodyI[n + I_ADIS_STEPS];
+			b.average_counter = 0;
+			b.average_ready = 0;
+
+			for (DxGeom g = b.geom; g != null; g = g.dGeomGetBodyNext()) {
+				g.dGeomMoved();
+			}
+		}
+
+		// Lambdas are warm-start data only: restore where the joint list still
+		// matches, clear where it does not.
+		int j = 0;
+		for (DxBody b : bodies) {
+			for (DxJointNode node = b.firstjoint.get(); node != null; node = node.next) {
+				if (!isOwnedBy(node)) {
+					continue;
+				}
+				DxJoint joint = node.joint;
+				if (j < jointCount && joints[j] == joint) {
+					System.arraycopy(lambdas, j * LAMBDA_STRIDE, joint.lambda, 0, LAMBDA_STRIDE);
+				} else {
+					Arrays.fill(joint.lambda, 0);
+				}
+				j++;
+			}
+		}
+
+		Misc.dRandSetSeed(rngSeed);
+
+		// Cached contact impulses belong to the state that was replaced
+		DxContactCache cache = world.getContactCache();
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Every joint is visited once: from the list of its first body, or from
+	 * its second body if the first one is not part of this snapshot.
+	 */
+	private boolean isOwnedBy(DxJointNode node) {
+		DxJoint joint = node.joint;
+		if (joint instanceof DxJointContact) {
+			return false;
+		}
+		if (node == joint.node[1]) {
+			return true; // we are in the list of body 1
+		}
+		DxBody body1 = joint.node[0].body;
+		return body1 == null || !bodySet.contains(body1);
+	}
+
+	private void appendJoint(DxJoint joint) {
+		if (jointCount == joints.length) {
+			int cap = Math.max(8, jointCount * 2);
+			joints = Arrays.copyOf(joints, cap);
+			lambdas = Arrays.copyOf(lambdas, cap * LAMBDA_STRIDE);
+		}
+		joints[jointCount] = joint;
+		System.arraycopy(joint.lambda, 0, lambdas, jointCount * LAMBDA_STRIDE, LAMBDA_STRIDE);
+		jointCount++;
+	}
+
+	private void checkBodies() {
+		if (!isValid()) {
+			throw new IllegalStateException("A body of this snapshot has been destroyed.");
+		}
+	}
+
+	@Override
+	public boolean isValid() {
+		for (DxBody b : bodies) {
+			if (b.world != world) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int getBodyCount() {
+		return bodies.length;
+	}
+
+	@Override
+	public int getJointCount() {
+		return jointCount;
+	}
+
+	private static void put3(double[] a, int ofs, DVector3 v) {
+		a[ofs] = v.get0();
+		a[ofs + 1] = v.get1();
+		a[ofs + 2] = v.get2();
+	}
+
+	private static void get3(double[] a, int ofs, DVector3 v) {
+		v.set(a[ofs], a[ofs + 1], a[ofs + 2]);
+	}
+}
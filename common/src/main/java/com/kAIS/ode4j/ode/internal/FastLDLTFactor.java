@@ -52,6 +52,16 @@ class FastLDLTFactor {
 
     //    template<unsigned int d_stride>
     public static void factorMatrixAsLDLT(double[] A, double[] d, int rowCount, int rowSkip, int d_stride) {
+        if (rowCount >= BlockedLDLTFactor.MIN_ROWS) {
+            BlockedLDLTFactor.factorMatrixAsLDLT(A, d, rowCount, rowSkip, d_stride);
+        } else {
+            factorMatrixAsLDLTRows(A, d, rowCount, rowSkip, d_stride);
+        }
+    }
+
+    /** Row-by-row factorization, see {@link BlockedLDLTFactor} for large matrices. */
+    //    template<unsigned int d_stride>
+    static void factorMatrixAsLDLTRows(double[] A, double[] d, int rowCount, int rowSkip, int d_stride) {
         if (rowCount < 1) return;
 
         final int lastRowIndex = rowCount - 1;
@@ -232,7 +242,7 @@ class FastLDLTFactor {
     }
 
     //template<unsigned int d_stride>
-    private static void scaleAndFactorizeL1Stripe_2(double[] ARow, int aPos, double[] d, int factorizationRow, int rowSkip, int d_stride) {
+    static void scaleAndFactorizeL1Stripe_2(double[] ARow, int aPos, double[] d, int factorizationRow, int rowSkip, int d_stride) {
         dIASSERT(factorizationRow != 0);
         dIASSERT(factorizationRow % 2 == 0);
 
@@ -349,7 +359,7 @@ class FastLDLTFactor {
     }
 
     //template<unsigned int d_stride>
-    private static void scaleAndFactorizeL1FirstRowStripe_2(double[] ARow, int aPos, double[] d, int rowSkip, int d_stride) {
+    static void scaleAndFactorizeL1FirstRowStripe_2(double[] ARow, int aPos, double[] d, int rowSkip, int d_stride) {
         int ptrAElement = aPos; //ARow;
         double[] ptrDElement = d;
 
@@ -494,7 +504,7 @@ class FastLDLTFactor {
     }
 
     //template<unsigned int d_stride>
-    private static void scaleAndFactorizeL1Stripe_1(double[] ARow, int APos, double[] d, int factorizationRow, int d_stride) {
+    static void scaleAndFactorizeL1Stripe_1(double[] ARow, int APos, double[] d, int factorizationRow, int d_stride) {
         int ptrAElement = APos;//ARow;
         int ptrDElement = 0;//d;
 
@@ -564,7 +574,7 @@ class FastLDLTFactor {
     }
 
     //template<unsigned int d_stride>
-    private static void scaleAndFactorizeL1FirstRowStripe_1(double[] ARow, int APos, double[] d, int d_stride) {
+    static void scaleAndFactorizeL1FirstRowStripe_1(double[] ARow, int APos, double[] d, int d_stride) {
         int ptrAElement = APos; //ARow;
         double[] ptrDElement = d;
 
@@ -31,6 +31,7 @@ import com.kAIS.ode4j.math.DVector3C;
 import com.kAIS.ode4j.ode.DWorld;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *  object, body, and world structures.
@@ -131,6 +132,9 @@ public class Objects_H {
 			m_statistics = m_internal_statistics; //(&m_internal_statistics),
 // TODO (TZ) remove	    	num_iterations = 20;
 	    	w = 1.3;
+	    	m_warmStarting = false;
+	    	m_warmStartingFactor = 0.7;
+	    	m_singlePrecisionRows = false;
 
 			// std::copy(g_QuickStepParameters_marginalDeltaValuesInitializer, g_QuickStepParameters_marginalDeltaValuesInitializer + dARRAY_SIZE(g_QuickStepParameters_marginalDeltaValuesInitializer), m_marginalDeltaValues);
 			m_marginalDeltaValues = g_QuickStepParameters_marginalDeltaValuesInitializer.clone();
@@ -184,7 +188,7 @@ public class Objects_H {
 		public boolean GetIsDynamicIterationCountAdjustmentEnabled() { return m_dynamicIterationCountAdjustmentEnabled; }
 
 		public void AssignStatisticsSink(DWorld.dWorldQuickStepIterationCount_DynamicAdjustmentStatistics statistics) { m_statistics = statistics; }
-		public void ClearStatisticsSink() { m_statistics.set(m_internal_statistics); }
+		public void ClearStatisticsSink() { m_statistics = m_internal_statistics; }
 
 		public AtomicInteger GetStatisticsIterationCountStorage() {
 			// dSASSERT(sizeof(atomicord32) == membersize(dWorldQuickStepIterationCount_DynamicAdjustmentStatistics, iteration_count));
@@ -199,6 +203,25 @@ public class Objects_H {
 			// dSASSERT(sizeof(atomicord32) == membersize(dWorldQuickStepIterationCount_DynamicAdjustmentStatistics, full_extra_execs));
 			return m_statistics.full_extra_execs; }
 
+		/** Called at the start of every QuickStep, before the islands are processed. */
+		public void ResetStepStatistics() {
+			m_stepIterationsMax.set(0);
+			m_stepIterationsTotal.set(0);
+			m_stepMaxAdjustmentBits.set(Double.doubleToRawLongBits(0.0));
+		}
+
+		/** Called once per island; islands may be stepped concurrently. */
+		public void RecordStepStatistics(int iterationCount, double maxAdjustment) {
+			m_stepIterationsMax.accumulateAndGet(iterationCount, Math::max);
+			m_stepIterationsTotal.addAndGet(iterationCount);
+			m_stepMaxAdjustmentBits.accumulateAndGet(Double.doubleToRawLongBits(maxAdjustment),
+					(a, b) -> Double.doubleToRawLongBits(Math.max(Double.longBitsToDouble(a), Double.longBitsToDouble(b))));
+		}
+
+		public int GetStepIterationsMax() { return m_stepIterationsMax.get(); }
+		public int GetStepIterationsTotal() { return m_stepIterationsTotal.get(); }
+		public double GetStepMaxAdjustment() { return Double.longBitsToDouble(m_stepMaxAdjustmentBits.get()); }
+
 		// private:
 		private static int DeriveExtraIterationCount(int iterationCount, double extraIterationCountFactor)
 		{
@@ -222,10 +245,18 @@ public class Objects_H {
 		public boolean m_dynamicIterationCountAdjustmentEnabled;
 		public DWorld.dWorldQuickStepIterationCount_DynamicAdjustmentStatistics m_statistics; // Adjustment statistics (the internal one or an externally assigned)
 		public double w;                               // the SOR over-relaxation parameter
+		public boolean m_warmStarting;                 // start the LCP from the lambdas of the previous step
+		public double m_warmStartingFactor;            // scale applied to those lambdas
+		public boolean m_singlePrecisionRows;          // keep the packed SOR rows as float
 
 		// private:
 		// The internal statistics is used to not have to check m_statistics for NULL; the local instance is used instead of a global one to avoid cache line conflicts between different threads possibly serving separate worlds.
 		private final DWorld.dWorldQuickStepIterationCount_DynamicAdjustmentStatistics m_internal_statistics = new DWorld.dWorldQuickStepIterationCount_DynamicAdjustmentStatistics();
+		// Statistics of the last QuickStep call: largest and summed iteration count of all islands, and the largest
+		// force adjustment of the final iteration of any island (stored as raw double bits).
+		private final AtomicInteger m_stepIterationsMax = new AtomicInteger();
+		private final AtomicInteger m_stepIterationsTotal = new AtomicInteger();
+		private final AtomicLong m_stepMaxAdjustmentBits = new AtomicLong();
 	}
 
 
@@ -400,5 +400,17 @@ public class OdeFactoryImpl {
 		return false;
 	}
 
+	public long _dLibCCDGetQueryCount() {
+		return CollisionLibccd.getQueryCount();
+	}
+
+	public long _dLibCCDGetCacheHitCount() {
+		return CollisionLibccd.getSeparationCacheHits();
+	}
+
+	public void _dLibCCDResetStatistics() {
+		CollisionLibccd.resetStatistics();
+	}
+
 	public OdeFactoryImpl() {}
 }
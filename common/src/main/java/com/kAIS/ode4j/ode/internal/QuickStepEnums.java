@@ -203,6 +203,28 @@ class QuickStepEnums {
 		dSASSERT(FAE__MAX == 2);
 	}
 
+	// dxPackedSORRowElement: a Jacobian row (with rhs, cfm, lo and hi) followed by
+	// its invM*J' row, copied in solving order for the single threaded SOR sweep
+	public static final int PSE__MIN = 0;
+	public static final int PSE__J_MIN = PSE__MIN;
+	public static final int PSE__J_MAX = PSE__J_MIN + JME__MAX;
+	public static final int PSE__IMJ_MIN = PSE__J_MAX;
+	public static final int PSE__IMJ_MAX = PSE__IMJ_MIN + IMJ__MAX;
+	public static final int PSE__MAX = 32; // rows start on a 256 byte boundary, i.e. each row is four whole cache lines
+
+	// dxPackedSORRowInfoElement
+	public static final int PSI__MIN = 0;
+	public static final int PSI_INDEX = PSI__MIN;
+	public static final int PSI_B1 = PSI_INDEX + 1;
+	public static final int PSI_B2 = PSI_B1 + 1;
+	public static final int PSI_FINDEX = PSI_B2 + 1;
+	public static final int PSI__MAX = PSI_FINDEX + 1;
+
+	static {
+		dSASSERT(PSE__IMJ_MAX <= PSE__MAX);
+		dSASSERT(((PSE__MAX - 1) & PSE__MAX) == 0);
+	}
+
 	// dxRHSElement
 	public static final int RHS__MIN = 0;
 	public static final int RHS__DYNAMICS_MIN = RHS__MIN;
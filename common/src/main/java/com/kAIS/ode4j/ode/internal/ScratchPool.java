@@ -0,0 +1,181 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine, Copyright (C) 2001,2002 Russell L. Smith.       *
+ * All rights reserved.  Email: russ@q12.org   Web: www.q12.org          *
+ * Open Dynamics Engine 4J, Copyright (C) 2009-2014 Tilmann Zaeschke     *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode.internal;
+
+import java.util.Arrays;
+
+import com.kAIS.ode4j.math.DMatrix3;
+import com.kAIS.ode4j.math.DQuaternion;
+import com.kAIS.ode4j.math.DVector3;
+
+/**
+ * Per-thread stack of temporary {@link DVector3}, {@link DMatrix3},
+ * {@link DQuaternion} and small double[] objects for hot collision and
+ * stepping code, so that per-contact or per-body temporaries do not have to
+ * be allocated.
+ * <p>
+ * Usage:
+ * <pre>
+ * ScratchPool pool = ScratchPool.get();
+ * pool.push();
+ * try {
+ *     DVector3 a = pool.vector();
+ *     ...
+ * } finally {
+ *     pool.pop();
+ * }
+ * </pre>
+ * Objects returned between {@code push()} and {@code pop()} are zeroed like
+ * freshly allocated ones and are owned by the caller until the matching
+ * {@code pop()}; they must not be stored or handed to other threads. Frames
+ * nest, so a method using the pool may call other methods using it.
+ * The pool grows to the largest nesting depth seen and never shrinks.
+ */
+public final class ScratchPool {
+
+	private static final ThreadLocal<ScratchPool> POOL = new ThreadLocal<ScratchPool>() {
+		@Override
+		protected ScratchPool initialValue() {
+			return new ScratchPool();
+		}
+	};
+
+	/**
+	 * @return The pool of the calling thread.
+	 */
+	public static ScratchPool get() {
+		return POOL.get();
+	}
+
+	private DVector3[] vectors = new DVector3[32];
+	private DMatrix3[] matrices = new DMatrix3[8];
+	private DQuaternion[] quaternions = new DQuaternion[8];
+	private double[][] arrays = new double[16][];
+	private int vectorTop, matrixTop, quaternionTop, arrayTop;
+
+	// saved tops, 4 per frame
+	private int[] frames = new int[4 * 8];
+	private int frameTop;
+
+	private ScratchPool() {}
+
+	/**
+	 * Open a new frame. Every push() must be matched by a pop().
+	 */
+	public void push() {
+		if (frameTop + 4 > frames.length) {
+			frames = Arrays.copyOf(frames, frames.length * 2);
+		}
+		frames[frameTop++] = vectorTop;
+		frames[frameTop++] = matrixTop;
+		frames[frameTop++] = quaternionTop;
+		frames[frameTop++] = arrayTop;
+	}
+
+	/**
+	 * Close the current frame and release all objects obtained in it.
+	 */
+	public void pop() {
+		if (frameTop == 0) {
+			throw new IllegalStateException("ScratchPool.pop() without push()");
+		}
+		arrayTop = frames[--frameTop];
+		quaternionTop = frames[--frameTop];
+		matrixTop = frames[--frameTop];
+		vectorTop = frames[--frameTop];
+	}
+
+	/**
+	 * @return Zeroed vector, valid until the current frame is popped.
+	 */
+	public DVector3 vector() {
+		if (vectorTop == vectors.length) {
+			vectors = Arrays.copyOf(vectors, vectors.length * 2);
+		}
+		DVector3 v = vectors[vectorTop];
+		if (v == null) {
+			v = vectors[vectorTop] = new DVector3();
+		} else {
+			v.setZero();
+		}
+		vectorTop++;
+		return v;
+	}
+
+	/**
+	 * @return Zeroed matrix, valid until the current frame is popped.
+	 */
+	public DMatrix3 matrix() {
+		if (matrixTop == matrices.length) {
+			matrices = Arrays.copyOf(matrices, matrices.length * 2);
+		}
+		DMatrix3 m = matrices[matrixTop];
+		if (m == null) {
+			m = matrices[matrixTop] = new DMatrix3();
+		} else {
+			m.setZero();
+		}
+		matrixTop++;
+		return m;
+	}
+
+	/**
+	 * @return Zeroed quaternion, valid until the current frame is popped.
+	 */
+	public DQuaternion quaternion() {
+		if (quaternionTop == quaternions.length) {
+			quaternions = Arrays.copyOf(quaternions, quaternions.length * 2);
+		}
+		DQuaternion q = quaternions[quaternionTop];
+		if (q == null) {
+			q = quaternions[quaternionTop] = new DQuaternion();
+		} else {
+			q.setZero();
+		}
+		quaternionTop++;
+		return q;
+	}
+
+	/**
+	 * Arrays are cached per stack slot with their exact length, so this only
+	 * avoids allocation if the same code path asks for the same lengths in
+	 * the same order, which is the case for fixed size temporaries.
+	 * @param length array length
+	 * @return Zeroed array, valid until the current frame is popped.
+	 */
+	public double[] doubles(int length) {
+		if (arrayTop == arrays.length) {
+			arrays = Arrays.copyOf(arrays, arrays.length * 2);
+		}
+		double[] a = arrays[arrayTop];
+		if (a == null || a.length != length) {
+			a = arrays[arrayTop] = new double[length];
+		} else {
+			Arrays.fill(a, 0);
+		}
+		arrayTop++;
+		return a;
+	}
+}
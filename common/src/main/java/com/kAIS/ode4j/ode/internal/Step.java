@@ -603,8 +603,7 @@ dmaxcallcountestimate_fn_t {
 		int nb = callContext.m_islandBodiesCount();
 		int _nj = callContext.m_islandJointsCount();
 
-		memarena.dummy();
-		double[] invI = new double[dM3E__MAX * nb];//memarena.AllocateArray<dReal> (3*4*(size_t)nb);
+		double[] invI = memarena.AllocateArrayDReal(dM3E__MAX * nb);//memarena.AllocateArray<dReal> (3*4*(size_t)nb);
 		// Reserve twice as much memory and start from the middle so that regardless of 
 		// what direction the array grows to there would be sufficient room available.
 		final int ji_reserve_count = 2 * _nj;
@@ -1089,8 +1088,7 @@ dmaxcallcountestimate_fn_t {
 		// if there are constraints, compute constrForce
 		if (m > 0) {
 			//mindex = memarena->AllocateArray<unsigned int>((size_t)(nj + 1));
-			memarena.dummy();
-			mindex = new int[nj + 1];
+			mindex = memarena.AllocateArrayInt(nj + 1);
 			{
 				//unsigned int *mcurr = mindex;
 				int[] mcurrA = mindex;
@@ -24,6 +24,11 @@
 package com.kAIS.ode4j.ode.internal.aabbtree;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kAIS.ode4j.ode.threading.task.Task;
+import com.kAIS.ode4j.ode.threading.task.TaskExecutor;
+import com.kAIS.ode4j.ode.threading.task.TaskGroup;
 
 /*
  * Based on https://github.com/turbulenz/turbulenz_engine/blob/master/tslib/aabbtree.ts
@@ -32,6 +37,15 @@ public class AABBTree<T> {
 
     public static final int UNDEFINED_INDEX = -1;
     private static final int FREE_NODES_POOL_SIZE = 100;
+    /** Minimum size of the refit range before the refit is run in parallel. */
+    static final int PARALLEL_REFIT_MIN_NODES = 4096;
+    /**
+     * Maximum size of the subtrees refitted by one task. It does not depend
+     * on the thread count, so neither do the tree rotations.
+     */
+    static final int PARALLEL_REFIT_GRAIN = 1024;
+    /** SAH mode: rebuild when the normalized cost grew by this factor since the last build. */
+    static final double SAH_REBUILD_RATIO = 1.3;
 
     private final ExternalObjectHandler<T> externalObjectHandler;
     private final int numNodesLeaf;
@@ -50,6 +64,27 @@ public class AABBTree<T> {
     private boolean highQuality;
     private int nodesStack[];
 
+    // SAH mode
+    private boolean sahBuild;
+    private SAHSort sahSort;
+    private double internalArea;
+    private double builtCost;
+    private int[] refitNodes = new int[32];
+    private int numRefitNodes;
+    private boolean[] refitChanged = new boolean[0];
+    private AABBTreeNode<T>[] rotateNodes;
+
+    // parallel refit
+    private TaskExecutor executor;
+    private int[] refitTops = new int[16];
+    private int[] refitTasks = new int[16];
+    private double[] refitTaskArea = new double[16];
+    private int numRefitTasks;
+    private final AtomicInteger nextRefitTask = new AtomicInteger();
+
+    // tree-vs-tree query
+    private int[] pairStack = new int[64];
+
     @SuppressWarnings("unchecked")
     public AABBTree(ExternalObjectHandler<T> externalObjectHandler, int numNodesLeaf, boolean highQuality, double fatAabbMargin) {
         this.externalObjectHandler = externalObjectHandler;
@@ -62,6 +97,50 @@ public class AABBTree<T> {
         nodes = (AABBTreeNode<T>[]) new AABBTreeNode<?>[FREE_NODES_POOL_SIZE];
     }
 
+    /**
+     * Enable or disable the binned SAH build. In SAH mode the tree is kept
+     * up to date by refit and tree rotations. It is rebuilt after adds or
+     * removes, or when its SAH cost grew by {@link #SAH_REBUILD_RATIO} since
+     * the last build. The change takes effect with the next
+     * {@link #finalizeUpdate()}.
+     */
+    public void setSAHBuild(boolean sahBuild) {
+        if (this.sahBuild != sahBuild) {
+            this.sahBuild = sahBuild;
+            if (numExternalNodes > 1) {
+                needsRebuild = true;
+                numAdds++;
+            }
+        }
+    }
+
+    public boolean isSAHBuild() {
+        return sahBuild;
+    }
+
+    /**
+     * Executor for the parallel refit, used when more than
+     * {@link #PARALLEL_REFIT_MIN_NODES} nodes have to be refitted.
+     * The result does not depend on the number of threads.
+     * @param executor executor or null for a serial refit
+     */
+    public void setTaskExecutor(TaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return SAH cost of the tree: sum of the surface areas of all internal
+     * nodes divided by the surface area of the root, 0 if the root is
+     * unbounded.
+     */
+    public double getSAHCost() {
+        if (endNode <= 1 || needsRebuild) {
+            return 0;
+        }
+        double rootArea = costArea(area(nodes[0]));
+        return rootArea > 0 ? computeInternalArea() / rootArea : 0;
+    }
+
     private void allocateNodes(int size) {
         if (nodes.length < size + FREE_NODES_POOL_SIZE) {
             nodes = Arrays.copyOf(nodes, size + FREE_NODES_POOL_SIZE);
@@ -156,8 +235,9 @@ public class AABBTree<T> {
                                 needsRebound = true;
                             }
                         }
-                    } else {
+                    } else if (!sahBuild) {
                         // force a rebuild when things change too much
+                        // (SAH mode checks the tree cost in finalizeUpdate())
                         if (numUpdates > (3 * numExternalNodes)) {
                             needsRebuild = true;
                             numAdds = numUpdates;
@@ -171,7 +251,7 @@ public class AABBTree<T> {
                             endUpdate = index;
                         }
                         // force a rebuild when things change too much
-                        if (2 * (endUpdate - startUpdate) > endNode) {
+                        if (!sahBuild && 2 * (endUpdate - startUpdate) > endNode) {
                             needsRebuild = true;
                         }
                     }
@@ -192,12 +272,21 @@ public class AABBTree<T> {
             rebuild();
         } else if (needsRebound) {
             rebound();
+            if (sahBuild && endNode > 1) {
+                rotate();
+                double rootArea = costArea(area(nodes[0]));
+                if (builtCost > 0 && internalArea > SAH_REBUILD_RATIO * builtCost * rootArea) {
+                    rebuild();
+                    b = true;
+                }
+            }
         }
         return b;
     }
 
     private void rebound() {
-        if (endNode > 1) {
+        numRefitNodes = 0;
+        if (endNode > 1 && !reboundSpread()) {
             int startUpdateNodeIndex = startUpdate;
             int endUpdateNodeIndex = endUpdate;
 
@@ -214,6 +303,10 @@ public class AABBTree<T> {
                     if (nodeIndex < endUpdateNodeIndex) {
                         if (!node.isLeaf()) {
                             if (escapeNodeIndex > startUpdateNodeIndex) {
+                                if (numNodesStack == nodesStack.length) {
+                                    // SAH builds and rotations do not keep the tree balanced
+                                    nodesStack = Arrays.copyOf(nodesStack, numNodesStack * 2);
+                                }
                                 nodesStack[numNodesStack] = topNodeIndex;
                                 numNodesStack++;
                                 topNodeIndex = nodeIndex;
@@ -260,7 +353,13 @@ public class AABBTree<T> {
                         nodeIndex = (nodeIndex + node.escapeNodeOffset);
                     }
 
+                    double delta = costArea(area(minX, minY, minZ, maxX, maxY, maxZ)) - costArea(area(topNode));
+                    internalArea += delta;
                     topNode.bounds(minX, minY, minZ, maxX, maxY, maxZ);
+                    if (sahBuild && delta != 0) {
+                        // rotations only help where the bounds changed
+                        addRefitNode(topNodeIndex);
+                    }
 
                     endUpdateNodeIndex = topNodeIndex;
 
@@ -282,6 +381,31 @@ public class AABBTree<T> {
         endUpdate = -0x7FFFFFFF;
     }
 
+    /**
+     * Refit for updates that are spread over the tree: in parallel, or with
+     * one reverse sweep which is cheaper than the descent in
+     * {@link #rebound()} when most of the tree is affected.
+     * @return 'false' if the descent should be used
+     */
+    private boolean reboundSpread() {
+        if (sahBuild && refitChanged.length < endNode) {
+            refitChanged = new boolean[nodes.length];
+        }
+        int range = endUpdate - startUpdate;
+        if (executor != null && executor.getThreadCount() > 1 && range >= PARALLEL_REFIT_MIN_NODES) {
+            parallelRebound(startUpdate, endUpdate);
+        } else if (4 * range > endUpdate) {
+            int end = Math.min(endUpdate, endNode);
+            internalArea += sweepRebound(0, end, startUpdate, endUpdate, sahBuild);
+            if (sahBuild) {
+                collectRefitNodes(end);
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
     @SuppressWarnings("unchecked")
     void rebuild() {
         if (numExternalNodes > 0) {
@@ -304,17 +428,29 @@ public class AABBTree<T> {
             }
 
             if (numBuildNodes > 1) {
-                if (numBuildNodes > numNodesLeaf && numAdds > 0) {
-                    if (highQuality) {
-                        HQSort.INSTANCE.sortNodes(buildNodes, numBuildNodes, numNodesLeaf);
-                    } else {
-                        LQSort.INSTANCE.sortNodes(buildNodes, numBuildNodes, numNodesLeaf);
+                if (sahBuild) {
+                    // split positions are found during the build, every internal
+                    // node has at least two children
+                    if (sahSort == null) {
+                        sahSort = new SAHSort();
+                    }
+                    allocateNodes(2 * numBuildNodes);
+                } else {
+                    if (numBuildNodes > numNodesLeaf && numAdds > 0) {
+                        if (highQuality) {
+                            HQSort.INSTANCE.sortNodes(buildNodes, numBuildNodes, numNodesLeaf);
+                        } else {
+                            LQSort.INSTANCE.sortNodes(buildNodes, numBuildNodes, numNodesLeaf);
+                        }
                     }
+                    int predictedNumNodes = predictNumNodes(0, numBuildNodes, 0);
+                    allocateNodes(predictedNumNodes);
                 }
-                int predictedNumNodes = predictNumNodes(0, numBuildNodes, 0);
-                allocateNodes(predictedNumNodes);
                 recursiveBuild(buildNodes, 0, numBuildNodes, 0);
                 endNode = nodes[0].escapeNodeOffset;
+                internalArea = computeInternalArea();
+                double rootArea = costArea(area(nodes[0]));
+                builtCost = rootArea > 0 ? internalArea / rootArea : 0;
             } else {
                 AABBTreeNode<T> rootNode = buildNodes[0];
                 externalObjectHandler.setSpatialIndex(rootNode.externalObject, 0);
@@ -388,7 +524,8 @@ public class AABBTree<T> {
             maxZ += fatAabbMargin;
             lastNode = nodes[lastNodeIndex];
         } else {
-            int splitPosIndex = ((startIndex + endIndex) >> 1);
+            int splitPosIndex = sahBuild ? sahSort.split(buildNodes, startIndex, endIndex)
+                    : ((startIndex + endIndex) >> 1);
             if ((startIndex + 1) >= splitPosIndex) {
                 AABBTreeNode<T> buildNode = buildNodes[startIndex];
                 externalObjectHandler.setSpatialIndex(buildNode.externalObject, lastNodeIndex);
@@ -465,6 +602,334 @@ public class AABBTree<T> {
         return lastNodeIndex;
     }
 
+    // ========== SAH cost ==========
+
+    private static double area(AABBTreeNode<?> node) {
+        return SAHSort.area(node.minX, node.minY, node.minZ, node.maxX, node.maxY, node.maxZ);
+    }
+
+    private static double area(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        return SAHSort.area(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Area for the cost bookkeeping: nodes with unbounded extents (e.g. axis
+     * aligned planes) do not count.
+     */
+    private static double costArea(double area) {
+        return area < Double.POSITIVE_INFINITY ? area : 0;
+    }
+
+    private double computeInternalArea() {
+        double sum = 0;
+        for (int n = 0; n < endNode; n++) {
+            AABBTreeNode<T> node = nodes[n];
+            // skip leaves and removed leaves
+            if (!node.isLeaf() && node.minX <= node.maxX) {
+                sum += costArea(area(node));
+            }
+        }
+        return sum;
+    }
+
+    private void addRefitNode(int nodeIndex) {
+        if (numRefitNodes == refitNodes.length) {
+            refitNodes = Arrays.copyOf(refitNodes, numRefitNodes * 2);
+        }
+        refitNodes[numRefitNodes++] = nodeIndex;
+    }
+
+    // ========== Tree rotations ==========
+
+    /**
+     * Try a rotation at every node whose bounds changed in the last refit,
+     * children before parents. A rotation only changes the order of the nodes
+     * inside the subtree of the rotated node, so the indices of the nodes
+     * that are processed later stay valid as long as they are processed in
+     * decreasing index order.
+     */
+    private void rotate() {
+        if (numRefitNodes == 0) {
+            return;
+        }
+        Arrays.sort(refitNodes, 0, numRefitNodes);
+        // nodes moved per update; rotations near the root move large subtrees
+        int budget = Math.max(endNode / 4, 64);
+        for (int i = numRefitNodes - 1; i >= 0 && budget > 0; i--) {
+            budget -= rotate(refitNodes[i], budget);
+        }
+        numRefitNodes = 0;
+    }
+
+    /**
+     * Rotation at a node with exactly two children A and B: A is swapped
+     * with a child of B (or B with a child of A) if that reduces the surface
+     * area of B (A). The parent keeps its bounds, so no refit is required.
+     * @return number of moved nodes
+     */
+    private int rotate(int p, int budget) {
+        int end = p + nodes[p].escapeNodeOffset;
+        if (end > endNode || end - p - 1 > budget) {
+            return 0;
+        }
+        int a = p + 1;
+        int b = a + nodes[a].escapeNodeOffset;
+        if (b >= end || b + nodes[b].escapeNodeOffset != end) {
+            return 0;
+        }
+
+        // candidates: inner node, children X and Y of the rotated inner node, other child Z of p
+        double bestGain = 0;
+        int inner = -1, x = -1, y = -1, z = -1;
+        int b1 = b + 1;
+        int b2 = isBinary(b) ? b1 + nodes[b1].escapeNodeOffset : -1;
+        if (b2 >= 0) {
+            double areaB = area(nodes[b]);
+            double gain = areaB - unionArea(nodes[a], nodes[b2]);
+            if (gain > bestGain) {
+                bestGain = gain;
+                inner = b; x = a; y = b2; z = b1;
+            }
+            gain = areaB - unionArea(nodes[b1], nodes[a]);
+            if (gain > bestGain) {
+                bestGain = gain;
+                inner = b; x = b1; y = a; z = b2;
+            }
+        }
+        int a1 = a + 1;
+        int a2 = isBinary(a) ? a1 + nodes[a1].escapeNodeOffset : -1;
+        if (a2 >= 0) {
+            double areaA = area(nodes[a]);
+            double gain = areaA - unionArea(nodes[b], nodes[a2]);
+            if (gain > bestGain) {
+                bestGain = gain;
+                inner = a; x = b; y = a2; z = a1;
+            }
+            gain = areaA - unionArea(nodes[a1], nodes[b]);
+            if (gain > bestGain) {
+                bestGain = gain;
+                inner = a; x = a1; y = b; z = a2;
+            }
+        }
+        if (inner < 0) {
+            return 0;
+        }
+
+        // new layout of the subtree: inner, X, Y, Z
+        int size = end - p - 1;
+        if (rotateNodes == null || rotateNodes.length < size) {
+            rotateNodes = Arrays.copyOf(nodes, size);
+        }
+        AABBTreeNode<T> innerNode = nodes[inner];
+        AABBTreeNode<T> xNode = nodes[x];
+        AABBTreeNode<T> yNode = nodes[y];
+        int sizeX = xNode.escapeNodeOffset;
+        int sizeY = yNode.escapeNodeOffset;
+        int sizeZ = nodes[z].escapeNodeOffset;
+        rotateNodes[0] = innerNode;
+        System.arraycopy(nodes, x, rotateNodes, 1, sizeX);
+        System.arraycopy(nodes, y, rotateNodes, 1 + sizeX, sizeY);
+        System.arraycopy(nodes, z, rotateNodes, 1 + sizeX + sizeY, sizeZ);
+        System.arraycopy(rotateNodes, 0, nodes, p + 1, size);
+        Arrays.fill(rotateNodes, 0, size, null);
+
+        double oldArea = costArea(area(innerNode));
+        innerNode.reset(Math.min(xNode.minX, yNode.minX), Math.min(xNode.minY, yNode.minY),
+                Math.min(xNode.minZ, yNode.minZ), Math.max(xNode.maxX, yNode.maxX),
+                Math.max(xNode.maxY, yNode.maxY), Math.max(xNode.maxZ, yNode.maxZ),
+                1 + sizeX + sizeY, null, xNode.isStatic && yNode.isStatic);
+        internalArea += costArea(area(innerNode)) - oldArea;
+        for (int n = p + 1; n < end; n++) {
+            AABBTreeNode<T> node = nodes[n];
+            if (node.isLeaf()) {
+                externalObjectHandler.setSpatialIndex(node.externalObject, n);
+            }
+        }
+        return size;
+    }
+
+    private boolean isBinary(int nodeIndex) {
+        AABBTreeNode<T> node = nodes[nodeIndex];
+        if (node.isLeaf() || node.escapeNodeOffset < 3) {
+            return false;
+        }
+        int c1 = nodeIndex + 1;
+        int c2 = c1 + nodes[c1].escapeNodeOffset;
+        int end = nodeIndex + node.escapeNodeOffset;
+        return c2 < end && c2 + nodes[c2].escapeNodeOffset == end;
+    }
+
+    private static double unionArea(AABBTreeNode<?> n1, AABBTreeNode<?> n2) {
+        return area(Math.min(n1.minX, n2.minX), Math.min(n1.minY, n2.minY), Math.min(n1.minZ, n2.minZ),
+                Math.max(n1.maxX, n2.maxX), Math.max(n1.maxY, n2.maxY), Math.max(n1.maxZ, n2.maxZ));
+    }
+
+    // ========== Parallel refit ==========
+
+    /**
+     * Bottom-up refit of the nodes in the update range. The tree is split
+     * into disjoint subtrees of at most {@link #PARALLEL_REFIT_GRAIN} nodes
+     * which are refitted by the executor threads with {@link #sweepRebound}.
+     * The nodes above these subtrees are refitted afterwards by the calling
+     * thread. Every node gets the same bounds as with
+     * {@link #rebound()}.
+     */
+    private void parallelRebound(final int startUpdateNodeIndex, final int endUpdateNodeIndex) {
+        int threads = executor.getThreadCount();
+
+        // split into top nodes (refit serially, recorded in refitNodes) and subtree tasks
+        numRefitTasks = 0;
+        int numNodesStack = 0;
+        nodesStack[numNodesStack++] = 0;
+        int numTopNodes = 0;
+        int[] topNodes = refitTops;
+        while (numNodesStack > 0) {
+            int nodeIndex = nodesStack[--numNodesStack];
+            int end = Math.min(nodeIndex + nodes[nodeIndex].escapeNodeOffset, endNode);
+            if (end - nodeIndex <= PARALLEL_REFIT_GRAIN) {
+                if (numRefitTasks == refitTasks.length) {
+                    refitTasks = Arrays.copyOf(refitTasks, numRefitTasks * 2);
+                    refitTaskArea = Arrays.copyOf(refitTaskArea, numRefitTasks * 2);
+                }
+                refitTasks[numRefitTasks++] = nodeIndex;
+                continue;
+            }
+            if (numTopNodes == topNodes.length) {
+                topNodes = refitTops = Arrays.copyOf(topNodes, numTopNodes * 2);
+            }
+            topNodes[numTopNodes++] = nodeIndex;
+            for (int c = nodeIndex + 1; c < end; c += nodes[c].escapeNodeOffset) {
+                AABBTreeNode<T> child = nodes[c];
+                if (!child.isLeaf() && c < endUpdateNodeIndex && c + child.escapeNodeOffset > startUpdateNodeIndex) {
+                    if (numNodesStack == nodesStack.length) {
+                        nodesStack = Arrays.copyOf(nodesStack, numNodesStack * 2);
+                    }
+                    nodesStack[numNodesStack++] = c;
+                }
+            }
+        }
+
+        nextRefitTask.set(0);
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int t;
+                while ((t = nextRefitTask.getAndIncrement()) < numRefitTasks) {
+                    int root = refitTasks[t];
+                    int end = Math.min(root + nodes[root].escapeNodeOffset, endNode);
+                    refitTaskArea[t] = sweepRebound(root, end, startUpdateNodeIndex, endUpdateNodeIndex, sahBuild);
+                }
+            }
+        };
+        int helpers = Math.min(threads, numRefitTasks) - 1;
+        if (helpers > 0) {
+            TaskGroup group = executor.group("AABBTree Refit Group", new Runnable() {
+                @Override
+                public void run() {}
+            });
+            for (int w = 0; w < helpers; w++) {
+                Task task = group.subtask("AABBTree Refit", worker);
+                task.submit();
+            }
+            group.submit();
+            worker.run();
+            group.awaitCompletion();
+        } else {
+            worker.run();
+        }
+        // summed in task order, the result does not depend on the thread count
+        for (int t = 0; t < numRefitTasks; t++) {
+            internalArea += refitTaskArea[t];
+        }
+
+        // parents were recorded before their children
+        for (int i = numTopNodes - 1; i >= 0; i--) {
+            double delta = refitNode(topNodes[i]);
+            internalArea += delta;
+            if (sahBuild && delta != 0) {
+                refitChanged[topNodes[i]] = true;
+            }
+        }
+        if (sahBuild) {
+            // same rotation candidates as with the serial refit
+            collectRefitNodes(Math.min(endUpdateNodeIndex, endNode));
+        }
+    }
+
+    private void collectRefitNodes(int end) {
+        for (int n = 0; n < end; n++) {
+            if (refitChanged[n]) {
+                refitChanged[n] = false;
+                addRefitNode(n);
+            }
+        }
+    }
+
+    /**
+     * Reverse sweep over the nodes {@code [from, to)} which refits the
+     * internal nodes overlapping the update range. Children are stored after
+     * their parent, so they are refitted first. This refits the same nodes
+     * as {@link #rebound()}.
+     * @param record mark changed nodes for rotations, see {@link #collectRefitNodes(int)}
+     * @return change of the surface area
+     */
+    private double sweepRebound(int from, int to, int startUpdateNodeIndex, int endUpdateNodeIndex,
+            boolean record) {
+        double delta = 0;
+        for (int n = to - 1; n >= from; n--) {
+            AABBTreeNode<T> node = nodes[n];
+            if (!node.isLeaf() && n < endUpdateNodeIndex && n + node.escapeNodeOffset > startUpdateNodeIndex) {
+                double d = refitNode(n);
+                delta += d;
+                if (record && d != 0) {
+                    refitChanged[n] = true;
+                }
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Set the bounds of an internal node to the union of its children.
+     * @return change of the surface area
+     */
+    private double refitNode(int nodeIndex) {
+        AABBTreeNode<T> topNode = nodes[nodeIndex];
+        int end = Math.min(nodeIndex + topNode.escapeNodeOffset, endNode);
+        int childIndex = nodeIndex + 1;
+        AABBTreeNode<T> node = nodes[childIndex];
+        double minX = node.minX;
+        double minY = node.minY;
+        double minZ = node.minZ;
+        double maxX = node.maxX;
+        double maxY = node.maxY;
+        double maxZ = node.maxZ;
+        for (childIndex += node.escapeNodeOffset; childIndex < end; childIndex += node.escapeNodeOffset) {
+            node = nodes[childIndex];
+            if (minX > node.minX) {
+                minX = node.minX;
+            }
+            if (minY > node.minY) {
+                minY = node.minY;
+            }
+            if (minZ > node.minZ) {
+                minZ = node.minZ;
+            }
+            if (maxX < node.maxX) {
+                maxX = node.maxX;
+            }
+            if (maxY < node.maxY) {
+                maxY = node.maxY;
+            }
+            if (maxZ < node.maxZ) {
+                maxZ = node.maxZ;
+            }
+        }
+        double delta = costArea(area(minX, minY, minZ, maxX, maxY, maxZ)) - costArea(area(topNode));
+        topNode.bounds(minX, minY, minZ, maxX, maxY, maxZ);
+        return delta;
+    }
+
     @SuppressWarnings("unchecked")
     void clear() {
         nodes = (AABBTreeNode<T>[]) new AABBTreeNode<?>[0];
@@ -479,7 +944,9 @@ public class AABBTree<T> {
     }
 
     public void getOverlappingPairs(AABBTreePairCallback<T> callback) {
-        if (numExternalNodes > 1) {
+        if (numExternalNodes > 1 && sahBuild) {
+            getOverlappingPairsOfDynamicNodes(callback);
+        } else if (numExternalNodes > 1) {
             for (int currentNodeIndex = 0; currentNodeIndex < endNode; currentNodeIndex++) {
                 while (!nodes[currentNodeIndex].isLeaf()) {
                     currentNodeIndex++;
@@ -513,6 +980,48 @@ public class AABBTree<T> {
         }
     }
 
+    /**
+     * Same pairs as the scan in {@link #getOverlappingPairs(AABBTreePairCallback)},
+     * but only the non-static leaves query the tree. Static-static pairs are
+     * never reported, so with mostly static geoms (terrain) this visits far
+     * fewer nodes than scanning from every leaf. Pairs are reported with the
+     * lower node index first, in a different order than the leaf scan.
+     */
+    private void getOverlappingPairsOfDynamicNodes(AABBTreePairCallback<T> callback) {
+        for (int currentNodeIndex = 0; currentNodeIndex < endNode; currentNodeIndex++) {
+            AABBTreeNode<T> currentNode = nodes[currentNodeIndex];
+            if (!currentNode.isLeaf() || currentNode.isStatic
+                    || !externalObjectHandler.isEnabled(currentNode.externalObject)) {
+                continue;
+            }
+            double minX = currentNode.minX;
+            double minY = currentNode.minY;
+            double minZ = currentNode.minZ;
+            double maxX = currentNode.maxX;
+            double maxY = currentNode.maxY;
+            double maxZ = currentNode.maxZ;
+
+            for (int nodeIndex = 0; nodeIndex < endNode;) {
+                AABBTreeNode<T> node = nodes[nodeIndex];
+                if (minX <= node.maxX && minY <= node.maxY && minZ <= node.maxZ && maxX >= node.minX
+                        && maxY >= node.minY && maxZ >= node.minZ) {
+                    // other non-static leaves report the pairs with lower indices
+                    if (node.isLeaf() && (node.isStatic || nodeIndex > currentNodeIndex)
+                            && externalObjectHandler.isEnabled(node.externalObject)) {
+                        if (nodeIndex < currentNodeIndex) {
+                            callback.overlap(node.externalObject, currentNode.externalObject);
+                        } else {
+                            callback.overlap(currentNode.externalObject, node.externalObject);
+                        }
+                    }
+                    nodeIndex++;
+                } else {
+                    nodeIndex += node.escapeNodeOffset;
+                }
+            }
+        }
+    }
+
     public void getOverlappingNodes(double[] queryExtents, AABBTreeNodeCallback<T> callback) {
         if (numExternalNodes > 0) {
             double queryMinX = queryExtents[0];
@@ -570,4 +1079,174 @@ public class AABBTree<T> {
         }
     }
 
+    /**
+     * Report the enabled leaves whose bounds are crossed by the ray
+     * {@code origin + t * dir} with {@code 0 <= t <= maxT}. The callback
+     * returns the ray length to continue with, so once a hit is found the
+     * subtrees beyond it are skipped. The tree is not modified, so several
+     * threads may query it at once between updates.
+     * @return the ray length after the last callback
+     */
+    public double getRayOverlappingNodes(double originX, double originY, double originZ,
+            double dirX, double dirY, double dirZ, double maxT, AABBTreeRayCallback<T> callback) {
+        if (numExternalNodes == 0) {
+            return maxT;
+        }
+        double invX = 1.0 / dirX;
+        double invY = 1.0 / dirY;
+        double invZ = 1.0 / dirZ;
+        int endNodeIndex = endNode;
+        int nodeIndex = 0;
+        while (nodeIndex < endNodeIndex) {
+            AABBTreeNode<T> node = nodes[nodeIndex];
+            if (rayOverlaps(node, originX, originY, originZ, dirX, dirY, dirZ, invX, invY, invZ, maxT)) {
+                if (node.isLeaf() && externalObjectHandler.isEnabled(node.externalObject)) {
+                    maxT = callback.hit(node.externalObject, maxT);
+                }
+                nodeIndex++;
+            } else {
+                nodeIndex += node.escapeNodeOffset;
+            }
+        }
+        return maxT;
+    }
+
+    /**
+     * Slab test of the ray segment [0, maxT] against the node bounds. Axes
+     * with a zero direction component are tested against the origin only, so
+     * unbounded nodes do not produce NaN.
+     */
+    private static boolean rayOverlaps(AABBTreeNode<?> node, double ox, double oy, double oz,
+            double dx, double dy, double dz, double invX, double invY, double invZ, double maxT) {
+        double tNear = 0;
+        double tFar = maxT;
+        if (dx == 0) {
+            if (ox < node.minX || ox > node.maxX) {
+                return false;
+            }
+        } else {
+            double t1 = (node.minX - ox) * invX;
+            double t2 = (node.maxX - ox) * invX;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+            if (tNear > tFar) {
+                return false;
+            }
+        }
+        if (dy == 0) {
+            if (oy < node.minY || oy > node.maxY) {
+                return false;
+            }
+        } else {
+            double t1 = (node.minY - oy) * invY;
+            double t2 = (node.maxY - oy) * invY;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+            if (tNear > tFar) {
+                return false;
+            }
+        }
+        if (dz == 0) {
+            return oz >= node.minZ && oz <= node.maxZ;
+        }
+        double t1 = (node.minZ - oz) * invZ;
+        double t2 = (node.maxZ - oz) * invZ;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+        return tNear <= tFar;
+    }
+
+    /**
+     * Report every pair of enabled leaves of this tree and {@code other}
+     * whose bounds overlap, as {@code callback.overlap(thisObject, otherObject)}.
+     * Both trees are descended together, always splitting the node with the
+     * larger surface area, so non-overlapping subtrees of either tree are
+     * skipped as a whole.
+     */
+    public void getOverlappingPairs(AABBTree<T> other, AABBTreePairCallback<T> callback) {
+        if (numExternalNodes == 0 || other.numExternalNodes == 0) {
+            return;
+        }
+        AABBTreeNode<T>[] otherNodes = other.nodes;
+        int otherEndNode = other.endNode;
+        int[] stack = pairStack;
+        int numStack = 0;
+        stack[numStack++] = 0;
+        stack[numStack++] = 0;
+        while (numStack > 0) {
+            int otherIndex = stack[--numStack];
+            int nodeIndex = stack[--numStack];
+            AABBTreeNode<T> node = nodes[nodeIndex];
+            AABBTreeNode<T> otherNode = otherNodes[otherIndex];
+            if (node.minX > otherNode.maxX || node.minY > otherNode.maxY || node.minZ > otherNode.maxZ
+                    || node.maxX < otherNode.minX || node.maxY < otherNode.minY || node.maxZ < otherNode.minZ) {
+                continue;
+            }
+            boolean isLeaf = node.isLeaf();
+            boolean isOtherLeaf = otherNode.isLeaf();
+            if (isOtherLeaf) {
+                if (other.externalObjectHandler.isEnabled(otherNode.externalObject)) {
+                    scanSubtree(this, nodeIndex, otherNode, callback, false);
+                }
+            } else if (isLeaf) {
+                if (externalObjectHandler.isEnabled(node.externalObject)) {
+                    scanSubtree(other, otherIndex, node, callback, true);
+                }
+            } else if (area(node) >= area(otherNode)) {
+                int end = Math.min(nodeIndex + node.escapeNodeOffset, endNode);
+                for (int c = nodeIndex + 1; c < end; c += nodes[c].escapeNodeOffset) {
+                    if (numStack + 2 > stack.length) {
+                        stack = pairStack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[numStack++] = c;
+                    stack[numStack++] = otherIndex;
+                }
+            } else {
+                int end = Math.min(otherIndex + otherNode.escapeNodeOffset, otherEndNode);
+                for (int c = otherIndex + 1; c < end; c += otherNodes[c].escapeNodeOffset) {
+                    if (numStack + 2 > stack.length) {
+                        stack = pairStack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[numStack++] = nodeIndex;
+                    stack[numStack++] = c;
+                }
+            }
+        }
+    }
+
+    /**
+     * Report the enabled leaves of a subtree that overlap the leaf
+     * {@code query}, with the same linear scan as
+     * {@link #getOverlappingNodes(double[], AABBTreeNodeCallback)}.
+     * @param swap 'true' if {@code query} belongs to this tree and the subtree
+     * to the other tree
+     */
+    private void scanSubtree(AABBTree<T> tree, int rootIndex, AABBTreeNode<T> query,
+            AABBTreePairCallback<T> callback, boolean swap) {
+        AABBTreeNode<T>[] treeNodes = tree.nodes;
+        double queryMinX = query.minX;
+        double queryMinY = query.minY;
+        double queryMinZ = query.minZ;
+        double queryMaxX = query.maxX;
+        double queryMaxY = query.maxY;
+        double queryMaxZ = query.maxZ;
+        int end = Math.min(rootIndex + treeNodes[rootIndex].escapeNodeOffset, tree.endNode);
+        for (int nodeIndex = rootIndex; nodeIndex < end;) {
+            AABBTreeNode<T> node = treeNodes[nodeIndex];
+            if (queryMinX <= node.maxX && queryMinY <= node.maxY && queryMinZ <= node.maxZ
+                    && queryMaxX >= node.minX && queryMaxY >= node.minY && queryMaxZ >= node.minZ) {
+                if (node.isLeaf() && tree.externalObjectHandler.isEnabled(node.externalObject)) {
+                    if (swap) {
+                        callback.overlap(query.externalObject, node.externalObject);
+                    } else {
+                        callback.overlap(node.externalObject, query.externalObject);
+                    }
+                }
+                nodeIndex++;
+            } else {
+                nodeIndex += node.escapeNodeOffset;
+            }
+        }
+    }
+
 }
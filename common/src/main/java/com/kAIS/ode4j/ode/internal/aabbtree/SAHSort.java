@@ -0,0 +1,237 @@
+/*************************************************************************
+ *                                                                       *
+ * Open Dynamics Engine 4J                                               *
+ * Copyright (C) 2017 Piotr Piastucki, Tilmann Zaeschke                  *
+ * All rights reserved.  Email: ode4j@gmx.de   Web: www.ode4j.org        *
+ *                                                                       *
+ * This library is free software; you can redistribute it and/or         *
+ * modify it under the terms of EITHER:                                  *
+ *   (1) The GNU Lesser General Public License as published by the Free  *
+ *       Software Foundation; either version 2.1 of the License, or (at  *
+ *       your option) any later version. The text of the GNU Lesser      *
+ *       General Public License is included with this library in the     *
+ *       file LICENSE.TXT.                                               *
+ *   (2) The BSD-style license that is included with this library in     *
+ *       the file ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT.         *
+ *                                                                       *
+ * This library is distributed in the hope that it will be useful,       *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the files    *
+ * LICENSE.TXT, ODE-LICENSE-BSD.TXT and ODE4J-LICENSE-BSD.TXT for more   *
+ * details.                                                              *
+ *                                                                       *
+ *************************************************************************/
+package com.kAIS.ode4j.ode.internal.aabbtree;
+
+/**
+ * Binned surface area heuristic (SAH) split for the {@link AABBTree} build.
+ * <p>
+ * The node centroids of a range are put into {@code NUM_BINS} bins along
+ * each axis, every bin boundary is evaluated with
+ * {@code area(left) * count(left) + area(right) * count(right)} and the range
+ * is partitioned at the cheapest boundary. Ranges whose centroids can not be
+ * separated fall back to a median split along the longest centroid axis.
+ * <p>
+ * Unlike {@link HQSort}/{@link LQSort} the split is not at the middle of the
+ * range, so the tree is built with {@link #split(AABBTreeNode[], int, int)}
+ * at every level. An instance keeps the bin buffers and must not be shared
+ * between threads.
+ */
+public class SAHSort extends Sort {
+
+	private static final int NUM_BINS = 16;
+
+	private final int[] binCount = new int[NUM_BINS];
+	private final double[] binBounds = new double[NUM_BINS * 6];
+	private final double[] rightCost = new double[NUM_BINS];
+
+	/**
+	 * Partition {@code nodes[startIndex..endIndex)} and return the split
+	 * index, {@code startIndex < split < endIndex}.
+	 */
+	int split(AABBTreeNode<?>[] nodes, int startIndex, int endIndex) {
+		// centroid bounds (2 * centroid)
+		double cMinX = Double.MAX_VALUE, cMinY = Double.MAX_VALUE, cMinZ = Double.MAX_VALUE;
+		double cMaxX = -Double.MAX_VALUE, cMaxY = -Double.MAX_VALUE, cMaxZ = -Double.MAX_VALUE;
+		for (int n = startIndex; n < endIndex; n++) {
+			AABBTreeNode<?> node = nodes[n];
+			double cx = node.minX + node.maxX;
+			double cy = node.minY + node.maxY;
+			double cz = node.minZ + node.maxZ;
+			if (cMinX > cx) {
+				cMinX = cx;
+			}
+			if (cMaxX < cx) {
+				cMaxX = cx;
+			}
+			if (cMinY > cy) {
+				cMinY = cy;
+			}
+			if (cMaxY < cy) {
+				cMaxY = cy;
+			}
+			if (cMinZ > cz) {
+				cMinZ = cz;
+			}
+			if (cMaxZ < cz) {
+				cMaxZ = cz;
+			}
+		}
+
+		double bestCost = Double.MAX_VALUE;
+		int bestAxis = -1;
+		int bestBin = 0;
+		double bestMin = 0, bestScale = 0;
+		for (int axis = 0; axis < 3; axis++) {
+			double cMin = axis == 0 ? cMinX : (axis == 1 ? cMinY : cMinZ);
+			double cMax = axis == 0 ? cMaxX : (axis == 1 ? cMaxY : cMaxZ);
+			if (!(cMax > cMin)) {
+				continue;
+			}
+			double scale = NUM_BINS * (1 - 1e-9) / (cMax - cMin);
+			fillBins(nodes, startIndex, endIndex, axis, cMin, scale);
+
+			// sweep from the right: cost of bins [i, NUM_BINS)
+			double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+			double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+			int count = 0;
+			for (int b = NUM_BINS - 1; b > 0; b--) {
+				if (binCount[b] > 0) {
+					int o = b * 6;
+					minX = Math.min(minX, binBounds[o]);
+					minY = Math.min(minY, binBounds[o + 1]);
+					minZ = Math.min(minZ, binBounds[o + 2]);
+					maxX = Math.max(maxX, binBounds[o + 3]);
+					maxY = Math.max(maxY, binBounds[o + 4]);
+					maxZ = Math.max(maxZ, binBounds[o + 5]);
+					count += binCount[b];
+				}
+				rightCost[b] = count == 0 ? 0 : area(minX, minY, minZ, maxX, maxY, maxZ) * count;
+			}
+			// sweep from the left: split between bin b and b + 1
+			minX = minY = minZ = Double.MAX_VALUE;
+			maxX = maxY = maxZ = -Double.MAX_VALUE;
+			count = 0;
+			int total = endIndex - startIndex;
+			for (int b = 0; b < NUM_BINS - 1; b++) {
+				if (binCount[b] > 0) {
+					int o = b * 6;
+					minX = Math.min(minX, binBounds[o]);
+					minY = Math.min(minY, binBounds[o + 1]);
+					minZ = Math.min(minZ, binBounds[o + 2]);
+					maxX = Math.max(maxX, binBounds[o + 3]);
+					maxY = Math.max(maxY, binBounds[o + 4]);
+					maxZ = Math.max(maxZ, binBounds[o + 5]);
+					count += binCount[b];
+				}
+				if (count == 0 || count == total) {
+					continue;
+				}
+				double cost = area(minX, minY, minZ, maxX, maxY, maxZ) * count + rightCost[b + 1];
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestAxis = axis;
+					bestBin = b;
+					bestMin = cMin;
+					bestScale = scale;
+				}
+			}
+		}
+
+		if (bestAxis < 0) {
+			// all centroids coincide: the order does not matter
+			return ((startIndex + endIndex) >> 1);
+		}
+
+		// partition: bins [0, bestBin] to the left
+		int first = startIndex;
+		int last = endIndex - 1;
+		for (;;) {
+			while (first <= last && bin(nodes[first], bestAxis, bestMin, bestScale) <= bestBin) {
+				first++;
+			}
+			while (first <= last && bin(nodes[last], bestAxis, bestMin, bestScale) > bestBin) {
+				last--;
+			}
+			if (first >= last) {
+				break;
+			}
+			AABBTreeNode<?> temp = nodes[first];
+			nodes[first] = nodes[last];
+			nodes[last] = temp;
+			first++;
+			last--;
+		}
+		if (first == startIndex || first == endIndex) {
+			// can not happen with a non empty split, but keep the build safe
+			int splitNodeIndex = ((startIndex + endIndex) >> 1);
+			nthElement(nodes, startIndex, splitNodeIndex, endIndex, bestAxis, false);
+			return splitNodeIndex;
+		}
+		return first;
+	}
+
+	private void fillBins(AABBTreeNode<?>[] nodes, int startIndex, int endIndex, int axis, double cMin,
+			double scale) {
+		for (int b = 0; b < NUM_BINS; b++) {
+			binCount[b] = 0;
+			int o = b * 6;
+			binBounds[o] = binBounds[o + 1] = binBounds[o + 2] = Double.MAX_VALUE;
+			binBounds[o + 3] = binBounds[o + 4] = binBounds[o + 5] = -Double.MAX_VALUE;
+		}
+		for (int n = startIndex; n < endIndex; n++) {
+			AABBTreeNode<?> node = nodes[n];
+			int b = bin(node, axis, cMin, scale);
+			binCount[b]++;
+			int o = b * 6;
+			if (binBounds[o] > node.minX) {
+				binBounds[o] = node.minX;
+			}
+			if (binBounds[o + 1] > node.minY) {
+				binBounds[o + 1] = node.minY;
+			}
+			if (binBounds[o + 2] > node.minZ) {
+				binBounds[o + 2] = node.minZ;
+			}
+			if (binBounds[o + 3] < node.maxX) {
+				binBounds[o + 3] = node.maxX;
+			}
+			if (binBounds[o + 4] < node.maxY) {
+				binBounds[o + 4] = node.maxY;
+			}
+			if (binBounds[o + 5] < node.maxZ) {
+				binBounds[o + 5] = node.maxZ;
+			}
+		}
+	}
+
+	private int bin(AABBTreeNode<?> node, int axis, double cMin, double scale) {
+		int b = (int) ((getkey(node, axis, false) - cMin) * scale);
+		return b < 0 ? 0 : (b >= NUM_BINS ? NUM_BINS - 1 : b);
+	}
+
+	static double area(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		double x = maxX - minX;
+		double y = maxY - minY;
+		double z = maxZ - minZ;
+		return x * y + x * z + y * z;
+	}
+
+	@Override
+	protected double getkey(AABBTreeNode<?> node, int axis, boolean reverse) {
+		double v;
+		switch (axis) {
+		case 0:
+			v = node.minX + node.maxX;
+			break;
+		case 1:
+			v = node.minY + node.maxY;
+			break;
+		default:
+			v = node.minZ + node.maxZ;
+			break;
+		}
+		return reverse ? -v : v;
+	}
+
+}
@@ -90,6 +90,9 @@ public class GimAABBSet { //Formerly GimBoxPruning
 	GIM_RSORT_TOKEN[] m_sorted_mincoords;//!< sorted min coords (lower corners), with their coord value as the m_key and m_value as the box index
 	char m_shared;//!< if m_shared == 0 then the memory is allocated and the set must be destroyed, else the pointers are shared and the set should't be destroyed
 	//	};
+	/** Unsorted keys and histogram of the radix sort, kept across sorts. */
+	private GIM_RSORT_TOKEN[] m_unsorted_mincoords;
+	private int[] m_radix_hist;
 	//typedef  struct _GIM_AABB_SET GIM_AABB_SET;
 
 	public aabb3f getGlobalBound() {
@@ -299,6 +302,8 @@ public class GimAABBSet { //Formerly GimBoxPruning
 		//m_boxes = null;
 		m_sorted_mincoords = null;
 		m_maxcoords = null;
+		m_unsorted_mincoords = null;
+		m_radix_hist = null;
 	}
 
 	/**
@@ -346,6 +351,7 @@ public class GimAABBSet { //Formerly GimBoxPruning
 		{//allocate
 			m_maxcoords = new long[m_count];//(GUINT32 *)gim_alloc(sizeof(GUINT32)*aabbset.m_count );
 			m_sorted_mincoords = new GIM_RSORT_TOKEN[m_count];//(GIM_RSORT_TOKEN *)gim_alloc(sizeof(GIM_RSORT_TOKEN)*aabbset.m_count);
+			for (int i = 0; i < m_count; i++) m_sorted_mincoords[i] = new GIM_RSORT_TOKEN();
 		}
 
 		int i, count = m_count;
@@ -371,16 +377,22 @@ public class GimAABBSet { //Formerly GimBoxPruning
 		{
 			//Sort by radix sort
 			//GIM_RSORT_TOKEN[] unsorted = gim_alloc(count, GIM_RSORT_TOKEN.class);//(GIM_RSORT_TOKEN *)gim_alloc(sizeof(GIM_RSORT_TOKEN )*count);
-			GIM_RSORT_TOKEN[] unsorted = new GIM_RSORT_TOKEN[count]; //TZ TODO clean up
+			//TZ: the set is re-sorted whenever the mesh moves, keep the buffers
+			if (m_unsorted_mincoords == null || m_unsorted_mincoords.length < count)
+			{
+				m_unsorted_mincoords = new GIM_RSORT_TOKEN[count];
+				for (i = 0; i < count; i++) m_unsorted_mincoords[i] = new GIM_RSORT_TOKEN();
+				m_radix_hist = new int[GimRadixSort.GIM_RADIX_HISTOGRAM_SIZE];
+			}
+			GIM_RSORT_TOKEN[] unsorted = m_unsorted_mincoords;
 			//Calculate keys
 			for(i=0;i<count;i++)
 			{
-				unsorted[i] = new GIM_RSORT_TOKEN(); //TODO optimize! E.g. use two arrays?
 				maxcoords[i] = GIM_CONVERT_VEC3F_GUINT_XZ_UPPER(paabb[i].maxX,paabb[i].maxZ);
 				unsorted[i].m_key = GIM_CONVERT_VEC3F_GUINT_XZ(paabb[i].minX,paabb[i].minZ);
 				unsorted[i].m_value = i;
 			}
-			GimRadixSort.GIM_RADIX_SORT_RTOKENS(unsorted,sorted_tokens,count);
+			GimRadixSort.GIM_RADIX_SORT_RTOKENS(unsorted,sorted_tokens,count,m_radix_hist);
 			//gim_free(unsorted,0);
 			
 		}
@@ -429,10 +441,9 @@ public class GimAABBSet { //Formerly GimBoxPruning
 	{
 		//		pairset.GIM_DYNARRAY_PUSH_EMPTY();
 		//	    GIM_PAIR[] _pair = pairset.GIM_DYNARRAY_POINTER() + (pairset).m_size - 1;
-		GIM_PAIR _pair = new GIM_PAIR();
+		GIM_PAIR _pair = GIM_PAIR_PUSH_EMPTY(pairset);
 		_pair.m_index1 = i;
 		_pair.m_index2 = j;
-		pairset.GIM_DYNARRAY_PUSH_ITEM_TZ(_pair);
 	}
 
 	//#define PUSH_PAIR_INV(i,j,pairset)\
@@ -440,12 +451,36 @@ public class GimAABBSet { //Formerly GimBoxPruning
 	{
 		//		pairset.GIM_DYNARRAY_PUSH_EMPTY();
 		//	    GIM_PAIR[] _pair = GIM_DYNARRAY_POINTER(GIM_PAIR,pairset) + (pairset).m_size - 1;
-		GIM_PAIR _pair = new GIM_PAIR();
+		GIM_PAIR _pair = GIM_PAIR_PUSH_EMPTY(pairset);
 		_pair.m_index1 = j;
 		_pair.m_index2 = i;
-		pairset.GIM_DYNARRAY_PUSH_ITEM_TZ(_pair);
 	}
 
+	/**
+	 * Appends a pair, reusing the pair object left in the slot by a previous
+	 * query if the pair set is recycled (see GimTrimeshTrimeshCol).
+	 */
+	private static GIM_PAIR GIM_PAIR_PUSH_EMPTY(GimDynArray<GIM_PAIR> pairset)
+	{
+		pairset.GIM_DYNARRAY_PUSH_EMPTY();
+		GIM_PAIR _pair = pairset.GIM_DYNARRAY_POINTER_LAST();
+		if (_pair == null)
+		{
+			_pair = new GIM_PAIR();
+			pairset.GIM_DYNARRAY_POINTER()[pairset.m_size - 1] = _pair;
+		}
+		return _pair;
+	}
+
+	/** Per thread buffers of the bipartite tests, trimesh pairs may be collided concurrently. */
+	private static final class ClassifyScratch {
+		GIM_RSORT_TOKEN[] tokens1 = new GIM_RSORT_TOKEN[0];
+		GIM_RSORT_TOKEN[] tokens2 = new GIM_RSORT_TOKEN[0];
+		int[] indices = new int[0];
+	}
+	private static final ThreadLocal<ClassifyScratch> CLASSIFY_SCRATCH = 
+			ThreadLocal.withInitial(ClassifyScratch::new);
+
 	//	#define FIND_OVERLAPPING_FOWARD(\
 	//	 curr_index,\
 	//	 test_count,\
@@ -524,7 +559,9 @@ public class GimAABBSet { //Formerly GimBoxPruning
 		BOXINTERSECTION(aabbset1.m_global_bound,aabbset2.m_global_bound, int_abbb);
 
 		//Clasify set 1
-		GIM_RSORT_TOKEN[] classified_tokens1 = new GIM_RSORT_TOKEN[count1];//(GIM_RSORT_TOKEN *) gim_alloc(sizeof(GIM_RSORT_TOKEN)*count1);
+		ClassifyScratch scratch = CLASSIFY_SCRATCH.get();
+		if (scratch.tokens1.length < count1) scratch.tokens1 = new GIM_RSORT_TOKEN[count1];
+		GIM_RSORT_TOKEN[] classified_tokens1 = scratch.tokens1;//(GIM_RSORT_TOKEN *) gim_alloc(sizeof(GIM_RSORT_TOKEN)*count1);
 		int i,classified_count1 = 0,classified_count2 = 0;
 
 
@@ -547,7 +584,8 @@ public class GimAABBSet { //Formerly GimBoxPruning
 
 		//Clasify set 2
 		//GIM_RSORT_TOKEN * classified_tokens2 = (GIM_RSORT_TOKEN *) gim_alloc(sizeof(GIM_RSORT_TOKEN)*count2);
-		GIM_RSORT_TOKEN[] classified_tokens2 = new GIM_RSORT_TOKEN[count2];
+		if (scratch.tokens2.length < count2) scratch.tokens2 = new GIM_RSORT_TOKEN[count2];
+		GIM_RSORT_TOKEN[] classified_tokens2 = scratch.tokens2;
 
 		for (i=0;i<count2;i++ )
 		{
@@ -583,7 +621,7 @@ public class GimAABBSet { //Formerly GimBoxPruning
 				pos1++;//sorted_tokens1++;
 				classified_count1--;
 				FIND_OVERLAPPING_FOWARD( curr_index, classified_count2, test_aabb, 
-						max_coord_uint, sorted_tokens2, 0 , paabb2, collision_pairs, PUSH_PAIR);
+						max_coord_uint, sorted_tokens2, pos2 , paabb2, collision_pairs, PUSH_PAIR);
 			}
 			else ///Switch test
 			{
@@ -595,7 +633,7 @@ public class GimAABBSet { //Formerly GimBoxPruning
 				pos2++;//sorted_tokens2++;
 				classified_count2--;
 				FIND_OVERLAPPING_FOWARD( curr_index, classified_count1, test_aabb, 
-						max_coord_uint, sorted_tokens1, 0 , paabb1, collision_pairs, PUSH_PAIR_INV );
+						max_coord_uint, sorted_tokens1, pos1 , paabb1, collision_pairs, PUSH_PAIR_INV );
 			}
 		}
 		//	    gim_free(classified_tokens1 ,0);
@@ -631,7 +669,9 @@ public class GimAABBSet { //Formerly GimBoxPruning
 		aabb3f[] paabb2 = aabbset2.m_boxes;
 
 		//GUINT32 * classified = (GUINT32 *) gim_alloc(sizeof(GUINT32)*count);
-		int[] classified = new int[count];//(GUINT32 *) gim_alloc(sizeof(GUINT32)*count);
+		ClassifyScratch scratch = CLASSIFY_SCRATCH.get();
+		if (scratch.indices.length < count) scratch.indices = new int[count];
+		int[] classified = scratch.indices;//(GUINT32 *) gim_alloc(sizeof(GUINT32)*count);
 
 		for (i=0;i<count;i++ )
 		{
@@ -50,6 +50,7 @@ import com.kAIS.ode4j.ode.internal.cpp4j.java.ObjArray;
 public class GimDynArray<T> {//extends GimBufferArray<T> {
 	//! @{
 	//#define G_ARRAY_GROW_SIZE 64
+	/** Minimum growth, arrays grow by 50% so that pushing stays amortized O(1). */
 	static final int G_ARRAY_GROW_SIZE = 64;
 	//#define G_ARRAY_BUFFERMANAGER_INIT_SIZE 2
 	static final int G_ARRAY_BUFFERMANAGER_INIT_SIZE = 2;
@@ -140,7 +141,7 @@ public class GimDynArray<T> {//extends GimBufferArray<T> {
 	{ 
 	    if (m_reserve_size <= m_size)
 	    {
-	        GIM_DYNARRAY_RESERVE_SIZE(m_size, m_size + G_ARRAY_GROW_SIZE); 
+	        GIM_DYNARRAY_RESERVE_SIZE(m_size, m_size + Math.max(G_ARRAY_GROW_SIZE, m_size >> 1)); 
 	    }
 	    T[] _pt = GIM_DYNARRAY_POINTER(); 
 	    //memcpy(_pt[m_size], (item), 1);//sizeof(type));
@@ -154,7 +155,7 @@ public class GimDynArray<T> {//extends GimBufferArray<T> {
 	{ 
 	    if (m_reserve_size <= m_size) 
 	    { 
-	        GIM_DYNARRAY_RESERVE_SIZE(m_size, m_size + G_ARRAY_GROW_SIZE); 
+	        GIM_DYNARRAY_RESERVE_SIZE(m_size, m_size + Math.max(G_ARRAY_GROW_SIZE, m_size >> 1)); 
 	    } 
 	    m_size++; 
 	} 
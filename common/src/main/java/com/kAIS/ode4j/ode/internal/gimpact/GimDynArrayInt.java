@@ -73,7 +73,7 @@ public class GimDynArrayInt {
 	{ 
 	    if (m_reserve_size <= m_size)
 	    {
-	        GIM_DYNARRAY_RESERVE_SIZE(m_size, m_size + G_ARRAY_GROW_SIZE); 
+	        GIM_DYNARRAY_RESERVE_SIZE(m_size, m_size + Math.max(G_ARRAY_GROW_SIZE, m_size >> 1)); 
 	    }
 //	    int[] _pt = GIM_DYNARRAY_POINTER(); 
 //	    memcpy(_pt[(array_data).m_size], (item), 1);//sizeof(type));
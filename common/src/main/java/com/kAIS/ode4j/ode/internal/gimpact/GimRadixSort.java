@@ -31,6 +31,7 @@
  */
 package com.kAIS.ode4j.ode.internal.gimpact;
 
+import java.util.Arrays;
 
 
 /**
@@ -108,64 +109,75 @@ public class GimRadixSort {
 //            int i = 0;
 //            for(GIM_RSORT_TOKEN t : tm.values())
 //                sorted[i++] = t;
+		GIM_RADIX_SORT_RTOKENS(array, sorted, element_count, new int[GIM_RADIX_HISTOGRAM_SIZE]);
+	}
+
+	/** Size of the histogram buffer of {@link #GIM_RADIX_SORT_RTOKENS(GIM_RSORT_TOKEN[], GIM_RSORT_TOKEN[], int, int[])}. */
+	static final int GIM_RADIX_HISTOGRAM_SIZE = kHist * 3;
 
+	/**
+	 * Radix sort with a caller owned histogram buffer, so that repeated sorts
+	 * (e.g. of a box set every step) do not allocate.
+	 * @param array unsorted tokens, overwritten
+	 * @param sorted result
+	 * @param element_count number of tokens
+	 * @param hist histogram buffer of at least {@link #GIM_RADIX_HISTOGRAM_SIZE} elements
+	 */
+	static void GIM_RADIX_SORT_RTOKENS(final GIM_RSORT_TOKEN[] array, final GIM_RSORT_TOKEN[] sorted, 
+			final int element_count, final int[] hist)
+	{
 		int i;
 		//		int[] b0 = new int[kHist * 3];
 		//		IntArray b1 = new IntArray( b0, kHist );
 		//		IntArray b2 = new IntArray( b1, kHist );
-		int[] b0 = new int[kHist];
-		int[] b1 = new int[kHist];
-		int[] b2 = new int[kHist];
-		//		for (i = 0; i < kHist * 3; i++)
-		//		{
-		//			b0[i] = 0;
-		//		}
+		final int b0 = 0, b1 = kHist, b2 = kHist * 2;
+		Arrays.fill(hist, 0, GIM_RADIX_HISTOGRAM_SIZE, 0);
 		long fi;
 		int pos;
 		for (i = 0; i < element_count; i++)
 		{
 			fi = array[i].m_key;
-			b0[D11_0(fi)] ++;
-			b1[D11_1(fi)] ++;
-			b2[D11_2(fi)] ++;
+			hist[b0 + D11_0(fi)] ++;
+			hist[b1 + D11_1(fi)] ++;
+			hist[b2 + D11_2(fi)] ++;
 		}
 		{
 			int sum0 = 0, sum1 = 0, sum2 = 0;
 			int tsum;
 			for (i = 0; i < kHist; i++)
 			{
-				tsum = b0[i] + sum0;
-				b0[i] = sum0 - 1;
+				tsum = hist[b0 + i] + sum0;
+				hist[b0 + i] = sum0 - 1;
 				sum0 = tsum;
-				tsum = b1[i] + sum1;
-				b1[i] = sum1 - 1;
+				tsum = hist[b1 + i] + sum1;
+				hist[b1 + i] = sum1 - 1;
 				sum1 = tsum;
-				tsum = b2[i] + sum2;
-				b2[i] = sum2 - 1;
+				tsum = hist[b2 + i] + sum2;
+				hist[b2 + i] = sum2 - 1;
 				sum2 = tsum;
 			}
 		}
 		for (i = 0; i < element_count; i++)
 		{
 			fi = array[i].m_key;
-			pos = D11_0(fi);
-			pos = ++b0[pos];
+			pos = b0 + D11_0(fi);
+			pos = ++hist[pos];
 			sorted[pos].m_key = array[i].m_key;
 			sorted[pos].m_value = array[i].m_value;
 		}
 		for (i = 0; i < element_count; i++)
 		{
 			fi = sorted[i].m_key;
-			pos = D11_1(fi);
-			pos = ++b1[pos];
+			pos = b1 + D11_1(fi);
+			pos = ++hist[pos];
 			array[pos].m_key = sorted[i].m_key;
 			array[pos].m_value = sorted[i].m_value;
 		}
 		for (i = 0; i < element_count; i++)
 		{
 			fi = array[i].m_key;
-			pos = D11_2(fi);
-			pos = ++b2[pos];
+			pos = b2 + D11_2(fi);
+			pos = ++hist[pos];
 			sorted[pos].m_key = array[i].m_key;
 			sorted[pos].m_value = array[i].m_value;
 		}
@@ -763,10 +763,8 @@ public class GimTrimesh implements GimConstants {
 	    GimBufferArrayFloat psource_vertex_buffer = m_source_vertex_buffer;
 	    GimBufferArrayFloat ptransformed_vertex_buffer = m_transformed_vertex_buffer;
 	    //Temp transform
-	    mat4f transform = new mat4f();
-	    COPY_MATRIX_4X4(transform,m_transform);  //TODO TZ why copy?
-
-	    GimBufferArrayFloat.GIM_PROCESS_BUFFER_ARRAY(transform, psource_vertex_buffer, ptransformed_vertex_buffer,
+	    //TZ: the kernel only reads the matrix, no need for a copy
+	    GimBufferArrayFloat.GIM_PROCESS_BUFFER_ARRAY(m_transform, psource_vertex_buffer, ptransformed_vertex_buffer,
 	    		MULT_MAT_VEC4_KERNEL);//,vec3f,vec3f);
 	}
 
@@ -900,6 +898,19 @@ public class GimTrimesh implements GimConstants {
 	    VEC_COPY_4( tri_data.m_planes.m_planes[3], plane.m_planes[3] );//edge3
 	}
 
+	//! Computes the planes cache of a triangle if it is not valid yet
+	/*!
+	After this call gim_trimesh_get_triangle_data only reads the trimesh for
+	this triangle, so it can be called from several threads at once.
+	\param tri_data scratch triangle data
+	*/
+	void gim_trimesh_update_triangle_planes(int triangle_index, 
+			final GIM_TRIANGLE_DATA tri_data)
+	{
+	    if(m_planes_cache_bitset.GIM_BITSET_GET(triangle_index)) return;
+	    gim_trimesh_get_triangle_data(triangle_index, tri_data);
+	}
+
 	//! Fetch triangle vertices
 	/*!
 	\pre gim_trimesh_locks_work_data must be called before
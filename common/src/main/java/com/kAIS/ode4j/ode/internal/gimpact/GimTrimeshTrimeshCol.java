@@ -31,6 +31,11 @@
  */
 package com.kAIS.ode4j.ode.internal.gimpact;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kAIS.ode4j.ode.OdeConfig;
 import com.kAIS.ode4j.ode.internal.cpp4j.java.ObjArray;
 import com.kAIS.ode4j.ode.internal.cpp4j.java.RefFloat;
 import com.kAIS.ode4j.ode.internal.gimpact.GimAABBSet.GIM_PAIR;
@@ -38,6 +43,9 @@ import com.kAIS.ode4j.ode.internal.gimpact.GimGeometry.vec3f;
 import com.kAIS.ode4j.ode.internal.gimpact.GimGeometry.vec4f;
 import com.kAIS.ode4j.ode.internal.gimpact.GimTriCollision.GIM_TRIANGLE_CONTACT_DATA;
 import com.kAIS.ode4j.ode.internal.gimpact.GimTriCollision.GIM_TRIANGLE_DATA;
+import com.kAIS.ode4j.ode.threading.task.Task;
+import com.kAIS.ode4j.ode.threading.task.TaskExecutor;
+import com.kAIS.ode4j.ode.threading.task.TaskGroup;
 
 import static com.kAIS.ode4j.ode.internal.gimpact.GimGeometry.*;
 import static com.kAIS.ode4j.ode.internal.gimpact.GimTriCollision.*;
@@ -47,6 +55,39 @@ import static com.kAIS.ode4j.ode.internal.gimpact.GimTriCollision.*;
  * @author Francisco Leon
 */
 class GimTrimeshTrimeshCol {
+
+	/**
+	 * Buffers of the triangle-triangle test and of the pair query. One per
+	 * thread, the chunks of a large pair batch may be tested on several threads.
+	 */
+	private static final class TriTriScratch {
+		final int[] max_candidates = new int[MAX_TRI_CLIPPING];
+		final vec3f[] temp_clip = newVecs();
+		final vec3f[] temp_clip2 = newVecs();
+		final vec3f[] clipped_points1 = newVecs();
+		final vec3f[] clipped_points2 = newVecs();
+		final vec3f[] deep_points1 = newVecs();
+		final vec3f[] deep_points2 = newVecs();
+		final RefFloat maxdeep = new RefFloat();
+		final RefFloat dist = new RefFloat();
+		final GIM_TRIANGLE_CONTACT_DATA contact_data = new GIM_TRIANGLE_CONTACT_DATA();
+		final GIM_TRIANGLE_DATA tri1data = new GIM_TRIANGLE_DATA();
+		final GIM_TRIANGLE_DATA tri2data = new GIM_TRIANGLE_DATA();
+		final GimDynArray<GIM_PAIR> collision_pairs = GimAABBSet.GIM_CREATE_PAIR_SET();
+		final GimDynArray<GimContact> dummycontacts = GimContact.GIM_CREATE_CONTACT_LIST();
+		/** Contacts per chunk of a batch that is split across threads. */
+		final ArrayList<GimDynArray<GimContact>> chunk_contacts = new ArrayList<>();
+
+		private static vec3f[] newVecs() {
+			vec3f[] a = new vec3f[MAX_TRI_CLIPPING];
+			for (int i = 0; i < MAX_TRI_CLIPPING; i++) {
+				a[i] = new vec3f();
+			}
+			return a;
+		}
+	}
+
+	private static final ThreadLocal<TriTriScratch> SCRATCH = ThreadLocal.withInitial(TriTriScratch::new);
 	
 	// ******************************************************
 	// TZ: gim_trimesh_trimesh.collision.cpp
@@ -167,25 +208,27 @@ class GimTrimeshTrimeshCol {
 			final GIM_TRIANGLE_DATA tri1,
 			final GIM_TRIANGLE_DATA tri2,
 			final GIM_TRIANGLE_CONTACT_DATA contact_data)
+	{
+		return _gim_triangle_triangle_collision(tri1, tri2, contact_data, SCRATCH.get());
+	}
+
+	private static boolean _gim_triangle_triangle_collision(
+			final GIM_TRIANGLE_DATA tri1,
+			final GIM_TRIANGLE_DATA tri2,
+			final GIM_TRIANGLE_CONTACT_DATA contact_data,
+			final TriTriScratch scratch)
 	{
 	    //Cache variables for triangle intersection
-	    int[] _max_candidates = new int[MAX_TRI_CLIPPING];
-	    vec3f[] _temp_clip = new vec3f[MAX_TRI_CLIPPING];
+	    //TZ: taken from the per thread scratch instead of allocated per triangle pair
+	    int[] _max_candidates = scratch.max_candidates;
+	    vec3f[] _temp_clip = scratch.temp_clip;
 //	    int _temp_clip_count = 0;
-	    vec3f[] _temp_clip2 = new vec3f[MAX_TRI_CLIPPING];
+	    vec3f[] _temp_clip2 = scratch.temp_clip2;
 //	    int _temp_clip_count2 = 0;
-	    vec3f[] clipped_points2 = new vec3f[MAX_TRI_CLIPPING];
-	    vec3f[] deep_points2 = new vec3f[MAX_TRI_CLIPPING];
-	    vec3f[] clipped_points1 = new vec3f[MAX_TRI_CLIPPING];
-	    vec3f[] deep_points1 = new vec3f[MAX_TRI_CLIPPING];
-	    for (int i = 0; i < MAX_TRI_CLIPPING; i++) {
-	    	_temp_clip[i] = new vec3f(); //TODO is all this really necessary ??? TZ
-	    	_temp_clip2[i] = new vec3f();
-	    	clipped_points1[i] = new vec3f();
-	    	clipped_points2[i] = new vec3f();
-	    	deep_points1[i] = new vec3f();
-	    	deep_points2[i] = new vec3f();
-	    }
+	    vec3f[] clipped_points2 = scratch.clipped_points2;
+	    vec3f[] deep_points2 = scratch.deep_points2;
+	    vec3f[] clipped_points1 = scratch.clipped_points1;
+	    vec3f[] deep_points1 = scratch.deep_points1;
 
 
 
@@ -206,7 +249,7 @@ class GimTrimeshTrimeshCol {
 		//find deepest interval face1
 		int deep2_count=0;
 
-		RefFloat maxdeep = new RefFloat();
+		RefFloat maxdeep = scratch.maxdeep;
 
 		deep2_count = MOST_DEEP_POINTS((tri1.m_planes.m_planes[0]), clipped_points2, clipped2_count, 
 				deep_points2, maxdeep, _max_candidates);
@@ -237,7 +280,7 @@ class GimTrimeshTrimeshCol {
 		//find interval face2
 		int deep1_count=0;
 
-		RefFloat dist = new RefFloat();
+		RefFloat dist = scratch.dist;
 
 		deep1_count = MOST_DEEP_POINTS((tri2.m_planes.m_planes[0]), clipped_points1, clipped1_count, 
 				deep_points1, dist, _max_candidates);
@@ -294,6 +337,15 @@ class GimTrimeshTrimeshCol {
 			final GIM_TRIANGLE_DATA tri2,
 			final GIM_TRIANGLE_CONTACT_DATA contact_data)
 	{
+		return gim_triangle_triangle_collision(tri1, tri2, contact_data, SCRATCH.get());
+	}
+
+	private static boolean gim_triangle_triangle_collision(
+			final GIM_TRIANGLE_DATA tri1,
+			final GIM_TRIANGLE_DATA tri2,
+			final GIM_TRIANGLE_CONTACT_DATA contact_data,
+			final TriTriScratch scratch)
+	{
 //	    vec3f _distances = new vec3f();
 
 //	    if (CLASSIFY_TRI_BY_FACE(tri1.m_vertices, tri2.m_planes.m_planes[0], _distances)) {
@@ -306,7 +358,7 @@ class GimTrimeshTrimeshCol {
 	    	return false;
 	    }
 
-	    return _gim_triangle_triangle_collision(tri1, tri2, contact_data);
+	    return _gim_triangle_triangle_collision(tri1, tri2, contact_data, scratch);
 	}
 
  
@@ -320,6 +372,11 @@ class GimTrimeshTrimeshCol {
 	 * <li> m_feature1 Is a triangle index of trimesh1.
 	 * <li> m_feature2 Is a triangle index of trimesh2.
 	 * </ul>
+	 * If a trimesh executor is set (see {@link OdeConfig#setTrimeshTaskExecutor(TaskExecutor)})
+	 * and there are enough overlapping triangle pairs, the pair list is split
+	 * into contiguous chunks that are tested on its threads. The contacts of
+	 * the chunks are concatenated in pair order before merging, so the result
+	 * is the same as on a single thread.
 	 * 
 	 * @param trimesh1 Collider
 	 * @param trimesh2 Collidee
@@ -330,13 +387,15 @@ class GimTrimeshTrimeshCol {
 			final GimDynArray<GimContact> contacts)
 	{
 	    contacts.m_size = 0;
-	    GimDynArray<GIM_PAIR> collision_pairs = GimAABBSet.GIM_CREATE_PAIR_SET();
+	    //TZ: the pair set and the contact list are kept per thread
+	    TriTriScratch scratch = SCRATCH.get();
+	    GimDynArray<GIM_PAIR> collision_pairs = scratch.collision_pairs;
 
 	    GimAABBSet.gim_aabbset_bipartite_intersections(trimesh1.m_aabbset,trimesh2.m_aabbset,collision_pairs);
 
-	    if(collision_pairs.size()==0)
+	    int pair_count = collision_pairs.size();
+	    if(pair_count==0)
 	    {
-	    	collision_pairs.GIM_DYNARRAY_DESTROY();
 	    	return; //no collisioin
 	    }
 
@@ -346,27 +405,58 @@ class GimTrimeshTrimeshCol {
 
 
 	    //pair pointer
-	    ObjArray<GIM_PAIR> pairs = collision_pairs.GIM_DYNARRAY_POINTER_V();
+	    GIM_PAIR[] pairs = collision_pairs.GIM_DYNARRAY_POINTER();
 	    //dummy contacts
-	    GimDynArray<GimContact> dummycontacts = GimContact.GIM_CREATE_CONTACT_LIST();
+	    GimDynArray<GimContact> dummycontacts = scratch.dummycontacts;
+	    dummycontacts.m_size = 0;
 
-	    //Auxiliary triangle data
-	    GIM_TRIANGLE_CONTACT_DATA tri_contact_data = new GIM_TRIANGLE_CONTACT_DATA();
-	    GIM_TRIANGLE_DATA tri1data = new GIM_TRIANGLE_DATA(), tri2data = new GIM_TRIANGLE_DATA();
+	    TaskExecutor executor = OdeConfig.getTrimeshTaskExecutor();
+	    int threads = (executor == null) ? 1 : executor.getThreadCount();
+	    if(threads > 1 && pair_count >= OdeConfig.getTrimeshParallelMinPairs())
+	    {
+	    	gim_collide_pairs_parallel(trimesh1, trimesh2, pairs, pair_count, executor, threads, scratch);
+	    }
+	    else
+	    {
+	    	gim_collide_pairs(trimesh1, trimesh2, pairs, 0, pair_count, dummycontacts, scratch);
+	    }
+
+	    //merge contacts
+	    if(dummycontacts.size() != 0)
+	    {
+	    	GimContact.gim_merge_contacts(dummycontacts,contacts);
+	    }
 
+	    //Terminate, the lists stay with the thread but must not keep the meshes alive
+	    Arrays.fill(dummycontacts.GIM_DYNARRAY_POINTER(), 0, dummycontacts.size(), null);
+	    dummycontacts.m_size = 0;
+
+	    //Unlocks meshes
+	    trimesh1.gim_trimesh_unlocks_work_data();
+	    trimesh2.gim_trimesh_unlocks_work_data();
+	}
+
+	/** Tests the triangle pairs [begin, end) and appends their contacts. */
+	private static void gim_collide_pairs(final GimTrimesh trimesh1, final GimTrimesh trimesh2,
+			final GIM_PAIR[] pairs, final int begin, final int end,
+			final GimDynArray<GimContact> dummycontacts, final TriTriScratch scratch)
+	{
+	    //Auxiliary triangle data
+	    GIM_TRIANGLE_CONTACT_DATA tri_contact_data = scratch.contact_data;
+	    GIM_TRIANGLE_DATA tri1data = scratch.tri1data, tri2data = scratch.tri2data;
 
 	    int ti1,ti2,ci;
 	    boolean colresult;
-	    for (int i=0;i<collision_pairs.size(); i++)
+	    for (int i=begin;i<end; i++)
 	    {
-	        ti1 = pairs.at(i).m_index1;
-	        ti2 = pairs.at(i).m_index2;
+	        ti1 = pairs[i].m_index1;
+	        ti2 = pairs[i].m_index2;
 	        //Get triangles data
 	        trimesh1.gim_trimesh_get_triangle_data(ti1,tri1data);
 	        trimesh2.gim_trimesh_get_triangle_data(ti2,tri2data);
 
 	        //collide triangles
-	        colresult = gim_triangle_triangle_collision(tri1data,tri2data,tri_contact_data);
+	        colresult = gim_triangle_triangle_collision(tri1data,tri2data,tri_contact_data,scratch);
 	        if(colresult == true)
 	        {
 	            //Add contacts
@@ -378,23 +468,75 @@ class GimTrimeshTrimeshCol {
 	            }
 	        }
 	    }
+	}
 
-	    if(dummycontacts.size() == 0) //reject
+	/**
+	 * Tests the triangle pairs in chunks on the executor threads and the
+	 * calling thread. The planes caches of both meshes are filled for all
+	 * pairs first, so the workers only read the meshes.
+	 */
+	private static void gim_collide_pairs_parallel(final GimTrimesh trimesh1, final GimTrimesh trimesh2,
+			final GIM_PAIR[] pairs, final int pair_count, final TaskExecutor executor, final int threads,
+			final TriTriScratch scratch)
+	{
+	    GIM_TRIANGLE_DATA tri_data = scratch.tri1data;
+	    for (int i = 0; i < pair_count; i++)
 	    {
-	    	dummycontacts.GIM_DYNARRAY_DESTROY();
-	    	collision_pairs.GIM_DYNARRAY_DESTROY();
-	        return;
+	        trimesh1.gim_trimesh_update_triangle_planes(pairs[i].m_index1, tri_data);
+	        trimesh2.gim_trimesh_update_triangle_planes(pairs[i].m_index2, tri_data);
+	    }
+
+	    //a few chunks per thread, the cost of a pair varies a lot
+	    final int chunk_size = Math.max(32, (pair_count + threads * 4 - 1) / (threads * 4));
+	    final int chunk_count = (pair_count + chunk_size - 1) / chunk_size;
+	    final ArrayList<GimDynArray<GimContact>> chunk_contacts = scratch.chunk_contacts;
+	    while (chunk_contacts.size() < chunk_count)
+	    {
+	        chunk_contacts.add(GimContact.GIM_CREATE_CONTACT_LIST());
 	    }
-	    //merge contacts
-	    GimContact.gim_merge_contacts(dummycontacts,contacts);
 
-	    //Terminate
-	    dummycontacts.GIM_DYNARRAY_DESTROY();
-	    collision_pairs.GIM_DYNARRAY_DESTROY();
+	    final AtomicInteger next_chunk = new AtomicInteger();
+	    Runnable worker = new Runnable() {
+	        @Override
+	        public void run() {
+	            TriTriScratch worker_scratch = SCRATCH.get();
+	            int c;
+	            while ((c = next_chunk.getAndIncrement()) < chunk_count)
+	            {
+	                int begin = c * chunk_size;
+	                int end = Math.min(pair_count, begin + chunk_size);
+	                gim_collide_pairs(trimesh1, trimesh2, pairs, begin, end, chunk_contacts.get(c), worker_scratch);
+	            }
+	        }
+	    };
+
+	    int helpers = Math.min(threads, chunk_count) - 1;
+	    TaskGroup group = executor.group("Trimesh Group", new Runnable() {
+	        @Override
+	        public void run() {}
+	    });
+	    for (int w = 0; w < helpers; w++)
+	    {
+	        Task task = group.subtask("Trimesh Pair Chunks", worker);
+	        task.submit();
+	    }
+	    group.submit();
+	    worker.run();
+	    group.awaitCompletion();
 
-	    //Unlocks meshes
-	    trimesh1.gim_trimesh_unlocks_work_data();
-	    trimesh2.gim_trimesh_unlocks_work_data();
+	    //concatenate in pair order
+	    GimDynArray<GimContact> dummycontacts = scratch.dummycontacts;
+	    for (int c = 0; c < chunk_count; c++)
+	    {
+	        GimDynArray<GimContact> chunk = chunk_contacts.get(c);
+	        GimContact[] chunk_data = chunk.GIM_DYNARRAY_POINTER();
+	        for (int k = 0; k < chunk.size(); k++)
+	        {
+	            dummycontacts.GIM_DYNARRAY_PUSH_ITEM_TZ(chunk_data[k]);
+	            chunk_data[k] = null;
+	        }
+	        chunk.m_size = 0;
+	    }
 	}
 
 
@@ -317,7 +317,7 @@ public abstract class DxJoint extends DObject implements DJoint {
 	}
 	
 	//by TZ
-	boolean isFlagsReverse() {
+	public boolean isFlagsReverse() {
 		return (flags & dJOINT_REVERSE) != 0;
 	}
 	
@@ -858,6 +858,33 @@ public abstract class DxJoint extends DObject implements DJoint {
 	  return (flags & dJOINT_DISABLED) == 0;
 	}
 
+	/**
+	 * @return how strongly a motor of this joint is driving its bodies, used
+	 * by island sleeping (see {@link DxWorld#setIslandSleeping(boolean)}).
+	 * Joints without motor return 0.
+	 */
+	public double getMotorActivity()
+	{
+		return 0;
+	}
+
+	/**
+	 * Wake the attached bodies if they are sleeping with their island, e.g.
+	 * after a motor target was changed.
+	 */
+	protected final void wakeBodies()
+	{
+		if (world == null || !world.isIslandSleeping()) {
+			return;
+		}
+		for (int i = 0; i < 2; i++) {
+			DxBody b = node[i].body;
+			if (b != null && b.dBodyIsSleeping()) {
+				b.dBodyWake();
+			}
+		}
+	}
+
 	// remove the joint from neighbour lists of all connected bodies
 
 //	public static void removeJointReferencesFromAttachedBodies (dxJoint j)
@@ -34,7 +34,9 @@ import com.kAIS.ode4j.ode.DContact;
 import com.kAIS.ode4j.ode.DContactJoint;
 import com.kAIS.ode4j.ode.OdeConstants;
 import com.kAIS.ode4j.ode.internal.DxBody;
+import com.kAIS.ode4j.ode.internal.DxContactCache;
 import com.kAIS.ode4j.ode.internal.DxWorld;
+import com.kAIS.ode4j.ode.internal.ScratchPool;
 
 
 /** 
@@ -145,6 +147,19 @@ public class DxJointContact extends DxJoint implements DContactJoint
 	public void getInfo2(double worldFPS, double worldERP, int rowskip, double[] J1A, int J1Ofs, double[] J2A,
 						 int J2Ofs, int pairskip, double[] pairRhsCfmA, int pairRhsCfmOfs, double[] pairLoHiA,
 						 int pairLoHiOfs, int[] findexA, int findexOfs) {
+		ScratchPool pool = ScratchPool.get();
+		pool.push();
+		try {
+			getInfo2(pool, worldFPS, worldERP, rowskip, J1A, J1Ofs, J2A, J2Ofs, pairskip, pairRhsCfmA, pairRhsCfmOfs,
+					pairLoHiA, pairLoHiOfs, findexA, findexOfs);
+		} finally {
+			pool.pop();
+		}
+	}
+
+	private void getInfo2(ScratchPool pool, double worldFPS, double worldERP, int rowskip, double[] J1A, int J1Ofs,
+						  double[] J2A, int J2Ofs, int pairskip, double[] pairRhsCfmA, int pairRhsCfmOfs,
+						  double[] pairLoHiA, int pairLoHiOfs, int[] findexA, int findexOfs) {
 		final int ROW_NORMAL = 0;
 		final int ROW__OPTIONAL_MIN = 1;
 
@@ -168,10 +183,10 @@ public class DxJointContact extends DxJoint implements DContactJoint
 		double c = Math.min(pushout, maxvel);
 
 		// c1,c2 = contact points with respect to body PORs
-		DVector3 c1 = new DVector3(), c2 = new DVector3();
+		DVector3 c1 = pool.vector(), c2 = pool.vector();
 
 		// get normal, with sign adjusted for body1/body2 polarity
-		DVector3 normal = new DVector3();
+		DVector3 normal = pool.vector();
 		if ((flags & dJOINT_REVERSE) != 0) {
 			dCopyNegatedVector3(normal, contact.geom.normal);
 		}
@@ -228,7 +243,7 @@ public class DxJointContact extends DxJoint implements DContactJoint
 
 		if (the_m > 1) { // if no friction, there is nothing else to do
 			// now do jacobian for tangential forces
-			DVector3 t1 = new DVector3(), t2 = new DVector3(); // two vectors tangential to normal
+			DVector3 t1 = pool.vector(), t2 = pool.vector(); // two vectors tangential to normal
 
 			if ((surface_mode & dContactFDir1) != 0) {   // use fdir1 ?
 				dCopyVector3(t1, contact.fdir1);
@@ -323,7 +338,7 @@ public class DxJointContact extends DxJoint implements DContactJoint
 				final int[] approx_bits = { dContactApprox1_1, dContactApprox1_2, dContactApprox1_N };
 
 				// Get the coefficients
-				double[] rho = new double[3];
+				double[] rho = pool.doubles(3);
 				rho[0] = contact.surface.rho;
 				if ((surface_mode & dContactAxisDep) != 0) {
 					rho[1] = contact.surface.rho2;
@@ -380,6 +395,10 @@ public class DxJointContact extends DxJoint implements DContactJoint
 
 	public void setContact(DContact contact) {
 		this.contact.set(contact);
+		DxContactCache cache = world.getContactCache();
+		if (cache != null) {
+			cache.lookup(this.contact.geom, lambda);
+		}
 	}
 }
 
@@ -36,6 +36,7 @@ import com.kAIS.ode4j.math.DVector3C;
 import com.kAIS.ode4j.ode.DHingeJoint;
 import com.kAIS.ode4j.ode.internal.DxBody;
 import com.kAIS.ode4j.ode.internal.DxWorld;
+import com.kAIS.ode4j.ode.internal.ScratchPool;
 
 
 /**
@@ -88,10 +89,19 @@ public class DxJointHinge extends DxJoint implements DHingeJoint
 		info.setNub(5);
 
 		// see if joint is powered
-		if ( limot.fmax > 0 )
+		if ( limot.fmax > 0 || limot.isServo() )
 			info.setM(6); // powered hinge needs an extra constraint row
 		else info.setM(5);
 
+		if ( limot.isServo() )
+		{
+			// the servo target is given in getAngle() terms, the row is not
+			double angle = getHingeAngle( node[0].body,
+					node[1].body,
+					axis1, qrel );
+			limot.setServoPosition( isFlagsReverse() ? -angle : angle, true, isFlagsReverse() );
+		}
+
 		// see if we're at a joint limit.
 		if (( limot.lostop >= -M_PI || limot.histop <= M_PI ) &&
 				limot.lostop <= limot.histop )
@@ -112,6 +122,19 @@ public class DxJointHinge extends DxJoint implements DHingeJoint
 	public void getInfo2(double worldFPS, double worldERP, int rowskip, double[] J1A, int J1Ofs, double[] J2A,
 						 int J2Ofs, int pairskip, double[] pairRhsCfmA, int pairRhsCfmOfs, double[] pairLoHiA,
 						 int pairLoHiOfs, int[] findexA, int findexOfs) {
+		ScratchPool pool = ScratchPool.get();
+		pool.push();
+		try {
+			getInfo2(pool, worldFPS, worldERP, rowskip, J1A, J1Ofs, J2A, J2Ofs, pairskip, pairRhsCfmA, pairRhsCfmOfs,
+					pairLoHiA, pairLoHiOfs, findexA, findexOfs);
+		} finally {
+			pool.pop();
+		}
+	}
+
+	private void getInfo2(ScratchPool pool, double worldFPS, double worldERP, int rowskip, double[] J1A, int J1Ofs,
+						  double[] J2A, int J2Ofs, int pairskip, double[] pairRhsCfmA, int pairRhsCfmOfs,
+						  double[] pairLoHiA, int pairLoHiOfs, int[] findexA, int findexOfs) {
 		// set the three ball-and-socket rows
 		setBall(this, worldFPS, worldERP, rowskip, J1A, J1Ofs, J2A, J2Ofs, pairskip, pairRhsCfmA, pairRhsCfmOfs,
 				anchor1, anchor2);
@@ -124,8 +147,8 @@ public class DxJointHinge extends DxJoint implements DHingeJoint
 		// where p and q are unit vectors normal to the hinge axis, and w1 and w2
 		// are the angular velocity vectors of the two bodies.
 
-		DVector3 ax1 = new DVector3();  // length 1 joint axis in global coordinates, from 1st body
-		DVector3 p = new DVector3(), q = new DVector3(); // plane space vectors for ax1
+		DVector3 ax1 = pool.vector();  // length 1 joint axis in global coordinates, from 1st body
+		DVector3 p = pool.vector(), q = pool.vector(); // plane space vectors for ax1
 		dMultiply0_331( ax1, node[0].body.posr().R(), axis1 );
 		dPlaneSpace( ax1, p, q );
 
@@ -159,9 +182,9 @@ public class DxJointHinge extends DxJoint implements DHingeJoint
 		// ax1 x ax2 is in the plane space of ax1, so we project the angular
 		// velocity to p and q to find the right hand side.
 
-		DVector3 b = new DVector3();
+		DVector3 b = pool.vector();
 		if (body1 != null) {
-			DVector3 ax2 = new DVector3();
+			DVector3 ax2 = pool.vector();
 			dMultiply0_331(ax2, body1.posr().R(), axis2);
 			dCalcVectorCross3(b, ax1, ax2);
 		} else {
@@ -294,7 +317,9 @@ public class DxJointHinge extends DxJoint implements DHingeJoint
 	//void dJointSetHingeParam( dxJointHinge j, D_PARAM_NAMES_X parameter, double value )
 	public void dJointSetHingeParam( PARAM_N parameter, double value )
 	{
+		double vel = limot.vel, fmax = limot.fmax;
 		limot.set( parameter.toSUB(), value );
+		if ( limot.vel != vel || limot.fmax != fmax ) wakeBodies();
 	}
 
 
@@ -434,6 +459,20 @@ public class DxJointHinge extends DxJoint implements DHingeJoint
 	public double getAngleRate()
 	{ return dJointGetHingeAngleRate (); }
 
+	@Override
+	public void setServo (double kp, double kd)
+	{ limot.setServo (kp, kd); }
+	@Override
+	public void setServoTarget (double angle, double rate)
+	{
+		if ( angle != limot.servo_pos || rate != limot.servo_vel ) wakeBodies();
+		limot.setServoTarget (angle, rate);
+	}
+
+	@Override
+	public double getMotorActivity()
+	{ return limot.getActivity(); }
+
 	@Override
 	public void setParam (PARAM_N parameter, double value)
 	{ dJointSetHingeParam (parameter, value); }
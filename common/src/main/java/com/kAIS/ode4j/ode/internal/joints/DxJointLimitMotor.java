@@ -26,6 +26,7 @@ package com.kAIS.ode4j.ode.internal.joints;
 
 import static com.kAIS.ode4j.ode.OdeConstants.dInfinity;
 import static com.kAIS.ode4j.ode.OdeMath.*;
+import static com.kAIS.ode4j.ode.internal.Common.M_PI;
 import static com.kAIS.ode4j.ode.internal.CommonEnums.*;
 import static com.kAIS.ode4j.ode.internal.joints.JointEnums.*;
 
@@ -54,6 +55,13 @@ public class DxJointLimitMotor {
 	// variables used between getInfo1() and getInfo2()
 	public int limit;          // 0=free, 1=at lo limit, 2=at hi limit
 	double limit_err;    // if at limit, amount over limit
+	// implicit PD servo: stiffness/damping solved as the motor row
+	public double servo_kp;
+	public double servo_kd;
+	public double servo_pos;  // target position
+	public double servo_vel;  // target velocity
+	double servo_err;    // target - current position, set before getInfo2()
+	double servo_dir;    // -1 if the joint row is reversed relative to the servo
 
 	//****************************************************************************
 	// dxJointLimitMotor
@@ -73,6 +81,73 @@ public class DxJointLimitMotor {
 		bounce = 0;
 		limit = 0;
 		limit_err = 0;
+		servo_kp = 0;
+		servo_kd = 0;
+		servo_pos = 0;
+		servo_vel = 0;
+		servo_err = 0;
+		servo_dir = 1;
+	}
+
+
+	/**
+	 * Configure the implicit PD servo. With kp or kd &gt; 0 the motor row
+	 * becomes a spring-damper towards the servo target, using the
+	 * ERP/CFM equivalence (erp = h*kp/(h*kp+kd), cfm = 1/(h*kp+kd)), so it
+	 * stays stable for large gains. The force is bounded by dParamFMax if it
+	 * is &gt; 0, otherwise it is unbounded. dParamVel is ignored in servo mode.
+	 */
+	public void setServo( double kp, double kd )
+	{
+		servo_kp = kp > 0 ? kp : 0;
+		servo_kd = kd > 0 ? kd : 0;
+	}
+
+
+	public void setServoTarget( double pos, double vel )
+	{
+		servo_pos = pos;
+		servo_vel = vel;
+	}
+
+
+	public boolean isServo()
+	{
+		return servo_kp > 0 || servo_kd > 0;
+	}
+
+
+	/**
+	 * @return the target velocity of a servo or powered motor, or the
+	 * remaining servo position error if that is larger; 0 if the motor is
+	 * not powered.
+	 */
+	public double getActivity()
+	{
+		if ( isServo() )
+		{
+			return Math.max( Math.abs( servo_vel ), Math.abs( servo_err ) );
+		}
+		return fmax > 0 ? Math.abs( vel ) : 0;
+	}
+
+
+	/**
+	 * Store the current joint position for the servo row.
+	 * @param pos current joint position, in the same frame as the target
+	 * @param rotational wrap the error to -pi..pi
+	 * @param reverse the constraint row measures the negated position
+	 */
+	public void setServoPosition( double pos, boolean rotational, boolean reverse )
+	{
+		double err = servo_pos - pos;
+		if ( rotational )
+		{
+			while ( err > M_PI ) err -= 2 * M_PI;
+			while ( err < -M_PI ) err += 2 * M_PI;
+		}
+		servo_dir = reverse ? -1 : 1;
+		servo_err = servo_dir * err;
 	}
 
 
@@ -171,7 +246,8 @@ public class DxJointLimitMotor {
 							double[] pairRhsCfmA, int pairRhsCfmOfs, double[] pairLoHiA, int pairLoHiOfs,
 							final DVector3C ax1, boolean rotational) {
 		// if the joint is powered, or has joint limits, add in the extra row
-		boolean powered = fmax > 0;
+		boolean servo = isServo();
+		boolean powered = fmax > 0 || servo;
 		if ( powered || limit != 0)
 		{
 			int J1UsedOfs = rotational ? J1Ofs + GI2__JA_MIN : J1Ofs + GI2__JL_MIN;
@@ -217,14 +293,27 @@ public class DxJointLimitMotor {
 
 			if ( powered )
 			{
-				pairRhsCfmA[pairRhsCfmOfs + GI2_CFM] = normal_cfm;
+				double vel = this.vel;
+				if ( servo )
+				{
+					// f = kp*(err - h*v') + kd*(servo_vel - v')  solved implicitly:
+					// v' = (kp*err + kd*servo_vel)/(h*kp + kd) - f/(h*kp + kd)
+					double d = servo_kp / fps + servo_kd;
+					vel = ( servo_kp * servo_err + servo_kd * servo_dir * servo_vel ) / d;
+					pairRhsCfmA[pairRhsCfmOfs + GI2_CFM] = 1.0 / d;
+				}
+				else
+				{
+					pairRhsCfmA[pairRhsCfmOfs + GI2_CFM] = normal_cfm;
+				}
 				if ( limit == 0 )
 				{
+					double fm = fmax > 0 ? fmax : dInfinity;
 					pairRhsCfmA[pairRhsCfmOfs + GI2_RHS] = vel;
-					pairLoHiA[pairLoHiOfs + GI2_LO] = -fmax;
-					pairLoHiA[pairLoHiOfs + GI2_HI] = fmax;
+					pairLoHiA[pairLoHiOfs + GI2_LO] = -fm;
+					pairLoHiA[pairLoHiOfs + GI2_HI] = fm;
 				}
-				else
+				else if ( fmax > 0 )
 				{
 					// the joint is at a limit, AND is being powered. if the joint is
 					// being powered into the limit then we apply the maximum motor force
@@ -235,11 +324,27 @@ public class DxJointLimitMotor {
 					// fraction of the maximum force. the fraction to use can be set as
 					// a fudge factor.
 
-					double fm = fmax;
-					if (( vel > 0 ) || ( vel == 0 && limit == 2 ) ) fm = -fm;
+					double fm;
+					if ( servo )
+					{
+						// a servo applies its PD force instead of the full motor force, so a
+						// target at or near the limit does not chatter with +/- fmax:
+						// f = kp*err + kd*(servo_vel - v), v measured along the row, bounded by fmax
+						double v = rotational ? joint.node[0].body.avel.dot( ax1 ) : joint.node[0].body.lvel.dot( ax1 );
+						if ( b1 != null )
+							v -= rotational ? b1.avel.dot( ax1 ) : b1.lvel.dot( ax1 );
+						double f = servo_kp * servo_err + servo_kd * ( servo_dir * servo_vel - v );
+						f = Math.max( -fmax, Math.min( fmax, f ) );
+						fm = -f;
+					}
+					else
+					{
+						fm = fmax;
+						if (( vel > 0 ) || ( vel == 0 && limit == 2 ) ) fm = -fm;
 
-					// if we're powering away from the limit, apply the fudge factor
-					if (( limit == 1 && vel > 0 ) || ( limit == 2 && vel < 0 ) ) fm *= fudge_factor;
+						// if we're powering away from the limit, apply the fudge factor
+						if (( limit == 1 && vel > 0 ) || ( limit == 2 && vel < 0 ) ) fm *= fudge_factor;
+					}
 
 	                
 					double fm_ax1_0 = fm*ax1.get0(), fm_ax1_1 = fm*ax1.get1(), fm_ax1_2 = fm*ax1.get2();
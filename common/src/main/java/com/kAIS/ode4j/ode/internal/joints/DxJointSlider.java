@@ -125,9 +125,13 @@ public class DxJointSlider extends DxJoint implements DSliderJoint {
         info.setNub(5);
 
         // see if joint is powered
-        if (limot.fmax > 0) info.setM(6); // powered slider needs an extra constraint row
+        if (limot.fmax > 0 || limot.isServo()) info.setM(6); // powered slider needs an extra constraint row
         else info.setM(5);
 
+        if (limot.isServo()) {
+            limot.setServoPosition(dJointGetSliderPosition(), false, false);
+        }
+
         // see if we're at a joint limit.
         limot.limit = 0;
         if ((limot.lostop > -dInfinity || limot.histop < dInfinity) && limot.lostop <= limot.histop) {
@@ -294,7 +298,9 @@ public class DxJointSlider extends DxJoint implements DSliderJoint {
 
     //void dJointSetSliderParam ( dJoint j, D_PARAM_NAMES parameter, double value )
     public void dJointSetSliderParam(PARAM_N parameter, double value) {
+        double vel = limot.vel, fmax = limot.fmax;
         limot.set(parameter.toSUB(), value);
+        if (limot.vel != vel || limot.fmax != fmax) wakeBodies();
     }
 
 
@@ -414,6 +420,22 @@ public class DxJointSlider extends DxJoint implements DSliderJoint {
         return dJointGetSliderPositionRate();
     }
 
+    @Override
+    public void setServo(double kp, double kd) {
+        limot.setServo(kp, kd);
+    }
+
+    @Override
+    public void setServoTarget(double position, double rate) {
+        if (position != limot.servo_pos || rate != limot.servo_vel) wakeBodies();
+        limot.setServoTarget(position, rate);
+    }
+
+    @Override
+    public double getMotorActivity() {
+        return limot.getActivity();
+    }
+
     @Override
     public void setParam(PARAM_N parameter, double value) {
         dJointSetSliderParam(parameter, value);
@@ -80,19 +80,45 @@ public class CCD {
 		double epa_tolerance;
 		public double mpr_tolerance; //!< Boundary tolerance for MPR algorithm
 
+		/**
+		 * Set by the MPR functions when they return 'no intersection' because a
+		 * support point did not pass the origin: {@link #sep_dir} then holds a
+		 * direction d with max(d . (obj1 - obj2)) &lt;= 0, i.e. a separating
+		 * axis that callers may cache and re-test on the next query.
+		 */
+		public boolean has_sep_dir;
+		public final ccd_vec3_t sep_dir = new ccd_vec3_t();
+
+		// Scratch storage for MPR and __ccdSupport(). A ccd_t must therefore
+		// not be shared between threads, but it can be reused between queries.
+		final ccd_simplex_t mpr_portal = new ccd_simplex_t();
+		final ccd_support_t mpr_v4 = new ccd_support_t();
+		final ccd_vec3_t mpr_dir = new ccd_vec3_t();
+		final ccd_vec3_t mpr_va = new ccd_vec3_t();
+		final ccd_vec3_t mpr_vb = new ccd_vec3_t();
+		final ccd_vec3_t mpr_pos_dir = new ccd_vec3_t();
+		final ccd_vec3_t mpr_pos_vec = new ccd_vec3_t();
+		final ccd_vec3_t mpr_pos_p1 = new ccd_vec3_t();
+		final ccd_vec3_t mpr_pos_p2 = new ccd_vec3_t();
+		final ccd_vec3_t mpr_v2v1 = new ccd_vec3_t();
+		final ccd_vec3_t mpr_v3v1 = new ccd_vec3_t();
+		final ccd_vec3_t mpr_v4v0 = new ccd_vec3_t();
+		final ccd_vec3_t supp_dir = new ccd_vec3_t();
+
 		public ccd_t() {}
 	}
+
+	private static final ccd_first_dir_fn FIRST_DIR_DEFAULT = new ccd_first_dir_fn() {
+		@Override
+		public void run(Object obj1, Object obj2, ccd_vec3_t dir) {
+			ccdFirstDirDefault(obj1, obj2, dir);
+		}
+	};
 	//	typedef struct _ccd_t ccd_t;
 
 	//	#define CCD_INIT(ccd) \
 	public static void CCD_INIT(ccd_t ccd) {
-		(ccd).first_dir = new ccd_first_dir_fn() {
-			
-			@Override
-			public void run(Object obj1, Object obj2, ccd_vec3_t dir) {
-				ccdFirstDirDefault(obj1, obj2, dir);
-			}
-		}; 
+		(ccd).first_dir = FIRST_DIR_DEFAULT; 
 		(ccd).support1 = null; 
 		(ccd).support2 = null; 
 		(ccd).center1  = null; 
@@ -101,6 +127,7 @@ public class CCD {
 		(ccd).max_iterations = Long.MAX_VALUE;//(long)-1; 
 		(ccd).epa_tolerance = (0.0001); 
 		(ccd).mpr_tolerance = (0.0001); 
+		(ccd).has_sep_dir = false; 
 	}
 
 
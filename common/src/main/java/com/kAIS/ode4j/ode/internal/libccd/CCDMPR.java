@@ -40,9 +40,11 @@ public class CCDMPR {
 	 */
 	public static int ccdMPRIntersect(final Object obj1, final Object obj2, final ccd_t ccd)
 	{
-	    ccd_simplex_t portal = new ccd_simplex_t();
+	    ccd_simplex_t portal = ccd.mpr_portal;
 	    int res;
 
+	    ccd.has_sep_dir = false;
+
 	    // Phase 1: Portal discovery - find portal that intersects with origin
 	    // ray (ray from center of Minkowski diff to origin of coordinates)
 	    res = discoverPortal(obj1, obj2, ccd, portal);
@@ -78,9 +80,11 @@ public class CCDMPR {
 	public static int ccdMPRPenetration(final Object obj1, final Object obj2, final ccd_t ccd,
 	                      RefDouble depth, ccd_vec3_t dir, ccd_vec3_t pos)
 	{
-	    ccd_simplex_t portal = new ccd_simplex_t();
+	    ccd_simplex_t portal = ccd.mpr_portal;
 	    int res;
 
+	    ccd.has_sep_dir = false;
+
 	    // Phase 1: Portal discovery
 	    res = discoverPortal(obj1, obj2, ccd, portal);
 	    if (res < 0){
@@ -113,6 +117,34 @@ public class CCDMPR {
 	    return 0;
 	}
 
+	/**
+	 * Tests whether dir is a separating axis of obj1 and obj2, using the same
+	 * criterion as the MPR portal discovery (support point of the Minkowski
+	 * difference does not pass the origin). This costs one support query per
+	 * object and is meant to re-test the {@link ccd_t#sep_dir} of a previous
+	 * query before running MPR again.
+	 * @param obj1 object 1
+	 * @param obj2 object 2
+	 * @param ccd ccd
+	 * @param dir direction (normalized)
+	 * @return true if the objects are separated along dir.
+	 */
+	public static boolean ccdMPRSeparatedAlong(final Object obj1, final Object obj2, final ccd_t ccd,
+	                      final ccd_vec3_t dir)
+	{
+	    final ccd_support_t v = ccd.mpr_v4;
+	    __ccdSupport(obj1, obj2, dir, ccd, v);
+	    double dot = ccdVec3Dot(v.v, dir);
+	    return ccdIsZero(dot) || dot < CCD_ZERO;
+	}
+
+	/** Records dir as separating axis of the current query. */
+	private static int separated(final ccd_t ccd, final ccd_vec3_t dir)
+	{
+	    ccdVec3Copy(ccd.sep_dir, dir);
+	    ccd.has_sep_dir = true;
+	    return -1;
+	}
 
 
 	/** Finds origin (center) of Minkowski difference (actually it can be any
@@ -138,7 +170,7 @@ public class CCDMPR {
 	private static int discoverPortal(final Object obj1, final Object obj2,
 	                          final ccd_t ccd, ccd_simplex_t portal)
 	{
-	    final ccd_vec3_t dir = new ccd_vec3_t(), va = new ccd_vec3_t(), vb = new ccd_vec3_t();
+	    final ccd_vec3_t dir = ccd.mpr_dir, va = ccd.mpr_va, vb = ccd.mpr_vb;
 	    double dot;
 	    int cont;
 
@@ -167,7 +199,7 @@ public class CCDMPR {
 	    // test if origin isn't outside of v1
 	    dot = ccdVec3Dot(ccdSimplexPoint1(portal).v, dir);
 	    if (ccdIsZero(dot) || dot < CCD_ZERO)
-	        return -1;
+	        return separated(ccd, dir);
 
 
 	    // vertex 2
@@ -189,7 +221,7 @@ public class CCDMPR {
 	    __ccdSupport(obj1, obj2, dir, ccd, ccdSimplexPointW2(portal));
 	    dot = ccdVec3Dot(ccdSimplexPoint2(portal).v, dir);
 	    if (ccdIsZero(dot) || dot < CCD_ZERO) {
-			return -1;
+			return separated(ccd, dir);
 		}
 
 	    ccdSimplexSetSize(portal, 3);
@@ -215,7 +247,7 @@ public class CCDMPR {
 	        __ccdSupport(obj1, obj2, dir, ccd, ccdSimplexPointW3(portal));
 	        dot = ccdVec3Dot(ccdSimplexPoint3(portal).v, dir);
 	        if (ccdIsZero(dot) || dot < CCD_ZERO) {
-				return -1;
+				return separated(ccd, dir);
 			}
 
 	        cont = 0;
@@ -265,13 +297,13 @@ public class CCDMPR {
 	private static int refinePortal(final Object obj1, final Object obj2,
 	                        final ccd_t ccd, ccd_simplex_t portal)
 	{
-	    final ccd_vec3_t dir = new ccd_vec3_t();
-	    final ccd_support_t v4 = new ccd_support_t();
+	    final ccd_vec3_t dir = ccd.mpr_dir;
+	    final ccd_support_t v4 = ccd.mpr_v4;
 
 	    while (true){
 	        // compute direction outside the portal (from v0 throught v1,v2,v3
 	        // face)
-			if (portalDir(portal, dir) != 0) {
+			if (portalDir(portal, dir, ccd) != 0) {
 				return -1;
 			}
 
@@ -284,14 +316,16 @@ public class CCDMPR {
 
 	        // test if v4 can expand portal to contain origin and if portal
 	        // expanding doesn't reach given tolerance
-	        if (!portalCanEncapsuleOrigin(portal, v4, dir)
-	                || portalReachTolerance(portal, v4, dir, ccd)){
+	        if (!portalCanEncapsuleOrigin(portal, v4, dir)) {
+	            return separated(ccd, dir);
+	        }
+	        if (portalReachTolerance(portal, v4, dir, ccd)){
 	            return -1;
 	        }
 
 	        // v1-v2-v3 triangle must be rearranged to face outside Minkowski
 	        // difference (direction from v0).
-	        expandPortal(portal, v4);
+	        expandPortal(portal, v4, ccd);
 	    }
 
 	    //return -1;
@@ -304,14 +338,14 @@ public class CCDMPR {
 	                       ccd_simplex_t portal,
 	                       RefDouble depth, ccd_vec3_t pdir, ccd_vec3_t pos)
 	{
-	    final ccd_vec3_t dir = new ccd_vec3_t();
-	    final ccd_support_t v4 = new ccd_support_t();
+	    final ccd_vec3_t dir = ccd.mpr_dir;
+	    final ccd_support_t v4 = ccd.mpr_v4;
 	    long iterations;
 
 	    iterations = 0L;
 	    while (true){
 	        // compute portal direction and obtain next support point
-			if (portalDir(portal, dir) != 0) {
+			if (portalDir(portal, dir, ccd) != 0) {
 				return -1;
 			}
 
@@ -338,7 +372,7 @@ public class CCDMPR {
 				return 0;
 	        }
 
-	        expandPortal(portal, v4);
+	        expandPortal(portal, v4, ccd);
 
 	        iterations++;
 	    }
@@ -401,13 +435,13 @@ public class CCDMPR {
 	private static int findPos(final Object obj1, final Object obj2, final ccd_t ccd,
 			final ccd_simplex_t portal, ccd_vec3_t pos)
 	{
-	    final ccd_vec3_t dir = new ccd_vec3_t();
+	    final ccd_vec3_t dir = ccd.mpr_pos_dir;
 	    //int i;
 	    double b0, b1, b2, b3;//=new double[4];
 	    double sum, inv;
-	    final ccd_vec3_t vec = new ccd_vec3_t(), p1 = new ccd_vec3_t(), p2 = new ccd_vec3_t();
+	    final ccd_vec3_t vec = ccd.mpr_pos_vec, p1 = ccd.mpr_pos_p1, p2 = ccd.mpr_pos_p2;
 
-		if (portalDir(portal, dir) != 0) {
+		if (portalDir(portal, dir, ccd) != 0) {
 			return -1;
 		}
 
@@ -495,10 +529,10 @@ public class CCDMPR {
 	/** Extends portal with new support point.
 	 *  Portal must have face v1-v2-v3 arranged to face outside portal. */
 	private static void expandPortal(ccd_simplex_t portal,
-	                              final ccd_support_t v4)
+	                              final ccd_support_t v4, final ccd_t ccd)
 	{
 	    double dot;
-	    final ccd_vec3_t v4v0 = new ccd_vec3_t();
+	    final ccd_vec3_t v4v0 = ccd.mpr_v4v0;
 
 	    ccdVec3Cross(v4v0, v4.v, ccdSimplexPoint0(portal).v);
 	    dot = ccdVec3Dot(ccdSimplexPoint1(portal).v, v4v0);
@@ -522,9 +556,9 @@ public class CCDMPR {
 
 	/** Fill dir with direction outside portal. Portal's v1-v2-v3 face must be
 	 *  arranged in correct order! */
-	private static int portalDir(final ccd_simplex_t portal, ccd_vec3_t dir)
+	private static int portalDir(final ccd_simplex_t portal, ccd_vec3_t dir, final ccd_t ccd)
 	{
-	    final ccd_vec3_t v2v1 = new ccd_vec3_t(), v3v1 = new ccd_vec3_t();
+	    final ccd_vec3_t v2v1 = ccd.mpr_v2v1, v3v1 = ccd.mpr_v3v1;
 
 	    ccdVec3Sub2(v2v1, ccdSimplexPoint2(portal).v,
 	                       ccdSimplexPoint1(portal).v);
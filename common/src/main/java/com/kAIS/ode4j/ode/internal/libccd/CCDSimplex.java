@@ -39,6 +39,7 @@ public class CCDSimplex {
 		private final ccd_support_t ps1 = new ccd_support_t();
 		private final ccd_support_t ps2 = new ccd_support_t();
 		private final ccd_support_t ps3 = new ccd_support_t();
+		private final ccd_support_t swap = new ccd_support_t();
 	};
 
 
@@ -149,7 +150,7 @@ public class CCDSimplex {
 	 */
 	static void ccdSimplexSwap12(ccd_simplex_t s)
 	{
-		ccd_support_t supp = new ccd_support_t();
+		ccd_support_t supp = s.swap;
 
 		ccdSupportCopy(supp, s.ps1);
 		ccdSupportCopy(s.ps1, s.ps2);
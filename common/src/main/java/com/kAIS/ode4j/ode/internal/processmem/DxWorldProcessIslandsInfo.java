@@ -87,6 +87,7 @@ public class DxWorldProcessIslandsInfo {
         // handle auto-disabling of bodies
         world.dInternalHandleAutoDisabling (stepsize);
 
+        boolean islandSleeping = world.isIslandSleeping();
         int nb = world.nb, nj = world.nj;
         // Make array for island body/joint counts
         int[] islandsizes = memarena.AllocateArrayInt(2 * nb);
@@ -146,7 +147,14 @@ public class DxWorldProcessIslandsInfo {
                                         if (nbody!=null && nbody.tag <= 0) {
                                             nbody.tag = 1;
                                             // Make sure all bodies are in the enabled state.
-                                            nbody.dBodyEnable_noAdis();
+                                            // A sleeping island that is touched gets a full
+                                            // wake up, otherwise it would go back to sleep
+                                            // right away.
+                                            if (islandSleeping && nbody.dBodyIsSleeping()) {
+                                                nbody.dBodyWake();
+                                            } else {
+                                                nbody.dBodyEnable_noAdis();
+                                            }
                                             //nbody.flags &= ~DxBody.dxBodyDisabled;
                                             stack[stacksize++] = nbody;
                                         }
@@ -166,6 +174,19 @@ public class DxWorldProcessIslandsInfo {
                             body[bodycurr++] = b;//*bodycurr++ = b;    // put body on body list
                         }
 
+                        if (islandSleeping && isIslandReadyToSleep(body, bodystart, bodycurr)) {
+                            // put the whole island to sleep and drop it from the
+                            // island list, so the stepper skips it
+                            for (int i = bodystart; i < bodycurr; i++) {
+                                body[i].dBodySleep();
+                                body[i].tag = -1;
+                            }
+                            for (int i = jointstart; i < jointcurr; i++) {
+                                joint[i].tag = 0;
+                            }
+                            continue;
+                        }
+
                         int bcount = bodycurr - bodystart;
                         int jcount = jointcurr - jointstart;
                         Common.dIASSERT((bodycurr - bodystart) <= Integer.MAX_VALUE);//UINT_MAX);
@@ -223,5 +244,14 @@ public class DxWorldProcessIslandsInfo {
         return maxreq;
     }
 
+    private static boolean isIslandReadyToSleep(DxBody[] body, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!body[i].dBodyIsReadyToSleep()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public DxWorldProcessIslandsInfo() {}
 }
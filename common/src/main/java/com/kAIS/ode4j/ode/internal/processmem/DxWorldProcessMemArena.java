@@ -29,8 +29,25 @@ import com.kAIS.ode4j.ode.internal.DxBody;
 import com.kAIS.ode4j.ode.internal.joints.DxJoint;
 import com.kAIS.ode4j.ode.internal.processmem.DxUtil.BlockPointer;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 
+/**
+ * Stack-ordered memory arena of the world steppers.
+ * <p>
+ * The C++ arena hands out consecutive chunks of one preallocated buffer.
+ * Java stepper code indexes every arena array from 0, so instead of views
+ * into one slab each allocation position (the n-th array of a given type
+ * since the last reset/restore) owns a slot that keeps its array between
+ * steps. An allocation reuses the slot's array if it is large enough and
+ * clears the requested range, otherwise the slot is regrown by the reserve
+ * factor of the arena. Callers never rely on the length of arena arrays,
+ * so a stepper running on a world of steady size does not allocate.
+ * <p>
+ * {@link #SaveState()} returns a mark of the current slot positions.
+ * Marks are pooled as well: a mark stays valid until a state that was
+ * saved before it is restored, just like the C++ stack pointer would.
+ */
 public final class DxWorldProcessMemArena {
 	
     //   public:
@@ -58,7 +75,9 @@ public final class DxWorldProcessMemArena {
         return m_pAllocBegin!=null 
         && m_pAllocEnd!=null 
         && m_pAllocBegin.toInt() <= m_pAllocEnd.toInt() 
-        && (m_pAllocCurrentOrNextArena == null || m_pAllocCurrentOrNextArena == m_pAllocBegin) 
+        && m_markTop == 0 
+        && m_dblTop == 0 && m_fltTop == 0 && m_dblPtrTop == 0 && m_intTop == 0 && m_boolTop == 0 
+        && m_atomicTop == 0 && m_bodyTop == 0 && m_jointTop == 0 
         && m_pArenaBegin!=null  
         && m_pArenaBegin.toInt() <= m_pAllocBegin.toInt(); 
     }
@@ -70,37 +89,105 @@ public final class DxWorldProcessMemArena {
 
     public BlockPointer SaveState() //const
     {
-        return m_pAllocCurrentOrNextArena;
+        if (m_markTop == m_marks.length) {
+            m_marks = Arrays.copyOf(m_marks, m_markTop * 2);
+        }
+        ArenaState state = m_marks[m_markTop];
+        if (state == null) {
+            state = new ArenaState(this, m_markTop);
+            m_marks[m_markTop] = state;
+        }
+        m_markTop++;
+
+        state.dblTop = m_dblTop;
+        state.fltTop = m_fltTop;
+        state.dblPtrTop = m_dblPtrTop;
+        state.intTop = m_intTop;
+        state.boolTop = m_boolTop;
+        state.atomicTop = m_atomicTop;
+        state.bodyTop = m_bodyTop;
+        state.jointTop = m_jointTop;
+        return state;
     }
 
     public void RestoreState(BlockPointer state)
     {
-    	m_pAllocCurrentOrNextArena = state;
+        ArenaState s = (ArenaState) state;
+        Common.dIASSERT(s.index < m_markTop && m_marks[s.index] == s);
+
+        m_dblTop = s.dblTop;
+        m_fltTop = s.fltTop;
+        m_dblPtrTop = s.dblPtrTop;
+        m_intTop = s.intTop;
+        m_boolTop = s.boolTop;
+        m_atomicTop = s.atomicTop;
+        m_bodyTop = s.bodyTop;
+        m_jointTop = s.jointTop;
+        // The restored mark stays valid (it may be restored again), later ones are released
+        m_markTop = s.index + 1;
     }
 
     public void ResetState()
     {
-    	m_pAllocCurrentOrNextArena = m_pAllocBegin;
+        m_dblTop = 0;
+        m_fltTop = 0;
+        m_dblPtrTop = 0;
+        m_intTop = 0;
+        m_boolTop = 0;
+        m_atomicTop = 0;
+        m_bodyTop = 0;
+        m_jointTop = 0;
+        m_markTop = 0;
     }
 
     public BlockPointer PeekBufferRemainder() //const
     {
-        return m_pAllocCurrentOrNextArena;
+        // Only passed through as the scratch buffer of dLDLTRemove(), which does not use it
+        return m_pAllocBegin;
     }
 
     //dxWorldProcessMemArena *GetNextMemArena() const { return (dxWorldProcessMemArena *)m_pAllocCurrentOrNextArena; }
-    DxWorldProcessMemArena GetNextMemArena() { return m_pAllocCurrentOrNextArena.asDxWorldProcessMemArena(); }
+    DxWorldProcessMemArena GetNextMemArena() { return m_pNextMemArena; }
     //void SetNextMemArena(dxWorldProcessMemArena *pArenaInstance) { m_pAllocCurrentOrNextArena = pArenaInstance; }
-    void SetNextMemArena(DxWorldProcessMemArena pArenaInstance) { m_pAllocCurrentOrNextArena.setTo( pArenaInstance ); }
+    void SetNextMemArena(DxWorldProcessMemArena pArenaInstance) { m_pNextMemArena = pArenaInstance; }
 
     
-    private BlockPointer m_pAllocCurrentOrNextArena = new BlockPointer(this, 0);
+    // The C++ arena keeps the free-list link in the allocation pointer. Here
+    // the allocation position is the set of slot tops below, so the link has
+    // a field of its own.
+    private DxWorldProcessMemArena m_pNextMemArena;
     private BlockPointer m_pAllocBegin = new BlockPointer(this, 0);
     private BlockPointer m_pAllocEnd = new BlockPointer(this, 0);
     private BlockPointer m_pArenaBegin;
 
     DxWorldProcessMemoryManager m_pArenaMemMgr;
 
+    /** Growth factor for slots that are too small, see DxWorldProcessMemoryReserveInfo. */
+    private double m_fReserveFactor = 1.0;
+
+    private double[][] m_dblSlots = new double[8][];
+    private float[][] m_fltSlots = new float[2][];
+    private double[][][] m_dblPtrSlots = new double[2][][];
+    private int[][] m_intSlots = new int[8][];
+    private boolean[][] m_boolSlots = new boolean[2][];
+    private AtomicIntegerArray[] m_atomicSlots = new AtomicIntegerArray[2];
+    private DxBody[][] m_bodySlots = new DxBody[4][];
+    private DxJoint[][] m_jointSlots = new DxJoint[2][];
+    private int m_dblTop, m_fltTop, m_dblPtrTop, m_intTop, m_boolTop, m_atomicTop, m_bodyTop, m_jointTop;
+
+    private ArenaState[] m_marks = new ArenaState[8];
+    private int m_markTop;
+
+    private static final class ArenaState extends BlockPointer {
+        final int index;
+        int dblTop, fltTop, dblPtrTop, intTop, boolTop, atomicTop, bodyTop, jointTop;
+
+        ArenaState(DxWorldProcessMemArena arena, int index) {
+            super(arena, index);
+            this.index = index;
+        }
+    }
+
 
     //****************************************************************************
     // World processing context management
@@ -113,15 +200,9 @@ public final class DxWorldProcessMemArena {
         DxWorldProcessMemArena arena = oldarena;
         boolean allocsuccess = false;
 
-        int nOldArenaSize = 0; 
-        BlockPointer pOldArenaBuffer = null;
-
         do {
             int oldmemsize = oldarena!=null ? oldarena.GetMemorySize() : 0;
             if (oldarena == null || oldmemsize < memreq) {
-                nOldArenaSize = oldarena!=null ? MakeArenaSize(oldmemsize) : 0;
-                pOldArenaBuffer = oldarena!=null ? oldarena.m_pArenaBegin : null;
-
                 if (!IsArenaPossible(memreq)) {
                     break;
                 }
@@ -130,42 +211,33 @@ public final class DxWorldProcessMemArena {
                 int arenareq_with_reserve = AdjustArenaSizeForReserveRequirements(arenareq, rsrvfactor, rsrvminimum);
                 int memreq_with_reserve = memreq + (arenareq_with_reserve - arenareq);
 
-                if (oldarena != null) {
-                    oldarena.m_pArenaMemMgr.m_fnFree.run(pOldArenaBuffer, nOldArenaSize);
-                    oldarena = null;
-
-                    // Zero variables to avoid another freeing on exit
-                    pOldArenaBuffer = null;
-                    nOldArenaSize = 0;
-                }
-
-                // Allocate new arena
-                BlockPointer pNewArenaBuffer = memmgr.m_fnAlloc.run(arenareq_with_reserve);
-                if (pNewArenaBuffer == null) {
-                    break;
+                if (oldarena == null) {
+                    // Allocate new arena
+                    BlockPointer pNewArenaBuffer = memmgr.m_fnAlloc.run(arenareq_with_reserve);
+                    if (pNewArenaBuffer == null) {
+                        break;
+                    }
+
+                    arena = DxUtil.dEFFICIENT_PTR(pNewArenaBuffer).asDxWorldProcessMemArena();
+                    arena.m_pArenaBegin = pNewArenaBuffer;
+                    arena.m_pNextMemArena = null;
+                    arena.m_pArenaMemMgr = memmgr;
                 }
+                // else: the slots grow on demand, so a larger requirement only
+                // updates the bookkeeping and the existing arrays are kept.
 
-                arena = DxUtil.dEFFICIENT_PTR(pNewArenaBuffer).asDxWorldProcessMemArena();
-
-                BlockPointer blockbegin = DxUtil.dEFFICIENT_PTR(arena, 1);
-                BlockPointer blockend = DxUtil.dOFFSET_EFFICIENTLY(blockbegin, memreq_with_reserve);
-
-                arena.m_pAllocBegin = blockbegin;
-                arena.m_pAllocEnd = blockend;
-                arena.m_pArenaBegin = pNewArenaBuffer;
-                arena.m_pAllocCurrentOrNextArena.setTo(null);
-                arena.m_pArenaMemMgr = memmgr;
+                // dOFFSET_EFFICIENTLY() cannot move a BlockPointer, record the size directly
+                arena.m_pAllocBegin = DxUtil.dEFFICIENT_PTR(arena, 0);
+                arena.m_pAllocEnd = DxUtil.dEFFICIENT_PTR(arena, memreq_with_reserve);
             }
+            arena.m_fReserveFactor = rsrvfactor > 1.0 ? rsrvfactor : 1.0;
+            arena.ResetState();
 
             allocsuccess = true;
         } 
         while (false);
 
         if (!allocsuccess) {
-            if (pOldArenaBuffer != null) {
-                Common.dIASSERT(oldarena != null);
-                oldarena.m_pArenaMemMgr.m_fnFree.run(pOldArenaBuffer, nOldArenaSize);
-            }
             arena = null;
         }
 
@@ -200,12 +272,54 @@ public final class DxWorldProcessMemArena {
     // Java methods to simulate the C++ manager (TZ)
     // ***********************************************
 
+    private int reservedCapacity(int size) {
+        double scaled = size * m_fReserveFactor;
+        return scaled < Integer.MAX_VALUE ? Math.max(size, (int) scaled) : size;
+    }
+
     public final double[] AllocateArrayDReal(int size) {
-        return new double[size];
+        if (m_dblTop == m_dblSlots.length) {
+            m_dblSlots = Arrays.copyOf(m_dblSlots, m_dblTop * 2);
+        }
+        double[] a = m_dblSlots[m_dblTop];
+        if (a == null || a.length < size) {
+            a = new double[reservedCapacity(size)];
+            m_dblSlots[m_dblTop] = a;
+        } else {
+            Arrays.fill(a, 0, size, 0);
+        }
+        m_dblTop++;
+        return a;
+    }
+
+    public final float[] AllocateArrayFloat(int size) {
+        if (m_fltTop == m_fltSlots.length) {
+            m_fltSlots = Arrays.copyOf(m_fltSlots, m_fltTop * 2);
+        }
+        float[] a = m_fltSlots[m_fltTop];
+        if (a == null || a.length < size) {
+            a = new float[reservedCapacity(size)];
+            m_fltSlots[m_fltTop] = a;
+        } else {
+            Arrays.fill(a, 0, size, 0);
+        }
+        m_fltTop++;
+        return a;
     }
 
     public final int[] AllocateArrayInt(int size) {
-        return new int[size];
+        if (m_intTop == m_intSlots.length) {
+            m_intSlots = Arrays.copyOf(m_intSlots, m_intTop * 2);
+        }
+        int[] a = m_intSlots[m_intTop];
+        if (a == null || a.length < size) {
+            a = new int[reservedCapacity(size)];
+            m_intSlots[m_intTop] = a;
+        } else {
+            Arrays.fill(a, 0, size, 0);
+        }
+        m_intTop++;
+        return a;
     }
 
     public double[] AllocateOveralignedArrayDReal(int count, int alignment)
@@ -213,11 +327,25 @@ public final class DxWorldProcessMemArena {
         //return (ElementType *)AllocateOveralignedBlock(count * sizeof(ElementType), alignment);
         // TZ: we assume that alignment is for the whole block so it can be safely ignored.
         //     Do we have to make sure to have size be a multiple of alignment?
-        return new double[count];
+        return AllocateArrayDReal(count);
     }
 
     public final AtomicIntegerArray AllocateArrayAtomicord32(int size) {
-        return new AtomicIntegerArray(size);
+        if (m_atomicTop == m_atomicSlots.length) {
+            m_atomicSlots = Arrays.copyOf(m_atomicSlots, m_atomicTop * 2);
+        }
+        AtomicIntegerArray a = m_atomicSlots[m_atomicTop];
+        if (a == null || a.length() < size) {
+            a = new AtomicIntegerArray(reservedCapacity(size));
+            m_atomicSlots[m_atomicTop] = a;
+        } else {
+            // Published to worker threads by the task submission that follows
+            for (int i = 0; i < size; i++) {
+                a.lazySet(i, 0);
+            }
+        }
+        m_atomicTop++;
+        return a;
     }
 
     /**
@@ -242,11 +370,33 @@ public final class DxWorldProcessMemArena {
     }
 
     public final double[][] AllocateArrayDRealDReal(int n) {
-        return new double[n][];
+        if (m_dblPtrTop == m_dblPtrSlots.length) {
+            m_dblPtrSlots = Arrays.copyOf(m_dblPtrSlots, m_dblPtrTop * 2);
+        }
+        double[][] a = m_dblPtrSlots[m_dblPtrTop];
+        if (a == null || a.length < n) {
+            a = new double[reservedCapacity(n)][];
+            m_dblPtrSlots[m_dblPtrTop] = a;
+        } else {
+            Arrays.fill(a, 0, n, null);
+        }
+        m_dblPtrTop++;
+        return a;
     }
 
     public final boolean[] AllocateArrayBool(int n) {
-        return new boolean[n];
+        if (m_boolTop == m_boolSlots.length) {
+            m_boolSlots = Arrays.copyOf(m_boolSlots, m_boolTop * 2);
+        }
+        boolean[] a = m_boolSlots[m_boolTop];
+        if (a == null || a.length < n) {
+            a = new boolean[reservedCapacity(n)];
+            m_boolSlots[m_boolTop] = a;
+        } else {
+            Arrays.fill(a, 0, n, false);
+        }
+        m_boolTop++;
+        return a;
     }
 
     public BlockPointer BEGIN_STATE_SAVE() {
@@ -259,7 +409,9 @@ public final class DxWorldProcessMemArena {
 
     public static DxWorldProcessMemArena allocateTemporary(int memreq,
             Object object, Object object2) {
-        return new DxWorldProcessMemArena();
+        DxWorldProcessMemArena arena = new DxWorldProcessMemArena();
+        arena.m_pAllocEnd = DxUtil.dEFFICIENT_PTR(arena, memreq);
+        return arena;
     }
 
     public static void freeTemporary(DxWorldProcessMemArena arena) {
@@ -268,11 +420,33 @@ public final class DxWorldProcessMemArena {
     }
 
     public DxBody[] AllocateArrayDxBody(int nb) {
-        return new DxBody[nb];
+        if (m_bodyTop == m_bodySlots.length) {
+            m_bodySlots = Arrays.copyOf(m_bodySlots, m_bodyTop * 2);
+        }
+        DxBody[] a = m_bodySlots[m_bodyTop];
+        if (a == null || a.length < nb) {
+            a = new DxBody[reservedCapacity(nb)];
+            m_bodySlots[m_bodyTop] = a;
+        } else {
+            Arrays.fill(a, 0, nb, null);
+        }
+        m_bodyTop++;
+        return a;
     }
 
     public DxJoint[] AllocateArrayDxJoint(int nj) {
-        return new DxJoint[nj];
+        if (m_jointTop == m_jointSlots.length) {
+            m_jointSlots = Arrays.copyOf(m_jointSlots, m_jointTop * 2);
+        }
+        DxJoint[] a = m_jointSlots[m_jointTop];
+        if (a == null || a.length < nj) {
+            a = new DxJoint[reservedCapacity(nj)];
+            m_jointSlots[m_jointTop] = a;
+        } else {
+            Arrays.fill(a, 0, nj, null);
+        }
+        m_jointTop++;
+        return a;
     }
 
 }
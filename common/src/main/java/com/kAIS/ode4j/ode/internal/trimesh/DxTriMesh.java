@@ -149,11 +149,14 @@ public abstract class DxTriMesh extends DxMeshBase implements DTriMesh {
     // (and because ODE basically implements it as polymorphic via #ifdef GIMPCAT
     protected abstract void MakeMatrix(GimGeometry.mat4f transform);
 
+    /** Scratch matrix of computeAABB(), the trimesh copies it if it changed. */
+    private final GimGeometry.mat4f m_computeTransform = new GimGeometry.mat4f();
+
     /*virtual */
     //void dxTriMesh::
     protected void computeAABB() {
         //update trimesh transform
-        GimGeometry.mat4f transform = new GimGeometry.mat4f();
+        GimGeometry.mat4f transform = m_computeTransform;
         IDENTIFY_MATRIX_4X4(transform);
         MakeMatrix(transform);
         m_collision_trimesh.gim_trimesh_set_tranform(transform);
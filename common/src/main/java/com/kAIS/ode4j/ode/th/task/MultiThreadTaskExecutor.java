@@ -60,4 +60,12 @@ public class MultiThreadTaskExecutor extends AbstractTaskExecutor {
     public void flush() {
     }
 
+	/**
+	 * Stop the worker threads once the queued tasks are done. The executor
+	 * must not be used afterwards.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
 }